@@ -24,6 +24,7 @@ import java.time.Duration;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 
 public class AthenaConnection implements Connection {
@@ -49,6 +50,24 @@ public class AthenaConnection implements Connection {
         return new AthenaStatement(configuration, Clock.systemDefaultZone());
     }
 
+    /**
+     * Executes a statement on a new statement object, without blocking the
+     * calling thread.
+     *
+     * @param sql the statement to execute
+     * @return a future that completes with the result set of the statement,
+     *         or exceptionally with an {@link SQLException}
+     * @see AthenaStatement#executeAsync(String)
+     */
+    public CompletableFuture<ResultSet> executeAsync(String sql) {
+        if (!open) {
+            CompletableFuture<ResultSet> future = new CompletableFuture<>();
+            future.completeExceptionally(new SQLException("Connection is closed"));
+            return future;
+        }
+        return new AthenaStatement(configuration, Clock.systemDefaultZone()).executeAsync(sql);
+    }
+
     @Override
     public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
         if (resultSetType == ResultSet.TYPE_FORWARD_ONLY && resultSetConcurrency == ResultSet.CONCUR_READ_ONLY) {
@@ -1,6 +1,7 @@
 package io.burt.athena;
 
 import io.burt.athena.configuration.ConnectionConfigurationFactory;
+import io.burt.athena.configuration.ResultLoadingStrategy;
 
 import javax.sql.DataSource;
 import java.io.PrintWriter;
@@ -90,6 +91,165 @@ public class AthenaDataSource implements DataSource {
         properties.setProperty(AthenaDriver.OUTPUT_LOCATION_PROPERTY_NAME, uri);
     }
 
+    /**
+     * Sets the number of parts of a result to download from S3 at the same time.
+     *
+     * Large results are limited by the throughput of a single HTTP connection.
+     * When this is set to more than one results are split into byte ranges
+     * that are downloaded in parallel and reassembled in order.
+     *
+     * Corresponds to setting the {@link AthenaDriver#S3_DOWNLOAD_PARALLELISM_PROPERTY_NAME}
+     * connection property.
+     *
+     * Defaults to one, which downloads results with a single request.
+     *
+     * @param parallelism the max number of parts to download at the same time
+     */
+    public void setS3DownloadParallelism(int parallelism) {
+        properties.setProperty(AthenaDriver.S3_DOWNLOAD_PARALLELISM_PROPERTY_NAME, String.valueOf(parallelism));
+    }
+
+    /**
+     * Sets the size of the parts that results are split into when downloading
+     * from S3 in parallel.
+     *
+     * Corresponds to setting the {@link AthenaDriver#S3_DOWNLOAD_PART_SIZE_PROPERTY_NAME}
+     * connection property.
+     *
+     * Defaults to 8 MiB.
+     *
+     * @param bytes the size of each part in bytes
+     */
+    public void setS3DownloadPartSize(long bytes) {
+        properties.setProperty(AthenaDriver.S3_DOWNLOAD_PART_SIZE_PROPERTY_NAME, String.valueOf(bytes));
+    }
+
+    /**
+     * Sets how much memory the results of a connection can use to buffer data
+     * downloaded from S3.
+     *
+     * The limit is shared by all results of the connection. When it is
+     * reached downloads pause until the buffered data has been read, which
+     * means that many concurrent results take turns instead of together
+     * running out of memory.
+     *
+     * Corresponds to setting the {@link AthenaDriver#S3_BUFFER_MEMORY_PROPERTY_NAME}
+     * connection property.
+     *
+     * Defaults to 256 MiB.
+     *
+     * @param bytes the max number of bytes to buffer
+     */
+    public void setS3BufferMemory(long bytes) {
+        properties.setProperty(AthenaDriver.S3_BUFFER_MEMORY_PROPERTY_NAME, String.valueOf(bytes));
+    }
+
+    /**
+     * Sets the number of threads that parse results downloaded from S3 ahead
+     * of the code that reads them.
+     *
+     * With threads the CSV of a result is parsed on a background thread while
+     * the rows parsed before it are being processed, which helps when both
+     * parsing and the work done for each row are heavy. The threads are
+     * shared by all results of the connection. With more than one thread
+     * large results are split into segments that are parsed at the same time
+     * on several threads, and the rows are handed out in their original
+     * order. Results loaded with
+     * {@link ResultLoadingStrategy#S3_PUSH} are already parsed on the threads
+     * that download them, and do not use these threads.
+     *
+     * Corresponds to setting the {@link AthenaDriver#S3_PARSER_THREADS_PROPERTY_NAME}
+     * connection property.
+     *
+     * Defaults to zero, which means that results are parsed on the thread
+     * that reads them.
+     *
+     * @param threads the number of parser threads
+     */
+    public void setS3ParserThreads(int threads) {
+        properties.setProperty(AthenaDriver.S3_PARSER_THREADS_PROPERTY_NAME, String.valueOf(threads));
+    }
+
+    /**
+     * Sets whether statements share a poller that checks on all their query
+     * executions together.
+     *
+     * With batch polling the query executions of all statements of a
+     * connection are checked with shared <code>BatchGetQueryExecution</code>
+     * calls of up to fifty query executions each, instead of each statement
+     * making its own <code>GetQueryExecution</code> calls. This reduces the
+     * number of API calls, and the risk of being throttled, when many
+     * statements run at the same time.
+     *
+     * Corresponds to setting the {@link AthenaDriver#BATCH_POLLING_PROPERTY_NAME}
+     * connection property.
+     *
+     * Defaults to false.
+     *
+     * @param batchPolling whether to poll query executions in batches
+     */
+    public void setBatchPolling(boolean batchPolling) {
+        properties.setProperty(AthenaDriver.BATCH_POLLING_PROPERTY_NAME, String.valueOf(batchPolling));
+    }
+
+    /**
+     * Sets whether statements predict when their query executions finish.
+     *
+     * With predictive polling the connection remembers how long earlier
+     * executions of the same query, ignoring literals, queued and ran, and
+     * polls a query execution rarely until shortly before it is expected to
+     * finish and often around that time. This reduces both the number of
+     * <code>GetQueryExecution</code> calls and the time between a query
+     * execution finishing and the statement noticing, for queries that are
+     * run repeatedly. Queries that have not been run before are polled with
+     * the usual backoff. Has no effect with batch polling.
+     *
+     * Corresponds to setting the {@link AthenaDriver#PREDICTIVE_POLLING_PROPERTY_NAME}
+     * connection property.
+     *
+     * Defaults to false.
+     *
+     * @param predictivePolling whether to predict when query executions finish
+     */
+    public void setPredictivePolling(boolean predictivePolling) {
+        properties.setProperty(AthenaDriver.PREDICTIVE_POLLING_PROPERTY_NAME, String.valueOf(predictivePolling));
+    }
+
+    /**
+     * Sets the max number of query executions that the statements of a
+     * connection run at the same time.
+     *
+     * Statements beyond the limit wait for a running query execution to
+     * finish, in the order they were executed, instead of failing when Athena
+     * has too many active queries. Starts that Athena throttles anyway are
+     * retried after a random delay, and lower the limit until starts succeed
+     * again.
+     *
+     * Corresponds to setting the {@link AthenaDriver#MAX_CONCURRENT_QUERIES_PROPERTY_NAME}
+     * connection property.
+     *
+     * Defaults to zero, which means no limit.
+     *
+     * @param maxConcurrentQueries the max number of concurrent query executions
+     */
+    public void setMaxConcurrentQueries(int maxConcurrentQueries) {
+        properties.setProperty(AthenaDriver.MAX_CONCURRENT_QUERIES_PROPERTY_NAME, String.valueOf(maxConcurrentQueries));
+    }
+
+    /**
+     * Sets how results are loaded.
+     *
+     * Corresponds to setting the {@link AthenaDriver#RESULT_LOADING_STRATEGY_PROPERTY_NAME}
+     * connection property.
+     *
+     * Defaults to {@link ResultLoadingStrategy#S3}.
+     *
+     * @param strategy the strategy to load results with
+     */
+    public void setResultLoadingStrategy(ResultLoadingStrategy strategy) {
+        properties.setProperty(AthenaDriver.RESULT_LOADING_STRATEGY_PROPERTY_NAME, strategy.name());
+    }
+
     @Override
     public Connection getConnection() throws SQLException {
         return driver.connect(AthenaDriver.createURL(databaseName), properties);
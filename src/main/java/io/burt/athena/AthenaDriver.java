@@ -3,6 +3,8 @@ package io.burt.athena;
 import io.burt.athena.configuration.ConnectionConfiguration;
 import io.burt.athena.configuration.ConnectionConfigurationFactory;
 import io.burt.athena.configuration.ResultLoadingStrategy;
+import io.burt.athena.result.s3.MemoryBudget;
+import io.burt.athena.result.s3.S3Downloader;
 import software.amazon.awssdk.regions.Region;
 
 import java.sql.Connection;
@@ -12,7 +14,9 @@ import java.sql.DriverPropertyInfo;
 import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
 import java.time.Duration;
+import java.util.Arrays;
 import java.util.Enumeration;
+import java.util.Locale;
 import java.util.Properties;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
@@ -22,6 +26,14 @@ public class AthenaDriver implements Driver {
     public static final String REGION_PROPERTY_NAME = "region";
     public static final String WORK_GROUP_PROPERTY_NAME = "workGroup";
     public static final String OUTPUT_LOCATION_PROPERTY_NAME = "outputLocation";
+    public static final String S3_DOWNLOAD_PARALLELISM_PROPERTY_NAME = "s3DownloadParallelism";
+    public static final String S3_DOWNLOAD_PART_SIZE_PROPERTY_NAME = "s3DownloadPartSize";
+    public static final String S3_BUFFER_MEMORY_PROPERTY_NAME = "s3BufferMemory";
+    public static final String S3_PARSER_THREADS_PROPERTY_NAME = "s3ParserThreads";
+    public static final String BATCH_POLLING_PROPERTY_NAME = "batchPolling";
+    public static final String PREDICTIVE_POLLING_PROPERTY_NAME = "predictivePolling";
+    public static final String MAX_CONCURRENT_QUERIES_PROPERTY_NAME = "maxConcurrentQueries";
+    public static final String RESULT_LOADING_STRATEGY_PROPERTY_NAME = "resultLoadingStrategy";
     public static final String DEFAULT_DATABASE_NAME = "default";
     public static final String JDBC_SUBPROTOCOL = "athena";
 
@@ -115,18 +127,35 @@ public class AthenaDriver implements Driver {
      *                             of the keys
      *                             {@link AthenaDriver#REGION_PROPERTY_NAME},
      *                             {@link AthenaDriver#OUTPUT_LOCATION_PROPERTY_NAME},
-     *                             and {@link AthenaDriver#WORK_GROUP_PROPERTY_NAME}.
+     *                             {@link AthenaDriver#WORK_GROUP_PROPERTY_NAME},
+     *                             {@link AthenaDriver#S3_DOWNLOAD_PARALLELISM_PROPERTY_NAME},
+     *                             {@link AthenaDriver#S3_DOWNLOAD_PART_SIZE_PROPERTY_NAME},
+     *                             {@link AthenaDriver#S3_BUFFER_MEMORY_PROPERTY_NAME},
+     *                             {@link AthenaDriver#S3_PARSER_THREADS_PROPERTY_NAME},
+     *                             {@link AthenaDriver#BATCH_POLLING_PROPERTY_NAME},
+     *                             {@link AthenaDriver#PREDICTIVE_POLLING_PROPERTY_NAME},
+     *                             {@link AthenaDriver#MAX_CONCURRENT_QUERIES_PROPERTY_NAME},
+     *                             and {@link AthenaDriver#RESULT_LOADING_STRATEGY_PROPERTY_NAME}.
      *                             All other keys will be ignored.
      * @return a JDBC connection ready to execute queries
+     * @throws SQLException when a connection property has an invalid value
      */
     @Override
-    public Connection connect(String url, Properties connectionProperties) {
+    public Connection connect(String url, Properties connectionProperties) throws SQLException {
         Matcher m = matchURL(url);
         if (m.matches()) {
             String databaseName = m.group(1) == null ? DEFAULT_DATABASE_NAME : m.group(1);
             Region region = connectionProperties.containsKey(REGION_PROPERTY_NAME) ? Region.of(connectionProperties.getProperty(REGION_PROPERTY_NAME)) : null;
             String workGroup = connectionProperties.getProperty(WORK_GROUP_PROPERTY_NAME);
             String outputLocation = connectionProperties.getProperty(OUTPUT_LOCATION_PROPERTY_NAME);
+            int s3DownloadParallelism = intProperty(connectionProperties, S3_DOWNLOAD_PARALLELISM_PROPERTY_NAME, S3Downloader.DEFAULT_PARALLELISM);
+            long s3DownloadPartSize = longProperty(connectionProperties, S3_DOWNLOAD_PART_SIZE_PROPERTY_NAME, S3Downloader.DEFAULT_PART_SIZE);
+            long s3BufferMemory = longProperty(connectionProperties, S3_BUFFER_MEMORY_PROPERTY_NAME, MemoryBudget.DEFAULT_CAPACITY);
+            int s3ParserThreads = intProperty(connectionProperties, S3_PARSER_THREADS_PROPERTY_NAME, 0);
+            boolean batchPolling = booleanProperty(connectionProperties, BATCH_POLLING_PROPERTY_NAME, false);
+            boolean predictivePolling = booleanProperty(connectionProperties, PREDICTIVE_POLLING_PROPERTY_NAME, false);
+            int maxConcurrentQueries = intProperty(connectionProperties, MAX_CONCURRENT_QUERIES_PROPERTY_NAME, 0);
+            ResultLoadingStrategy resultLoadingStrategy = resultLoadingStrategyProperty(connectionProperties);
             ConnectionConfiguration configuration = connectionConfigurationFactory.createConnectionConfiguration(
                     region,
                     databaseName,
@@ -134,7 +163,14 @@ public class AthenaDriver implements Driver {
                     outputLocation,
                     Duration.ofMinutes(1),
                     Duration.ofMinutes(30),
-                    ResultLoadingStrategy.S3
+                    resultLoadingStrategy,
+                    s3DownloadParallelism,
+                    s3DownloadPartSize,
+                    s3BufferMemory,
+                    s3ParserThreads,
+                    batchPolling,
+                    predictivePolling,
+                    maxConcurrentQueries
             );
             return new AthenaConnection(configuration);
         } else {
@@ -142,6 +178,56 @@ public class AthenaDriver implements Driver {
         }
     }
 
+    private ResultLoadingStrategy resultLoadingStrategyProperty(Properties connectionProperties) throws SQLException {
+        String value = connectionProperties.getProperty(RESULT_LOADING_STRATEGY_PROPERTY_NAME);
+        if (value == null) {
+            return ResultLoadingStrategy.S3;
+        }
+        try {
+            return ResultLoadingStrategy.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new SQLException(String.format("Invalid value for connection property \"%s\": \"%s\" is not one of %s", RESULT_LOADING_STRATEGY_PROPERTY_NAME, value, Arrays.toString(ResultLoadingStrategy.values())), e);
+        }
+    }
+
+    private boolean booleanProperty(Properties connectionProperties, String name, boolean defaultValue) throws SQLException {
+        String value = connectionProperties.getProperty(name);
+        if (value == null) {
+            return defaultValue;
+        } else if (value.trim().equalsIgnoreCase("true")) {
+            return true;
+        } else if (value.trim().equalsIgnoreCase("false")) {
+            return false;
+        } else {
+            throw new SQLException(String.format("Invalid value for connection property \"%s\": \"%s\" is not true or false", name, value));
+        }
+    }
+
+    private int intProperty(Properties connectionProperties, String name, int defaultValue) throws SQLException {
+        long value = longProperty(connectionProperties, name, defaultValue);
+        if (value > Integer.MAX_VALUE) {
+            throw new SQLException(String.format("Invalid value for connection property \"%s\": %d is too large", name, value));
+        }
+        return (int) value;
+    }
+
+    private long longProperty(Properties connectionProperties, String name, long defaultValue) throws SQLException {
+        String value = connectionProperties.getProperty(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        long n;
+        try {
+            n = Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new SQLException(String.format("Invalid value for connection property \"%s\": \"%s\" is not a number", name, value), e);
+        }
+        if (n < 1) {
+            throw new SQLException(String.format("Invalid value for connection property \"%s\": %d is not positive", name, n));
+        }
+        return n;
+    }
+
     private Matcher matchURL(String url) {
         return URL_PATTERN.matcher(url);
     }
@@ -3,11 +3,18 @@ package io.burt.athena;
 import io.burt.athena.result.AthenaArray;
 import io.burt.athena.result.Result;
 import io.burt.athena.result.ResultPosition;
+import io.burt.athena.result.batch.ColumnBatch;
+import io.burt.athena.result.batch.ColumnBatchReader;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.math.BigDecimal;
 import java.net.URL;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 import java.sql.Array;
 import java.sql.Blob;
@@ -45,12 +52,14 @@ public class AthenaResultSet implements ResultSet {
     private boolean open;
     private Result result;
     private boolean lastWasNull;
+    private ColumnBatchReader batchReader;
 
     public AthenaResultSet(Result result, AthenaStatement statement) {
         this.statement = statement;
         this.open = true;
         this.result = result;
         this.lastWasNull = false;
+        this.batchReader = null;
     }
 
     @Override
@@ -97,6 +106,72 @@ public class AthenaResultSet implements ResultSet {
         return result.next();
     }
 
+    /**
+     * Reads the next rows of the result set into a batch of typed column
+     * vectors.
+     *
+     * Numeric columns are read as <code>long</code> or <code>double</code>
+     * arrays, and all other columns as dictionary encoded strings, with a
+     * null bitmap per column. Values are read directly from the underlying
+     * result, without the overhead of a call per cell through this class.
+     *
+     * Use {@link #unwrap(Class)} to get at this method through a regular
+     * {@link ResultSet}. After the call the result set is positioned on the
+     * last row of the batch.
+     *
+     * @param maxRows the max number of rows in the batch, the arrays of the
+     *                batch grow with the rows that are read, so this can be
+     *                larger than the number of rows of the result
+     * @return a batch of rows, with zero rows when there are no more rows
+     * @throws SQLException if the result set is closed, if maxRows is not
+     *                      positive, or if reading the rows fails
+     */
+    public ColumnBatch nextBatch(int maxRows) throws SQLException {
+        checkClosed();
+        if (maxRows < 1) {
+            throw new SQLException(String.format("Batch size must be positive (got %d)", maxRows));
+        }
+        if (batchReader == null) {
+            batchReader = new ColumnBatchReader(result);
+        }
+        return batchReader.read(maxRows);
+    }
+
+    /**
+     * Writes the remaining rows of the result set to a channel without
+     * parsing them.
+     *
+     * This is only supported when results are loaded from S3, and only before
+     * any rows have been read. The rows are written as the CSV Athena
+     * produced, without the header row, and the downloaded buffers are
+     * written as they are, without copying.
+     *
+     * @param target the channel to write to
+     * @return the number of bytes written
+     * @throws SQLException if the result set is closed, if raw transfers are
+     *                      not supported by the result loading strategy, if
+     *                      rows have already been read, or if downloading or
+     *                      writing fails
+     */
+    public long transferTo(WritableByteChannel target) throws SQLException {
+        checkClosed();
+        return result.transferTo(target);
+    }
+
+    /**
+     * Writes the remaining rows of the result set to a stream without
+     * parsing them.
+     *
+     * @param target the stream to write to, it is not closed
+     * @return the number of bytes written
+     * @throws SQLException under the same conditions as
+     *                      {@link #transferTo(WritableByteChannel)}
+     * @see #transferTo(WritableByteChannel)
+     */
+    public long transferTo(OutputStream target) throws SQLException {
+        return transferTo(new OutputStreamChannel(target));
+    }
+
     @Override
     public ResultSetMetaData getMetaData() throws SQLException {
         checkClosed();
@@ -333,48 +408,44 @@ public class AthenaResultSet implements ResultSet {
         return convertToShort(getString(columnLabel));
     }
 
-    private int convertToInteger(String str) throws SQLException {
-        if (str == null) {
-            return 0;
-        } else {
-            try {
-                return Integer.valueOf(str);
-            } catch (NumberFormatException nfe) {
-                throw new SQLDataException(String.format("Cannot convert \"%s\" to integer", str), nfe);
-            }
-        }
-    }
-
     @Override
     public int getInt(int columnIndex) throws SQLException {
-        return convertToInteger(getString(columnIndex));
+        checkClosed();
+        checkPosition(columnIndex);
+        try {
+            int value = result.getInt(columnIndex);
+            lastWasNull = value == 0 && result.isNull(columnIndex);
+            return value;
+        } catch (NumberFormatException nfe) {
+            throw new SQLDataException(String.format("Cannot convert \"%s\" to integer", result.getString(columnIndex)), nfe);
+        }
     }
 
     @Override
     public int getInt(String columnLabel) throws SQLException {
-        return convertToInteger(getString(columnLabel));
-    }
-
-    private long convertToLong(String str) throws SQLException {
-        if (str == null) {
-            return 0;
-        } else {
-            try {
-                return Long.valueOf(str);
-            } catch (NumberFormatException nfe) {
-                throw new SQLDataException(String.format("Cannot convert \"%s\" to long", str), nfe);
-            }
-        }
+        checkClosed();
+        checkPosition(columnLabel);
+        return getInt(findColumn(columnLabel));
     }
 
     @Override
     public long getLong(int columnIndex) throws SQLException {
-        return convertToLong(getString(columnIndex));
+        checkClosed();
+        checkPosition(columnIndex);
+        try {
+            long value = result.getLong(columnIndex);
+            lastWasNull = value == 0 && result.isNull(columnIndex);
+            return value;
+        } catch (NumberFormatException nfe) {
+            throw new SQLDataException(String.format("Cannot convert \"%s\" to long", result.getString(columnIndex)), nfe);
+        }
     }
 
     @Override
     public long getLong(String columnLabel) throws SQLException {
-        return convertToLong(getString(columnLabel));
+        checkClosed();
+        checkPosition(columnLabel);
+        return getLong(findColumn(columnLabel));
     }
 
     private float convertToFloat(String str) throws SQLException {
@@ -404,31 +475,28 @@ public class AthenaResultSet implements ResultSet {
         return convertToFloat(getString(columnLabel));
     }
 
-    private double convertToDouble(String str) throws SQLException {
-        if (str == null) {
-            return 0d;
-        } else {
-            try {
-                Double d = Double.valueOf(str);
-                if (d.isInfinite()) {
-                    throw new SQLDataException(String.format("Cannot convert \"%s\" to double", str));
-                } else {
-                    return d;
-                }
-            } catch (NumberFormatException nfe) {
-                throw new SQLDataException(String.format("Cannot convert \"%s\" to double", str), nfe);
-            }
-        }
-    }
-
     @Override
     public double getDouble(int columnIndex) throws SQLException {
-        return convertToDouble(getString(columnIndex));
+        checkClosed();
+        checkPosition(columnIndex);
+        double value;
+        try {
+            value = result.getDouble(columnIndex);
+        } catch (NumberFormatException nfe) {
+            throw new SQLDataException(String.format("Cannot convert \"%s\" to double", result.getString(columnIndex)), nfe);
+        }
+        if (Double.isInfinite(value)) {
+            throw new SQLDataException(String.format("Cannot convert \"%s\" to double", result.getString(columnIndex)));
+        }
+        lastWasNull = value == 0 && result.isNull(columnIndex);
+        return value;
     }
 
     @Override
     public double getDouble(String columnLabel) throws SQLException {
-        return convertToDouble(getString(columnLabel));
+        checkClosed();
+        checkPosition(columnLabel);
+        return getDouble(findColumn(columnLabel));
     }
 
     private BigDecimal convertToBigDecimal(String str) throws SQLException {
@@ -1350,4 +1418,40 @@ public class AthenaResultSet implements ResultSet {
     public void updateNClob(String columnLabel, Reader reader) throws SQLException {
         mutationsNotSupported();
     }
+
+    /**
+     * Unlike the channels created by {@link java.nio.channels.Channels}, this
+     * writes the backing arrays of heap buffers directly instead of copying
+     * them to a temporary array first.
+     */
+    private static class OutputStreamChannel implements WritableByteChannel {
+        private final OutputStream stream;
+
+        OutputStreamChannel(OutputStream stream) {
+            this.stream = stream;
+        }
+
+        @Override
+        public int write(ByteBuffer source) throws IOException {
+            int length = source.remaining();
+            if (source.hasArray()) {
+                stream.write(source.array(), source.arrayOffset() + source.position(), length);
+                ((Buffer) source).position(source.limit());
+            } else {
+                byte[] bytes = new byte[length];
+                source.get(bytes);
+                stream.write(bytes);
+            }
+            return length;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
 }
@@ -18,6 +18,18 @@ public class AthenaResultSetMetaData implements ResultSetMetaData {
         this.metaData = metaData;
     }
 
+    /**
+     * Creates metadata with the same columns, but for another query
+     * execution, for example for a query whose columns were loaded by running
+     * another query.
+     *
+     * @param queryExecution the query execution the columns belong to
+     * @return metadata for the query execution
+     */
+    public AthenaResultSetMetaData withQueryExecution(QueryExecution queryExecution) {
+        return new AthenaResultSetMetaData(queryExecution, metaData);
+    }
+
     private ColumnInfo getColumn(int n) {
         return metaData.columnInfo().get(n - 1);
     }
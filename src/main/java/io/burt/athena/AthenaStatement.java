@@ -1,8 +1,15 @@
 package io.burt.athena;
 
+import io.burt.athena.admission.AdmissionController;
 import io.burt.athena.configuration.ConnectionConfiguration;
+import io.burt.athena.polling.AsyncPollingStrategy;
+import io.burt.athena.polling.BatchQueryExecutionPoller;
+import io.burt.athena.polling.PollingStrategies;
+import io.burt.athena.polling.PollingStrategy;
 import software.amazon.awssdk.services.athena.AthenaAsyncClient;
 import software.amazon.awssdk.services.athena.model.QueryExecution;
+import software.amazon.awssdk.services.athena.model.QueryExecutionState;
+import software.amazon.awssdk.services.athena.model.StartQueryExecutionResponse;
 
 import java.sql.Connection;
 import java.sql.ResultSet;
@@ -15,20 +22,27 @@ import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 public class AthenaStatement implements Statement {
     private final AthenaAsyncClient athenaClient;
     private Clock clock;
 
     private ConnectionConfiguration configuration;
-    private String queryExecutionId;
-    private ResultSet currentResultSet;
+    private volatile String queryExecutionId;
+    private volatile ResultSet currentResultSet;
     private Function<String, Optional<String>> clientRequestTokenProvider;
     private boolean open;
+    private volatile AdmissionController admittedBy;
 
     AthenaStatement(ConnectionConfiguration configuration, Clock clock) {
         this.configuration = configuration;
@@ -79,8 +93,16 @@ public class AthenaStatement implements Statement {
         }
         try {
             Instant deadline = clock.instant().plus(configuration.queryTimeout());
-            queryExecutionId = startQueryExecution(sql, deadline);
-            currentResultSet = configuration.pollingStrategy().pollUntilCompleted(this::poll, deadline);
+            Optional<String> clientRequestToken = clientRequestTokenProvider.apply(sql);
+            String query = configuration.prepareQuery(sql, clientRequestToken);
+            queryExecutionId = startQueryExecution(query, clientRequestToken, deadline);
+            BatchQueryExecutionPoller poller = configuration.queryExecutionPoller();
+            if (poller == null) {
+                PollingStrategy pollingStrategy = configuration.pollingStrategy().forQuery(sql);
+                currentResultSet = pollingStrategy.pollUntilCompleted(d -> poll(d, pollingStrategy), deadline);
+            } else {
+                currentResultSet = awaitCompletion(poller, deadline);
+            }
             return currentResultSet != null;
         } catch (InterruptedException ie) {
             Thread.currentThread().interrupt();
@@ -101,27 +123,290 @@ public class AthenaStatement implements Statement {
             SQLException eee = new SQLException(ee.getCause());
             eee.addSuppressed(ee);
             throw eee;
+        } finally {
+            releaseAdmission();
+        }
+    }
+
+    /**
+     * Executes a statement without blocking the calling thread.
+     *
+     * The query execution is started and polled with the asynchronous Athena
+     * client, and the delays between polls are scheduled on the timer of the
+     * connection, so no thread waits while the query runs. When the
+     * connection polls in batches the shared poller is used instead.
+     *
+     * A polling strategy that can only poll by blocking, that is one that is
+     * not an {@link AsyncPollingStrategy}, is not used here. The query
+     * execution is then polled with a backoff from 10ms up to 5s instead.
+     *
+     * Like {@link #execute(String)} this closes the result set of the
+     * previous execution, and the statement should not execute anything else
+     * before the returned future has completed. Cancelling the future stops
+     * the query execution.
+     *
+     * @param sql the statement to execute
+     * @return a future that completes with the result set of the statement,
+     *         or exceptionally with an {@link SQLException}, or a
+     *         {@link SQLTimeoutException} when the query timeout is reached
+     */
+    public CompletableFuture<ResultSet> executeAsync(String sql) {
+        return executeAsync(sql, true);
+    }
+
+    /**
+     * @param prepare whether to prepare the statement with the configuration
+     *                and send it with a client request token, or to send it
+     *                as it is
+     */
+    private CompletableFuture<ResultSet> executeAsync(String sql, boolean prepare) {
+        CompletableFuture<ResultSet> resultSetFuture = new CompletableFuture<>();
+        try {
+            checkClosed();
+            if (currentResultSet != null) {
+                currentResultSet.close();
+                currentResultSet = null;
+            }
+        } catch (SQLException e) {
+            resultSetFuture.completeExceptionally(e);
+            return resultSetFuture;
+        }
+        queryExecutionId = null;
+        Instant deadline = clock.instant().plus(configuration.queryTimeout());
+        AdmissionController admissionController = configuration.admissionController();
+        CompletableFuture<String> started;
+        try {
+            Optional<String> clientRequestToken = prepare ? clientRequestTokenProvider.apply(sql) : Optional.empty();
+            String query = prepare ? configuration.prepareQuery(sql, clientRequestToken) : sql;
+            if (admissionController == null) {
+                started = callWithTimeout(() -> startQueryExecutionAsync(query, clientRequestToken), networkTimeoutMillis(deadline));
+            } else {
+                CompletableFuture<String> admitted = admitQueryExecution(admissionController, query, clientRequestToken, deadline);
+                resultSetFuture.whenComplete((resultSet, error) -> admitted.cancel(false));
+                started = admitted.thenApply(id -> {
+                    admittedBy = admissionController;
+                    return id;
+                });
+            }
+        } catch (RuntimeException e) {
+            resultSetFuture.completeExceptionally(new SQLException(e));
+            return resultSetFuture;
+        }
+        started
+                .thenCompose(id -> {
+                    queryExecutionId = id;
+                    return awaitCompletionAsync(id, sql, deadline, resultSetFuture);
+                })
+                .whenComplete((resultSet, error) -> {
+                    releaseAdmission();
+                    if (error != null) {
+                        resultSetFuture.completeExceptionally(toSQLException(error));
+                    } else {
+                        currentResultSet = resultSet;
+                        if (!resultSetFuture.complete(resultSet) && resultSet != null) {
+                            currentResultSet = null;
+                            try {
+                                resultSet.close();
+                            } catch (SQLException e) {
+                                // the result set is not used by anyone
+                            }
+                        }
+                    }
+                });
+        resultSetFuture.whenComplete((resultSet, error) -> {
+            if (resultSetFuture.isCancelled()) {
+                started.thenAccept(id -> athenaClient.stopQueryExecution(b -> b.queryExecutionId(id)));
+            }
+        });
+        return resultSetFuture;
+    }
+
+    /**
+     * Polls the query execution with the polling strategy of the connection,
+     * or with the default backoff when it cannot poll without blocking, or
+     * with the shared poller when the connection polls in batches.
+     */
+    private CompletionStage<ResultSet> awaitCompletionAsync(String id, String sql, Instant deadline, CompletableFuture<ResultSet> resultSetFuture) {
+        BatchQueryExecutionPoller poller = configuration.queryExecutionPoller();
+        if (poller == null) {
+            PollingStrategy pollingStrategy = configuration.pollingStrategy().forQuery(sql);
+            AsyncPollingStrategy asyncPollingStrategy;
+            if (pollingStrategy instanceof AsyncPollingStrategy) {
+                asyncPollingStrategy = (AsyncPollingStrategy) pollingStrategy;
+            } else {
+                asyncPollingStrategy = PollingStrategies.asyncBackoff(Duration.ofMillis(10), Duration.ofSeconds(5), 2L, clock);
+            }
+            return asyncPollingStrategy.pollUntilCompletedAsync(d -> pollAsync(id, d, pollingStrategy, resultSetFuture), deadline, configuration.scheduler());
+        } else {
+            CompletableFuture<QueryExecution> completion = callWithTimeout(() -> poller.awaitCompletion(id), Math.max(0, Duration.between(clock.instant(), deadline).toMillis()));
+            resultSetFuture.whenComplete((resultSet, error) -> completion.cancel(false));
+            return completion.thenCompose(queryExecution -> handleQueryExecutionAsync(queryExecution).thenApply(resultSet -> resultSet.orElse(null)));
+        }
+    }
+
+    private CompletionStage<Optional<ResultSet>> pollAsync(String id, Instant deadline, PollingStrategy pollingStrategy, CompletableFuture<ResultSet> resultSetFuture) {
+        if (resultSetFuture.isDone()) {
+            CompletableFuture<Optional<ResultSet>> stopped = new CompletableFuture<>();
+            stopped.completeExceptionally(new CancellationException());
+            return stopped;
+        }
+        return callWithTimeout(() -> athenaClient.getQueryExecution(b -> b.queryExecutionId(id)), networkTimeoutMillis(deadline))
+                .thenCompose(response -> {
+                    recordCompletion(pollingStrategy, response.queryExecution());
+                    return handleQueryExecutionAsync(response.queryExecution());
+                });
+    }
+
+    private CompletableFuture<Optional<ResultSet>> handleQueryExecutionAsync(QueryExecution queryExecution) {
+        CompletableFuture<Optional<ResultSet>> future = new CompletableFuture<>();
+        try {
+            future.complete(handleQueryExecution(queryExecution));
+        } catch (SQLException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * @return a future that completes like the future returned by the call,
+     *         or exceptionally with a {@link TimeoutException} if that has not
+     *         completed within the timeout
+     */
+    private <T> CompletableFuture<T> callWithTimeout(Supplier<CompletableFuture<T>> call, long timeoutMillis) {
+        CompletableFuture<T> timedFuture = new CompletableFuture<>();
+        ScheduledFuture<?> timeout = configuration.scheduler().schedule(() -> timedFuture.completeExceptionally(new TimeoutException()), timeoutMillis, TimeUnit.MILLISECONDS);
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+        future.whenComplete((value, error) -> {
+            timeout.cancel(false);
+            if (error == null) {
+                timedFuture.complete(value);
+            } else {
+                timedFuture.completeExceptionally(error);
+            }
+        });
+        return timedFuture;
+    }
+
+    /**
+     * Converts the errors of an asynchronous execution to the same exceptions
+     * that {@link #execute(String)} throws, and stops query executions that
+     * time out.
+     */
+    private SQLException toSQLException(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof SQLException) {
+            return (SQLException) cause;
+        } else if (cause instanceof TimeoutException) {
+            SQLTimeoutException ste = new SQLTimeoutException(cause);
+            if (queryExecutionId != null) {
+                try {
+                    athenaClient.stopQueryExecution(b -> b.queryExecutionId(queryExecutionId));
+                } catch (Exception e) {
+                    ste.addSuppressed(e);
+                }
+            }
+            return ste;
+        } else {
+            return new SQLException(cause);
         }
     }
 
-    private String startQueryExecution(String sql, Instant deadline) throws InterruptedException, ExecutionException, TimeoutException {
+    private String startQueryExecution(String query, Optional<String> clientRequestToken, Instant deadline) throws InterruptedException, ExecutionException, TimeoutException {
+        AdmissionController admissionController = configuration.admissionController();
+        if (admissionController == null) {
+            return startQueryExecutionAsync(query, clientRequestToken).get(networkTimeoutMillis(deadline), TimeUnit.MILLISECONDS);
+        }
+        CompletableFuture<String> admitted = admitQueryExecution(admissionController, query, clientRequestToken, deadline);
+        try {
+            String id = admitted.get();
+            admittedBy = admissionController;
+            return id;
+        } catch (ExecutionException ee) {
+            if (ee.getCause() instanceof TimeoutException) {
+                throw (TimeoutException) ee.getCause();
+            }
+            throw ee;
+        } finally {
+            admitted.cancel(false);
+        }
+    }
+
+    /**
+     * Starts the query execution when the admission controller of the
+     * connection admits it. The time spent waiting counts against the query
+     * timeout, and the start itself against the network timeout.
+     *
+     * Cancelling the returned future gives up the place in the queue, and
+     * stops the query execution if it is started anyway. The admission must
+     * be released with {@link #releaseAdmission()} when the
+     * statement is done with the query execution.
+     *
+     * Each attempt to start the query execution sends the same prepared
+     * statement and client request token.
+     */
+    private CompletableFuture<String> admitQueryExecution(AdmissionController admissionController, String query, Optional<String> clientRequestToken, Instant deadline) {
+        return admissionController.admit(
+                () -> callWithTimeout(() -> startQueryExecutionAsync(query, clientRequestToken), networkTimeoutMillis(deadline)),
+                id -> athenaClient.stopQueryExecution(b -> b.queryExecutionId(id)),
+                Duration.between(clock.instant(), deadline)
+        );
+    }
+
+    private void releaseAdmission() {
+        AdmissionController admissionController = admittedBy;
+        admittedBy = null;
+        if (admissionController != null) {
+            admissionController.release();
+        }
+    }
+
+    private CompletableFuture<String> startQueryExecutionAsync(String query, Optional<String> clientRequestToken) {
         return athenaClient
                 .startQueryExecution(b -> {
-                    b.queryString(sql);
+                    b.queryString(query);
                     b.workGroup(configuration.workGroupName());
                     b.queryExecutionContext(bb -> bb.database(configuration.databaseName()));
                     b.resultConfiguration(bb -> bb.outputLocation(configuration.outputLocation()));
-                    clientRequestTokenProvider.apply(sql).ifPresent(b::clientRequestToken);
+                    clientRequestToken.ifPresent(b::clientRequestToken);
                 })
-                .get(networkTimeoutMillis(deadline), TimeUnit.MILLISECONDS)
-                .queryExecutionId();
+                .thenApply(StartQueryExecutionResponse::queryExecutionId);
     }
 
-    private Optional<ResultSet> poll(Instant deadline) throws SQLException, InterruptedException, ExecutionException, TimeoutException {
+    private Optional<ResultSet> poll(Instant deadline, PollingStrategy pollingStrategy) throws SQLException, InterruptedException, ExecutionException, TimeoutException {
         QueryExecution queryExecution = athenaClient
                 .getQueryExecution(b -> b.queryExecutionId(queryExecutionId))
                 .get(networkTimeoutMillis(deadline), TimeUnit.MILLISECONDS)
                 .queryExecution();
+        recordCompletion(pollingStrategy, queryExecution);
+        return handleQueryExecution(queryExecution);
+    }
+
+    private void recordCompletion(PollingStrategy pollingStrategy, QueryExecution queryExecution) {
+        if (queryExecution.status().state() == QueryExecutionState.SUCCEEDED) {
+            pollingStrategy.recordCompletion(queryExecution);
+        }
+    }
+
+    private ResultSet awaitCompletion(BatchQueryExecutionPoller poller, Instant deadline) throws SQLException, InterruptedException, ExecutionException, TimeoutException {
+        CompletableFuture<QueryExecution> completion = poller.awaitCompletion(queryExecutionId);
+        try {
+            long millis = Math.max(0, Duration.between(clock.instant(), deadline).toMillis());
+            return handleQueryExecution(completion.get(millis, TimeUnit.MILLISECONDS)).orElse(null);
+        } finally {
+            completion.cancel(false);
+        }
+    }
+
+    private Optional<ResultSet> handleQueryExecution(QueryExecution queryExecution) throws SQLException {
         switch (queryExecution.status().state()) {
             case SUCCEEDED:
                 return Optional.of(createResultSet(queryExecution));
@@ -139,11 +424,21 @@ public class AthenaStatement implements Statement {
 
     private ResultSet createResultSet(QueryExecution queryExecution) {
         return new AthenaResultSet(
-                configuration.createResult(queryExecution),
+                configuration.createResult(queryExecution, this::executeHelperQuery),
                 this
         );
     }
 
+    /**
+     * Executes a query that a result needs, like the query that describes the
+     * columns of an unloaded query, in a statement of its own. The query is
+     * admitted, started, and polled like the queries of this statement, but
+     * it is sent as it is.
+     */
+    private CompletableFuture<ResultSet> executeHelperQuery(String sql) {
+        return new AthenaStatement(configuration, clock).executeAsync(sql, false);
+    }
+
     private void checkClosed() throws SQLException {
         if (!open) {
             throw new SQLException("Statement is closed");
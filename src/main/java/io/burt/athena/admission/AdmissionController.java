@@ -0,0 +1,245 @@
+package io.burt.athena.admission;
+
+import software.amazon.awssdk.core.exception.SdkServiceException;
+import software.amazon.awssdk.services.athena.model.TooManyRequestsException;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Limits how many query executions the statements of a connection run at
+ * the same time.
+ *
+ * Athena limits the number of active queries of an account, and fails
+ * <code>StartQueryExecution</code> with {@link TooManyRequestsException}
+ * when there are too many. Instead of letting all statements of a burst
+ * fail, the controller starts no more query executions than its limit at a
+ * time, lets the rest wait in the order they arrived, and retries starts
+ * that are throttled after a random part of an exponentially growing delay.
+ *
+ * The limit adapts to what Athena allows: it is halved when a start is
+ * throttled, and grows by the inverse of itself for each successful start,
+ * that is by about one for each limit-full of successful starts, but never
+ * beyond the configured max.
+ *
+ * Each admitted query execution holds its place until {@link #release()}
+ * is called, which should be when the query execution has finished.
+ */
+public class AdmissionController {
+    public static final int DEFAULT_MAX_ATTEMPTS = 10;
+    public static final Duration DEFAULT_FIRST_RETRY_DELAY = Duration.ofMillis(100);
+    public static final Duration DEFAULT_MAX_RETRY_DELAY = Duration.ofSeconds(10);
+
+    private final int maxConcurrency;
+    private final int maxAttempts;
+    private final Duration firstRetryDelay;
+    private final Duration maxRetryDelay;
+    private final ScheduledExecutorService scheduler;
+    private final Random random;
+    private final Deque<Admission<?>> waiting;
+
+    private double limit;
+    private int active;
+    private int generation;
+
+    /**
+     * @param maxConcurrency the max number of query executions to run at
+     *                       the same time
+     * @param scheduler the timer to schedule retries and timeouts on
+     */
+    public AdmissionController(int maxConcurrency, ScheduledExecutorService scheduler) {
+        this(maxConcurrency, DEFAULT_MAX_ATTEMPTS, DEFAULT_FIRST_RETRY_DELAY, DEFAULT_MAX_RETRY_DELAY, scheduler, new Random());
+    }
+
+    AdmissionController(int maxConcurrency, int maxAttempts, Duration firstRetryDelay, Duration maxRetryDelay, ScheduledExecutorService scheduler, Random random) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException(String.format("Max concurrency must be at least one (got %d)", maxConcurrency));
+        }
+        this.maxConcurrency = maxConcurrency;
+        this.maxAttempts = maxAttempts;
+        this.firstRetryDelay = firstRetryDelay;
+        this.maxRetryDelay = maxRetryDelay;
+        this.scheduler = scheduler;
+        this.random = random;
+        this.waiting = new ArrayDeque<>();
+        this.limit = maxConcurrency;
+        this.active = 0;
+        this.generation = 0;
+    }
+
+    /**
+     * Starts a query execution when there is room for it.
+     *
+     * Cancelling the returned future gives up the place in the queue. When
+     * the start has already been called and succeeds anyway, after the
+     * future was cancelled or timed out, its place is released right away
+     * and the started query execution is stopped, since no one will wait for
+     * it.
+     *
+     * @param start starts the query execution
+     * @param stop stops a query execution that was started after the caller
+     *             had given up
+     * @param maxWait how long to wait for the query execution to be started,
+     *                including the time spent in the queue and retrying
+     * @return a future that completes like the future returned by the start
+     *         when it was admitted, or exceptionally with a
+     *         {@link TimeoutException} when it was not started in time, or
+     *         with the last throttling error after the max number of attempts
+     */
+    public <T> CompletableFuture<T> admit(Supplier<CompletableFuture<T>> start, Consumer<T> stop, Duration maxWait) {
+        Admission<T> admission = new Admission<>(start, stop);
+        ScheduledFuture<?> timeout = scheduler.schedule(() -> admission.future.completeExceptionally(new TimeoutException("Query execution was not started in time")), Math.max(0, maxWait.toMillis()), TimeUnit.MILLISECONDS);
+        admission.future.whenComplete((value, error) -> {
+            timeout.cancel(false);
+            if (error != null) {
+                synchronized (this) {
+                    waiting.remove(admission);
+                }
+            }
+        });
+        synchronized (this) {
+            waiting.addLast(admission);
+        }
+        drain();
+        return admission.future;
+    }
+
+    /**
+     * Gives up the place of an admitted query execution, letting the next
+     * waiting one start.
+     */
+    public void release() {
+        synchronized (this) {
+            active--;
+        }
+        drain();
+    }
+
+    synchronized int limit() {
+        return (int) limit;
+    }
+
+    synchronized int activeCount() {
+        return active;
+    }
+
+    synchronized int waitingCount() {
+        return waiting.size();
+    }
+
+    private void drain() {
+        List<Admission<?>> admitted = new ArrayList<>();
+        synchronized (this) {
+            while (active < (int) limit && !waiting.isEmpty()) {
+                Admission<?> admission = waiting.pollFirst();
+                if (!admission.future.isDone()) {
+                    active++;
+                    admission.generation = generation;
+                    admitted.add(admission);
+                }
+            }
+        }
+        for (Admission<?> admission : admitted) {
+            start(admission);
+        }
+    }
+
+    private <T> void start(Admission<T> admission) {
+        admission.attempts++;
+        CompletableFuture<T> started;
+        try {
+            started = admission.start.get();
+        } catch (RuntimeException e) {
+            started = new CompletableFuture<>();
+            started.completeExceptionally(e);
+        }
+        started.whenComplete((value, error) -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause == null) {
+                synchronized (this) {
+                    limit = Math.min(maxConcurrency, limit + 1 / limit);
+                }
+                if (!admission.future.complete(value)) {
+                    release();
+                    admission.stop.accept(value);
+                }
+            } else if (isThrottling(cause) && admission.attempts < maxAttempts && !admission.future.isDone()) {
+                retry(admission);
+            } else {
+                release();
+                admission.future.completeExceptionally(cause);
+            }
+        });
+    }
+
+    private static boolean isThrottling(Throwable error) {
+        return error instanceof TooManyRequestsException || (error instanceof SdkServiceException && ((SdkServiceException) error).isThrottlingException());
+    }
+
+    /**
+     * Halves the limit, unless it has already been halved since the throttled
+     * start was admitted, and puts the start first in the queue again after
+     * the retry delay.
+     */
+    private void retry(Admission<?> admission) {
+        synchronized (this) {
+            active--;
+            if (admission.generation == generation) {
+                limit = Math.max(1, limit / 2);
+                generation++;
+            }
+        }
+        try {
+            scheduler.schedule(() -> {
+                synchronized (this) {
+                    if (!admission.future.isDone()) {
+                        waiting.addFirst(admission);
+                    }
+                }
+                drain();
+            }, retryDelay(admission.attempts).toMillis(), TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            admission.future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * @return a random delay between zero and the first retry delay doubled
+     *         for each attempt after the first, but at most the max retry
+     *         delay
+     */
+    Duration retryDelay(int attempts) {
+        Duration backoff = firstRetryDelay.multipliedBy(1L << Math.min(attempts - 1, 20));
+        if (backoff.compareTo(maxRetryDelay) > 0) {
+            backoff = maxRetryDelay;
+        }
+        return Duration.ofMillis((long) (random.nextDouble() * backoff.toMillis()));
+    }
+
+    private static class Admission<T> {
+        final Supplier<CompletableFuture<T>> start;
+        final Consumer<T> stop;
+        final CompletableFuture<T> future;
+        int attempts;
+        int generation;
+
+        Admission(Supplier<CompletableFuture<T>> start, Consumer<T> stop) {
+            this.start = start;
+            this.stop = stop;
+            this.future = new CompletableFuture<>();
+            this.attempts = 0;
+        }
+    }
+}
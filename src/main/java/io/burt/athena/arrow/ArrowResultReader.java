@@ -0,0 +1,226 @@
+package io.burt.athena.arrow;
+
+import io.burt.athena.AthenaResultSet;
+import io.burt.athena.result.batch.Column;
+import io.burt.athena.result.batch.ColumnBatch;
+import io.burt.athena.result.batch.DoubleColumn;
+import io.burt.athena.result.batch.LongColumn;
+import io.burt.athena.result.batch.StringColumn;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.BaseFixedWidthVector;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.DateDayVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float4Vector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.SmallIntVector;
+import org.apache.arrow.vector.TinyIntVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.types.DateUnit;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the rows of a result set into Apache Arrow record batches.
+ *
+ * Rows are read with {@link AthenaResultSet#nextBatch(int)}, so when results
+ * are loaded from S3 the values are parsed straight from the downloaded
+ * bytes. Integral, floating point, boolean and date columns get Arrow
+ * vectors of the corresponding type, and all other columns are exported as
+ * UTF-8 strings.
+ *
+ * Arrow is an optional dependency of the driver, to use this class
+ * <code>org.apache.arrow:arrow-vector</code> and one of the Arrow memory
+ * allocator implementations must be added to the classpath.
+ *
+ * Like Arrow's own readers this class reuses the same
+ * {@link VectorSchemaRoot} for all batches, the contents of the vectors are
+ * replaced by every call to {@link #loadNextBatch()}.
+ */
+public class ArrowResultReader implements AutoCloseable {
+    private final AthenaResultSet resultSet;
+    private final int batchSize;
+    private final VectorSchemaRoot root;
+
+    /**
+     * @param resultSet the result set to read, it must be, or wrap, an
+     *                  {@link AthenaResultSet}
+     * @param allocator the allocator to allocate the vectors with
+     * @param batchSize the max number of rows per batch
+     * @throws SQLException if the result set is not an Athena result set or
+     *                      if loading its metadata fails
+     */
+    public ArrowResultReader(ResultSet resultSet, BufferAllocator allocator, int batchSize) throws SQLException {
+        this.resultSet = resultSet.unwrap(AthenaResultSet.class);
+        this.batchSize = batchSize;
+        this.root = VectorSchemaRoot.create(createSchema(resultSet.getMetaData()), allocator);
+    }
+
+    private static Schema createSchema(ResultSetMetaData metaData) throws SQLException {
+        List<Field> fields = new ArrayList<>(metaData.getColumnCount());
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            fields.add(new Field(metaData.getColumnLabel(i), FieldType.nullable(arrowType(metaData.getColumnType(i))), null));
+        }
+        return new Schema(fields);
+    }
+
+    private static ArrowType arrowType(int type) {
+        switch (type) {
+            case Types.TINYINT:
+                return new ArrowType.Int(8, true);
+            case Types.SMALLINT:
+                return new ArrowType.Int(16, true);
+            case Types.INTEGER:
+                return new ArrowType.Int(32, true);
+            case Types.BIGINT:
+                return new ArrowType.Int(64, true);
+            case Types.FLOAT:
+                return new ArrowType.FloatingPoint(FloatingPointPrecision.SINGLE);
+            case Types.DOUBLE:
+                return new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE);
+            case Types.BOOLEAN:
+                return ArrowType.Bool.INSTANCE;
+            case Types.DATE:
+                return new ArrowType.Date(DateUnit.DAY);
+            default:
+                return ArrowType.Utf8.INSTANCE;
+        }
+    }
+
+    public Schema getSchema() {
+        return root.getSchema();
+    }
+
+    public VectorSchemaRoot getVectorSchemaRoot() {
+        return root;
+    }
+
+    /**
+     * Loads the next batch of rows into the vectors of the
+     * {@link VectorSchemaRoot}.
+     *
+     * @return false when there were no more rows to load
+     * @throws SQLException if reading the rows fails, or a value cannot be
+     *                      converted to the type of its vector
+     */
+    public boolean loadNextBatch() throws SQLException {
+        ColumnBatch batch = resultSet.nextBatch(batchSize);
+        int rowCount = batch.getRowCount();
+        List<FieldVector> vectors = root.getFieldVectors();
+        for (int i = 0; i < vectors.size(); i++) {
+            FieldVector vector = vectors.get(i);
+            vector.allocateNew();
+            copy(batch.getColumn(i + 1), vector, rowCount);
+            vector.setValueCount(rowCount);
+        }
+        root.setRowCount(rowCount);
+        return rowCount > 0;
+    }
+
+    private void copy(Column column, FieldVector vector, int rowCount) throws SQLException {
+        if (column instanceof LongColumn) {
+            copyLongs((LongColumn) column, (BaseFixedWidthVector) vector, rowCount);
+        } else if (column instanceof DoubleColumn) {
+            copyDoubles((DoubleColumn) column, (BaseFixedWidthVector) vector, rowCount);
+        } else {
+            copyStrings((StringColumn) column, vector, rowCount);
+        }
+    }
+
+    private void copyLongs(LongColumn column, BaseFixedWidthVector vector, int rowCount) {
+        long[] values = column.getValues();
+        for (int row = 0; row < rowCount; row++) {
+            if (column.isNull(row)) {
+                vector.setNull(row);
+            } else if (vector instanceof BigIntVector) {
+                ((BigIntVector) vector).setSafe(row, values[row]);
+            } else if (vector instanceof IntVector) {
+                ((IntVector) vector).setSafe(row, (int) values[row]);
+            } else if (vector instanceof SmallIntVector) {
+                ((SmallIntVector) vector).setSafe(row, (short) values[row]);
+            } else {
+                ((TinyIntVector) vector).setSafe(row, (byte) values[row]);
+            }
+        }
+    }
+
+    private void copyDoubles(DoubleColumn column, BaseFixedWidthVector vector, int rowCount) {
+        double[] values = column.getValues();
+        for (int row = 0; row < rowCount; row++) {
+            if (column.isNull(row)) {
+                vector.setNull(row);
+            } else if (vector instanceof Float8Vector) {
+                ((Float8Vector) vector).setSafe(row, values[row]);
+            } else {
+                ((Float4Vector) vector).setSafe(row, (float) values[row]);
+            }
+        }
+    }
+
+    private void copyStrings(StringColumn column, FieldVector vector, int rowCount) throws SQLException {
+        String[] dictionary = column.getDictionary();
+        int[] indices = column.getIndices();
+        if (vector instanceof VarCharVector) {
+            VarCharVector varChars = (VarCharVector) vector;
+            byte[][] encoded = new byte[dictionary.length][];
+            for (int i = 0; i < dictionary.length; i++) {
+                encoded[i] = dictionary[i].getBytes(StandardCharsets.UTF_8);
+            }
+            for (int row = 0; row < rowCount; row++) {
+                if (column.isNull(row)) {
+                    varChars.setNull(row);
+                } else {
+                    varChars.setSafe(row, encoded[indices[row]]);
+                }
+            }
+        } else if (vector instanceof BitVector) {
+            BitVector bits = (BitVector) vector;
+            for (int row = 0; row < rowCount; row++) {
+                if (column.isNull(row)) {
+                    bits.setNull(row);
+                } else {
+                    bits.setSafe(row, Boolean.parseBoolean(dictionary[indices[row]]) ? 1 : 0);
+                }
+            }
+        } else {
+            DateDayVector dates = (DateDayVector) vector;
+            int[] days = new int[dictionary.length];
+            for (int i = 0; i < dictionary.length; i++) {
+                try {
+                    days[i] = (int) LocalDate.parse(dictionary[i]).toEpochDay();
+                } catch (DateTimeParseException e) {
+                    throw new SQLDataException(String.format("Cannot convert \"%s\" to date", dictionary[i]), e);
+                }
+            }
+            for (int row = 0; row < rowCount; row++) {
+                if (column.isNull(row)) {
+                    dates.setNull(row);
+                } else {
+                    dates.setSafe(row, days[indices[row]]);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        root.close();
+    }
+}
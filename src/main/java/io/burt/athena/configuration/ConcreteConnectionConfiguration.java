@@ -1,17 +1,34 @@
 package io.burt.athena.configuration;
 
+import io.burt.athena.admission.AdmissionController;
+import io.burt.athena.polling.BatchQueryExecutionPoller;
 import io.burt.athena.polling.PollingStrategies;
 import io.burt.athena.polling.PollingStrategy;
+import io.burt.athena.result.AutoResult;
+import io.burt.athena.result.HybridResult;
 import io.burt.athena.result.PreloadingStandardResult;
 import io.burt.athena.result.Result;
 import io.burt.athena.result.S3Result;
 import io.burt.athena.result.StandardResult;
+import io.burt.athena.result.UnloadQuery;
+import io.burt.athena.result.UnloadResult;
+import io.burt.athena.result.s3.BufferPool;
+import io.burt.athena.result.s3.MemoryBudget;
+import io.burt.athena.result.s3.S3Downloader;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.athena.AthenaAsyncClient;
 import software.amazon.awssdk.services.athena.model.QueryExecution;
 import software.amazon.awssdk.services.s3.S3AsyncClient;
 
+import java.sql.ResultSet;
 import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.function.Function;
 
 class ConcreteConnectionConfiguration implements ConnectionConfiguration {
     private final Region awsRegion;
@@ -21,12 +38,34 @@ class ConcreteConnectionConfiguration implements ConnectionConfiguration {
     private final Duration networkTimeout;
     private final Duration queryTimeout;
     private final ResultLoadingStrategy resultLoadingStrategy;
+    private final int s3DownloadParallelism;
+    private final long s3DownloadPartSize;
+    private final MemoryBudget s3BufferMemoryBudget;
+    private final BufferPool s3BufferPool;
+    private final ExecutorService s3ParserExecutor;
+    private final int s3ParserThreads;
+    private final ScheduledExecutorService scheduler;
 
     private AthenaAsyncClient athenaClient;
     private S3AsyncClient s3Client;
     private PollingStrategy pollingStrategy;
+    private BatchQueryExecutionPoller queryExecutionPoller;
+    private AdmissionController admissionController;
 
-    ConcreteConnectionConfiguration(Region awsRegion, String databaseName, String workGroupName, String outputLocation, Duration networkTimeout, Duration queryTimeout, ResultLoadingStrategy resultLoadingStrategy) {
+    ConcreteConnectionConfiguration(Region awsRegion, String databaseName, String workGroupName, String outputLocation, Duration networkTimeout, Duration queryTimeout, ResultLoadingStrategy resultLoadingStrategy, int s3DownloadParallelism, long s3DownloadPartSize, long s3BufferMemory, int s3ParserThreads, boolean batchPolling, boolean predictivePolling, int maxConcurrentQueries) {
+        this(awsRegion, databaseName, workGroupName, outputLocation, networkTimeout, queryTimeout, resultLoadingStrategy, s3DownloadParallelism, s3DownloadPartSize, new MemoryBudget(s3BufferMemory), new BufferPool(), createParserExecutor(s3ParserThreads), s3ParserThreads, createScheduler());
+        if (batchPolling) {
+            this.queryExecutionPoller = new BatchQueryExecutionPoller(this::athenaClient, scheduler);
+        }
+        if (predictivePolling) {
+            this.pollingStrategy = PollingStrategies.defaultPredictive();
+        }
+        if (maxConcurrentQueries > 0) {
+            this.admissionController = new AdmissionController(maxConcurrentQueries, scheduler);
+        }
+    }
+
+    private ConcreteConnectionConfiguration(Region awsRegion, String databaseName, String workGroupName, String outputLocation, Duration networkTimeout, Duration queryTimeout, ResultLoadingStrategy resultLoadingStrategy, int s3DownloadParallelism, long s3DownloadPartSize, MemoryBudget s3BufferMemoryBudget, BufferPool s3BufferPool, ExecutorService s3ParserExecutor, int s3ParserThreads, ScheduledExecutorService scheduler) {
         this.awsRegion = awsRegion;
         this.databaseName = databaseName;
         this.workGroupName = workGroupName;
@@ -34,13 +73,56 @@ class ConcreteConnectionConfiguration implements ConnectionConfiguration {
         this.networkTimeout = networkTimeout;
         this.queryTimeout = queryTimeout;
         this.resultLoadingStrategy = resultLoadingStrategy;
+        this.s3DownloadParallelism = s3DownloadParallelism;
+        this.s3DownloadPartSize = s3DownloadPartSize;
+        this.s3BufferMemoryBudget = s3BufferMemoryBudget;
+        this.s3BufferPool = s3BufferPool;
+        this.s3ParserExecutor = s3ParserExecutor;
+        this.s3ParserThreads = s3ParserThreads;
+        this.scheduler = scheduler;
     }
 
-    private ConcreteConnectionConfiguration(Region awsRegion, String databaseName, String workGroupName, String outputLocation, Duration networkTimeout, Duration queryTimeout, ResultLoadingStrategy resultLoadingStrategy, AthenaAsyncClient athenaClient, S3AsyncClient s3Client, PollingStrategy pollingStrategy) {
-        this(awsRegion, databaseName, workGroupName, outputLocation, networkTimeout, queryTimeout, resultLoadingStrategy);
+    private ConcreteConnectionConfiguration(Region awsRegion, String databaseName, String workGroupName, String outputLocation, Duration networkTimeout, Duration queryTimeout, ResultLoadingStrategy resultLoadingStrategy, int s3DownloadParallelism, long s3DownloadPartSize, MemoryBudget s3BufferMemoryBudget, BufferPool s3BufferPool, ExecutorService s3ParserExecutor, int s3ParserThreads, ScheduledExecutorService scheduler, AthenaAsyncClient athenaClient, S3AsyncClient s3Client, PollingStrategy pollingStrategy, BatchQueryExecutionPoller queryExecutionPoller, AdmissionController admissionController) {
+        this(awsRegion, databaseName, workGroupName, outputLocation, networkTimeout, queryTimeout, resultLoadingStrategy, s3DownloadParallelism, s3DownloadPartSize, s3BufferMemoryBudget, s3BufferPool, s3ParserExecutor, s3ParserThreads, scheduler);
         this.athenaClient = athenaClient;
         this.s3Client = s3Client;
         this.pollingStrategy = pollingStrategy;
+        this.queryExecutionPoller = queryExecutionPoller;
+        this.admissionController = admissionController;
+    }
+
+    /**
+     * Creates the executor that results are parsed on, with daemon threads so
+     * that a connection that is never closed does not keep the JVM running.
+     *
+     * @return an executor, or null when results are parsed on the thread
+     *         that reads them
+     */
+    private static ExecutorService createParserExecutor(int threads) {
+        if (threads < 1) {
+            return null;
+        }
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "athena-s3-parser");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Creates the timer of the connection, with a daemon thread for the same
+     * reason as the parser threads. The thread is not started until the
+     * first task is scheduled, and timeouts that are cancelled because what
+     * they guard completed in time are removed right away.
+     */
+    private static ScheduledExecutorService createScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "athena-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
     }
 
     @Override
@@ -66,8 +148,14 @@ class ConcreteConnectionConfiguration implements ConnectionConfiguration {
     @Override
     public Duration queryTimeout() { return queryTimeout; }
 
+    /**
+     * The client is created on first use. This is synchronized because the
+     * query execution poller calls it from the scheduler thread while
+     * statements call it from application threads, and a second client would
+     * never be closed.
+     */
     @Override
-    public AthenaAsyncClient athenaClient() {
+    public synchronized AthenaAsyncClient athenaClient() {
         if (athenaClient == null) {
             athenaClient = AthenaAsyncClient.builder().region(awsRegion).build();
         }
@@ -75,7 +163,7 @@ class ConcreteConnectionConfiguration implements ConnectionConfiguration {
     }
 
     @Override
-    public S3AsyncClient s3Client() {
+    public synchronized S3AsyncClient s3Client() {
         if (s3Client == null) {
             s3Client = S3AsyncClient.builder().region(awsRegion).build();
         }
@@ -90,34 +178,80 @@ class ConcreteConnectionConfiguration implements ConnectionConfiguration {
         return pollingStrategy;
     }
 
+    @Override
+    public BatchQueryExecutionPoller queryExecutionPoller() {
+        return queryExecutionPoller;
+    }
+
+    @Override
+    public AdmissionController admissionController() {
+        return admissionController;
+    }
+
+    @Override
+    public ScheduledExecutorService scheduler() {
+        return scheduler;
+    }
+
     @Override
     public ConnectionConfiguration withDatabaseName(String databaseName) {
-        return new ConcreteConnectionConfiguration(awsRegion, databaseName, workGroupName, outputLocation, networkTimeout, queryTimeout, resultLoadingStrategy, athenaClient, s3Client, pollingStrategy);
+        return new ConcreteConnectionConfiguration(awsRegion, databaseName, workGroupName, outputLocation, networkTimeout, queryTimeout, resultLoadingStrategy, s3DownloadParallelism, s3DownloadPartSize, s3BufferMemoryBudget, s3BufferPool, s3ParserExecutor, s3ParserThreads, scheduler, athenaClient, s3Client, pollingStrategy, queryExecutionPoller, admissionController);
     }
 
     @Override
     public ConnectionConfiguration withNetworkTimeout(Duration networkTimeout) {
-        return new ConcreteConnectionConfiguration(awsRegion, databaseName, workGroupName, outputLocation, networkTimeout, queryTimeout, resultLoadingStrategy, athenaClient, s3Client, pollingStrategy);
+        return new ConcreteConnectionConfiguration(awsRegion, databaseName, workGroupName, outputLocation, networkTimeout, queryTimeout, resultLoadingStrategy, s3DownloadParallelism, s3DownloadPartSize, s3BufferMemoryBudget, s3BufferPool, s3ParserExecutor, s3ParserThreads, scheduler, athenaClient, s3Client, pollingStrategy, queryExecutionPoller, admissionController);
     }
 
     @Override
     public ConnectionConfiguration withQueryTimeout(Duration queryTimeout) {
-        return new ConcreteConnectionConfiguration(awsRegion, databaseName, workGroupName, outputLocation, networkTimeout, queryTimeout, resultLoadingStrategy, athenaClient, s3Client, pollingStrategy);
+        return new ConcreteConnectionConfiguration(awsRegion, databaseName, workGroupName, outputLocation, networkTimeout, queryTimeout, resultLoadingStrategy, s3DownloadParallelism, s3DownloadPartSize, s3BufferMemoryBudget, s3BufferPool, s3ParserExecutor, s3ParserThreads, scheduler, athenaClient, s3Client, pollingStrategy, queryExecutionPoller, admissionController);
+    }
+
+    @Override
+    public String prepareQuery(String sql, Optional<String> clientRequestToken) {
+        if (resultLoadingStrategy == ResultLoadingStrategy.UNLOAD && outputLocation != null && UnloadQuery.isUnloadable(sql)) {
+            return UnloadQuery.createUnloadStatement(sql, outputLocation, clientRequestToken);
+        } else {
+            return sql;
+        }
     }
 
     @Override
-    public Result createResult(QueryExecution queryExecution) {
+    public Result createResult(QueryExecution queryExecution, Function<String, CompletableFuture<ResultSet>> queryRunner) {
         if (resultLoadingStrategy == ResultLoadingStrategy.GET_EXECUTION_RESULTS) {
             return new PreloadingStandardResult(athenaClient(), queryExecution, StandardResult.MAX_FETCH_SIZE, Duration.ofSeconds(10));
         } else if (resultLoadingStrategy == ResultLoadingStrategy.S3) {
-            return new S3Result(s3Client(), queryExecution, Duration.ofSeconds(10));
+            return new S3Result(s3Downloader(), queryExecution, Duration.ofSeconds(10), false, s3ParserExecutor, s3ParserThreads > 1);
+        } else if (resultLoadingStrategy == ResultLoadingStrategy.S3_PUSH) {
+            return new S3Result(s3Downloader(), queryExecution, Duration.ofSeconds(10), true);
+        } else if (resultLoadingStrategy == ResultLoadingStrategy.HYBRID) {
+            S3Result s3Result = new S3Result(s3Downloader(), queryExecution, Duration.ofSeconds(10), false, s3ParserExecutor, s3ParserThreads > 1);
+            return new HybridResult(athenaClient(), s3Result, queryExecution, Duration.ofSeconds(10));
+        } else if (resultLoadingStrategy == ResultLoadingStrategy.AUTO) {
+            return new AutoResult(athenaClient(), s3Downloader(), queryExecution, Duration.ofSeconds(10), s3ParserExecutor, s3ParserThreads > 1);
+        } else if (resultLoadingStrategy == ResultLoadingStrategy.UNLOAD) {
+            String unloadLocation = UnloadQuery.unloadLocation(queryExecution.query());
+            if (unloadLocation == null) {
+                return new S3Result(s3Downloader(), queryExecution, Duration.ofSeconds(10), false, s3ParserExecutor, s3ParserThreads > 1);
+            } else {
+                String describeStatement = UnloadQuery.createDescribeStatement(UnloadQuery.unloadedQuery(queryExecution.query()));
+                return new UnloadResult(s3Client(), s3Downloader(), queryExecution, unloadLocation, queryRunner.apply(describeStatement), Duration.ofSeconds(10), s3ParserExecutor);
+            }
         } else {
             throw new IllegalStateException(String.format("No such result loading strategy: %s", queryExecution));
         }
     }
 
+    private S3Downloader s3Downloader() {
+        return new S3Downloader(s3Client(), s3DownloadParallelism, s3DownloadPartSize, s3BufferMemoryBudget, s3BufferPool);
+    }
+
     @Override
-    public void close() {
+    public synchronized void close() {
+        if (queryExecutionPoller != null) {
+            queryExecutionPoller.close();
+        }
         if (athenaClient != null) {
             athenaClient.close();
             athenaClient = null;
@@ -126,5 +260,9 @@ class ConcreteConnectionConfiguration implements ConnectionConfiguration {
             s3Client.close();
             s3Client = null;
         }
+        if (s3ParserExecutor != null) {
+            s3ParserExecutor.shutdown();
+        }
+        scheduler.shutdownNow();
     }
 }
\ No newline at end of file
@@ -1,12 +1,19 @@
 package io.burt.athena.configuration;
 
+import io.burt.athena.admission.AdmissionController;
+import io.burt.athena.polling.BatchQueryExecutionPoller;
 import io.burt.athena.polling.PollingStrategy;
 import io.burt.athena.result.Result;
 import software.amazon.awssdk.services.athena.AthenaAsyncClient;
 import software.amazon.awssdk.services.athena.model.QueryExecution;
 import software.amazon.awssdk.services.s3.S3AsyncClient;
 
+import java.sql.ResultSet;
 import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Function;
 
 public interface ConnectionConfiguration extends AutoCloseable {
     String databaseName();
@@ -25,11 +32,58 @@ public interface ConnectionConfiguration extends AutoCloseable {
 
     PollingStrategy pollingStrategy();
 
+    /**
+     * @return the poller that is shared by all statements of the connection,
+     *         or null when each statement polls its own query execution with
+     *         the polling strategy
+     */
+    BatchQueryExecutionPoller queryExecutionPoller();
+
+    /**
+     * @return the admission controller that limits how many query executions
+     *         the statements of the connection run at the same time, or null
+     *         when there is no limit
+     */
+    AdmissionController admissionController();
+
+    /**
+     * @return the timer that is shared by all statements of the connection,
+     *         for example to schedule the polls of asynchronous executions
+     */
+    ScheduledExecutorService scheduler();
+
     ConnectionConfiguration withDatabaseName(String databaseName);
 
     ConnectionConfiguration withNetworkTimeout(Duration timeout);
 
     ConnectionConfiguration withQueryTimeout(Duration timeout);
 
-    Result createResult(QueryExecution queryExecution);
+    /**
+     * Rewrites a statement before it is executed, to suit how its results
+     * will be loaded.
+     *
+     * The statement is prepared once per execution, and the same rewritten
+     * statement is sent when starting the query execution is retried. For the
+     * same statement and client request token the same rewritten statement
+     * must be returned, since Athena rejects a token that is sent again with
+     * a different statement.
+     *
+     * @param sql the statement to execute
+     * @param clientRequestToken the client request token the statement will
+     *                           be executed with, if any
+     * @return the statement to send to Athena
+     */
+    String prepareQuery(String sql, Optional<String> clientRequestToken);
+
+    /**
+     * Creates the result of a query execution that has succeeded.
+     *
+     * @param queryExecution the query execution
+     * @param queryRunner executes the queries the result needs in order to
+     *                    load, as they are, with the admission control,
+     *                    polling, and timeouts of the statement. Cancelling
+     *                    a returned future stops its query execution
+     * @return the result
+     */
+    Result createResult(QueryExecution queryExecution, Function<String, CompletableFuture<ResultSet>> queryRunner);
 }
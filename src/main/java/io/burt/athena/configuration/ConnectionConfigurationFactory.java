@@ -5,8 +5,8 @@ import software.amazon.awssdk.regions.Region;
 import java.time.Duration;
 
 public class ConnectionConfigurationFactory {
-    public ConnectionConfiguration createConnectionConfiguration(Region awsRegion, String databaseName, String workGroupName, String outputLocation, Duration networkTimeout, Duration queryTimeout, ResultLoadingStrategy resultLoadingStrategy) {
-        return new ConcreteConnectionConfiguration(awsRegion, databaseName, workGroupName, outputLocation, networkTimeout, queryTimeout, resultLoadingStrategy);
+    public ConnectionConfiguration createConnectionConfiguration(Region awsRegion, String databaseName, String workGroupName, String outputLocation, Duration networkTimeout, Duration queryTimeout, ResultLoadingStrategy resultLoadingStrategy, int s3DownloadParallelism, long s3DownloadPartSize, long s3BufferMemory, int s3ParserThreads, boolean batchPolling, boolean predictivePolling, int maxConcurrentQueries) {
+        return new ConcreteConnectionConfiguration(awsRegion, databaseName, workGroupName, outputLocation, networkTimeout, queryTimeout, resultLoadingStrategy, s3DownloadParallelism, s3DownloadPartSize, s3BufferMemory, s3ParserThreads, batchPolling, predictivePolling, maxConcurrentQueries);
     }
 }
 
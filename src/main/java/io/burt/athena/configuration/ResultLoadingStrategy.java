@@ -1,6 +1,53 @@
 package io.burt.athena.configuration;
 
 public enum ResultLoadingStrategy {
+    /**
+     * Load results with the Athena <code>GetQueryResults</code> API call.
+     */
     GET_EXECUTION_RESULTS,
-    S3
+
+    /**
+     * Download the CSV file that Athena writes results to from S3.
+     */
+    S3,
+
+    /**
+     * Download the CSV file like with {@link #S3}, but parse it while it is
+     * being delivered and hand the rows over in batches.
+     *
+     * Results are downloaded with a single request, and are not resumed when
+     * the connection breaks.
+     *
+     * @see io.burt.athena.result.s3.CsvBatchResponseTransformer
+     */
+    S3_PUSH,
+
+    /**
+     * Load the first page of results with the Athena
+     * <code>GetQueryResults</code> API call, and the rest from S3 like with
+     * {@link #S3}, which gives both fast first rows and fast large results.
+     *
+     * @see io.burt.athena.result.HybridResult
+     */
+    HYBRID,
+
+    /**
+     * Pick how to load each result from the size of the file that Athena
+     * wrote it to: small results like with {@link #GET_EXECUTION_RESULTS},
+     * larger ones like with {@link #S3}, and the largest in parallel parts.
+     *
+     * @see io.burt.athena.result.AutoResult
+     */
+    AUTO,
+
+    /**
+     * Wrap queries in <code>UNLOAD</code> statements and download the files
+     * that Athena writes in parallel from S3.
+     *
+     * Statements that are not queries, and all statements when no output
+     * location is configured, are loaded like with {@link #S3}.
+     *
+     * @see io.burt.athena.result.UnloadResult
+     */
+    UNLOAD
 }
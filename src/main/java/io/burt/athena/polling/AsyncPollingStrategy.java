@@ -0,0 +1,26 @@
+package io.burt.athena.polling;
+
+import java.sql.ResultSet;
+import java.time.Instant;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * A polling strategy that does not block a thread between polls.
+ *
+ * Instead of sleeping, the next poll is scheduled on a timer when the
+ * previous one has completed without a result set.
+ */
+@FunctionalInterface
+public interface AsyncPollingStrategy {
+    /**
+     * @param callback the callback that polls once
+     * @param deadline the time after which no more polls are scheduled
+     * @param scheduler the timer to schedule polls on
+     * @return a stage that completes with the first result set that the
+     *         callback returns, or exceptionally when the callback fails, or
+     *         with a {@link java.util.concurrent.TimeoutException} when the
+     *         deadline is reached
+     */
+    CompletionStage<ResultSet> pollUntilCompletedAsync(AsyncPollingCallback callback, Instant deadline, ScheduledExecutorService scheduler);
+}
@@ -6,11 +6,14 @@ import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
-class BackoffPollingStrategy implements PollingStrategy {
+class BackoffPollingStrategy implements PollingStrategy, AsyncPollingStrategy {
     private final Duration firstDelay;
     private final Duration maxDelay;
     private final long factor;
@@ -50,11 +53,48 @@ class BackoffPollingStrategy implements PollingStrategy {
                 return resultSet.get();
             } else {
                 sleeper.sleep(sleepDuration(nextDelay, clock.instant(), deadline));
-                nextDelay = nextDelay.multipliedBy(factor);
-                if (nextDelay.compareTo(maxDelay) > 0) {
-                    nextDelay = maxDelay;
-                }
+                nextDelay = nextDelay(nextDelay);
             }
         }
     }
+
+    private Duration nextDelay(Duration delay) {
+        Duration nextDelay = delay.multipliedBy(factor);
+        if (nextDelay.compareTo(maxDelay) > 0) {
+            return maxDelay;
+        } else {
+            return nextDelay;
+        }
+    }
+
+    @Override
+    public CompletionStage<ResultSet> pollUntilCompletedAsync(AsyncPollingCallback callback, Instant deadline, ScheduledExecutorService scheduler) {
+        CompletableFuture<ResultSet> resultSetFuture = new CompletableFuture<>();
+        pollAsync(callback, deadline, scheduler, firstDelay, resultSetFuture);
+        return resultSetFuture;
+    }
+
+    private void pollAsync(AsyncPollingCallback callback, Instant deadline, ScheduledExecutorService scheduler, Duration delay, CompletableFuture<ResultSet> resultSetFuture) {
+        CompletionStage<Optional<ResultSet>> poll;
+        try {
+            poll = callback.poll(deadline);
+        } catch (RuntimeException e) {
+            resultSetFuture.completeExceptionally(e);
+            return;
+        }
+        poll.whenComplete((resultSet, error) -> {
+            if (error != null) {
+                resultSetFuture.completeExceptionally(error);
+            } else if (resultSet.isPresent()) {
+                resultSetFuture.complete(resultSet.get());
+            } else {
+                try {
+                    Duration sleepDuration = sleepDuration(delay, clock.instant(), deadline);
+                    scheduler.schedule(() -> pollAsync(callback, deadline, scheduler, nextDelay(delay), resultSetFuture), sleepDuration.toMillis(), TimeUnit.MILLISECONDS);
+                } catch (TimeoutException | RuntimeException e) {
+                    resultSetFuture.completeExceptionally(e);
+                }
+            }
+        });
+    }
 }
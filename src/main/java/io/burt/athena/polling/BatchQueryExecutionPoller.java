@@ -0,0 +1,236 @@
+package io.burt.athena.polling;
+
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.exception.SdkServiceException;
+import software.amazon.awssdk.services.athena.AthenaAsyncClient;
+import software.amazon.awssdk.services.athena.model.BatchGetQueryExecutionResponse;
+import software.amazon.awssdk.services.athena.model.InternalServerException;
+import software.amazon.awssdk.services.athena.model.QueryExecution;
+import software.amazon.awssdk.services.athena.model.QueryExecutionState;
+import software.amazon.awssdk.services.athena.model.TooManyRequestsException;
+import software.amazon.awssdk.services.athena.model.UnprocessedQueryExecutionId;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Polls the status of all running query executions of a connection with
+ * shared <code>BatchGetQueryExecution</code> calls.
+ *
+ * Instead of each statement calling <code>GetQueryExecution</code> for its
+ * own query execution in a loop, statements register the query executions
+ * they wait for and get a future that completes when the query execution
+ * has finished. On each tick the IDs of all registered query executions are
+ * looked up in batches of up to {@link #MAX_BATCH_SIZE}, so the number of
+ * calls grows with the number of batches rather than the number of
+ * statements, and no threads are blocked between ticks.
+ *
+ * When a lookup is throttled or fails with a transient error the query
+ * executions of the batch stay registered and are looked up again on the
+ * next tick, and the interval between ticks is doubled for each tick in a
+ * row with such failures, up to {@link #MAX_INTERVAL}. Only other errors, or
+ * {@link #MAX_FAILED_ATTEMPTS} failed lookups in a row, fail the futures.
+ */
+public class BatchQueryExecutionPoller implements AutoCloseable {
+    public static final int MAX_BATCH_SIZE = 50;
+    public static final Duration DEFAULT_INTERVAL = Duration.ofMillis(100);
+    public static final Duration MAX_INTERVAL = Duration.ofSeconds(5);
+    public static final int MAX_FAILED_ATTEMPTS = 10;
+
+    private final Supplier<AthenaAsyncClient> athenaClient;
+    private final Duration interval;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, CompletableFuture<QueryExecution>> pendingExecutions;
+
+    private boolean tickScheduled;
+    private boolean closed;
+    private int failedTicks;
+
+    /**
+     * @param athenaClient supplies the client to poll with
+     * @param scheduler the timer to schedule the ticks on, which is not shut
+     *                  down when the poller is closed
+     */
+    public BatchQueryExecutionPoller(Supplier<AthenaAsyncClient> athenaClient, ScheduledExecutorService scheduler) {
+        this(athenaClient, DEFAULT_INTERVAL, scheduler);
+    }
+
+    BatchQueryExecutionPoller(Supplier<AthenaAsyncClient> athenaClient, Duration interval, ScheduledExecutorService scheduler) {
+        this.athenaClient = athenaClient;
+        this.interval = interval;
+        this.scheduler = scheduler;
+        this.pendingExecutions = new ConcurrentHashMap<>();
+        this.tickScheduled = false;
+        this.closed = false;
+        this.failedTicks = 0;
+    }
+
+    /**
+     * Registers a query execution to be polled until it has finished.
+     *
+     * Cancelling the returned future stops the polling of the query
+     * execution, but does not stop the query execution itself.
+     *
+     * @param queryExecutionId the ID of the query execution to poll
+     * @return a future that completes with the query execution when it has
+     *         succeeded, failed, or been cancelled, or completes exceptionally
+     *         when its status could not be looked up, or the lookups kept
+     *         failing with transient errors
+     */
+    public CompletableFuture<QueryExecution> awaitCompletion(String queryExecutionId) {
+        CompletableFuture<QueryExecution> future = new CompletableFuture<>();
+        synchronized (this) {
+            if (closed) {
+                future.completeExceptionally(new SQLException("Query execution poller is closed"));
+            } else {
+                pendingExecutions.put(queryExecutionId, future);
+                scheduleTick();
+            }
+        }
+        return future;
+    }
+
+    private synchronized void scheduleTick() {
+        if (!tickScheduled && !closed) {
+            tickScheduled = true;
+            try {
+                scheduler.schedule(this::tick, tickDelay().toMillis(), TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                tickScheduled = false;
+                for (CompletableFuture<QueryExecution> future : pendingExecutions.values()) {
+                    future.completeExceptionally(e);
+                }
+                pendingExecutions.clear();
+            }
+        }
+    }
+
+    /**
+     * @return the interval doubled for each tick in a row with failed
+     *         lookups, but at most {@link #MAX_INTERVAL}
+     */
+    private Duration tickDelay() {
+        Duration delay = interval.multipliedBy(1L << Math.min(failedTicks, 20));
+        return delay.compareTo(MAX_INTERVAL) > 0 ? MAX_INTERVAL : delay;
+    }
+
+    /**
+     * Looks up the status of all registered query executions, and schedules
+     * the next tick when all lookups have completed, so that the lookups of
+     * one tick never overlap with the next.
+     */
+    private void tick() {
+        int attempt;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            attempt = failedTicks + 1;
+        }
+        pendingExecutions.values().removeIf(CompletableFuture::isDone);
+        List<String> queryExecutionIds = new ArrayList<>(pendingExecutions.keySet());
+        List<CompletableFuture<Boolean>> lookups = new ArrayList<>();
+        for (int i = 0; i < queryExecutionIds.size(); i += MAX_BATCH_SIZE) {
+            List<String> batch = queryExecutionIds.subList(i, Math.min(queryExecutionIds.size(), i + MAX_BATCH_SIZE));
+            lookups.add(lookUp(batch, attempt));
+        }
+        CompletableFuture.allOf(lookups.toArray(new CompletableFuture[0])).whenComplete((v, e) -> {
+            boolean anyFailed = false;
+            for (CompletableFuture<Boolean> lookup : lookups) {
+                anyFailed |= lookup.join();
+            }
+            synchronized (this) {
+                failedTicks = anyFailed ? failedTicks + 1 : 0;
+                tickScheduled = false;
+                if (!pendingExecutions.isEmpty()) {
+                    scheduleTick();
+                }
+            }
+        });
+    }
+
+    /**
+     * @return a future that completes with whether the lookup failed with an
+     *         error that will be retried on the next tick
+     */
+    private CompletableFuture<Boolean> lookUp(List<String> batch, int attempt) {
+        CompletableFuture<BatchGetQueryExecutionResponse> response;
+        try {
+            response = athenaClient.get().batchGetQueryExecution(b -> b.queryExecutionIds(batch));
+        } catch (RuntimeException e) {
+            response = new CompletableFuture<>();
+            response.completeExceptionally(e);
+        }
+        return response.handle((r, e) -> {
+            if (e != null) {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                if (isRetryable(cause) && attempt < MAX_FAILED_ATTEMPTS) {
+                    return true;
+                }
+                fail(batch, cause);
+            } else {
+                complete(r);
+            }
+            return false;
+        });
+    }
+
+    private static boolean isRetryable(Throwable error) {
+        if (error instanceof TooManyRequestsException || error instanceof InternalServerException || error instanceof SdkClientException) {
+            return true;
+        } else if (error instanceof SdkServiceException) {
+            SdkServiceException serviceError = (SdkServiceException) error;
+            return serviceError.isThrottlingException() || serviceError.statusCode() >= 500;
+        } else {
+            return false;
+        }
+    }
+
+    private void complete(BatchGetQueryExecutionResponse response) {
+        for (QueryExecution queryExecution : response.queryExecutions()) {
+            QueryExecutionState state = queryExecution.status().state();
+            if (state == QueryExecutionState.SUCCEEDED || state == QueryExecutionState.FAILED || state == QueryExecutionState.CANCELLED) {
+                CompletableFuture<QueryExecution> future = pendingExecutions.remove(queryExecution.queryExecutionId());
+                if (future != null) {
+                    future.complete(queryExecution);
+                }
+            }
+        }
+        for (UnprocessedQueryExecutionId unprocessed : response.unprocessedQueryExecutionIds()) {
+            CompletableFuture<QueryExecution> future = pendingExecutions.remove(unprocessed.queryExecutionId());
+            if (future != null) {
+                future.completeExceptionally(new SQLException(String.format("Could not get query execution %s: %s", unprocessed.queryExecutionId(), unprocessed.errorMessage()), unprocessed.errorCode()));
+            }
+        }
+    }
+
+    private void fail(List<String> batch, Throwable error) {
+        for (String queryExecutionId : batch) {
+            CompletableFuture<QueryExecution> future = pendingExecutions.remove(queryExecutionId);
+            if (future != null) {
+                future.completeExceptionally(error);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        for (CompletableFuture<QueryExecution> future : pendingExecutions.values()) {
+            future.completeExceptionally(new SQLException("Query execution poller is closed"));
+        }
+        pendingExecutions.clear();
+    }
+}
@@ -6,11 +6,14 @@ import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
-public class FixedDelayPollingStrategy implements PollingStrategy {
+public class FixedDelayPollingStrategy implements PollingStrategy, AsyncPollingStrategy {
     private final Duration delay;
     private final Sleeper sleeper;
     private Clock clock;
@@ -36,4 +39,35 @@ public class FixedDelayPollingStrategy implements PollingStrategy {
             }
         }
     }
+
+    @Override
+    public CompletionStage<ResultSet> pollUntilCompletedAsync(AsyncPollingCallback callback, Instant deadline, ScheduledExecutorService scheduler) {
+        CompletableFuture<ResultSet> resultSetFuture = new CompletableFuture<>();
+        pollAsync(callback, deadline, scheduler, resultSetFuture);
+        return resultSetFuture;
+    }
+
+    private void pollAsync(AsyncPollingCallback callback, Instant deadline, ScheduledExecutorService scheduler, CompletableFuture<ResultSet> resultSetFuture) {
+        CompletionStage<Optional<ResultSet>> poll;
+        try {
+            poll = callback.poll(deadline);
+        } catch (RuntimeException e) {
+            resultSetFuture.completeExceptionally(e);
+            return;
+        }
+        poll.whenComplete((resultSet, error) -> {
+            if (error != null) {
+                resultSetFuture.completeExceptionally(error);
+            } else if (resultSet.isPresent()) {
+                resultSetFuture.complete(resultSet.get());
+            } else {
+                try {
+                    Duration sleepDuration = sleepDuration(delay, clock.instant(), deadline);
+                    scheduler.schedule(() -> pollAsync(callback, deadline, scheduler, resultSetFuture), sleepDuration.toMillis(), TimeUnit.MILLISECONDS);
+                } catch (TimeoutException | RuntimeException e) {
+                    resultSetFuture.completeExceptionally(e);
+                }
+            }
+        });
+    }
 }
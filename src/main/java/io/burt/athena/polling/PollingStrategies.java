@@ -1,6 +1,8 @@
 package io.burt.athena.polling;
 
+import java.time.Clock;
 import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 
 public class PollingStrategies {
     public static PollingStrategy defaultFixedDelay() {
@@ -18,4 +20,36 @@ public class PollingStrategies {
     public static PollingStrategy backoff(Duration firstDelay, Duration maxDelay, long factor) {
         return new BackoffPollingStrategy(firstDelay, maxDelay, factor);
     }
+
+    public static PollingStrategy defaultPredictive() {
+        return predictive(Duration.ofMillis(10), Duration.ofSeconds(5));
+    }
+
+    /**
+     * @param minDelay the shortest delay between polls, used around the
+     *                 predicted finish time of queries that run quickly
+     * @param maxDelay the longest delay between polls
+     */
+    public static PollingStrategy predictive(Duration minDelay, Duration maxDelay) {
+        return new PredictivePollingStrategy(minDelay, maxDelay);
+    }
+
+    public static AsyncPollingStrategy asyncFixedDelay(Duration delay) {
+        return new FixedDelayPollingStrategy(delay);
+    }
+
+    public static AsyncPollingStrategy asyncBackoff(Duration firstDelay, Duration maxDelay) {
+        return new BackoffPollingStrategy(firstDelay, maxDelay);
+    }
+
+    public static AsyncPollingStrategy asyncBackoff(Duration firstDelay, Duration maxDelay, long factor) {
+        return new BackoffPollingStrategy(firstDelay, maxDelay, factor);
+    }
+
+    /**
+     * @param clock the clock that deadlines are compared with
+     */
+    public static AsyncPollingStrategy asyncBackoff(Duration firstDelay, Duration maxDelay, long factor, Clock clock) {
+        return new BackoffPollingStrategy(firstDelay, maxDelay, factor, duration -> TimeUnit.MILLISECONDS.sleep(duration.toMillis()), clock);
+    }
 }
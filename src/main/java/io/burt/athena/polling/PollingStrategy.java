@@ -1,5 +1,7 @@
 package io.burt.athena.polling;
 
+import software.amazon.awssdk.services.athena.model.QueryExecution;
+
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.Duration;
@@ -10,6 +12,28 @@ import java.util.concurrent.TimeoutException;
 public interface PollingStrategy {
     ResultSet pollUntilCompleted(PollingCallback callback, Instant deadline) throws SQLException, TimeoutException, ExecutionException, InterruptedException;
 
+    /**
+     * Returns the strategy to poll an execution of the given SQL with.
+     *
+     * Strategies that adapt to the query return a strategy of their own for
+     * it, the default is to poll all queries the same way.
+     *
+     * @param sql the SQL of the query execution that will be polled
+     * @return the strategy to poll the query execution with
+     */
+    default PollingStrategy forQuery(String sql) {
+        return this;
+    }
+
+    /**
+     * Called with the query execution when a query polled with this strategy
+     * has succeeded. The default is to ignore it.
+     *
+     * @param queryExecution the succeeded query execution
+     */
+    default void recordCompletion(QueryExecution queryExecution) {
+    }
+
     default Duration sleepDuration(Duration desired, Instant now, Instant deadline) throws TimeoutException {
         Duration beforeDeadline = Duration.between(now, deadline);
         if (beforeDeadline.compareTo(desired) < 0) {
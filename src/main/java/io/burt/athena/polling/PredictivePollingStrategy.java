@@ -0,0 +1,240 @@
+package io.burt.athena.polling;
+
+import software.amazon.awssdk.services.athena.model.QueryExecution;
+import software.amazon.awssdk.services.athena.model.QueryExecutionStatistics;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Pattern;
+
+/**
+ * A polling strategy that predicts when a query execution will finish from
+ * how long earlier executions of the same query took.
+ *
+ * Queries are grouped by a fingerprint of their SQL, in which literals are
+ * replaced and whitespace and case are normalized, so that executions of
+ * the same query with different parameters share a history. For each
+ * fingerprint the strategy keeps moving averages of the queue time and the
+ * execution time from the statistics of succeeded query executions, and of
+ * how much they deviate.
+ *
+ * Until the predicted finish time minus the deviation a query is polled no
+ * more than every max delay, within the deviation of the predicted finish
+ * time it is polled often, and when it runs past that the delay backs off
+ * again. Queries without a history are polled with backoff from the start.
+ */
+class PredictivePollingStrategy implements PollingStrategy, AsyncPollingStrategy {
+    static final int MAX_FINGERPRINTS = 1000;
+
+    private static final double SMOOTHING = 0.3;
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMERIC_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final Duration minDelay;
+    private final Duration maxDelay;
+    private final Sleeper sleeper;
+    private final Clock clock;
+    private final Map<String, History> histories;
+    private final String fingerprint;
+
+    PredictivePollingStrategy(Duration minDelay, Duration maxDelay) {
+        this(minDelay, maxDelay, duration -> TimeUnit.MILLISECONDS.sleep(duration.toMillis()), Clock.systemDefaultZone());
+    }
+
+    PredictivePollingStrategy(Duration minDelay, Duration maxDelay, Sleeper sleeper, Clock clock) {
+        this(minDelay, maxDelay, sleeper, clock, createHistories(), null);
+    }
+
+    private PredictivePollingStrategy(Duration minDelay, Duration maxDelay, Sleeper sleeper, Clock clock, Map<String, History> histories, String fingerprint) {
+        this.minDelay = minDelay;
+        this.maxDelay = maxDelay;
+        this.sleeper = sleeper;
+        this.clock = clock;
+        this.histories = histories;
+        this.fingerprint = fingerprint;
+    }
+
+    private static Map<String, History> createHistories() {
+        return Collections.synchronizedMap(new LinkedHashMap<String, History>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, History> eldest) {
+                return size() > MAX_FINGERPRINTS;
+            }
+        });
+    }
+
+    /**
+     * @return the SQL with string and numeric literals replaced by
+     *         placeholders, runs of whitespace replaced by single spaces, and
+     *         in lower case
+     */
+    static String fingerprint(String sql) {
+        String fingerprint = STRING_LITERAL.matcher(sql).replaceAll("?");
+        fingerprint = NUMERIC_LITERAL.matcher(fingerprint).replaceAll("?");
+        fingerprint = WHITESPACE.matcher(fingerprint.trim()).replaceAll(" ");
+        return fingerprint.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns a strategy that polls with the history of the query, and that
+     * adds to that history when the query has succeeded. The history is
+     * shared with this strategy and all other strategies it returns.
+     */
+    @Override
+    public PollingStrategy forQuery(String sql) {
+        return new PredictivePollingStrategy(minDelay, maxDelay, sleeper, clock, histories, fingerprint(sql));
+    }
+
+    @Override
+    public void recordCompletion(QueryExecution queryExecution) {
+        QueryExecutionStatistics statistics = queryExecution.statistics();
+        if (fingerprint != null && statistics != null && statistics.engineExecutionTimeInMillis() != null) {
+            long queueMillis = statistics.queryQueueTimeInMillis() == null ? 0 : statistics.queryQueueTimeInMillis();
+            histories.computeIfAbsent(fingerprint, f -> new History()).record(queueMillis, statistics.engineExecutionTimeInMillis());
+        }
+    }
+
+    private Prediction predict() {
+        if (fingerprint == null) {
+            return null;
+        }
+        History history = histories.get(fingerprint);
+        return history == null ? null : history.predict();
+    }
+
+    @Override
+    public ResultSet pollUntilCompleted(PollingCallback callback, Instant deadline) throws SQLException, TimeoutException, ExecutionException, InterruptedException {
+        Prediction prediction = predict();
+        Instant start = clock.instant();
+        Duration delay = null;
+        while (true) {
+            Optional<ResultSet> resultSet = callback.poll(deadline);
+            if (resultSet.isPresent()) {
+                return resultSet.get();
+            } else {
+                Instant now = clock.instant();
+                delay = nextDelay(prediction, Duration.between(start, now), delay);
+                sleeper.sleep(sleepDuration(delay, now, deadline));
+            }
+        }
+    }
+
+    @Override
+    public CompletionStage<ResultSet> pollUntilCompletedAsync(AsyncPollingCallback callback, Instant deadline, ScheduledExecutorService scheduler) {
+        CompletableFuture<ResultSet> resultSetFuture = new CompletableFuture<>();
+        pollAsync(callback, deadline, scheduler, predict(), clock.instant(), null, resultSetFuture);
+        return resultSetFuture;
+    }
+
+    private void pollAsync(AsyncPollingCallback callback, Instant deadline, ScheduledExecutorService scheduler, Prediction prediction, Instant start, Duration previousDelay, CompletableFuture<ResultSet> resultSetFuture) {
+        CompletionStage<Optional<ResultSet>> poll;
+        try {
+            poll = callback.poll(deadline);
+        } catch (RuntimeException e) {
+            resultSetFuture.completeExceptionally(e);
+            return;
+        }
+        poll.whenComplete((resultSet, error) -> {
+            if (error != null) {
+                resultSetFuture.completeExceptionally(error);
+            } else if (resultSet.isPresent()) {
+                resultSetFuture.complete(resultSet.get());
+            } else {
+                try {
+                    Instant now = clock.instant();
+                    Duration delay = nextDelay(prediction, Duration.between(start, now), previousDelay);
+                    Duration sleepDuration = sleepDuration(delay, now, deadline);
+                    scheduler.schedule(() -> pollAsync(callback, deadline, scheduler, prediction, start, delay, resultSetFuture), sleepDuration.toMillis(), TimeUnit.MILLISECONDS);
+                } catch (TimeoutException | RuntimeException e) {
+                    resultSetFuture.completeExceptionally(e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Sleeps until the window around the predicted finish time when polling
+     * before it, polls with a delay of a quarter of the window within it,
+     * and doubles the previous delay when there is no prediction or the
+     * window has passed.
+     */
+    private Duration nextDelay(Prediction prediction, Duration elapsed, Duration previousDelay) {
+        if (prediction != null) {
+            Duration windowStart = prediction.finish.minus(prediction.spread);
+            Duration windowEnd = prediction.finish.plus(prediction.spread);
+            if (elapsed.compareTo(windowStart) < 0) {
+                return clamp(windowStart.minus(elapsed));
+            } else if (elapsed.compareTo(windowEnd) <= 0) {
+                return clamp(prediction.spread.dividedBy(4));
+            }
+        }
+        return previousDelay == null ? minDelay : clamp(previousDelay.multipliedBy(2));
+    }
+
+    private Duration clamp(Duration delay) {
+        if (delay.compareTo(minDelay) < 0) {
+            return minDelay;
+        } else if (delay.compareTo(maxDelay) > 0) {
+            return maxDelay;
+        } else {
+            return delay;
+        }
+    }
+
+    private static class Prediction {
+        final Duration finish;
+        final Duration spread;
+
+        Prediction(Duration finish, Duration spread) {
+            this.finish = finish;
+            this.spread = spread;
+        }
+    }
+
+    private static class History {
+        private double queueMillis;
+        private double queueDeviation;
+        private double executionMillis;
+        private double executionDeviation;
+        private boolean empty = true;
+
+        synchronized void record(long queueSample, long executionSample) {
+            if (empty) {
+                queueMillis = queueSample;
+                executionMillis = executionSample;
+                empty = false;
+            } else {
+                queueDeviation += SMOOTHING * (Math.abs(queueSample - queueMillis) - queueDeviation);
+                queueMillis += SMOOTHING * (queueSample - queueMillis);
+                executionDeviation += SMOOTHING * (Math.abs(executionSample - executionMillis) - executionDeviation);
+                executionMillis += SMOOTHING * (executionSample - executionMillis);
+            }
+        }
+
+        /**
+         * Predicts that the query finishes after its average queue and
+         * execution times, give or take their deviations, but never less
+         * than a tenth of the predicted time.
+         */
+        synchronized Prediction predict() {
+            double finish = queueMillis + executionMillis;
+            double spread = Math.max(queueDeviation + executionDeviation, finish / 10);
+            return new Prediction(Duration.ofMillis(Math.round(finish)), Duration.ofMillis(Math.round(spread)));
+        }
+    }
+}
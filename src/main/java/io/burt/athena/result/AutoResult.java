@@ -0,0 +1,205 @@
+package io.burt.athena.result;
+
+import io.burt.athena.AthenaResultSetMetaData;
+import io.burt.athena.result.s3.S3Downloader;
+import software.amazon.awssdk.services.athena.AthenaAsyncClient;
+import software.amazon.awssdk.services.athena.model.QueryExecution;
+import software.amazon.awssdk.services.athena.model.StatementType;
+
+import java.nio.channels.WritableByteChannel;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A result that picks how to load the rows of each query execution from
+ * the size of the CSV file that Athena wrote them to.
+ *
+ * Small results are loaded with the <code>GetQueryResults</code> API call,
+ * which skips the two S3 requests of a download. Larger results are
+ * downloaded from S3, which skips paging through them a thousand rows at a
+ * time, and results that are larger still are downloaded in parallel byte
+ * ranges, split so that all parts are used.
+ *
+ * The size is looked up with a <code>HEAD</code> request the first time the
+ * result is used. Statements that are not queries, like DDL statements,
+ * have small results and are always loaded with
+ * <code>GetQueryResults</code>, without a lookup. So are results whose
+ * size cannot be looked up.
+ *
+ * The statistics of the query execution are not used to pick: they do not
+ * include the size of the result, and the amount of data scanned says
+ * nothing about it, a query that scans nothing can produce a large result.
+ */
+public class AutoResult implements Result {
+    public static final long MAX_STANDARD_RESULT_SIZE = 1L << 18;
+    public static final long MIN_RANGED_DOWNLOAD_SIZE = 1L << 25;
+    public static final int RANGED_DOWNLOAD_PARALLELISM = 4;
+
+    private static final Pattern S3_URI_PATTERN = Pattern.compile("^s3://([^/]+)/(.+)$");
+    private static final long MIN_PART_SIZE = 1L << 23;
+
+    private final AthenaAsyncClient athenaClient;
+    private final S3Downloader downloader;
+    private final QueryExecution queryExecution;
+    private final Duration timeout;
+    private final Executor parserExecutor;
+    private final boolean parallelParsing;
+
+    private Result result;
+    private int fetchSize;
+
+    /**
+     * @param athenaClient the client to load small results with
+     * @param downloader the downloader to look up sizes and download larger
+     *                   results with
+     * @param queryExecution the query execution whose results to load
+     * @param timeout the max time to wait for the size, and for the result
+     *                that is picked to start loading
+     * @param parserExecutor see {@link S3Result#S3Result(S3Downloader, QueryExecution, Duration, boolean, Executor, boolean)}
+     * @param parallelParsing see {@link S3Result#S3Result(S3Downloader, QueryExecution, Duration, boolean, Executor, boolean)}
+     */
+    public AutoResult(AthenaAsyncClient athenaClient, S3Downloader downloader, QueryExecution queryExecution, Duration timeout, Executor parserExecutor, boolean parallelParsing) {
+        this.athenaClient = athenaClient;
+        this.downloader = downloader;
+        this.queryExecution = queryExecution;
+        this.timeout = timeout;
+        this.parserExecutor = parserExecutor;
+        this.parallelParsing = parallelParsing;
+        this.result = null;
+        this.fetchSize = StandardResult.MAX_FETCH_SIZE;
+    }
+
+    private Result result() throws SQLException {
+        if (result == null) {
+            result = createResult();
+        }
+        return result;
+    }
+
+    private Result currentResult() throws SQLException {
+        if (result == null) {
+            throw new SQLException("Cannot read from a result positioned before the first row");
+        }
+        return result;
+    }
+
+    private Result createResult() throws SQLException {
+        if (queryExecution.statementType() != StatementType.DML) {
+            return createStandardResult();
+        }
+        Matcher matcher = S3_URI_PATTERN.matcher(queryExecution.resultConfiguration().outputLocation());
+        if (!matcher.matches()) {
+            return createStandardResult();
+        }
+        long size;
+        try {
+            size = downloader.getObjectSize(matcher.group(1), matcher.group(2)).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException(e);
+        } catch (ExecutionException | TimeoutException | RuntimeException e) {
+            return createStandardResult();
+        }
+        if (size <= MAX_STANDARD_RESULT_SIZE) {
+            return createStandardResult();
+        } else if (size >= MIN_RANGED_DOWNLOAD_SIZE && downloader.getParallelism() == 1) {
+            long partSize = Math.max(MIN_PART_SIZE, (size + RANGED_DOWNLOAD_PARALLELISM - 1) / RANGED_DOWNLOAD_PARALLELISM);
+            return createS3Result(downloader.withParallelism(RANGED_DOWNLOAD_PARALLELISM, partSize));
+        } else {
+            return createS3Result(downloader);
+        }
+    }
+
+    private Result createStandardResult() {
+        return new PreloadingStandardResult(athenaClient, queryExecution, fetchSize, timeout);
+    }
+
+    private Result createS3Result(S3Downloader s3Downloader) {
+        return new S3Result(s3Downloader, queryExecution, timeout, false, parserExecutor, parallelParsing);
+    }
+
+    @Override
+    public int getFetchSize() throws SQLException {
+        return result == null ? fetchSize : result.getFetchSize();
+    }
+
+    @Override
+    public void setFetchSize(int newFetchSize) throws SQLException {
+        if (newFetchSize > StandardResult.MAX_FETCH_SIZE) {
+            throw new SQLException(String.format("Fetch size too large (got %d, max is %d)", newFetchSize, StandardResult.MAX_FETCH_SIZE));
+        }
+        fetchSize = newFetchSize;
+        if (result != null) {
+            result.setFetchSize(newFetchSize);
+        }
+    }
+
+    @Override
+    public AthenaResultSetMetaData getMetaData() throws SQLException {
+        return result().getMetaData();
+    }
+
+    @Override
+    public int getRowNumber() throws SQLException {
+        return result == null ? 0 : result.getRowNumber();
+    }
+
+    @Override
+    public boolean next() throws SQLException {
+        return result().next();
+    }
+
+    @Override
+    public String getString(int columnIndex) throws SQLException {
+        return currentResult().getString(columnIndex);
+    }
+
+    @Override
+    public boolean isNull(int columnIndex) throws SQLException {
+        return currentResult().isNull(columnIndex);
+    }
+
+    @Override
+    public int getInt(int columnIndex) throws SQLException {
+        return currentResult().getInt(columnIndex);
+    }
+
+    @Override
+    public long getLong(int columnIndex) throws SQLException {
+        return currentResult().getLong(columnIndex);
+    }
+
+    @Override
+    public double getDouble(int columnIndex) throws SQLException {
+        return currentResult().getDouble(columnIndex);
+    }
+
+    @Override
+    public ResultPosition getPosition() throws SQLException {
+        return result == null ? ResultPosition.BEFORE_FIRST : result.getPosition();
+    }
+
+    /**
+     * Transfers the rows when the result is downloaded from S3, which is
+     * the case for all but the smallest results.
+     *
+     * @see S3Result#transferTo(WritableByteChannel)
+     */
+    @Override
+    public long transferTo(WritableByteChannel target) throws SQLException {
+        return result().transferTo(target);
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (result != null) {
+            result.close();
+        }
+    }
+}
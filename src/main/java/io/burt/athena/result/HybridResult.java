@@ -0,0 +1,168 @@
+package io.burt.athena.result;
+
+import io.burt.athena.AthenaResultSetMetaData;
+import software.amazon.awssdk.services.athena.AthenaAsyncClient;
+import software.amazon.awssdk.services.athena.model.GetQueryResultsResponse;
+import software.amazon.awssdk.services.athena.model.QueryExecution;
+
+import java.nio.channels.WritableByteChannel;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A result that serves the first page of rows from the Athena
+ * <code>GetQueryResults</code> API call, and the rest from the CSV file
+ * that Athena writes to S3.
+ *
+ * A single page is the fastest way to get the first rows, but pages are
+ * small, and loading many of them is much slower than downloading the file.
+ * Downloading the file has a higher latency, since both the file and its
+ * metadata must be requested before the first row can be read.
+ *
+ * When the first page shows that there are more rows, the download of the
+ * file is started in the background while the rows of the page are read.
+ * When the page runs out the rows that have already been read are skipped
+ * in the file, and the rest are read from it. Results that fit in a single
+ * page never touch S3.
+ */
+public class HybridResult implements Result {
+    private final FirstPage firstPage;
+    private final S3Result s3Result;
+
+    private boolean readingS3;
+
+    /**
+     * @param athenaClient the client to load the first page with
+     * @param s3Result the result to read the rows after the first page from
+     * @param queryExecution the query execution whose results to load
+     * @param timeout the max time to wait for the first page
+     */
+    public HybridResult(AthenaAsyncClient athenaClient, S3Result s3Result, QueryExecution queryExecution, Duration timeout) {
+        this.firstPage = new FirstPage(athenaClient, queryExecution, timeout);
+        this.s3Result = s3Result;
+        this.readingS3 = false;
+    }
+
+    private class FirstPage extends StandardResult {
+        private boolean hasMorePages;
+
+        FirstPage(AthenaAsyncClient athenaClient, QueryExecution queryExecution, Duration timeout) {
+            super(athenaClient, queryExecution, StandardResult.MAX_FETCH_SIZE, timeout);
+            this.hasMorePages = false;
+        }
+
+        @Override
+        protected boolean shouldLoadNextPage() throws SQLException {
+            return getRowNumber() == 0 && !hasLoadedPage();
+        }
+
+        @Override
+        protected GetQueryResultsResponse loadNextPage() throws InterruptedException, TimeoutException, ExecutionException {
+            GetQueryResultsResponse response = super.loadNextPage();
+            hasMorePages = response.nextToken() != null;
+            if (hasMorePages) {
+                try {
+                    s3Result.startDownload();
+                } catch (RuntimeException e) {
+                    // the download is started again, and fails, when the page runs out
+                }
+            }
+            return response;
+        }
+    }
+
+    @Override
+    public int getFetchSize() throws SQLException {
+        return firstPage.getFetchSize();
+    }
+
+    @Override
+    public void setFetchSize(int newFetchSize) throws SQLException {
+        firstPage.setFetchSize(newFetchSize);
+    }
+
+    @Override
+    public AthenaResultSetMetaData getMetaData() throws SQLException {
+        return firstPage.getMetaData();
+    }
+
+    @Override
+    public int getRowNumber() throws SQLException {
+        return readingS3 ? s3Result.getRowNumber() : firstPage.getRowNumber();
+    }
+
+    @Override
+    public boolean next() throws SQLException {
+        if (readingS3) {
+            return s3Result.next();
+        } else if (firstPage.next()) {
+            return true;
+        } else if (!firstPage.hasMorePages) {
+            return false;
+        } else {
+            int rowsRead = firstPage.getRowNumber() - 1;
+            readingS3 = true;
+            firstPage.close();
+            for (int i = 0; i < rowsRead; i++) {
+                if (!s3Result.next()) {
+                    return false;
+                }
+            }
+            return s3Result.next();
+        }
+    }
+
+    @Override
+    public String getString(int columnIndex) throws SQLException {
+        return readingS3 ? s3Result.getString(columnIndex) : firstPage.getString(columnIndex);
+    }
+
+    @Override
+    public boolean isNull(int columnIndex) throws SQLException {
+        return readingS3 ? s3Result.isNull(columnIndex) : firstPage.isNull(columnIndex);
+    }
+
+    @Override
+    public int getInt(int columnIndex) throws SQLException {
+        return readingS3 ? s3Result.getInt(columnIndex) : firstPage.getInt(columnIndex);
+    }
+
+    @Override
+    public long getLong(int columnIndex) throws SQLException {
+        return readingS3 ? s3Result.getLong(columnIndex) : firstPage.getLong(columnIndex);
+    }
+
+    @Override
+    public double getDouble(int columnIndex) throws SQLException {
+        return readingS3 ? s3Result.getDouble(columnIndex) : firstPage.getDouble(columnIndex);
+    }
+
+    @Override
+    public ResultPosition getPosition() throws SQLException {
+        return readingS3 ? s3Result.getPosition() : firstPage.getPosition();
+    }
+
+    /**
+     * Transfers the rows from the CSV file, which is only possible when no
+     * rows have been read.
+     *
+     * @see S3Result#transferTo(WritableByteChannel)
+     */
+    @Override
+    public long transferTo(WritableByteChannel target) throws SQLException {
+        if (getRowNumber() > 0) {
+            throw new SQLException("Cannot transfer a result whose rows have already been read");
+        }
+        readingS3 = true;
+        firstPage.close();
+        return s3Result.transferTo(target);
+    }
+
+    @Override
+    public void close() throws SQLException {
+        firstPage.close();
+        s3Result.close();
+    }
+}
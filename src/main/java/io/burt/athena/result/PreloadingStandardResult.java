@@ -6,48 +6,177 @@ import software.amazon.awssdk.services.athena.model.QueryExecution;
 
 import java.sql.SQLException;
 import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.function.LongSupplier;
 
+/**
+ * A result that loads pages ahead of the reader.
+ *
+ * Each page needs the token of the page before it, so pages cannot be
+ * loaded in parallel. Instead the next page is requested as soon as the
+ * previous one arrives, whether or not the reader has got to it, until
+ * enough pages are loaded or in flight. When the reader takes a page and
+ * the last page has already arrived, the page after it is requested right
+ * away, so that the pipeline stays full.
+ *
+ * How many is enough depends on how long the reader takes to read a page
+ * compared to how long a page takes to load. Both are measured, and the
+ * depth is enough pages to cover the latency of a page while the reader
+ * reads the pages before it, but never more than the max prefetch depth.
+ */
 public class PreloadingStandardResult extends StandardResult {
-    private CompletableFuture<GetQueryResultsResponse> pendingResult;
+    public static final int DEFAULT_MAX_PREFETCH_DEPTH = 4;
+
+    private static final double SMOOTHING = 0.5;
+
+    private final int maxPrefetchDepth;
+    private final LongSupplier nanoTime;
+    private final Deque<CompletableFuture<GetQueryResultsResponse>> pendingPages;
+
+    private boolean morePages;
+    private boolean closed;
+    private int prefetchDepth;
+    private double pageLatencyNanos;
+    private double readNanos;
+    private long lastPageTakenAt;
 
     public PreloadingStandardResult(AthenaAsyncClient athenaClient, QueryExecution queryExecution, int fetchSize, Duration timeout) {
+        this(athenaClient, queryExecution, fetchSize, timeout, DEFAULT_MAX_PREFETCH_DEPTH);
+    }
+
+    /**
+     * @param maxPrefetchDepth the max number of pages that are loaded, or
+     *                         being loaded, ahead of the reader
+     */
+    public PreloadingStandardResult(AthenaAsyncClient athenaClient, QueryExecution queryExecution, int fetchSize, Duration timeout, int maxPrefetchDepth) {
+        this(athenaClient, queryExecution, fetchSize, timeout, maxPrefetchDepth, System::nanoTime);
+    }
+
+    PreloadingStandardResult(AthenaAsyncClient athenaClient, QueryExecution queryExecution, int fetchSize, Duration timeout, int maxPrefetchDepth, LongSupplier nanoTime) {
         super(athenaClient, queryExecution, fetchSize, timeout);
-        this.pendingResult = null;
+        if (maxPrefetchDepth < 1) {
+            throw new IllegalArgumentException(String.format("Max prefetch depth must be at least one (got %d)", maxPrefetchDepth));
+        }
+        this.maxPrefetchDepth = maxPrefetchDepth;
+        this.nanoTime = nanoTime;
+        this.pendingPages = new ArrayDeque<>(maxPrefetchDepth);
+        this.morePages = false;
+        this.closed = false;
+        this.prefetchDepth = 1;
+        this.pageLatencyNanos = 0;
+        this.readNanos = 0;
+        this.lastPageTakenAt = -1;
     }
 
     @Override
     protected boolean shouldLoadNextPage() throws SQLException {
-        return (getRowNumber() == 0 && currentRows == null) || (pendingResult != null && !currentRows.hasNext());
+        return (getRowNumber() == 0 && !hasLoadedPage()) || (morePages && !hasMoreRowsInPage());
     }
 
     @Override
     protected GetQueryResultsResponse loadNextPage() throws InterruptedException, TimeoutException, ExecutionException {
         CompletableFuture<GetQueryResultsResponse> loadingPage;
-        if (pendingResult == null) {
-            loadingPage = loadPage();
-        } else {
-            loadingPage = pendingResult;
-            pendingResult = null;
+        synchronized (this) {
+            if (pendingPages.isEmpty()) {
+                requestPage(null);
+            }
+            loadingPage = pendingPages.poll();
+            requestPageAfter(pendingPages.isEmpty() ? loadingPage : pendingPages.peekLast());
+            long now = nanoTime.getAsLong();
+            if (lastPageTakenAt >= 0) {
+                readNanos = smooth(readNanos, now - lastPageTakenAt);
+            }
+            lastPageTakenAt = now;
         }
         GetQueryResultsResponse response = loadingPage.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
-        if (response.nextToken() != null) {
-            pendingResult = loadPage(response.nextToken());
+        synchronized (this) {
+            morePages = response.nextToken() != null;
+            if (morePages && pendingPages.isEmpty()) {
+                requestPage(response.nextToken());
+            }
+            updatePrefetchDepth();
         }
         return response;
     }
 
+    private static double smooth(double average, long sample) {
+        return average == 0 ? sample : average * (1 - SMOOTHING) + sample * SMOOTHING;
+    }
+
+    /**
+     * Sets the depth to the number of pages the reader reads in the time it
+     * takes to load one, plus the one being read.
+     */
+    private void updatePrefetchDepth() {
+        if (readNanos > 0) {
+            int pagesPerLatency = (int) Math.ceil(pageLatencyNanos / readNanos);
+            prefetchDepth = Math.max(1, Math.min(maxPrefetchDepth, pagesPerLatency + 1));
+        }
+    }
+
+    /**
+     * Requests the page after a page that has already arrived, when there is
+     * room for it. Pages that are still in flight request the page after
+     * them when they arrive.
+     */
+    private synchronized void requestPageAfter(CompletableFuture<GetQueryResultsResponse> page) {
+        if (!closed && page.isDone() && !page.isCompletedExceptionally() && pendingPages.size() < prefetchDepth) {
+            String nextToken = page.join().nextToken();
+            if (nextToken != null) {
+                requestPage(nextToken);
+            }
+        }
+    }
+
+    /**
+     * Requests a page, and the pages after it as they arrive, as long as
+     * fewer pages than the prefetch depth are waiting for the reader.
+     */
+    private synchronized void requestPage(String nextToken) {
+        long requestedAt = nanoTime.getAsLong();
+        CompletableFuture<GetQueryResultsResponse> page = loadPage(nextToken);
+        pendingPages.add(page);
+        page.thenAccept(response -> onPageLoaded(page, response, nanoTime.getAsLong() - requestedAt));
+    }
+
+    private synchronized void onPageLoaded(CompletableFuture<GetQueryResultsResponse> page, GetQueryResultsResponse response, long latencyNanos) {
+        pageLatencyNanos = smooth(pageLatencyNanos, latencyNanos);
+        boolean isLastPending = pendingPages.peekLast() == page;
+        if (!closed && isLastPending && response.nextToken() != null && pendingPages.size() < prefetchDepth) {
+            requestPage(response.nextToken());
+        }
+    }
+
+    /**
+     * @return the number of pages the result currently tries to keep loaded
+     *         or in flight ahead of the reader
+     */
+    synchronized int getPrefetchDepth() {
+        return prefetchDepth;
+    }
+
     @Override
     public ResultPosition getPosition() throws SQLException {
-        if (pendingResult == null && currentRows != null && currentRow != null && !currentRows.hasNext()) {
+        if (!morePages && hasLoadedPage() && hasCurrentRow() && !hasMoreRowsInPage()) {
             return ResultPosition.LAST;
-        } else if (pendingResult == null && currentRows != null && currentRow == null) {
+        } else if (!morePages && hasLoadedPage() && !hasCurrentRow()) {
             return ResultPosition.AFTER_LAST;
         } else {
             return super.getPosition();
         }
     }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            pendingPages.clear();
+        }
+        super.close();
+    }
 }
@@ -2,7 +2,9 @@ package io.burt.athena.result;
 
 import io.burt.athena.AthenaResultSetMetaData;
 
+import java.nio.channels.WritableByteChannel;
 import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
 
 public interface Result extends AutoCloseable {
     int getFetchSize() throws SQLException;
@@ -17,5 +19,71 @@ public interface Result extends AutoCloseable {
 
     String getString(int columnIndex) throws SQLException;
 
+    /**
+     * @param columnIndex the one based index of the column
+     * @return true if the column of the current row has no value
+     * @throws SQLException when the value cannot be read
+     */
+    default boolean isNull(int columnIndex) throws SQLException {
+        return getString(columnIndex) == null;
+    }
+
+    /**
+     * Returns the value of a column of the current row as an int.
+     *
+     * Implementations that have access to the raw value should override this
+     * to avoid creating a string for it.
+     *
+     * @param columnIndex the one based index of the column
+     * @return the value, or zero when the column has no value
+     * @throws SQLException when the value cannot be read
+     * @throws NumberFormatException when the value is not an int
+     */
+    default int getInt(int columnIndex) throws SQLException {
+        String value = getString(columnIndex);
+        return value == null ? 0 : Integer.parseInt(value);
+    }
+
+    /**
+     * Returns the value of a column of the current row as a long.
+     *
+     * @param columnIndex the one based index of the column
+     * @return the value, or zero when the column has no value
+     * @throws SQLException when the value cannot be read
+     * @throws NumberFormatException when the value is not a long
+     * @see #getInt(int)
+     */
+    default long getLong(int columnIndex) throws SQLException {
+        String value = getString(columnIndex);
+        return value == null ? 0 : Long.parseLong(value);
+    }
+
+    /**
+     * Returns the value of a column of the current row as a double.
+     *
+     * @param columnIndex the one based index of the column
+     * @return the value, or zero when the column has no value
+     * @throws SQLException when the value cannot be read
+     * @throws NumberFormatException when the value is not a double
+     * @see #getInt(int)
+     */
+    default double getDouble(int columnIndex) throws SQLException {
+        String value = getString(columnIndex);
+        return value == null ? 0 : Double.parseDouble(value);
+    }
+
     ResultPosition getPosition() throws SQLException;
+
+    /**
+     * Writes the rows of the result to a channel in the format they were
+     * loaded in, without parsing them.
+     *
+     * @param target the channel to write to
+     * @return the number of bytes written
+     * @throws SQLException when the result does not support raw transfers, or
+     *                      when reading or writing fails
+     */
+    default long transferTo(WritableByteChannel target) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Raw transfers are only supported for results loaded from S3");
+    }
 }
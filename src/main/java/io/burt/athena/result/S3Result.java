@@ -1,23 +1,30 @@
 package io.burt.athena.result;
 
 import io.burt.athena.AthenaResultSetMetaData;
-import io.burt.athena.result.csv.VeryBasicCsvParser;
-import io.burt.athena.result.s3.ByteBufferResponseTransformer;
-import io.burt.athena.result.s3.InputStreamResponseTransformer;
+import io.burt.athena.result.csv.BackgroundCsvParser;
+import io.burt.athena.result.csv.ByteBufferCsvParser;
+import io.burt.athena.result.csv.CsvRow;
+import io.burt.athena.result.csv.CsvRowBatch;
+import io.burt.athena.result.csv.CsvRowBatchIterator;
+import io.burt.athena.result.csv.ParallelCsvParser;
+import io.burt.athena.result.s3.ChunkedInputStream;
+import io.burt.athena.result.s3.CsvBatchResponseTransformer;
+import io.burt.athena.result.s3.S3Downloader;
 import software.amazon.awssdk.services.athena.model.QueryExecution;
 import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.sql.SQLException;
 import java.sql.SQLTimeoutException;
 import java.time.Duration;
+import java.util.Iterator;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.regex.Matcher;
@@ -27,21 +34,68 @@ public class S3Result implements Result {
     private static final Pattern S3_URI_PATTERN = Pattern.compile("^s3://([^/]+)/(.+)$");
 
     private final QueryExecution queryExecution;
-    private final S3AsyncClient s3Client;
+    private final S3Downloader downloader;
     private final String bucketName;
     private final String key;
     private final Duration timeout;
+    private final boolean pushParsing;
+    private final Executor parserExecutor;
+    private final boolean parallelParsing;
 
-    private ResponseParser responseParser;
-    private String[] currentRow;
+    private CompletableFuture<RowParser> parserFuture;
+    private RowParser responseParser;
+    private CsvRow currentRow;
     private int rowNumber;
+    private boolean headerSkipped;
 
     public S3Result(S3AsyncClient s3Client, QueryExecution queryExecution, Duration timeout) {
-        this.s3Client = s3Client;
+        this(new S3Downloader(s3Client), queryExecution, timeout);
+    }
+
+    public S3Result(S3Downloader downloader, QueryExecution queryExecution, Duration timeout) {
+        this(downloader, queryExecution, timeout, false);
+    }
+
+    /**
+     * @param pushParsing when true the result is parsed as it is delivered,
+     *                    see {@link CsvBatchResponseTransformer}, instead of
+     *                    being read from a stream of downloaded chunks. This
+     *                    uses a single request for the download, regardless of
+     *                    the downloader's parallelism.
+     */
+    public S3Result(S3Downloader downloader, QueryExecution queryExecution, Duration timeout, boolean pushParsing) {
+        this(downloader, queryExecution, timeout, pushParsing, null);
+    }
+
+    /**
+     * @param pushParsing when true the result is parsed as it is delivered,
+     *                    see {@link #S3Result(S3Downloader, QueryExecution, Duration, boolean)}
+     * @param parserExecutor when not null, and the result is not parsed as it
+     *                       is delivered, the result is parsed ahead of the
+     *                       reader by a {@link BackgroundCsvParser} running on
+     *                       this executor, instead of on the reader's thread
+     */
+    public S3Result(S3Downloader downloader, QueryExecution queryExecution, Duration timeout, boolean pushParsing, Executor parserExecutor) {
+        this(downloader, queryExecution, timeout, pushParsing, parserExecutor, false);
+    }
+
+    /**
+     * @param parallelParsing when true, and there is a parser executor, the
+     *                        result is split into segments that are parsed
+     *                        at the same time by a {@link ParallelCsvParser},
+     *                        instead of by a single background task
+     */
+    public S3Result(S3Downloader downloader, QueryExecution queryExecution, Duration timeout, boolean pushParsing, Executor parserExecutor, boolean parallelParsing) {
+        this.downloader = downloader;
         this.queryExecution = queryExecution;
         this.timeout = timeout;
+        this.pushParsing = pushParsing;
+        this.parserExecutor = parserExecutor;
+        this.parallelParsing = parallelParsing;
+        this.parserFuture = null;
         this.currentRow = null;
         this.rowNumber = 0;
+        this.headerSkipped = false;
         Matcher matcher = S3_URI_PATTERN.matcher(queryExecution.resultConfiguration().outputLocation());
         if (matcher.matches()) {
             this.bucketName = matcher.group(1);
@@ -60,14 +114,52 @@ public class S3Result implements Result {
     public void setFetchSize(int newFetchSize) {
     }
 
+    /**
+     * Starts downloading the metadata and the result object, without waiting
+     * for them. Rows can be read as soon as both have arrived.
+     *
+     * This is done by the first call that needs rows or metadata, but can be
+     * done earlier to have the download open by the time rows are needed.
+     */
+    void startDownload() {
+        if (parserFuture == null) {
+            AthenaMetaDataParser metaDataParser = new AthenaMetaDataParser(queryExecution);
+            CompletableFuture<AthenaResultSetMetaData> metadataFuture = downloader.getObjectBytes(bucketName, key + ".metadata").thenApply(bytes -> {
+                AthenaResultSetMetaData metaData = metaDataParser.parse(bytes);
+                downloader.recycle(bytes);
+                return metaData;
+            });
+            CompletableFuture<RowParser> combinedFuture;
+            if (pushParsing) {
+                CompletableFuture<CsvBatchResponseTransformer> batchesFuture = downloader.getObjectBatches(bucketName, key);
+                combinedFuture = metadataFuture.thenCombine(batchesFuture, (metaData, batches) -> {
+                    batches.start(metaData.getColumnCount());
+                    return new BatchResponseParser(batches, metaData);
+                });
+            } else if (parserExecutor != null && parallelParsing) {
+                CompletableFuture<ChunkedInputStream> responseStreamFuture = downloader.getObjectStream(bucketName, key);
+                combinedFuture = metadataFuture.thenCombine(responseStreamFuture, (metaData, responseStream) -> {
+                    ParallelCsvParser parser = new ParallelCsvParser(responseStream, metaData.getColumnCount(), parserExecutor);
+                    return new BatchResponseParser(parser, metaData);
+                });
+            } else if (parserExecutor != null) {
+                CompletableFuture<ChunkedInputStream> responseStreamFuture = downloader.getObjectStream(bucketName, key);
+                combinedFuture = metadataFuture.thenCombine(responseStreamFuture, (metaData, responseStream) -> {
+                    BackgroundCsvParser parser = new BackgroundCsvParser(responseStream, metaData.getColumnCount());
+                    return new BatchResponseParser(parser.start(parserExecutor), metaData);
+                });
+            } else {
+                CompletableFuture<ChunkedInputStream> responseStreamFuture = downloader.getObjectStream(bucketName, key);
+                combinedFuture = metadataFuture.thenCombine(responseStreamFuture, (metaData, responseStream) -> new ResponseParser(responseStream, metaData));
+            }
+            parserFuture = combinedFuture;
+        }
+    }
+
     private void start() throws SQLException, InterruptedException {
         try {
-            AthenaMetaDataParser metaDataParser = new AthenaMetaDataParser(queryExecution);
-            CompletableFuture<AthenaResultSetMetaData> metadataFuture = s3Client.getObject(b -> b.bucket(bucketName).key(key + ".metadata"), new ByteBufferResponseTransformer()).thenApply(metaDataParser::parse);
-            CompletableFuture<InputStream> responseStreamFuture = s3Client.getObject(b -> b.bucket(bucketName).key(key), new InputStreamResponseTransformer());
-            CompletableFuture<ResponseParser> combinedFuture = metadataFuture.thenCombine(responseStreamFuture, (metaData, responseStream) -> new ResponseParser(responseStream, metaData));
-            responseParser = combinedFuture.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
-            responseParser.next();
+            startDownload();
+            responseParser = parserFuture.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
             rowNumber = 0;
         } catch (ExecutionException e) {
             SQLException ee = new SQLException(e.getCause());
@@ -76,18 +168,11 @@ public class S3Result implements Result {
         } catch (TimeoutException | NoSuchKeyException e) {
             throw new SQLTimeoutException(e);
         } catch (RuntimeException e) {
-            if (!(e.getCause() instanceof RuntimeException)) {
-                SQLException ee = new SQLException(e.getCause());
-                ee.addSuppressed(e);
-                throw ee;
-            } else {
-                throw e;
-            }
+            throw wrapRuntimeException(e);
         }
     }
 
-    @Override
-    public AthenaResultSetMetaData getMetaData() throws SQLException {
+    private void ensureStarted() throws SQLException {
         if (responseParser == null) {
             try {
                 start();
@@ -96,6 +181,29 @@ public class S3Result implements Result {
                 throw new SQLException(e);
             }
         }
+    }
+
+    private CsvRow parseNext() throws SQLException {
+        try {
+            return responseParser.next();
+        } catch (RuntimeException e) {
+            throw wrapRuntimeException(e);
+        }
+    }
+
+    private static RuntimeException wrapRuntimeException(RuntimeException e) throws SQLException {
+        if (!(e.getCause() instanceof RuntimeException)) {
+            SQLException ee = new SQLException(e.getCause());
+            ee.addSuppressed(e);
+            throw ee;
+        } else {
+            return e;
+        }
+    }
+
+    @Override
+    public AthenaResultSetMetaData getMetaData() throws SQLException {
+        ensureStarted();
         return responseParser.getMetaData();
     }
 
@@ -106,15 +214,12 @@ public class S3Result implements Result {
 
     @Override
     public boolean next() throws SQLException {
-        if (responseParser == null) {
-            try {
-                start();
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                throw new SQLException(e);
-            }
+        ensureStarted();
+        if (!headerSkipped) {
+            parseNext();
+            headerSkipped = true;
         }
-        currentRow = responseParser.next();
+        currentRow = parseNext();
         if (currentRow == null) {
             return false;
         } else {
@@ -125,7 +230,56 @@ public class S3Result implements Result {
 
     @Override
     public String getString(int columnIndex) {
-        return currentRow[columnIndex - 1];
+        return currentRow.getString(columnIndex - 1);
+    }
+
+    @Override
+    public boolean isNull(int columnIndex) {
+        return currentRow.isNull(columnIndex - 1);
+    }
+
+    @Override
+    public int getInt(int columnIndex) {
+        return currentRow.getInt(columnIndex - 1);
+    }
+
+    @Override
+    public long getLong(int columnIndex) {
+        return currentRow.getLong(columnIndex - 1);
+    }
+
+    @Override
+    public double getDouble(int columnIndex) {
+        return currentRow.getDouble(columnIndex - 1);
+    }
+
+    /**
+     * Writes the rows of the result object to a channel as they are
+     * downloaded, without parsing them.
+     *
+     * The rows are written in the CSV format Athena produced them in, but
+     * without the header row. The chunks of the download are written as they
+     * are, which means that a transfer is bound by the speed of the download
+     * and the target, not by CSV parsing. Results that are parsed as they are
+     * delivered write the bytes of each batch of parsed rows instead.
+     *
+     * @throws SQLException if rows have already been read from this result,
+     *                      or if downloading or writing fails
+     */
+    @Override
+    public long transferTo(WritableByteChannel target) throws SQLException {
+        ensureStarted();
+        if (headerSkipped) {
+            throw new SQLException("Cannot transfer a result whose rows have already been read");
+        }
+        headerSkipped = true;
+        try {
+            return responseParser.transferRowsTo(target);
+        } catch (IOException e) {
+            throw new SQLException(e);
+        } catch (RuntimeException e) {
+            throw wrapRuntimeException(e);
+        }
     }
 
     @Override
@@ -148,29 +302,121 @@ public class S3Result implements Result {
         try {
             if (responseParser != null) {
                 responseParser.close();
+            } else if (parserFuture != null) {
+                parserFuture.thenAccept(parser -> {
+                    try {
+                        parser.close();
+                    } catch (IOException e) {
+                        // nobody is reading the result
+                    }
+                });
             }
         } catch (IOException e) {
             throw new SQLException(e);
         }
     }
 
-    private static class ResponseParser extends VeryBasicCsvParser implements AutoCloseable {
-        private final InputStream responseStream;
+    private interface RowParser extends Iterator<CsvRow>, AutoCloseable {
+        AthenaResultSetMetaData getMetaData();
+
+        /**
+         * Writes the bytes of all rows after the header to a channel.
+         *
+         * @return the number of bytes written
+         */
+        long transferRowsTo(WritableByteChannel target) throws IOException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    private static class ResponseParser extends ByteBufferCsvParser implements RowParser {
+        private final ChunkedInputStream responseStream;
         private final AthenaResultSetMetaData metaData;
 
-        ResponseParser(InputStream responseStream, AthenaResultSetMetaData metaData) {
-            super(new BufferedReader(new InputStreamReader(responseStream, StandardCharsets.UTF_8)), metaData.getColumnCount());
+        ResponseParser(ChunkedInputStream responseStream, AthenaResultSetMetaData metaData) {
+            super(responseStream, metaData.getColumnCount());
             this.responseStream = responseStream;
             this.metaData = metaData;
         }
 
-        AthenaResultSetMetaData getMetaData() {
+        @Override
+        public AthenaResultSetMetaData getMetaData() {
             return metaData;
         }
 
+        @Override
+        public long transferRowsTo(WritableByteChannel target) throws IOException {
+            boolean inHeader = true;
+            boolean quoted = false;
+            long transferred = 0;
+            ByteBuffer chunk;
+            while ((chunk = responseStream.nextChunk()) != null) {
+                if (inHeader) {
+                    for (int i = chunk.position(); i < chunk.limit(); i++) {
+                        byte b = chunk.get(i);
+                        if (b == '"') {
+                            quoted = !quoted;
+                        } else if (b == '\n' && !quoted) {
+                            ((Buffer) chunk).position(i + 1);
+                            inHeader = false;
+                            break;
+                        }
+                    }
+                    if (inHeader) {
+                        responseStream.recycle(chunk);
+                        continue;
+                    }
+                }
+                transferred += chunk.remaining();
+                while (chunk.hasRemaining()) {
+                    target.write(chunk);
+                }
+                responseStream.recycle(chunk);
+            }
+            return transferred;
+        }
+
         @Override
         public void close() throws IOException {
             responseStream.close();
         }
     }
+
+    private static class BatchResponseParser extends CsvRowBatchIterator implements RowParser {
+        private final CsvRowBatchIterator.Source batches;
+        private final AthenaResultSetMetaData metaData;
+
+        BatchResponseParser(CsvRowBatchIterator.Source batches, AthenaResultSetMetaData metaData) {
+            super(batches, metaData.getColumnCount());
+            this.batches = batches;
+            this.metaData = metaData;
+        }
+
+        @Override
+        public AthenaResultSetMetaData getMetaData() {
+            return metaData;
+        }
+
+        @Override
+        public long transferRowsTo(WritableByteChannel target) throws IOException {
+            long transferred = 0;
+            int firstRow = 1;
+            CsvRowBatch batch;
+            while ((batch = batches.nextBatch()) != null) {
+                ByteBuffer bytes = batch.getBytes(Math.min(firstRow, batch.getRowCount()));
+                firstRow = 0;
+                transferred += bytes.remaining();
+                while (bytes.hasRemaining()) {
+                    target.write(bytes);
+                }
+            }
+            return transferred;
+        }
+
+        @Override
+        public void close() throws IOException {
+            batches.close();
+        }
+    }
 }
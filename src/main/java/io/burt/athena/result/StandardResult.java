@@ -2,6 +2,7 @@ package io.burt.athena.result;
 
 import io.burt.athena.AthenaResultSetMetaData;
 import software.amazon.awssdk.services.athena.AthenaAsyncClient;
+import software.amazon.awssdk.services.athena.model.Datum;
 import software.amazon.awssdk.services.athena.model.GetQueryResultsResponse;
 import software.amazon.awssdk.services.athena.model.QueryExecution;
 import software.amazon.awssdk.services.athena.model.Row;
@@ -9,12 +10,20 @@ import software.amazon.awssdk.services.athena.model.Row;
 import java.sql.SQLException;
 import java.sql.SQLTimeoutException;
 import java.time.Duration;
-import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
+/**
+ * A result that loads pages of rows with the Athena
+ * <code>GetQueryResults</code> API call.
+ *
+ * The values of each page are copied into a single array when the page
+ * arrives, row after row, so that the response can be dropped right away
+ * and reading a value is a single array lookup.
+ */
 public class StandardResult implements Result {
     public static final int MAX_FETCH_SIZE = 1000;
 
@@ -24,9 +33,10 @@ public class StandardResult implements Result {
     protected final AthenaAsyncClient athenaClient;
     protected final Duration timeout;
 
-    protected Iterator<Row> currentRows;
-    protected Row currentRow;
-
+    private String[] pageValues;
+    private int pageColumnCount;
+    private int pageRowCount;
+    private int pageRowIndex;
     private AthenaResultSetMetaData resultSetMetaData;
     private String nextToken;
     private int rowNumber;
@@ -38,8 +48,10 @@ public class StandardResult implements Result {
         this.timeout = timeout;
         this.rowNumber = 0;
         this.nextToken = null;
-        this.currentRows = null;
-        this.currentRow = null;
+        this.pageValues = null;
+        this.pageColumnCount = 0;
+        this.pageRowCount = 0;
+        this.pageRowIndex = -1;
         this.resultSetMetaData = null;
     }
 
@@ -48,11 +60,10 @@ public class StandardResult implements Result {
             try {
                 GetQueryResultsResponse response = loadNextPage();
                 nextToken = response.nextToken();
-                resultSetMetaData = new AthenaResultSetMetaData(queryExecution, response.resultSet().resultSetMetadata());
-                currentRows = response.resultSet().rows().iterator();
-                if (rowNumber == 0 && currentRows.hasNext()) {
-                    currentRows.next();
+                if (resultSetMetaData == null) {
+                    resultSetMetaData = new AthenaResultSetMetaData(queryExecution, response.resultSet().resultSetMetadata());
                 }
+                loadPageValues(response.resultSet().rows(), rowNumber == 0 ? 1 : 0);
             } catch (TimeoutException ie) {
                 throw new SQLTimeoutException(ie);
             } catch (ExecutionException ee) {
@@ -63,8 +74,57 @@ public class StandardResult implements Result {
         }
     }
 
+    /**
+     * Copies the values of the rows of a page into the page array.
+     *
+     * @param rows the rows of the page
+     * @param skip the number of rows to skip, one for the header row of the
+     *             first page
+     */
+    private void loadPageValues(List<Row> rows, int skip) {
+        int rowCount = Math.max(0, rows.size() - skip);
+        int columnCount = resultSetMetaData.getColumnCount();
+        for (int i = skip; i < rows.size(); i++) {
+            columnCount = Math.max(columnCount, rows.get(i).data().size());
+        }
+        String[] values = new String[rowCount * columnCount];
+        for (int i = 0; i < rowCount; i++) {
+            List<Datum> data = rows.get(skip + i).data();
+            int offset = i * columnCount;
+            for (int j = 0; j < data.size(); j++) {
+                values[offset + j] = data.get(j).varCharValue();
+            }
+        }
+        pageValues = values;
+        pageColumnCount = columnCount;
+        pageRowCount = rowCount;
+        pageRowIndex = -1;
+    }
+
     protected boolean shouldLoadNextPage() throws SQLException {
-        return (getRowNumber() == 0 && currentRows == null) || (nextToken != null && !currentRows.hasNext());
+        return (getRowNumber() == 0 && !hasLoadedPage()) || (nextToken != null && !hasMoreRowsInPage());
+    }
+
+    /**
+     * @return true when a page has been loaded
+     */
+    protected boolean hasLoadedPage() {
+        return pageValues != null;
+    }
+
+    /**
+     * @return true when there are rows after the current row in the current
+     *         page
+     */
+    protected boolean hasMoreRowsInPage() {
+        return pageValues != null && pageRowIndex + 1 < pageRowCount;
+    }
+
+    /**
+     * @return true when the result is positioned on a row
+     */
+    protected boolean hasCurrentRow() {
+        return pageValues != null && pageRowIndex >= 0 && pageRowIndex < pageRowCount;
     }
 
     protected GetQueryResultsResponse loadNextPage() throws InterruptedException, TimeoutException, ExecutionException {
@@ -120,12 +180,10 @@ public class StandardResult implements Result {
         try {
             ensureResults();
             rowNumber++;
-            if (currentRows.hasNext()) {
-                currentRow = currentRows.next();
-            } else {
-                currentRow = null;
+            if (pageRowIndex < pageRowCount) {
+                pageRowIndex++;
             }
-            return currentRow != null;
+            return hasCurrentRow();
         } catch (InterruptedException ie) {
             Thread.currentThread().interrupt();
             throw new SQLException(ie);
@@ -134,7 +192,10 @@ public class StandardResult implements Result {
 
     @Override
     public String getString(int columnIndex) throws SQLException {
-        return currentRow.data().get(columnIndex - 1).varCharValue();
+        if (columnIndex < 1 || columnIndex > pageColumnCount) {
+            throw new IndexOutOfBoundsException(String.format("Column index out of bounds (got %d, max is %d)", columnIndex, pageColumnCount));
+        }
+        return pageValues[pageRowIndex * pageColumnCount + columnIndex - 1];
     }
 
     @Override
@@ -143,9 +204,9 @@ public class StandardResult implements Result {
             return ResultPosition.BEFORE_FIRST;
         } else if (getRowNumber() == 1) {
             return ResultPosition.FIRST;
-        } else if (nextToken == null && currentRows != null && currentRow != null && !currentRows.hasNext()) {
+        } else if (nextToken == null && hasLoadedPage() && hasCurrentRow() && !hasMoreRowsInPage()) {
             return ResultPosition.LAST;
-        } else if (nextToken == null && currentRows != null && currentRow == null) {
+        } else if (nextToken == null && hasLoadedPage() && !hasCurrentRow()) {
             return ResultPosition.AFTER_LAST;
         } else {
             return ResultPosition.MIDDLE;
@@ -154,7 +215,8 @@ public class StandardResult implements Result {
 
     @Override
     public void close() {
-        currentRows = null;
-        currentRow = null;
+        pageValues = null;
+        pageRowCount = 0;
+        pageRowIndex = -1;
     }
 }
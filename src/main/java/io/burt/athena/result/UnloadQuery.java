@@ -0,0 +1,154 @@
+package io.burt.athena.result;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Rewrites queries to <code>UNLOAD</code> statements, and finds where the
+ * rewritten statements write their output.
+ *
+ * Results are unloaded as GZIP compressed JSON, one object per row. Unlike
+ * Athena's text format, JSON escapes delimiters and newlines in values, so
+ * the output can always be split into rows and columns again.
+ *
+ * The files do not carry the types of the columns, which are instead loaded
+ * by running the query with no rows, see {@link #createDescribeStatement(String)}.
+ *
+ * Each statement writes to a new prefix under <code>unload/</code> in the
+ * output location, and the driver never deletes the files it has read.
+ * Use a lifecycle rule on the bucket to expire them. Statements that are
+ * executed with a client request token write to a prefix derived from the
+ * token instead, so that executing the same query with the same token sends
+ * the same statement, as Athena requires.
+ */
+public final class UnloadQuery {
+    private static final String UNLOAD_DIRECTORY = "unload/";
+    private static final String UNLOAD_PROPERTIES = "WITH (format = 'JSON', compression = 'GZIP')";
+    private static final Pattern UNLOAD_PATTERN = Pattern.compile("^UNLOAD \\(\\n(.*)\\n\\) TO '(s3://[^']+)' " + Pattern.quote(UNLOAD_PROPERTIES) + "$", Pattern.DOTALL);
+    private static final Pattern COMMENTS_AND_WHITESPACE_PATTERN = Pattern.compile("^(?:\\s+|\\(|--[^\\n]*(?:\\n|$)|/\\*.*?\\*/)*", Pattern.DOTALL);
+    private static final Pattern TRAILING_SEMICOLONS_PATTERN = Pattern.compile("[\\s;]+$");
+
+    private UnloadQuery() { }
+
+    /**
+     * Determines if a statement is a query that can be unloaded.
+     *
+     * Only statements that start with <code>SELECT</code> or
+     * <code>WITH</code>, after any comments, are unloaded. Everything else,
+     * like DDL and <code>SHOW</code> statements, is run as it is.
+     *
+     * @param sql the statement to check
+     * @return true if the statement can be wrapped in an <code>UNLOAD</code>
+     */
+    public static boolean isUnloadable(String sql) {
+        Matcher matcher = COMMENTS_AND_WHITESPACE_PATTERN.matcher(sql);
+        int start = matcher.lookingAt() ? matcher.end() : 0;
+        String rest = sql.substring(start).toUpperCase(Locale.ROOT);
+        return startsWithKeyword(rest, "SELECT") || startsWithKeyword(rest, "WITH");
+    }
+
+    private static boolean startsWithKeyword(String sql, String keyword) {
+        return sql.startsWith(keyword) && (sql.length() == keyword.length() || !Character.isLetterOrDigit(sql.charAt(keyword.length())));
+    }
+
+    /**
+     * Wraps a query in an <code>UNLOAD</code> statement that writes to a new,
+     * unique, prefix under the specified output location.
+     *
+     * @param sql the query to unload
+     * @param outputLocation the S3 URI under which to create the prefix
+     * @return an <code>UNLOAD</code> statement
+     */
+    public static String createUnloadStatement(String sql, String outputLocation) {
+        return createUnloadStatement(sql, outputLocation, Optional.empty());
+    }
+
+    /**
+     * Wraps a query in an <code>UNLOAD</code> statement that writes to a
+     * prefix under the specified output location.
+     *
+     * Without a client request token the prefix is new and unique. With a
+     * token the prefix is derived from the token and the query, so the same
+     * statement is created each time. Athena requires that, as it rejects a
+     * token that is sent again with a different statement. Note that
+     * <code>UNLOAD</code> fails when its prefix is not empty, so when Athena
+     * runs the statement again instead of returning the earlier query
+     * execution, for example after the token has expired, it fails.
+     *
+     * @param sql the query to unload
+     * @param outputLocation the S3 URI under which to create the prefix
+     * @param clientRequestToken the client request token the statement will
+     *                           be executed with, if any
+     * @return an <code>UNLOAD</code> statement
+     */
+    public static String createUnloadStatement(String sql, String outputLocation, Optional<String> clientRequestToken) {
+        String location = outputLocation.endsWith("/") ? outputLocation : outputLocation + "/";
+        location += UNLOAD_DIRECTORY + prefixName(sql, clientRequestToken) + "/";
+        String query = TRAILING_SEMICOLONS_PATTERN.matcher(sql).replaceFirst("");
+        return String.format("UNLOAD (\n%s\n) TO '%s' %s", query, location, UNLOAD_PROPERTIES);
+    }
+
+    private static String prefixName(String sql, Optional<String> clientRequestToken) {
+        return clientRequestToken
+                .map(token -> UUID.nameUUIDFromBytes((token + "\n" + sql).getBytes(StandardCharsets.UTF_8)))
+                .orElseGet(UUID::randomUUID)
+                .toString();
+    }
+
+    /**
+     * Wraps a query in a statement that returns the same columns, but no
+     * rows, so that the names and types of the columns of an unloaded query
+     * can be loaded without reading any data.
+     *
+     * @param sql the query to describe
+     * @return a statement that returns no rows
+     */
+    public static String createDescribeStatement(String sql) {
+        String query = TRAILING_SEMICOLONS_PATTERN.matcher(sql).replaceFirst("");
+        return String.format("SELECT * FROM (\n%s\n) LIMIT 0", query);
+    }
+
+    /**
+     * Finds the location an <code>UNLOAD</code> statement created by
+     * {@link #createUnloadStatement(String, String)} writes to.
+     *
+     * @param sql the statement
+     * @return the S3 URI of the prefix the output is written to, or null if
+     *         the statement was not created by this class
+     */
+    public static String unloadLocation(String sql) {
+        if (sql == null) {
+            return null;
+        }
+        Matcher matcher = UNLOAD_PATTERN.matcher(sql);
+        if (matcher.matches()) {
+            return matcher.group(2);
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Finds the query that an <code>UNLOAD</code> statement created by
+     * {@link #createUnloadStatement(String, String)} unloads.
+     *
+     * @param sql the statement
+     * @return the query, or null if the statement was not created by this
+     *         class
+     */
+    public static String unloadedQuery(String sql) {
+        if (sql == null) {
+            return null;
+        }
+        Matcher matcher = UNLOAD_PATTERN.matcher(sql);
+        if (matcher.matches()) {
+            return matcher.group(1);
+        } else {
+            return null;
+        }
+    }
+}
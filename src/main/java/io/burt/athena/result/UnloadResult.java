@@ -0,0 +1,364 @@
+package io.burt.athena.result;
+
+import io.burt.athena.AthenaResultSetMetaData;
+import io.burt.athena.result.json.BackgroundJsonLinesParser;
+import io.burt.athena.result.json.JsonLinesParser;
+import io.burt.athena.result.json.JsonTextRenderer;
+import io.burt.athena.result.s3.S3Downloader;
+import software.amazon.awssdk.services.athena.model.QueryExecution;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Types;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A result that reads the files written by an <code>UNLOAD</code> statement
+ * created by {@link UnloadQuery}.
+ *
+ * Athena writes unloaded results as many files in parallel. This result lists
+ * them, downloads up to {@link #FILE_PARALLELISM} of them at the same time,
+ * and reads their rows one file after the other. When there is a parser
+ * executor the files that are downloaded are also decompressed and parsed
+ * on it at the same time, ahead of the reader, see
+ * {@link BackgroundJsonLinesParser}.
+ *
+ * Unloaded files do not contain any type information, so the names and
+ * types of the columns are taken from the result of a query that returns the
+ * same columns but no rows, see {@link UnloadQuery#createDescribeStatement(String)}.
+ * Fields of the files are matched to the columns by name, columns that are
+ * missing from a row are null, and fields that are not columns of the query
+ * are an error. Arrays, maps, and rows are unloaded as JSON, and are
+ * rendered as text the same way Athena renders them in other results, see
+ * {@link JsonTextRenderer}.
+ */
+public class UnloadResult implements Result {
+    public static final int FILE_PARALLELISM = 4;
+
+    private static final Pattern S3_URI_PATTERN = Pattern.compile("^s3://([^/]+)/(.*)$");
+    private static final String GZIP_SUFFIX = ".gz";
+
+    private final S3AsyncClient s3Client;
+    private final S3Downloader downloader;
+    private final QueryExecution queryExecution;
+    private final String bucketName;
+    private final String prefix;
+    private final CompletableFuture<ResultSet> describeFuture;
+    private final Duration timeout;
+    private final Executor parserExecutor;
+    private final Queue<String> remainingKeys;
+    private final Queue<CompletableFuture<BackgroundJsonLinesParser<String[]>>> pendingFiles;
+
+    private AthenaResultSetMetaData metaData;
+    private Map<String, Integer> columnIndexes;
+    private boolean[] nestedColumns;
+    private BackgroundJsonLinesParser<String[]> currentFile;
+    private String[] currentRow;
+    private String[] nextRow;
+    private boolean nextRowLoaded;
+    private int rowNumber;
+
+    /**
+     * @param s3Client the client to list the unloaded files with
+     * @param downloader the downloader to download the unloaded files with
+     * @param queryExecution the execution of the <code>UNLOAD</code> statement
+     * @param location the S3 URI of the prefix the files were written to
+     * @param describeFuture the result set of the describe statement of the
+     *                       unloaded query, which is waited for without a
+     *                       timeout, so the future must time out on its own,
+     *                       like the ones returned by
+     *                       {@link io.burt.athena.AthenaStatement#executeAsync(String)}
+     * @param timeout the max time to wait for a listing or a file download to
+     *                start
+     */
+    public UnloadResult(S3AsyncClient s3Client, S3Downloader downloader, QueryExecution queryExecution, String location, CompletableFuture<ResultSet> describeFuture, Duration timeout) {
+        this(s3Client, downloader, queryExecution, location, describeFuture, timeout, null);
+    }
+
+    /**
+     * @param parserExecutor when not null, the files are parsed on this
+     *                       executor as they are downloaded, instead of on
+     *                       the reader's thread
+     */
+    public UnloadResult(S3AsyncClient s3Client, S3Downloader downloader, QueryExecution queryExecution, String location, CompletableFuture<ResultSet> describeFuture, Duration timeout, Executor parserExecutor) {
+        this.s3Client = s3Client;
+        this.downloader = downloader;
+        this.queryExecution = queryExecution;
+        this.describeFuture = describeFuture;
+        this.timeout = timeout;
+        this.parserExecutor = parserExecutor;
+        this.remainingKeys = new ArrayDeque<>();
+        this.pendingFiles = new ArrayDeque<>(FILE_PARALLELISM);
+        this.metaData = null;
+        this.columnIndexes = null;
+        this.nestedColumns = null;
+        this.currentFile = null;
+        this.currentRow = null;
+        this.nextRow = null;
+        this.nextRowLoaded = false;
+        this.rowNumber = 0;
+        Matcher matcher = S3_URI_PATTERN.matcher(location);
+        if (matcher.matches()) {
+            this.bucketName = matcher.group(1);
+            this.prefix = matcher.group(2);
+        } else {
+            throw new IllegalArgumentException(String.format("The unload location \"%s\" is malformed", location));
+        }
+    }
+
+    @Override
+    public int getFetchSize() {
+        return -1;
+    }
+
+    @Override
+    public void setFetchSize(int newFetchSize) {
+    }
+
+    private void ensureStarted() throws SQLException {
+        if (metaData == null) {
+            listFiles();
+            requestFiles();
+            metaData = loadMetaData();
+            pendingFiles.forEach(this::startParsing);
+            nextRow = readRow();
+            nextRowLoaded = true;
+        }
+    }
+
+    private void listFiles() throws SQLException {
+        String continuationToken = null;
+        do {
+            String token = continuationToken;
+            ListObjectsV2Response response = await(s3Client.listObjectsV2(b -> b.bucket(bucketName).prefix(prefix).continuationToken(token)));
+            for (S3Object object : response.contents()) {
+                if (object.size() != null && object.size() > 0) {
+                    remainingKeys.add(object.key());
+                }
+            }
+            continuationToken = Boolean.TRUE.equals(response.isTruncated()) ? response.nextContinuationToken() : null;
+        } while (continuationToken != null);
+    }
+
+    private void requestFiles() {
+        while (pendingFiles.size() < FILE_PARALLELISM && !remainingKeys.isEmpty()) {
+            String key = remainingKeys.remove();
+            boolean gzipped = key.endsWith(GZIP_SUFFIX);
+            CompletableFuture<BackgroundJsonLinesParser<String[]>> file = downloader
+                    .getObjectStream(bucketName, key)
+                    .thenApply(stream -> new BackgroundJsonLinesParser<>(stream, gzipped, this::toRow));
+            if (metaData != null) {
+                startParsing(file);
+            }
+            pendingFiles.add(file);
+        }
+    }
+
+    /**
+     * Starts parsing a file on the parser executor when it has been
+     * downloaded. This must wait for the metadata, which the rows are mapped
+     * with.
+     */
+    private void startParsing(CompletableFuture<BackgroundJsonLinesParser<String[]>> file) {
+        if (parserExecutor != null) {
+            file.thenAccept(parser -> parser.start(parserExecutor));
+        }
+    }
+
+    /**
+     * Takes the columns from the result set of the describe statement, and
+     * closes it.
+     */
+    private AthenaResultSetMetaData loadMetaData() throws SQLException {
+        try (ResultSet describe = awaitDescribe()) {
+            AthenaResultSetMetaData describeMetaData = describe.getMetaData().unwrap(AthenaResultSetMetaData.class);
+            columnIndexes = new HashMap<>();
+            nestedColumns = new boolean[describeMetaData.getColumnCount()];
+            for (int i = 1; i <= describeMetaData.getColumnCount(); i++) {
+                columnIndexes.putIfAbsent(describeMetaData.getColumnName(i), i - 1);
+                int type = describeMetaData.getColumnType(i);
+                nestedColumns[i - 1] = type == Types.ARRAY || type == Types.STRUCT;
+            }
+            return describeMetaData.withQueryExecution(queryExecution);
+        }
+    }
+
+    private ResultSet awaitDescribe() throws SQLException {
+        try {
+            return describeFuture.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                throw new SQLTimeoutException(e.getCause());
+            } else if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            } else {
+                throw new SQLException(e.getCause());
+            }
+        }
+    }
+
+    private <T> T await(CompletableFuture<T> future) throws SQLException {
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException(e);
+        } catch (ExecutionException e) {
+            SQLException ee = new SQLException(e.getCause());
+            ee.addSuppressed(e);
+            throw ee;
+        } catch (TimeoutException e) {
+            throw new SQLTimeoutException(e);
+        }
+    }
+
+    private String[] readRow() throws SQLException {
+        try {
+            while (true) {
+                if (currentFile == null) {
+                    CompletableFuture<BackgroundJsonLinesParser<String[]>> file = pendingFiles.poll();
+                    if (file == null) {
+                        return null;
+                    }
+                    currentFile = await(file);
+                    requestFiles();
+                }
+                String[] row = currentFile.next();
+                if (row != null) {
+                    return row;
+                }
+                currentFile.close();
+                currentFile = null;
+            }
+        } catch (IOException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            } else if (e.getCause() instanceof ParseException) {
+                throw new SQLException(e.getCause());
+            } else {
+                throw new SQLException(e);
+            }
+        }
+    }
+
+    private String[] toRow(JsonLinesParser parser) throws SQLException, ParseException {
+        String[] row = new String[metaData.getColumnCount()];
+        for (int i = 0; i < parser.getFieldCount(); i++) {
+            Integer index = columnIndexes.get(parser.getName(i));
+            if (index == null) {
+                throw new SQLDataException(String.format("The unloaded field \"%s\" is not a column of the query", parser.getName(i)));
+            }
+            if (nestedColumns[index]) {
+                row[index] = JsonTextRenderer.render(parser.getValue(i));
+            } else {
+                row[index] = parser.getValue(i);
+            }
+        }
+        return row;
+    }
+
+    @Override
+    public AthenaResultSetMetaData getMetaData() throws SQLException {
+        ensureStarted();
+        return metaData;
+    }
+
+    @Override
+    public int getRowNumber() {
+        return rowNumber;
+    }
+
+    @Override
+    public boolean next() throws SQLException {
+        ensureStarted();
+        if (!nextRowLoaded) {
+            nextRow = readRow();
+        }
+        currentRow = nextRow;
+        nextRow = null;
+        nextRowLoaded = false;
+        if (currentRow == null) {
+            return false;
+        } else {
+            rowNumber++;
+            return true;
+        }
+    }
+
+    @Override
+    public String getString(int columnIndex) {
+        return currentRow[columnIndex - 1];
+    }
+
+    @Override
+    public ResultPosition getPosition() throws SQLException {
+        if (getRowNumber() == 0) {
+            return ResultPosition.BEFORE_FIRST;
+        } else if (getRowNumber() == 1) {
+            return ResultPosition.FIRST;
+        } else if (currentRow == null) {
+            return ResultPosition.AFTER_LAST;
+        }
+        if (!nextRowLoaded) {
+            nextRow = readRow();
+            nextRowLoaded = true;
+        }
+        if (nextRow != null) {
+            return ResultPosition.MIDDLE;
+        } else {
+            return ResultPosition.LAST;
+        }
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (!describeFuture.cancel(false) && metaData == null) {
+            describeFuture.thenAccept(describe -> {
+                try {
+                    describe.close();
+                } catch (SQLException e) { }
+            });
+        }
+        remainingKeys.clear();
+        for (CompletableFuture<BackgroundJsonLinesParser<String[]>> file : pendingFiles) {
+            file.whenComplete((parser, error) -> {
+                if (parser != null) {
+                    try {
+                        parser.close();
+                    } catch (IOException e) { }
+                }
+            });
+        }
+        pendingFiles.clear();
+        if (currentFile != null) {
+            try {
+                currentFile.close();
+            } catch (IOException e) {
+                throw new SQLException(e);
+            } finally {
+                currentFile = null;
+            }
+        }
+    }
+}
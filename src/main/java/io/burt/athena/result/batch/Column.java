@@ -0,0 +1,72 @@
+package io.burt.athena.result.batch;
+
+import io.burt.athena.result.Result;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * A column of a {@link ColumnBatch}.
+ *
+ * Which rows are null is kept in a bitmap, where bit <code>row % 64</code> of
+ * element <code>row / 64</code> is set when the value of the row is null.
+ */
+public abstract class Column {
+    private final int type;
+    private long[] nulls;
+
+    private int rowCount;
+
+    Column(int type, int capacity) {
+        this.type = type;
+        this.nulls = new long[(capacity + 63) >>> 6];
+        this.rowCount = 0;
+    }
+
+    /**
+     * @return the SQL type of the column, as defined in {@link java.sql.Types}
+     */
+    public int getType() {
+        return type;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @param row the zero based index of the row
+     * @return true if the value of the row is null
+     */
+    public boolean isNull(int row) {
+        return (nulls[row >>> 6] & (1L << row)) != 0;
+    }
+
+    /**
+     * Returns the null bitmap of the column. The array is not copied, and
+     * it can be longer than necessary.
+     *
+     * @return the null bitmap
+     */
+    public long[] getNullBitmap() {
+        return nulls;
+    }
+
+    void setNull(int row) {
+        nulls[row >>> 6] |= 1L << row;
+    }
+
+    void setRowCount(int rowCount) {
+        this.rowCount = rowCount;
+    }
+
+    /**
+     * Grows the arrays of the column so that they can hold the specified
+     * number of rows, keeping the rows that have been read.
+     */
+    void grow(int capacity) {
+        nulls = Arrays.copyOf(nulls, (capacity + 63) >>> 6);
+    }
+
+    abstract void read(Result result, int columnIndex, int row) throws SQLException;
+}
@@ -0,0 +1,38 @@
+package io.burt.athena.result.batch;
+
+/**
+ * A batch of rows of a result, stored column by column.
+ *
+ * @see ColumnBatchReader
+ */
+public final class ColumnBatch {
+    private final Column[] columns;
+    private final int rowCount;
+
+    ColumnBatch(Column[] columns, int rowCount) {
+        this.columns = columns;
+        this.rowCount = rowCount;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    /**
+     * Returns a column of the batch.
+     *
+     * Depending on the type of the column this will be a {@link LongColumn},
+     * a {@link DoubleColumn} or a {@link StringColumn}.
+     *
+     * @param column the one based index of the column, just like for
+     *               {@link java.sql.ResultSet}
+     * @return the column
+     */
+    public Column getColumn(int column) {
+        return columns[column - 1];
+    }
+}
@@ -0,0 +1,99 @@
+package io.burt.athena.result.batch;
+
+import io.burt.athena.AthenaResultSetMetaData;
+import io.burt.athena.result.Result;
+
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * Reads rows of a result into {@link ColumnBatch}es.
+ *
+ * The kind of column used for each column of the result is determined by
+ * its type in the result's metadata, see {@link AthenaResultSetMetaData#getColumnType(int)}.
+ *
+ * The arrays of a batch start out no larger than the fetch size of the
+ * result, or {@value #DEFAULT_INITIAL_CAPACITY} rows when it has none, and
+ * are doubled as rows are read, so that a large max number of rows does not
+ * allocate more memory than the rows need.
+ */
+public class ColumnBatchReader {
+    static final int DEFAULT_INITIAL_CAPACITY = 1024;
+
+    private final Result result;
+
+    private int[] types;
+
+    public ColumnBatchReader(Result result) {
+        this.result = result;
+        this.types = null;
+    }
+
+    private int[] types() throws SQLException {
+        if (types == null) {
+            AthenaResultSetMetaData metaData = result.getMetaData();
+            types = new int[metaData.getColumnCount()];
+            for (int i = 0; i < types.length; i++) {
+                types[i] = metaData.getColumnType(i + 1);
+            }
+        }
+        return types;
+    }
+
+    private static Column createColumn(int type, int capacity) {
+        switch (type) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+                return new LongColumn(type, capacity);
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return new DoubleColumn(type, capacity);
+            default:
+                return new StringColumn(type, capacity);
+        }
+    }
+
+    private int initialCapacity(int maxRows) throws SQLException {
+        int fetchSize = result.getFetchSize();
+        return Math.min(maxRows, fetchSize > 0 ? fetchSize : DEFAULT_INITIAL_CAPACITY);
+    }
+
+    /**
+     * Reads up to the specified number of rows from the result.
+     *
+     * The result is left positioned on the last row of the batch.
+     *
+     * @param maxRows the max number of rows to read
+     * @return a batch of rows, with zero rows when the result has been
+     *         read to the end
+     * @throws SQLException when reading the result fails or a value cannot be
+     *                      converted to the type of its column
+     */
+    public ColumnBatch read(int maxRows) throws SQLException {
+        int[] types = types();
+        int capacity = initialCapacity(maxRows);
+        Column[] columns = new Column[types.length];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = createColumn(types[i], capacity);
+        }
+        int rowCount = 0;
+        while (rowCount < maxRows && result.next()) {
+            if (rowCount == capacity) {
+                capacity = (int) Math.min(maxRows, 2L * capacity);
+                for (Column column : columns) {
+                    column.grow(capacity);
+                }
+            }
+            for (int i = 0; i < columns.length; i++) {
+                columns[i].read(result, i + 1, rowCount);
+            }
+            rowCount++;
+        }
+        for (Column column : columns) {
+            column.setRowCount(rowCount);
+        }
+        return new ColumnBatch(columns, rowCount);
+    }
+}
@@ -0,0 +1,57 @@
+package io.burt.athena.result.batch;
+
+import io.burt.athena.result.Result;
+
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * A column of floating point values, used for float and double columns.
+ */
+public final class DoubleColumn extends Column {
+    private double[] values;
+
+    DoubleColumn(int type, int capacity) {
+        super(type, capacity);
+        this.values = new double[capacity];
+    }
+
+    /**
+     * @param row the zero based index of the row
+     * @return the value of the row, or zero if it is null
+     */
+    public double getDouble(int row) {
+        return values[row];
+    }
+
+    /**
+     * Returns the values of the column. The array is not copied, and only
+     * the first {@link #getRowCount()} elements are part of the batch.
+     *
+     * @return the values of the column
+     */
+    public double[] getValues() {
+        return values;
+    }
+
+    @Override
+    void grow(int capacity) {
+        super.grow(capacity);
+        values = Arrays.copyOf(values, capacity);
+    }
+
+    @Override
+    void read(Result result, int columnIndex, int row) throws SQLException {
+        double value;
+        try {
+            value = result.getDouble(columnIndex);
+        } catch (NumberFormatException nfe) {
+            throw new SQLDataException(String.format("Cannot convert \"%s\" to double", result.getString(columnIndex)), nfe);
+        }
+        if (value == 0 && result.isNull(columnIndex)) {
+            setNull(row);
+        }
+        values[row] = value;
+    }
+}
@@ -0,0 +1,58 @@
+package io.burt.athena.result.batch;
+
+import io.burt.athena.result.Result;
+
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * A column of integral values, used for tinyint, smallint, integer and
+ * bigint columns.
+ */
+public final class LongColumn extends Column {
+    private long[] values;
+
+    LongColumn(int type, int capacity) {
+        super(type, capacity);
+        this.values = new long[capacity];
+    }
+
+    /**
+     * @param row the zero based index of the row
+     * @return the value of the row, or zero if it is null
+     */
+    public long getLong(int row) {
+        return values[row];
+    }
+
+    /**
+     * Returns the values of the column. The array is not copied, and only
+     * the first {@link #getRowCount()} elements are part of the batch.
+     *
+     * @return the values of the column
+     */
+    public long[] getValues() {
+        return values;
+    }
+
+    @Override
+    void grow(int capacity) {
+        super.grow(capacity);
+        values = Arrays.copyOf(values, capacity);
+    }
+
+    @Override
+    void read(Result result, int columnIndex, int row) throws SQLException {
+        long value;
+        try {
+            value = result.getLong(columnIndex);
+        } catch (NumberFormatException nfe) {
+            throw new SQLDataException(String.format("Cannot convert \"%s\" to long", result.getString(columnIndex)), nfe);
+        }
+        if (value == 0 && result.isNull(columnIndex)) {
+            setNull(row);
+        }
+        values[row] = value;
+    }
+}
@@ -0,0 +1,81 @@
+package io.burt.athena.result.batch;
+
+import io.burt.athena.result.Result;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A dictionary encoded column of strings, used for all columns that are
+ * not numeric.
+ *
+ * Each distinct value of the batch is stored once in the dictionary, and
+ * each row refers to its value by its index in the dictionary. Null rows
+ * have the index -1.
+ */
+public final class StringColumn extends Column {
+    private int[] indices;
+    private final List<String> dictionary;
+    private final Map<String, Integer> codes;
+
+    StringColumn(int type, int capacity) {
+        super(type, capacity);
+        this.indices = new int[capacity];
+        this.dictionary = new ArrayList<>();
+        this.codes = new HashMap<>();
+    }
+
+    /**
+     * @param row the zero based index of the row
+     * @return the value of the row, or null if it is null
+     */
+    public String getString(int row) {
+        int index = indices[row];
+        return index == -1 ? null : dictionary.get(index);
+    }
+
+    /**
+     * Returns the dictionary indices of the rows. The array is not copied,
+     * and only the first {@link #getRowCount()} elements are part of the
+     * batch.
+     *
+     * @return the dictionary index of each row
+     */
+    public int[] getIndices() {
+        return indices;
+    }
+
+    /**
+     * @return the distinct values of the column, in order of first appearance
+     */
+    public String[] getDictionary() {
+        return dictionary.toArray(new String[0]);
+    }
+
+    @Override
+    void grow(int capacity) {
+        super.grow(capacity);
+        indices = Arrays.copyOf(indices, capacity);
+    }
+
+    @Override
+    void read(Result result, int columnIndex, int row) throws SQLException {
+        String value = result.getString(columnIndex);
+        if (value == null) {
+            setNull(row);
+            indices[row] = -1;
+        } else {
+            Integer index = codes.get(value);
+            if (index == null) {
+                index = dictionary.size();
+                dictionary.add(value);
+                codes.put(value, index);
+            }
+            indices[row] = index;
+        }
+    }
+}
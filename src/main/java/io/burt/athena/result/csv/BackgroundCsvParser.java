@@ -0,0 +1,241 @@
+package io.burt.athena.result.csv;
+
+import io.burt.athena.result.s3.ChunkedInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.text.ParseException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Parses a CSV stream on a background thread, ahead of the reader.
+ *
+ * The chunks of the stream are fed to a {@link PushCsvParser} by a task
+ * running on an executor, and the parsed {@link CsvRowBatch}es are put in a
+ * bounded queue that the reader takes them from. This way the reader's work
+ * on a row and the parsing of the rows after it happen at the same time, on
+ * different cores. When the queue is full the task waits for the reader,
+ * which also stops it from reading the stream, so the parser is never more
+ * than the queue's capacity ahead. When the queue is empty the rows parsed
+ * so far are handed over right away.
+ *
+ * If the reader asks for rows before the task has started, for example
+ * because all threads of the executor are busy parsing other results, the
+ * reader takes over and parses the stream itself, one chunk at a time. This
+ * way a result never waits for another result to be read.
+ *
+ * Errors from reading or parsing are thrown by {@link #nextBatch()} after
+ * the batches parsed before them. Closing the parser closes the stream, and
+ * makes the task stop at the next chunk.
+ */
+public class BackgroundCsvParser implements CsvRowBatchIterator.Source {
+    public static final int DEFAULT_MAX_QUEUED_BATCHES = 4;
+
+    private static final int BATCH_SIZE = 1 << 18;
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+
+    private final InputStream csv;
+    private final PushCsvParser parser;
+    private final BlockingQueue<CsvRowBatch> batches;
+    private final CsvRowBatch endMarker;
+    private final AtomicBoolean claimed;
+
+    private volatile Throwable error;
+    private volatile boolean closed;
+    private boolean ended;
+    private boolean inline;
+
+    public BackgroundCsvParser(InputStream csv, int columnCount) {
+        this(csv, columnCount, DEFAULT_MAX_QUEUED_BATCHES);
+    }
+
+    /**
+     * @param csv the stream to parse
+     * @param columnCount the number of columns of the CSV
+     * @param maxQueuedBatches the max number of parsed batches that wait for
+     *                         the reader
+     */
+    public BackgroundCsvParser(InputStream csv, int columnCount, int maxQueuedBatches) {
+        if (maxQueuedBatches < 1) {
+            throw new IllegalArgumentException(String.format("Max queued batches must be at least one (got %d)", maxQueuedBatches));
+        }
+        this.csv = csv;
+        this.parser = new PushCsvParser(columnCount, BATCH_SIZE, this::enqueue);
+        this.batches = new ArrayBlockingQueue<>(maxQueuedBatches);
+        this.endMarker = CsvRowBatch.empty();
+        this.claimed = new AtomicBoolean(false);
+        this.error = null;
+        this.closed = false;
+        this.ended = false;
+        this.inline = false;
+    }
+
+    /**
+     * Starts parsing on a thread of the specified executor.
+     *
+     * @param executor the executor to run the parser on
+     * @return this parser
+     */
+    public BackgroundCsvParser start(Executor executor) {
+        try {
+            executor.execute(this::parseInBackground);
+        } catch (RejectedExecutionException e) {
+            // the reader will parse the stream itself
+        }
+        return this;
+    }
+
+    private void parseInBackground() {
+        if (!claimed.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            while (!closed && parseNextChunk()) { }
+        } catch (IOException | ParseException | RuntimeException e) {
+            if (!closed) {
+                error = e;
+            }
+        } finally {
+            if (!closed) {
+                try {
+                    batches.put(endMarker);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    if (error == null) {
+                        error = e;
+                    }
+                    batches.clear();
+                    batches.offer(endMarker);
+                }
+            }
+        }
+    }
+
+    /**
+     * Feeds the next chunk of the stream to the parser, and hands over the
+     * rows parsed so far if the reader has run out.
+     *
+     * @return false when the end of the stream has been reached
+     */
+    private boolean parseNextChunk() throws IOException, ParseException {
+        ByteBuffer chunk = readChunk();
+        if (chunk == null) {
+            parser.finish();
+            return false;
+        }
+        parser.feed(chunk);
+        recycle(chunk);
+        if (batches.isEmpty()) {
+            parser.flush();
+        }
+        return true;
+    }
+
+    /**
+     * Waits for room in the queue, unless the parser has been closed, in
+     * which case nobody will read the batch.
+     */
+    private void enqueue(CsvRowBatch batch) {
+        if (!closed) {
+            try {
+                batches.put(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the reader", e);
+            }
+        }
+    }
+
+    private ByteBuffer readChunk() throws IOException {
+        if (csv instanceof ChunkedInputStream) {
+            return ((ChunkedInputStream) csv).nextChunk();
+        }
+        byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+        int length = csv.read(readBuffer);
+        if (length == -1) {
+            return null;
+        } else {
+            return ByteBuffer.wrap(readBuffer, 0, length);
+        }
+    }
+
+    private void recycle(ByteBuffer chunk) {
+        if (csv instanceof ChunkedInputStream) {
+            ((ChunkedInputStream) csv).recycle(chunk);
+        }
+    }
+
+    /**
+     * Takes the next batch of rows, waiting until the parser has one.
+     *
+     * @return the next batch, or null when all rows have been read
+     * @throws IOException when reading or parsing failed, or when the thread
+     *                     is interrupted while waiting
+     */
+    @Override
+    public CsvRowBatch nextBatch() throws IOException {
+        if (ended || closed) {
+            return null;
+        }
+        if (!inline && claimed.compareAndSet(false, true)) {
+            inline = true;
+        }
+        if (inline) {
+            return parseInline();
+        }
+        CsvRowBatch batch;
+        try {
+            batch = batches.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+        if (batch == endMarker) {
+            ended = true;
+            if (error != null) {
+                throw new IOException(error);
+            }
+            return null;
+        }
+        return batch;
+    }
+
+    /**
+     * Parses chunks on the reader's thread until there is a batch. The queue
+     * is only fed while it is empty, so it never holds more than one batch
+     * and the parser never has to wait for room.
+     */
+    private CsvRowBatch parseInline() throws IOException {
+        try {
+            CsvRowBatch batch = batches.poll();
+            while (batch == null && parseNextChunk()) {
+                batch = batches.poll();
+            }
+            if (batch == null) {
+                batch = batches.poll();
+            }
+            if (batch == null) {
+                ended = true;
+            }
+            return batch;
+        } catch (IOException e) {
+            ended = true;
+            throw e;
+        } catch (ParseException | RuntimeException e) {
+            ended = true;
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        batches.clear();
+        csv.close();
+    }
+}
@@ -0,0 +1,309 @@
+package io.burt.athena.result.csv;
+
+import io.burt.athena.result.s3.ChunkedInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * A CSV parser that works on the raw bytes of a stream instead of on
+ * decoded characters.
+ *
+ * Since quotes, commas and newlines are all ASCII they can never be part
+ * of a multi-byte UTF-8 sequence, which means that the structure of the
+ * CSV can be found without decoding anything. The parser only records
+ * where each field starts and ends, and fields are decoded when they are
+ * read from the {@link CsvRow}.
+ *
+ * When the input is a {@link ChunkedInputStream} the chunks it hands out
+ * are scanned in place, and only rows that straddle two chunks are copied.
+ * Chunks are given back to the stream with
+ * {@link ChunkedInputStream#recycle(ByteBuffer)} as soon as no row points
+ * into them any more.
+ *
+ * The parser reuses its rows: a row returned by {@link #next()} stays valid
+ * while the row after it is loaded, for example by {@link #hasNext()}, but
+ * not after that.
+ *
+ * Error offsets reported in {@link ParseException}s are byte offsets.
+ */
+public class ByteBufferCsvParser implements Iterator<CsvRow> {
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+    private static final byte[] EMPTY = new byte[0];
+
+    private final InputStream csv;
+    private final int columnCount;
+    private final CsvRow[] rows;
+    private final byte[][] carries;
+    private final ByteBuffer[] rowChunks;
+
+    private CsvRow nextRow;
+    private int rowIndex;
+    private int carryIndex;
+    private byte[] buffer;
+    private ByteBuffer currentChunk;
+    private int position;
+    private int limit;
+    private long bufferOffset;
+
+    public ByteBufferCsvParser(InputStream csv, int columnCount) {
+        this.csv = csv;
+        this.columnCount = columnCount;
+        this.rows = new CsvRow[]{new CsvRow(columnCount), new CsvRow(columnCount)};
+        this.carries = new byte[][]{EMPTY, EMPTY};
+        this.rowChunks = new ByteBuffer[2];
+        this.nextRow = null;
+        this.rowIndex = 0;
+        this.carryIndex = 0;
+        this.buffer = EMPTY;
+        this.currentChunk = null;
+        this.position = 0;
+        this.limit = 0;
+        this.bufferOffset = 0;
+    }
+
+    @Override
+    public CsvRow next() {
+        if (nextRow == null) {
+            loadNext();
+        }
+        CsvRow n = nextRow;
+        nextRow = null;
+        return n;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return nextRow != null || loadNext();
+    }
+
+    private boolean loadNext() {
+        try {
+            if (!ensureData()) {
+                return false;
+            }
+            rowIndex ^= 1;
+            ByteBuffer previousChunk = rowChunks[rowIndex];
+            rowChunks[rowIndex] = null;
+            recycle(previousChunk);
+            CsvRow row = rows[rowIndex];
+            int rowEnd = scanRow(row, position);
+            if (rowEnd < 0) {
+                carry(position);
+                while ((rowEnd = scanRow(row, 0)) < 0) {
+                    if (!extend()) {
+                        throw new ParseException("Unexpected end of stream", errorOffset(limit));
+                    }
+                }
+            }
+            row.setBuffer(buffer);
+            rowChunks[rowIndex] = currentChunk;
+            position = rowEnd;
+            nextRow = row;
+            return true;
+        } catch (IOException | ParseException e) {
+            nextRow = null;
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Finds the fields of the row that starts at the specified index of the
+     * current buffer, and records where they start and end.
+     *
+     * @return the index just after the newline that ends the row, or -1 if
+     *         the row does not end within the current buffer
+     */
+    private int scanRow(CsvRow row, int index) throws ParseException {
+        byte[] b = buffer;
+        int i = index;
+        for (int column = 0; column < columnCount; column++) {
+            byte separator = column == columnCount - 1 ? (byte) '\n' : (byte) ',';
+            if (i >= limit) {
+                return -1;
+            }
+            if (b[i] == '"') {
+                i++;
+                int start = i;
+                boolean escaped = false;
+                while (true) {
+                    i = QuoteScanner.indexOfQuote(b, i, limit);
+                    if (i + 1 >= limit) {
+                        return -1;
+                    }
+                    if (b[i + 1] == '"') {
+                        escaped = true;
+                        i += 2;
+                    } else {
+                        break;
+                    }
+                }
+                row.setField(column, start, i, escaped);
+                i++;
+                if (b[i] != separator) {
+                    throw unexpected(separator, i);
+                }
+            } else if (b[i] == ',' || b[i] == '\n') {
+                if (b[i] != separator) {
+                    throw unexpected(separator, i);
+                }
+                row.setNull(column);
+            } else {
+                throw new ParseException(String.format("Expected quote but found \"%s\"", byteToString(b[i])), errorOffset(i));
+            }
+            i++;
+        }
+        return i;
+    }
+
+    private ParseException unexpected(byte separator, int index) {
+        String expected = separator == ',' ? "comma" : "newline";
+        return new ParseException(String.format("Expected %s but found \"%s\"", expected, byteToString(buffer[index])), errorOffset(index));
+    }
+
+    private static String byteToString(byte b) {
+        if (b == '\n') {
+            return "\\n";
+        } else if (b >= 0x20 && b < 0x7f) {
+            return String.valueOf((char) b);
+        } else {
+            return String.format("\\x%02x", b & 0xff);
+        }
+    }
+
+    private int errorOffset(int index) {
+        return (int) Math.min(bufferOffset + index, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Switches to the carry buffer that was not written to last.
+     *
+     * The previous row can live in the carry buffer that was written to last,
+     * and must not be overwritten while the next row is loaded. Every row that
+     * lives in the other carry buffer is older than that.
+     */
+    private byte[] nextCarry(int minLength) {
+        carryIndex ^= 1;
+        if (carries[carryIndex].length < minLength) {
+            carries[carryIndex] = new byte[Math.max(minLength, READ_BUFFER_SIZE)];
+        }
+        return carries[carryIndex];
+    }
+
+    /**
+     * Makes sure that there is at least one unread byte in the current
+     * buffer, reading the next chunk if necessary.
+     *
+     * @return false when the end of the stream has been reached
+     */
+    private boolean ensureData() throws IOException {
+        while (position >= limit) {
+            ByteBuffer chunk = readChunk();
+            if (chunk == null) {
+                return false;
+            } else if (!chunk.hasRemaining()) {
+                recycle(chunk);
+                continue;
+            }
+            long streamOffset = bufferOffset + limit;
+            ByteBuffer previousChunk = currentChunk;
+            if (chunk.hasArray()) {
+                buffer = chunk.array();
+                currentChunk = chunk;
+                position = chunk.arrayOffset() + chunk.position();
+                limit = chunk.arrayOffset() + chunk.limit();
+            } else {
+                int length = chunk.remaining();
+                buffer = nextCarry(length);
+                currentChunk = null;
+                chunk.get(buffer, 0, length);
+                recycle(chunk);
+                position = 0;
+                limit = length;
+            }
+            recycle(previousChunk);
+            bufferOffset = streamOffset - position;
+        }
+        return true;
+    }
+
+    /**
+     * Copies the unfinished row at the end of the current buffer to the start
+     * of a carry buffer, and appends the next chunk after it.
+     *
+     * A row at the start of the current carry buffer is the first row that
+     * was written to it, so there is no older row there to protect and the
+     * chunk can be appended in place.
+     */
+    private void carry(int rowStart) throws IOException, ParseException {
+        if (buffer != carries[carryIndex] || rowStart > 0) {
+            int carried = limit - rowStart;
+            byte[] carry = nextCarry(carried);
+            System.arraycopy(buffer, rowStart, carry, 0, carried);
+            bufferOffset += rowStart;
+            buffer = carry;
+            ByteBuffer previousChunk = currentChunk;
+            currentChunk = null;
+            recycle(previousChunk);
+            position = 0;
+            limit = carried;
+        }
+        if (!extend()) {
+            throw new ParseException("Unexpected end of stream", errorOffset(limit));
+        }
+    }
+
+    /**
+     * Appends the next chunk to the carry buffer, growing it when necessary.
+     *
+     * @return false when the end of the stream has been reached
+     */
+    private boolean extend() throws IOException {
+        ByteBuffer chunk;
+        while (true) {
+            chunk = readChunk();
+            if (chunk == null) {
+                return false;
+            } else if (chunk.hasRemaining()) {
+                break;
+            }
+            recycle(chunk);
+        }
+        int length = chunk.remaining();
+        if (buffer.length < limit + length) {
+            buffer = Arrays.copyOf(buffer, Math.max(limit + length, buffer.length * 2));
+            carries[carryIndex] = buffer;
+        }
+        chunk.get(buffer, limit, length);
+        recycle(chunk);
+        limit += length;
+        return true;
+    }
+
+    /**
+     * Gives a chunk back to the stream it was read from, unless the current
+     * buffer or one of the rows still points into it.
+     */
+    private void recycle(ByteBuffer chunk) {
+        if (chunk != null && chunk != currentChunk && chunk != rowChunks[0] && chunk != rowChunks[1] && csv instanceof ChunkedInputStream) {
+            ((ChunkedInputStream) csv).recycle(chunk);
+        }
+    }
+
+    private ByteBuffer readChunk() throws IOException {
+        if (csv instanceof ChunkedInputStream) {
+            return ((ChunkedInputStream) csv).nextChunk();
+        }
+        byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+        int length = csv.read(readBuffer);
+        if (length == -1) {
+            return null;
+        } else {
+            return ByteBuffer.wrap(readBuffer, 0, length);
+        }
+    }
+}
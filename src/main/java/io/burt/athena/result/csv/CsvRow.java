@@ -0,0 +1,259 @@
+package io.burt.athena.result.csv;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A row of a CSV file, represented as the offsets of its fields in the
+ * buffer it was parsed from.
+ *
+ * Fields are decoded only when they are asked for, so reading a few columns
+ * of a wide row does not create strings for all of the others.
+ *
+ * Rows are recycled by the parser that creates them, see
+ * {@link ByteBufferCsvParser} for how long a row stays valid.
+ */
+public final class CsvRow {
+    static final byte NULL = 1;
+    static final byte ESCAPED = 2;
+    private static final long NOT_SIMPLE = Long.MIN_VALUE;
+    private static final int MAX_INT_DIGITS = 9;
+    private static final int MAX_LONG_DIGITS = 18;
+    private static final int MAX_EXACT_DOUBLE_DIGITS = 15;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20,
+            1e21, 1e22
+    };
+
+    private final int[] starts;
+    private final int[] ends;
+    private final byte[] flags;
+
+    private byte[] buffer;
+
+    CsvRow(int columnCount) {
+        this.starts = new int[columnCount];
+        this.ends = new int[columnCount];
+        this.flags = new byte[columnCount];
+        this.buffer = null;
+    }
+
+    void setBuffer(byte[] buffer) {
+        this.buffer = buffer;
+    }
+
+    void setField(int column, int start, int end, boolean escaped) {
+        starts[column] = start;
+        ends[column] = end;
+        flags[column] = escaped ? ESCAPED : 0;
+    }
+
+    void setNull(int column) {
+        flags[column] = NULL;
+    }
+
+    /**
+     * Points the row at a row of a {@link CsvRowBatch}, whose fields are
+     * stored at the specified offset of the batch's arrays.
+     */
+    void load(byte[] buffer, int[] starts, int[] ends, byte[] flags, int offset) {
+        this.buffer = buffer;
+        System.arraycopy(starts, offset, this.starts, 0, this.starts.length);
+        System.arraycopy(ends, offset, this.ends, 0, this.ends.length);
+        System.arraycopy(flags, offset, this.flags, 0, this.flags.length);
+    }
+
+    public int getColumnCount() {
+        return flags.length;
+    }
+
+    /**
+     * @param column the zero based index of the column
+     * @return true if the column has no value
+     */
+    public boolean isNull(int column) {
+        return flags[column] == NULL;
+    }
+
+    /**
+     * Decodes the value of a column.
+     *
+     * @param column the zero based index of the column
+     * @return the value of the column, or null if the column has no value
+     */
+    public String getString(int column) {
+        byte flag = flags[column];
+        if (flag == NULL) {
+            return null;
+        }
+        int start = starts[column];
+        int end = ends[column];
+        if (flag != ESCAPED) {
+            return new String(buffer, start, end - start, StandardCharsets.UTF_8);
+        }
+        byte[] unescaped = new byte[end - start];
+        int length = 0;
+        for (int i = start; i < end; i++) {
+            byte b = buffer[i];
+            unescaped[length++] = b;
+            if (b == '"') {
+                i++;
+            }
+        }
+        return new String(unescaped, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parses the value of a column as an int without decoding it to a string
+     * when it is a plain decimal number.
+     *
+     * @param column the zero based index of the column
+     * @return the value of the column, or zero if the column has no value
+     * @throws NumberFormatException when the value is not an int
+     */
+    public int getInt(int column) {
+        if (flags[column] == NULL) {
+            return 0;
+        }
+        long value = parseSimpleInteger(column, MAX_INT_DIGITS);
+        if (value == NOT_SIMPLE) {
+            return Integer.parseInt(getString(column));
+        } else {
+            return (int) value;
+        }
+    }
+
+    /**
+     * Parses the value of a column as a long without decoding it to a string
+     * when it is a plain decimal number.
+     *
+     * @param column the zero based index of the column
+     * @return the value of the column, or zero if the column has no value
+     * @throws NumberFormatException when the value is not a long
+     */
+    public long getLong(int column) {
+        if (flags[column] == NULL) {
+            return 0;
+        }
+        long value = parseSimpleInteger(column, MAX_LONG_DIGITS);
+        if (value == NOT_SIMPLE) {
+            return Long.parseLong(getString(column));
+        } else {
+            return value;
+        }
+    }
+
+    /**
+     * Parses an optionally signed run of at most the specified number of
+     * digits, which is small enough to never overflow.
+     *
+     * @return the parsed value, or {@link #NOT_SIMPLE} when the field has any
+     *         other form and must be parsed the slow way
+     */
+    private long parseSimpleInteger(int column, int maxDigits) {
+        if (flags[column] != 0) {
+            return NOT_SIMPLE;
+        }
+        byte[] b = buffer;
+        int i = starts[column];
+        int end = ends[column];
+        boolean negative = false;
+        if (i < end && (b[i] == '-' || b[i] == '+')) {
+            negative = b[i] == '-';
+            i++;
+        }
+        if (i == end || end - i > maxDigits) {
+            return NOT_SIMPLE;
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = b[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return NOT_SIMPLE;
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses the value of a column as a double without decoding it to a
+     * string when it is a decimal number with few enough digits.
+     *
+     * Numbers with at most 15 significant digits and a decimal exponent of at
+     * most 22 can be represented as an exactly representable integer
+     * multiplied or divided by an exactly representable power of ten, and a
+     * single IEEE multiplication or division rounds correctly. All other
+     * numbers are parsed by {@link Double#parseDouble(String)}.
+     *
+     * @param column the zero based index of the column
+     * @return the value of the column, or zero if the column has no value
+     * @throws NumberFormatException when the value is not a double
+     */
+    public double getDouble(int column) {
+        byte flag = flags[column];
+        if (flag == NULL) {
+            return 0;
+        }
+        if (flag == 0) {
+            byte[] b = buffer;
+            int i = starts[column];
+            int end = ends[column];
+            boolean negative = false;
+            if (i < end && (b[i] == '-' || b[i] == '+')) {
+                negative = b[i] == '-';
+                i++;
+            }
+            long mantissa = 0;
+            int digits = 0;
+            int fractionDigits = 0;
+            boolean fraction = false;
+            for (; i < end; i++) {
+                int digit = b[i] - '0';
+                if (digit >= 0 && digit <= 9) {
+                    mantissa = mantissa * 10 + digit;
+                    digits++;
+                    if (fraction) {
+                        fractionDigits++;
+                    }
+                } else if (b[i] == '.' && !fraction) {
+                    fraction = true;
+                } else {
+                    break;
+                }
+            }
+            int exponent = 0;
+            boolean validExponent = true;
+            if (i < end && (b[i] == 'e' || b[i] == 'E')) {
+                i++;
+                boolean negativeExponent = false;
+                if (i < end && (b[i] == '-' || b[i] == '+')) {
+                    negativeExponent = b[i] == '-';
+                    i++;
+                }
+                validExponent = i < end && end - i <= 3;
+                for (; i < end && validExponent; i++) {
+                    int digit = b[i] - '0';
+                    if (digit < 0 || digit > 9) {
+                        validExponent = false;
+                    }
+                    exponent = exponent * 10 + digit;
+                }
+                if (negativeExponent) {
+                    exponent = -exponent;
+                }
+            }
+            exponent -= fractionDigits;
+            if (i == end && validExponent && digits > 0 && digits <= MAX_EXACT_DOUBLE_DIGITS && exponent >= -22 && exponent <= 22) {
+                double value = mantissa;
+                if (exponent < 0) {
+                    value /= POWERS_OF_TEN[-exponent];
+                } else {
+                    value *= POWERS_OF_TEN[exponent];
+                }
+                return negative ? -value : value;
+            }
+        }
+        return Double.parseDouble(getString(column));
+    }
+}
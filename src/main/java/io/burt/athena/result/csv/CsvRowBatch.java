@@ -0,0 +1,66 @@
+package io.burt.athena.result.csv;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A batch of complete rows parsed by a {@link PushCsvParser}.
+ *
+ * The bytes of the rows are stored back to back in a buffer that belongs to
+ * the batch, together with the offsets of their fields, so a batch can be
+ * handed to another thread and read long after the buffers it was parsed
+ * from have been reused.
+ */
+public final class CsvRowBatch {
+    private final byte[] buffer;
+    private final int[] rowOffsets;
+    private final int[] starts;
+    private final int[] ends;
+    private final byte[] flags;
+    private final int columnCount;
+    private final int rowCount;
+
+    CsvRowBatch(byte[] buffer, int[] rowOffsets, int[] starts, int[] ends, byte[] flags, int columnCount, int rowCount) {
+        this.buffer = buffer;
+        this.rowOffsets = rowOffsets;
+        this.starts = starts;
+        this.ends = ends;
+        this.flags = flags;
+        this.columnCount = columnCount;
+        this.rowCount = rowCount;
+    }
+
+    /**
+     * @return a new batch without any rows
+     */
+    public static CsvRowBatch empty() {
+        return new CsvRowBatch(new byte[0], new int[1], new int[0], new int[0], new byte[0], 0, 0);
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return the number of bytes of CSV that the rows were parsed from
+     */
+    public int getByteCount() {
+        return rowOffsets[rowCount] - rowOffsets[0];
+    }
+
+    /**
+     * Returns the CSV that a range of rows were parsed from, exactly as it
+     * was received.
+     *
+     * @param fromRow the zero based index of the first row to include
+     * @return a read only buffer with the bytes of the rows from the specified
+     *         row to the end of the batch
+     */
+    public ByteBuffer getBytes(int fromRow) {
+        int start = rowOffsets[fromRow];
+        return ByteBuffer.wrap(buffer, start, rowOffsets[rowCount] - start).asReadOnlyBuffer();
+    }
+
+    void loadRow(int index, CsvRow row) {
+        row.load(buffer, starts, ends, flags, index * columnCount);
+    }
+}
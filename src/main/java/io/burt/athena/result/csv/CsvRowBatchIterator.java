@@ -0,0 +1,79 @@
+package io.burt.athena.result.csv;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * Iterates over the rows of the batches handed out by a source of
+ * {@link CsvRowBatch}es.
+ *
+ * Rows are reused the same way as by {@link ByteBufferCsvParser}: a row
+ * returned by {@link #next()} stays valid while the row after it is loaded,
+ * but not after that.
+ */
+public class CsvRowBatchIterator implements Iterator<CsvRow> {
+    /**
+     * A source of batches, typically a parser running on another thread,
+     * which is stopped by closing it.
+     */
+    public interface Source extends Closeable {
+        /**
+         * @return the next batch, or null when there are no more
+         * @throws IOException when loading or parsing the batch fails
+         */
+        CsvRowBatch nextBatch() throws IOException;
+    }
+
+    private final Source source;
+    private final CsvRow[] rows;
+
+    private CsvRowBatch batch;
+    private int batchRowIndex;
+    private CsvRow nextRow;
+    private int rowIndex;
+
+    public CsvRowBatchIterator(Source source, int columnCount) {
+        this.source = source;
+        this.rows = new CsvRow[]{new CsvRow(columnCount), new CsvRow(columnCount)};
+        this.batch = null;
+        this.batchRowIndex = 0;
+        this.nextRow = null;
+        this.rowIndex = 0;
+    }
+
+    @Override
+    public CsvRow next() {
+        if (nextRow == null) {
+            loadNext();
+        }
+        CsvRow n = nextRow;
+        nextRow = null;
+        return n;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return nextRow != null || loadNext();
+    }
+
+    private boolean loadNext() {
+        try {
+            while (batch == null || batchRowIndex >= batch.getRowCount()) {
+                batch = source.nextBatch();
+                batchRowIndex = 0;
+                if (batch == null) {
+                    return false;
+                }
+            }
+            rowIndex ^= 1;
+            CsvRow row = rows[rowIndex];
+            batch.loadRow(batchRowIndex++, row);
+            nextRow = row;
+            return true;
+        } catch (IOException e) {
+            nextRow = null;
+            throw new RuntimeException(e);
+        }
+    }
+}
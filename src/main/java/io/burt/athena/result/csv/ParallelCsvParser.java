@@ -0,0 +1,336 @@
+package io.burt.athena.result.csv;
+
+import io.burt.athena.result.s3.ChunkedInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.text.ParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Parses a CSV stream by splitting it into large segments that are parsed
+ * at the same time on the threads of an executor.
+ *
+ * A segment can start anywhere in a row, even inside a quoted field, and
+ * whether it does depends on all the bytes before it. Instead of waiting
+ * for those, each segment is parsed on the speculation that it starts
+ * outside of quotes: the first newline outside of quotes is taken to end
+ * the row that the segment starts in, and the rest of the segment is parsed
+ * from there. The segment also counts its quotes.
+ *
+ * The results are stitched together in order on the reader's thread. Since
+ * quotes in fields are escaped by doubling them, a segment starts inside a
+ * quoted field exactly when the number of quotes before it is odd. When
+ * that shows that the speculation was wrong the segment is parsed again
+ * from the right state, which for the CSV Athena writes is very rare. The
+ * end of the previous segment and the start of the next are joined and
+ * parsed as the row between them, so rows are handed out in the same order
+ * as they appear in the stream.
+ *
+ * The reader reads segments from the stream while earlier segments are
+ * being parsed, and never has more than a fixed number in flight. A segment
+ * whose task has not started when the reader needs it is parsed by the
+ * reader, so a busy executor slows parsing down but never blocks it.
+ */
+public class ParallelCsvParser implements CsvRowBatchIterator.Source {
+    public static final int DEFAULT_SEGMENT_SIZE = 1 << 23;
+    public static final int DEFAULT_MAX_SEGMENTS_IN_FLIGHT = 4;
+
+    private static final int BATCH_SIZE = 1 << 18;
+    private static final int FEED_SIZE = 1 << 16;
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+    private static final byte[] EMPTY = new byte[0];
+
+    private final InputStream csv;
+    private final int columnCount;
+    private final Executor executor;
+    private final int segmentSize;
+    private final int maxSegmentsInFlight;
+    private final Deque<Segment> segments;
+    private final Deque<CsvRowBatch> batches;
+    private final Deque<byte[]> freeSegmentBuffers;
+
+    private ByteBuffer pendingChunk;
+    private long readOffset;
+    private byte[] tail;
+    private long tailOffset;
+    private boolean quoted;
+    private boolean endOfStream;
+    private boolean ended;
+    private boolean closed;
+    private ParseException error;
+
+    public ParallelCsvParser(InputStream csv, int columnCount, Executor executor) {
+        this(csv, columnCount, executor, DEFAULT_SEGMENT_SIZE, DEFAULT_MAX_SEGMENTS_IN_FLIGHT);
+    }
+
+    /**
+     * @param csv the stream to parse
+     * @param columnCount the number of columns of the CSV
+     * @param executor the executor to parse segments on
+     * @param segmentSize the number of bytes of each segment
+     * @param maxSegmentsInFlight the max number of segments that are read
+     *                            but not yet handed out
+     */
+    public ParallelCsvParser(InputStream csv, int columnCount, Executor executor, int segmentSize, int maxSegmentsInFlight) {
+        if (segmentSize < 1) {
+            throw new IllegalArgumentException(String.format("Segment size must be at least one byte (got %d)", segmentSize));
+        }
+        if (maxSegmentsInFlight < 1) {
+            throw new IllegalArgumentException(String.format("Max segments in flight must be at least one (got %d)", maxSegmentsInFlight));
+        }
+        this.csv = csv;
+        this.columnCount = columnCount;
+        this.executor = executor;
+        this.segmentSize = segmentSize;
+        this.maxSegmentsInFlight = maxSegmentsInFlight;
+        this.segments = new ArrayDeque<>(maxSegmentsInFlight);
+        this.batches = new ArrayDeque<>();
+        this.freeSegmentBuffers = new ArrayDeque<>(maxSegmentsInFlight);
+        this.pendingChunk = null;
+        this.readOffset = 0;
+        this.tail = EMPTY;
+        this.tailOffset = 0;
+        this.quoted = false;
+        this.endOfStream = false;
+        this.ended = false;
+        this.closed = false;
+        this.error = null;
+    }
+
+    private class Segment implements Runnable {
+        final byte[] bytes;
+        final int length;
+        final long offset;
+        final AtomicBoolean claimed;
+        final CountDownLatch done;
+
+        boolean startsQuoted;
+        int quoteCount;
+        int headEnd;
+        int rowsEnd;
+        List<CsvRowBatch> batches;
+        ParseException error;
+
+        Segment(byte[] bytes, int length, long offset) {
+            this.bytes = bytes;
+            this.length = length;
+            this.offset = offset;
+            this.claimed = new AtomicBoolean(false);
+            this.done = new CountDownLatch(1);
+        }
+
+        @Override
+        public void run() {
+            if (claimed.compareAndSet(false, true)) {
+                try {
+                    parse(false);
+                } finally {
+                    done.countDown();
+                }
+            }
+        }
+
+        boolean isDone() {
+            return done.getCount() == 0;
+        }
+
+        /**
+         * Waits for the segment to be parsed, or parses it on the calling
+         * thread if no other thread has started to.
+         */
+        void await() throws IOException {
+            run();
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+        }
+
+        /**
+         * Parses the rows of the segment, assuming the quote state at its
+         * start.
+         *
+         * The bytes up to the first newline outside of quotes are the end of
+         * a row that started in an earlier segment, and the bytes after the
+         * last complete row are the start of a row that ends in a later one.
+         * Both are left for the stitching. Parse errors are recorded and only
+         * thrown when the speculation turns out to be right.
+         */
+        void parse(boolean startsQuoted) {
+            this.startsQuoted = startsQuoted;
+            this.batches = new ArrayList<>();
+            this.error = null;
+            byte[] b = bytes;
+            quoteCount = QuoteScanner.countQuotes(b, 0, length);
+            boolean inQuotes = startsQuoted;
+            headEnd = -1;
+            for (int i = 0; i < length; i++) {
+                if (b[i] == '"') {
+                    inQuotes = !inQuotes;
+                } else if (b[i] == '\n' && !inQuotes) {
+                    headEnd = i + 1;
+                    break;
+                }
+            }
+            rowsEnd = headEnd;
+            if (headEnd < 0) {
+                return;
+            }
+            List<CsvRowBatch> parsed = batches;
+            PushCsvParser parser = new PushCsvParser(columnCount, BATCH_SIZE, offset + headEnd, parsed::add);
+            try {
+                for (int i = headEnd; i < length; i += FEED_SIZE) {
+                    parser.feed(ByteBuffer.wrap(b, i, Math.min(FEED_SIZE, length - i)));
+                }
+            } catch (ParseException e) {
+                error = e;
+            }
+            parser.flush();
+            for (CsvRowBatch batch : parsed) {
+                rowsEnd += batch.getByteCount();
+            }
+        }
+    }
+
+    @Override
+    public CsvRowBatch nextBatch() throws IOException {
+        if (ended || closed) {
+            return null;
+        }
+        try {
+            while (batches.isEmpty()) {
+                if (error != null) {
+                    ended = true;
+                    throw new IOException(error);
+                }
+                Segment segment = segments.peek();
+                if (segment != null && (segment.isDone() || segments.size() >= maxSegmentsInFlight || endOfStream)) {
+                    segments.poll();
+                    segment.await();
+                    stitch(segment);
+                } else if (!endOfStream) {
+                    readSegment();
+                } else {
+                    if (tail.length > 0) {
+                        throw new ParseException("Unexpected end of stream", (int) Math.min(tailOffset + tail.length, Integer.MAX_VALUE));
+                    }
+                    ended = true;
+                    return null;
+                }
+            }
+            return batches.poll();
+        } catch (ParseException e) {
+            ended = true;
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Checks the speculation of a parsed segment against the quotes of all
+     * segments before it, and hands out the row that it shares with the
+     * previous segment followed by its own rows.
+     */
+    private void stitch(Segment segment) throws ParseException {
+        if (segment.startsQuoted != quoted) {
+            segment.parse(quoted);
+        }
+        if ((segment.quoteCount & 1) == 1) {
+            quoted = !quoted;
+        }
+        if (segment.headEnd < 0) {
+            tail = concat(tail, segment.bytes, segment.length);
+        } else {
+            byte[] row = concat(tail, segment.bytes, segment.headEnd);
+            PushCsvParser parser = new PushCsvParser(columnCount, BATCH_SIZE, tailOffset, batches::add);
+            parser.feed(ByteBuffer.wrap(row));
+            parser.finish();
+            batches.addAll(segment.batches);
+            error = segment.error;
+            tail = Arrays.copyOfRange(segment.bytes, segment.rowsEnd, segment.length);
+            tailOffset = segment.offset + segment.rowsEnd;
+        }
+        if (freeSegmentBuffers.size() < maxSegmentsInFlight) {
+            freeSegmentBuffers.add(segment.bytes);
+        }
+    }
+
+    private static byte[] concat(byte[] head, byte[] bytes, int length) {
+        byte[] joined = Arrays.copyOf(head, head.length + length);
+        System.arraycopy(bytes, 0, joined, head.length, length);
+        return joined;
+    }
+
+    /**
+     * Reads the next segment from the stream and hands it to the executor.
+     */
+    private void readSegment() throws IOException {
+        byte[] bytes = freeSegmentBuffers.isEmpty() ? new byte[segmentSize] : freeSegmentBuffers.poll();
+        int length = 0;
+        while (length < segmentSize) {
+            if (pendingChunk == null || !pendingChunk.hasRemaining()) {
+                recycle(pendingChunk);
+                pendingChunk = readChunk();
+                if (pendingChunk == null) {
+                    endOfStream = true;
+                    break;
+                }
+            }
+            int n = Math.min(pendingChunk.remaining(), segmentSize - length);
+            pendingChunk.get(bytes, length, n);
+            length += n;
+        }
+        if (length > 0) {
+            Segment segment = new Segment(bytes, length, readOffset);
+            readOffset += length;
+            segments.add(segment);
+            try {
+                executor.execute(segment);
+            } catch (RejectedExecutionException e) {
+                // the reader will parse the segment itself
+            }
+        }
+    }
+
+    private ByteBuffer readChunk() throws IOException {
+        if (csv instanceof ChunkedInputStream) {
+            return ((ChunkedInputStream) csv).nextChunk();
+        }
+        byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+        int length = csv.read(readBuffer);
+        if (length == -1) {
+            return null;
+        } else {
+            return ByteBuffer.wrap(readBuffer, 0, length);
+        }
+    }
+
+    private void recycle(ByteBuffer chunk) {
+        if (chunk != null && csv instanceof ChunkedInputStream) {
+            ((ChunkedInputStream) csv).recycle(chunk);
+        }
+    }
+
+    /**
+     * Closes the stream. Segments that are being parsed are parsed to the
+     * end, but nothing more is read.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        segments.clear();
+        batches.clear();
+        csv.close();
+    }
+}
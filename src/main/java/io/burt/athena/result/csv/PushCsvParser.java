@@ -0,0 +1,239 @@
+package io.burt.athena.result.csv;
+
+import java.nio.ByteBuffer;
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * A CSV parser that is fed buffers as they arrive instead of reading them
+ * from a stream.
+ *
+ * The parser is a state machine that remembers where it is in the current
+ * row, so a buffer can end anywhere, even between the two quotes of an
+ * escaped quote, and parsing continues with the next buffer where it left
+ * off. The bytes of each buffer are copied once, into the buffer of the
+ * batch that is being filled, and complete rows are handed to the sink in
+ * {@link CsvRowBatch}es. The bytes of an unfinished row are moved to the
+ * next batch when a batch is handed over.
+ *
+ * A batch is handed over when it holds at least the batch size of complete
+ * rows, and when {@link #flush()} or {@link #finish()} are called.
+ *
+ * Like {@link ByteBufferCsvParser} the parser expects every field to be
+ * quoted or empty, and reports byte offsets in its {@link ParseException}s.
+ * A parser must only be used by one thread at a time.
+ */
+public class PushCsvParser {
+    private static final int FIELD_START = 0;
+    private static final int QUOTED = 1;
+    private static final int QUOTE = 2;
+    private static final int INITIAL_ROW_CAPACITY = 64;
+
+    private final int columnCount;
+    private final int batchSize;
+    private final Consumer<CsvRowBatch> sink;
+
+    private byte[] buffer;
+    private int[] rowOffsets;
+    private int[] starts;
+    private int[] ends;
+    private byte[] flags;
+    private int limit;
+    private int position;
+    private int rowCount;
+    private int column;
+    private int fieldStart;
+    private boolean escaped;
+    private int state;
+    private long bufferOffset;
+
+    /**
+     * @param columnCount the number of fields of each row
+     * @param batchSize the number of bytes of rows to collect before a batch
+     *                  is handed over
+     * @param sink the consumer that batches are handed to
+     */
+    public PushCsvParser(int columnCount, int batchSize, Consumer<CsvRowBatch> sink) {
+        this(columnCount, batchSize, 0, sink);
+    }
+
+    /**
+     * @param columnCount the number of fields of each row
+     * @param batchSize the number of bytes of rows to collect before a batch
+     *                  is handed over
+     * @param streamOffset the offset in the whole stream of the first byte
+     *                     that will be fed, which is added to error offsets
+     * @param sink the consumer that batches are handed to
+     */
+    public PushCsvParser(int columnCount, int batchSize, long streamOffset, Consumer<CsvRowBatch> sink) {
+        this.columnCount = columnCount;
+        this.batchSize = batchSize;
+        this.sink = sink;
+        this.limit = 0;
+        this.position = 0;
+        this.rowCount = 0;
+        this.column = 0;
+        this.fieldStart = 0;
+        this.escaped = false;
+        this.state = FIELD_START;
+        this.bufferOffset = streamOffset;
+        allocate(INITIAL_ROW_CAPACITY, batchSize);
+    }
+
+    private void allocate(int rowCapacity, int byteCapacity) {
+        buffer = new byte[Math.max(byteCapacity, 1)];
+        rowOffsets = new int[rowCapacity + 1];
+        starts = new int[rowCapacity * columnCount];
+        ends = new int[rowCapacity * columnCount];
+        flags = new byte[rowCapacity * columnCount];
+    }
+
+    /**
+     * Parses the bytes of a buffer, and hands over a batch if enough complete
+     * rows have been collected.
+     *
+     * @param chunk the bytes to parse, which are all consumed
+     * @throws ParseException when the bytes are not valid CSV
+     */
+    public void feed(ByteBuffer chunk) throws ParseException {
+        int length = chunk.remaining();
+        if (buffer.length < limit + length) {
+            buffer = Arrays.copyOf(buffer, Math.max(limit + length, buffer.length * 2));
+        }
+        chunk.get(buffer, limit, length);
+        limit += length;
+        scan();
+        if (rowOffsets[rowCount] >= batchSize) {
+            flush();
+        }
+    }
+
+    /**
+     * Hands over the complete rows collected so far, if there are any.
+     */
+    public void flush() {
+        if (rowCount == 0) {
+            return;
+        }
+        CsvRowBatch batch = new CsvRowBatch(buffer, rowOffsets, starts, ends, flags, columnCount, rowCount);
+        int rowStart = rowOffsets[rowCount];
+        int carried = limit - rowStart;
+        int[] previousStarts = starts;
+        int[] previousEnds = ends;
+        byte[] previousFlags = flags;
+        int previousFieldsOffset = rowCount * columnCount;
+        byte[] previousBuffer = buffer;
+        allocate(rowOffsets.length - 1, Math.max(batchSize, carried * 2));
+        System.arraycopy(previousBuffer, rowStart, buffer, 0, carried);
+        for (int i = 0; i < column; i++) {
+            starts[i] = previousStarts[previousFieldsOffset + i] - rowStart;
+            ends[i] = previousEnds[previousFieldsOffset + i] - rowStart;
+            flags[i] = previousFlags[previousFieldsOffset + i];
+        }
+        fieldStart -= rowStart;
+        position -= rowStart;
+        limit = carried;
+        bufferOffset += rowStart;
+        rowCount = 0;
+        sink.accept(batch);
+    }
+
+    /**
+     * Hands over the last rows when the end of the input has been reached.
+     *
+     * @throws ParseException when the input ends in the middle of a row
+     */
+    public void finish() throws ParseException {
+        if (limit > rowOffsets[rowCount]) {
+            throw new ParseException("Unexpected end of stream", errorOffset(limit));
+        }
+        flush();
+    }
+
+    private void scan() throws ParseException {
+        byte[] b = buffer;
+        int i = position;
+        int end = limit;
+        while (i < end) {
+            if (state == QUOTED) {
+                i = QuoteScanner.indexOfQuote(b, i, end);
+                if (i < end) {
+                    state = QUOTE;
+                    i++;
+                }
+            } else if (state == QUOTE) {
+                if (b[i] == '"') {
+                    escaped = true;
+                    state = QUOTED;
+                    i++;
+                } else {
+                    setField(fieldStart, i - 1, escaped ? CsvRow.ESCAPED : 0);
+                    i = endField(i);
+                }
+            } else if (b[i] == '"') {
+                fieldStart = i + 1;
+                escaped = false;
+                state = QUOTED;
+                i++;
+            } else if (b[i] == ',' || b[i] == '\n') {
+                setField(i, i, CsvRow.NULL);
+                i = endField(i);
+            } else {
+                position = i;
+                throw new ParseException(String.format("Expected quote but found \"%s\"", byteToString(b[i])), errorOffset(i));
+            }
+        }
+        position = i;
+    }
+
+    private void setField(int start, int end, byte flag) {
+        int index = rowCount * columnCount + column;
+        starts[index] = start;
+        ends[index] = end;
+        flags[index] = flag;
+    }
+
+    /**
+     * Checks that the byte at the specified index separates the field that
+     * just ended from the next, and moves on to the next field.
+     *
+     * @return the index of the first byte of the next field
+     */
+    private int endField(int index) throws ParseException {
+        byte separator = column == columnCount - 1 ? (byte) '\n' : (byte) ',';
+        if (buffer[index] != separator) {
+            String expected = separator == ',' ? "comma" : "newline";
+            throw new ParseException(String.format("Expected %s but found \"%s\"", expected, byteToString(buffer[index])), errorOffset(index));
+        }
+        state = FIELD_START;
+        column++;
+        if (column == columnCount) {
+            column = 0;
+            rowCount++;
+            if (rowCount + 1 == rowOffsets.length) {
+                int rowCapacity = rowOffsets.length * 2;
+                rowOffsets = Arrays.copyOf(rowOffsets, rowCapacity + 1);
+                starts = Arrays.copyOf(starts, rowCapacity * columnCount);
+                ends = Arrays.copyOf(ends, rowCapacity * columnCount);
+                flags = Arrays.copyOf(flags, rowCapacity * columnCount);
+            }
+            rowOffsets[rowCount] = index + 1;
+        }
+        return index + 1;
+    }
+
+    private static String byteToString(byte b) {
+        if (b == '\n') {
+            return "\\n";
+        } else if (b >= 0x20 && b < 0x7f) {
+            return String.valueOf((char) b);
+        } else {
+            return String.format("\\x%02x", b & 0xff);
+        }
+    }
+
+    private int errorOffset(int index) {
+        return (int) Math.min(bufferOffset + index, Integer.MAX_VALUE);
+    }
+}
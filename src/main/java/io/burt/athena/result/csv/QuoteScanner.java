@@ -0,0 +1,107 @@
+package io.burt.athena.result.csv;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.nio.ByteOrder;
+
+/**
+ * Finds quotes in byte arrays eight bytes at a time.
+ *
+ * Every non-null field in the CSV that Athena writes is quoted, so most of
+ * the time spent parsing goes to looking for the quote that ends a field.
+ * Instead of comparing one byte at a time the scanner loads a whole long
+ * and uses bit tricks to find the bytes in it that are quotes, which skips
+ * over long fields in an eighth of the steps.
+ *
+ * Loading a long from a byte array without assembling it byte by byte
+ * needs a byte array view, which only exists from Java 9. The view is
+ * looked up when the class is loaded, and on Java 8 the scanner compares
+ * one byte at a time instead.
+ */
+final class QuoteScanner {
+    private static final long QUOTES = 0x2222222222222222L;
+    private static final long ONES = 0x0101010101010101L;
+    private static final long LOW_BITS = 0x7f7f7f7f7f7f7f7fL;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final MethodHandle GET_LONG = findGetLong();
+
+    private QuoteScanner() { }
+
+    /**
+     * @return a method handle that loads a little endian long from a byte
+     *         array at a byte index, or null when the JVM does not support
+     *         byte array views
+     */
+    private static MethodHandle findGetLong() {
+        try {
+            Class<?> varHandleClass = Class.forName("java.lang.invoke.VarHandle");
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            Object getMode = Enum.valueOf((Class) Class.forName("java.lang.invoke.VarHandle$AccessMode"), "GET");
+            Method byteArrayViewVarHandle = MethodHandles.class.getMethod("byteArrayViewVarHandle", Class.class, ByteOrder.class);
+            Object varHandle = byteArrayViewVarHandle.invoke(null, long[].class, ByteOrder.LITTLE_ENDIAN);
+            Method toMethodHandle = varHandleClass.getMethod("toMethodHandle", getMode.getClass());
+            return (MethodHandle) toMethodHandle.invoke(varHandle, getMode);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Finds the first quote in a range of a byte array.
+     *
+     * @param bytes the array to search
+     * @param from the index of the first byte to look at
+     * @param to the index after the last byte to look at
+     * @return the index of the first quote, or to if there is none
+     */
+    static int indexOfQuote(byte[] bytes, int from, int to) {
+        int i = from;
+        if (GET_LONG != null) {
+            try {
+                for (; i + Long.BYTES <= to; i += Long.BYTES) {
+                    long word = (long) GET_LONG.invokeExact(bytes, i) ^ QUOTES;
+                    long found = (word - ONES) & ~word & HIGH_BITS;
+                    if (found != 0) {
+                        return i + (Long.numberOfTrailingZeros(found) >>> 3);
+                    }
+                }
+            } catch (Throwable t) {
+                throw new IllegalStateException(t);
+            }
+        }
+        while (i < to && bytes[i] != '"') {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Counts the quotes in a range of a byte array.
+     *
+     * @param bytes the array to search
+     * @param from the index of the first byte to count
+     * @param to the index after the last byte to count
+     * @return the number of quotes
+     */
+    static int countQuotes(byte[] bytes, int from, int to) {
+        int count = 0;
+        int i = from;
+        if (GET_LONG != null) {
+            try {
+                for (; i + Long.BYTES <= to; i += Long.BYTES) {
+                    long word = (long) GET_LONG.invokeExact(bytes, i) ^ QUOTES;
+                    count += Long.bitCount(~(((word & LOW_BITS) + LOW_BITS) | word | LOW_BITS));
+                }
+            } catch (Throwable t) {
+                throw new IllegalStateException(t);
+            }
+        }
+        for (; i < to; i++) {
+            if (bytes[i] == '"') {
+                count++;
+            }
+        }
+        return count;
+    }
+}
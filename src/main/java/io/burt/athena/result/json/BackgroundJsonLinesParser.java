@@ -0,0 +1,229 @@
+package io.burt.athena.result.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.SQLException;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Parses a JSON lines stream on a background thread, ahead of the reader.
+ *
+ * A task running on an executor decompresses the stream, parses it with a
+ * {@link JsonLinesParser}, turns each object into a row with a
+ * {@link RowMapper}, and puts the rows in batches in a bounded queue that
+ * the reader takes them from. When the queue is full the task waits for the
+ * reader, and when the queue is empty the rows parsed so far are handed over
+ * right away. Parsers for different streams can run at the same time, so
+ * several files can be parsed in parallel while the reader reads one of them.
+ *
+ * Like {@link io.burt.athena.result.csv.BackgroundCsvParser}, if the reader
+ * asks for a row before the task has started the reader takes over and
+ * parses the stream itself, so a stream never waits for a free thread.
+ *
+ * Errors from reading, parsing, or mapping are thrown by {@link #next()}
+ * after the rows parsed before them, wrapped in an {@link IOException}.
+ * Closing the parser closes the stream, and makes the task stop at the next
+ * row.
+ *
+ * @param <T> the type of the rows
+ */
+public class BackgroundJsonLinesParser<T> implements AutoCloseable {
+    public static final int DEFAULT_MAX_QUEUED_BATCHES = 4;
+
+    private static final int BATCH_SIZE = 1 << 10;
+    private static final int GZIP_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Turns the current object of a parser into a row.
+     *
+     * @param <T> the type of the rows
+     */
+    @FunctionalInterface
+    public interface RowMapper<T> {
+        T map(JsonLinesParser parser) throws ParseException, SQLException;
+    }
+
+    private final InputStream json;
+    private final boolean gzipped;
+    private final RowMapper<T> rowMapper;
+    private final BlockingQueue<List<T>> batches;
+    private final List<T> endMarker;
+    private final AtomicBoolean claimed;
+
+    private JsonLinesParser parser;
+    private volatile Throwable error;
+    private volatile boolean closed;
+    private boolean ended;
+    private boolean inline;
+    private List<T> currentBatch;
+    private int currentIndex;
+
+    /**
+     * @param json the stream to parse
+     * @param gzipped whether the stream is GZIP compressed
+     * @param rowMapper turns the parsed objects into rows
+     */
+    public BackgroundJsonLinesParser(InputStream json, boolean gzipped, RowMapper<T> rowMapper) {
+        this.json = json;
+        this.gzipped = gzipped;
+        this.rowMapper = rowMapper;
+        this.batches = new ArrayBlockingQueue<>(DEFAULT_MAX_QUEUED_BATCHES);
+        this.endMarker = new ArrayList<>(0);
+        this.claimed = new AtomicBoolean(false);
+        this.parser = null;
+        this.error = null;
+        this.closed = false;
+        this.ended = false;
+        this.inline = false;
+        this.currentBatch = Collections.emptyList();
+        this.currentIndex = 0;
+    }
+
+    /**
+     * Starts parsing on a thread of the specified executor.
+     *
+     * @param executor the executor to run the parser on
+     * @return this parser
+     */
+    public BackgroundJsonLinesParser<T> start(Executor executor) {
+        try {
+            executor.execute(this::parseInBackground);
+        } catch (RejectedExecutionException e) {
+            // the reader will parse the stream itself
+        }
+        return this;
+    }
+
+    private void parseInBackground() {
+        if (!claimed.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            List<T> batch = new ArrayList<>();
+            while (!closed && nextObject()) {
+                batch.add(rowMapper.map(parser));
+                if (batch.size() >= BATCH_SIZE || batches.isEmpty()) {
+                    enqueue(batch);
+                    batch = new ArrayList<>();
+                }
+            }
+            if (!batch.isEmpty()) {
+                enqueue(batch);
+            }
+        } catch (IOException | ParseException | SQLException | RuntimeException e) {
+            if (!closed) {
+                error = e;
+            }
+        } finally {
+            if (!closed) {
+                try {
+                    batches.put(endMarker);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    if (error == null) {
+                        error = e;
+                    }
+                    batches.clear();
+                    batches.offer(endMarker);
+                }
+            }
+        }
+    }
+
+    /**
+     * Opens the parser on the thread that claimed the stream, since
+     * decompression starts by reading the header of the stream.
+     */
+    private boolean nextObject() throws IOException, ParseException {
+        if (parser == null) {
+            parser = new JsonLinesParser(gzipped ? new GZIPInputStream(json, GZIP_BUFFER_SIZE) : json);
+        }
+        return parser.next();
+    }
+
+    /**
+     * Waits for room in the queue, unless the parser has been closed, in
+     * which case nobody will read the batch.
+     */
+    private void enqueue(List<T> batch) {
+        if (!closed) {
+            try {
+                batches.put(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the reader", e);
+            }
+        }
+    }
+
+    /**
+     * Takes the next row, waiting until the parser has one.
+     *
+     * @return the next row, or null when all rows have been read
+     * @throws IOException when reading, parsing, or mapping failed, or when
+     *                     the thread is interrupted while waiting
+     */
+    public T next() throws IOException {
+        if (ended || closed) {
+            return null;
+        }
+        if (!inline && claimed.compareAndSet(false, true)) {
+            inline = true;
+        }
+        if (inline) {
+            return parseInline();
+        }
+        if (currentIndex < currentBatch.size()) {
+            return currentBatch.get(currentIndex++);
+        }
+        List<T> batch;
+        try {
+            batch = batches.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+        if (batch == endMarker) {
+            ended = true;
+            if (error != null) {
+                throw new IOException(error);
+            }
+            return null;
+        }
+        currentBatch = batch;
+        currentIndex = 1;
+        return batch.get(0);
+    }
+
+    private T parseInline() throws IOException {
+        try {
+            if (nextObject()) {
+                return rowMapper.map(parser);
+            }
+            ended = true;
+            return null;
+        } catch (IOException e) {
+            ended = true;
+            throw e;
+        } catch (ParseException | SQLException | RuntimeException e) {
+            ended = true;
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        batches.clear();
+        json.close();
+    }
+}
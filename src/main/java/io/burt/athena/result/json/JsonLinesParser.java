@@ -0,0 +1,280 @@
+package io.burt.athena.result.json;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A parser for files with one JSON object per line, like the files Athena
+ * writes when a query is unloaded in the JSON format.
+ *
+ * Only the top level of each object is parsed. Its fields are available in
+ * the order they appear, with strings unescaped, numbers and booleans as they
+ * were written, and nested arrays and objects as JSON text.
+ *
+ * Error offsets reported in {@link ParseException}s are character offsets
+ * within the line.
+ */
+public class JsonLinesParser implements AutoCloseable {
+    private final BufferedReader reader;
+    private final List<String> names;
+    private final List<String> values;
+
+    private String line;
+    private int position;
+    private long lineNumber;
+
+    public JsonLinesParser(InputStream json) {
+        this.reader = new BufferedReader(new InputStreamReader(json, StandardCharsets.UTF_8), 1 << 16);
+        this.names = new ArrayList<>();
+        this.values = new ArrayList<>();
+        this.line = null;
+        this.position = 0;
+        this.lineNumber = 0;
+    }
+
+    /**
+     * Parses the next object, skipping blank lines.
+     *
+     * @return false when the end of the stream has been reached
+     * @throws IOException when reading fails
+     * @throws ParseException when the line is not a JSON object
+     */
+    public boolean next() throws IOException, ParseException {
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                names.clear();
+                values.clear();
+                return false;
+            }
+            lineNumber++;
+        } while (line.trim().isEmpty());
+        parseObject();
+        return true;
+    }
+
+    public int getFieldCount() {
+        return names.size();
+    }
+
+    /**
+     * @param field the zero based index of the field
+     * @return the name of the field
+     */
+    public String getName(int field) {
+        return names.get(field);
+    }
+
+    /**
+     * @param field the zero based index of the field
+     * @return the value of the field, or null if the value is JSON null
+     */
+    public String getValue(int field) {
+        return values.get(field);
+    }
+
+    private void parseObject() throws ParseException {
+        names.clear();
+        values.clear();
+        position = 0;
+        skipWhitespace();
+        expect('{');
+        skipWhitespace();
+        if (peek() == '}') {
+            position++;
+        } else {
+            while (true) {
+                skipWhitespace();
+                if (peek() != '"') {
+                    throw unexpected("quote");
+                }
+                String name = parseString();
+                skipWhitespace();
+                expect(':');
+                skipWhitespace();
+                String value = parseValue();
+                names.add(name);
+                values.add(value);
+                skipWhitespace();
+                char c = peek();
+                position++;
+                if (c == '}') {
+                    break;
+                } else if (c != ',') {
+                    position--;
+                    throw unexpected("comma or closing brace");
+                }
+            }
+        }
+        skipWhitespace();
+        if (position < line.length()) {
+            throw unexpected("end of line");
+        }
+    }
+
+    private String parseValue() throws ParseException {
+        char c = peek();
+        if (c == '"') {
+            return parseString();
+        } else if (c == '{' || c == '[') {
+            return parseNested();
+        } else if (c == 'n') {
+            expectLiteral("null");
+            return null;
+        } else if (c == 't') {
+            expectLiteral("true");
+            return "true";
+        } else if (c == 'f') {
+            expectLiteral("false");
+            return "false";
+        } else {
+            int start = position;
+            while (position < line.length() && "+-0123456789.eE".indexOf(line.charAt(position)) >= 0) {
+                position++;
+            }
+            if (position == start) {
+                throw unexpected("value");
+            }
+            return line.substring(start, position);
+        }
+    }
+
+    private String parseString() throws ParseException {
+        position++;
+        int start = position;
+        StringBuilder unescaped = null;
+        while (true) {
+            if (position >= line.length()) {
+                throw new ParseException(String.format("Unterminated string on line %d", lineNumber), position);
+            }
+            char c = line.charAt(position);
+            if (c == '"') {
+                String value;
+                if (unescaped == null) {
+                    value = line.substring(start, position);
+                } else {
+                    value = unescaped.append(line, start, position).toString();
+                }
+                position++;
+                return value;
+            } else if (c == '\\') {
+                if (unescaped == null) {
+                    unescaped = new StringBuilder();
+                }
+                unescaped.append(line, start, position);
+                unescaped.append(parseEscape());
+                start = position;
+            } else {
+                position++;
+            }
+        }
+    }
+
+    private char parseEscape() throws ParseException {
+        position++;
+        char c = peek();
+        position++;
+        switch (c) {
+            case '"':
+            case '\\':
+            case '/':
+                return c;
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'u':
+                if (position + 4 > line.length()) {
+                    throw new ParseException(String.format("Truncated unicode escape on line %d", lineNumber), position);
+                }
+                try {
+                    char unicode = (char) Integer.parseInt(line.substring(position, position + 4), 16);
+                    position += 4;
+                    return unicode;
+                } catch (NumberFormatException e) {
+                    throw new ParseException(String.format("Invalid unicode escape on line %d", lineNumber), position);
+                }
+            default:
+                position--;
+                throw unexpected("escape character");
+        }
+    }
+
+    private String parseNested() throws ParseException {
+        int start = position;
+        int depth = 0;
+        boolean quoted = false;
+        while (position < line.length()) {
+            char c = line.charAt(position++);
+            if (quoted) {
+                if (c == '\\') {
+                    position++;
+                } else if (c == '"') {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == '{' || c == '[') {
+                depth++;
+            } else if (c == '}' || c == ']') {
+                depth--;
+                if (depth == 0) {
+                    return line.substring(start, position);
+                }
+            }
+        }
+        throw new ParseException(String.format("Unterminated %s on line %d", line.charAt(start) == '{' ? "object" : "array", lineNumber), position);
+    }
+
+    private void expectLiteral(String literal) throws ParseException {
+        if (!line.startsWith(literal, position)) {
+            throw unexpected(literal);
+        }
+        position += literal.length();
+    }
+
+    private void expect(char expected) throws ParseException {
+        if (peek() != expected) {
+            throw unexpected(String.format("\"%s\"", expected));
+        }
+        position++;
+    }
+
+    private char peek() throws ParseException {
+        if (position >= line.length()) {
+            throw new ParseException(String.format("Unexpected end of line %d", lineNumber), position);
+        }
+        return line.charAt(position);
+    }
+
+    private void skipWhitespace() {
+        while (position < line.length() && Character.isWhitespace(line.charAt(position))) {
+            position++;
+        }
+    }
+
+    private ParseException unexpected(String expected) {
+        if (position >= line.length()) {
+            return new ParseException(String.format("Expected %s but found end of line %d", expected, lineNumber), position);
+        } else {
+            return new ParseException(String.format("Expected %s but found \"%s\" on line %d", expected, line.charAt(position), lineNumber), position);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,182 @@
+package io.burt.athena.result.json;
+
+import java.text.ParseException;
+
+/**
+ * Renders JSON arrays and objects the way Athena renders arrays, maps, and
+ * rows in the results of <code>GetQueryResults</code> and in the CSV files
+ * it writes, for example <code>[1, 2]</code> and
+ * <code>{a=x, b=[null, 3]}</code>.
+ *
+ * Strings are rendered as they are, without quotes or escapes, and other
+ * values as they were written. This is the text rendering that Athena uses
+ * for maps and rows alike, so it can be used for both.
+ */
+public final class JsonTextRenderer {
+    private final String json;
+
+    private int position;
+
+    private JsonTextRenderer(String json) {
+        this.json = json;
+        this.position = 0;
+    }
+
+    /**
+     * @param json a JSON value, like the nested values returned by
+     *             {@link JsonLinesParser#getValue(int)}
+     * @return the value in Athena's text rendering, or null if the value is
+     *         null
+     * @throws ParseException when the value is not valid JSON
+     */
+    public static String render(String json) throws ParseException {
+        if (json == null) {
+            return null;
+        }
+        JsonTextRenderer renderer = new JsonTextRenderer(json);
+        StringBuilder text = new StringBuilder(json.length());
+        renderer.skipWhitespace();
+        renderer.renderValue(text);
+        renderer.skipWhitespace();
+        if (renderer.position < json.length()) {
+            throw renderer.unexpected("end of value");
+        }
+        return text.toString();
+    }
+
+    private void renderValue(StringBuilder text) throws ParseException {
+        char c = peek();
+        if (c == '"') {
+            renderString(text);
+        } else if (c == '[') {
+            renderContainer(text, '[', ']', false);
+        } else if (c == '{') {
+            renderContainer(text, '{', '}', true);
+        } else {
+            int start = position;
+            while (position < json.length() && (Character.isLetterOrDigit(json.charAt(position)) || "+-.".indexOf(json.charAt(position)) >= 0)) {
+                position++;
+            }
+            if (position == start) {
+                throw unexpected("value");
+            }
+            text.append(json, start, position);
+        }
+    }
+
+    private void renderContainer(StringBuilder text, char open, char close, boolean named) throws ParseException {
+        position++;
+        text.append(open);
+        skipWhitespace();
+        if (peek() == close) {
+            position++;
+        } else {
+            while (true) {
+                skipWhitespace();
+                if (named) {
+                    if (peek() != '"') {
+                        throw unexpected("quote");
+                    }
+                    renderString(text);
+                    skipWhitespace();
+                    expect(':');
+                    skipWhitespace();
+                    text.append('=');
+                }
+                renderValue(text);
+                skipWhitespace();
+                char c = peek();
+                position++;
+                if (c == close) {
+                    break;
+                } else if (c == ',') {
+                    text.append(", ");
+                } else {
+                    position--;
+                    throw unexpected(String.format("comma or \"%s\"", close));
+                }
+            }
+        }
+        text.append(close);
+    }
+
+    private void renderString(StringBuilder text) throws ParseException {
+        position++;
+        while (true) {
+            if (position >= json.length()) {
+                throw new ParseException("Unterminated string", position);
+            }
+            char c = json.charAt(position++);
+            if (c == '"') {
+                return;
+            } else if (c == '\\') {
+                text.append(parseEscape());
+            } else {
+                text.append(c);
+            }
+        }
+    }
+
+    private char parseEscape() throws ParseException {
+        char c = peek();
+        position++;
+        switch (c) {
+            case '"':
+            case '\\':
+            case '/':
+                return c;
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'u':
+                if (position + 4 > json.length()) {
+                    throw new ParseException("Truncated unicode escape", position);
+                }
+                try {
+                    char unicode = (char) Integer.parseInt(json.substring(position, position + 4), 16);
+                    position += 4;
+                    return unicode;
+                } catch (NumberFormatException e) {
+                    throw new ParseException("Invalid unicode escape", position);
+                }
+            default:
+                position--;
+                throw unexpected("escape character");
+        }
+    }
+
+    private void expect(char expected) throws ParseException {
+        if (peek() != expected) {
+            throw unexpected(String.format("\"%s\"", expected));
+        }
+        position++;
+    }
+
+    private char peek() throws ParseException {
+        if (position >= json.length()) {
+            throw new ParseException("Unexpected end of value", position);
+        }
+        return json.charAt(position);
+    }
+
+    private void skipWhitespace() {
+        while (position < json.length() && Character.isWhitespace(json.charAt(position))) {
+            position++;
+        }
+    }
+
+    private ParseException unexpected(String expected) {
+        if (position >= json.length()) {
+            return new ParseException(String.format("Expected %s but found end of value", expected), position);
+        } else {
+            return new ParseException(String.format("Expected %s but found \"%s\"", expected, json.charAt(position)), position);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package io.burt.athena.result.s3;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A pool of equally sized heap buffers that downloads copy the bytes they
+ * receive into.
+ *
+ * The buffers the SDK delivers are short lived, but a download can keep
+ * what it has received buffered for a long time before it is read, which
+ * means that it survives young garbage collections and has to be collected
+ * in the old generation. Copying into buffers that are reused instead lets
+ * the SDK's buffers die young, and keeps the long lived memory the same
+ * from one download to the next.
+ *
+ * Buffers are allocated when the pool is empty, and buffers that are given
+ * back when the pool is full are left to the garbage collector, so the pool
+ * never blocks and never holds on to more than its max size. Heap buffers
+ * are used rather than direct buffers because the CSV parser scans the
+ * backing arrays of the chunks it is given in place.
+ */
+public class BufferPool {
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+    public static final int DEFAULT_MAX_POOLED_BUFFERS = 256;
+
+    private final int bufferSize;
+    private final BlockingQueue<ByteBuffer> freeBuffers;
+
+    public BufferPool() {
+        this(DEFAULT_BUFFER_SIZE, DEFAULT_MAX_POOLED_BUFFERS);
+    }
+
+    /**
+     * @param bufferSize the size in bytes of each buffer
+     * @param maxPooledBuffers the max number of unused buffers to keep
+     */
+    public BufferPool(int bufferSize, int maxPooledBuffers) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException(String.format("Buffer size must be at least one byte (got %d)", bufferSize));
+        }
+        if (maxPooledBuffers < 1) {
+            throw new IllegalArgumentException(String.format("Max pooled buffers must be at least one (got %d)", maxPooledBuffers));
+        }
+        this.bufferSize = bufferSize;
+        this.freeBuffers = new ArrayBlockingQueue<>(maxPooledBuffers);
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * @return the number of unused buffers currently in the pool
+     */
+    public int getPooledBufferCount() {
+        return freeBuffers.size();
+    }
+
+    /**
+     * @return an empty buffer of {@link #getBufferSize()} bytes
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = freeBuffers.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocate(bufferSize);
+        } else {
+            return buffer;
+        }
+    }
+
+    /**
+     * Gives a buffer back to the pool so that it can be reused.
+     *
+     * The caller must not use the buffer, or any view of it, after this.
+     * Buffers that were not created by a pool of the same buffer size are
+     * ignored.
+     *
+     * @param buffer the buffer to give back
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer != null && buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.capacity() == bufferSize && !buffer.isReadOnly()) {
+            ((Buffer) buffer).clear();
+            freeBuffers.offer(buffer);
+        }
+    }
+}
@@ -11,12 +11,23 @@ import java.nio.ByteBuffer;
 import java.util.concurrent.CompletableFuture;
 
 public class ByteBufferResponseTransformer implements AsyncResponseTransformer<GetObjectResponse, ByteBuffer>, Subscriber<ByteBuffer> {
+    private final BufferPool bufferPool;
     private final CompletableFuture<ByteBuffer> future;
 
     private Subscription subscription;
     private ByteBuffer resultBuffer;
 
     public ByteBufferResponseTransformer() {
+        this(null);
+    }
+
+    /**
+     * @param bufferPool the pool to take the result buffer from when the
+     *                   object fits in one of its buffers, or null to always
+     *                   allocate a new buffer
+     */
+    public ByteBufferResponseTransformer(BufferPool bufferPool) {
+        this.bufferPool = bufferPool;
         this.future = new CompletableFuture<>();
     }
 
@@ -27,7 +38,13 @@ public class ByteBufferResponseTransformer implements AsyncResponseTransformer<G
 
     @Override
     public void onResponse(GetObjectResponse response) {
-        resultBuffer = ByteBuffer.allocate(Math.toIntExact(response.contentLength()));
+        int contentLength = Math.toIntExact(response.contentLength());
+        if (bufferPool != null && contentLength <= bufferPool.getBufferSize()) {
+            resultBuffer = bufferPool.acquire();
+            ((Buffer) resultBuffer).limit(contentLength);
+        } else {
+            resultBuffer = ByteBuffer.allocate(contentLength);
+        }
     }
 
     @Override
@@ -0,0 +1,84 @@
+package io.burt.athena.result.s3;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A bounded queue of chunks for exactly one producer thread and one
+ * consumer thread.
+ *
+ * The queue is a ring of slots with a head index that only the consumer
+ * writes and a tail index that only the producer writes. A slot is written
+ * before the tail is moved past it and cleared before the head is moved
+ * past it, so the volatile indices are all the synchronization that is
+ * needed, and adding and removing chunks neither locks nor allocates.
+ *
+ * The indices are volatile rather than lazily set so that a consumer that
+ * finds the ring empty and then parks can rely on the producer seeing that
+ * it is waiting after the producer has added a chunk.
+ */
+final class ChunkRing {
+    private final ByteBuffer[] slots;
+    private final int mask;
+
+    private volatile long head;
+    private volatile long tail;
+
+    /**
+     * @param capacity the max number of chunks in the ring, must be a power
+     *                 of two
+     */
+    ChunkRing(int capacity) {
+        if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException(String.format("Capacity must be a power of two (got %d)", capacity));
+        }
+        this.slots = new ByteBuffer[capacity];
+        this.mask = capacity - 1;
+        this.head = 0;
+        this.tail = 0;
+    }
+
+    /**
+     * Adds a chunk to the ring. Must only be called by the producer.
+     *
+     * @return false if the ring was full
+     */
+    boolean offer(ByteBuffer chunk) {
+        long t = tail;
+        if (t - head == slots.length) {
+            return false;
+        }
+        slots[(int) t & mask] = chunk;
+        tail = t + 1;
+        return true;
+    }
+
+    /**
+     * Removes the oldest chunk from the ring. Must only be called by the
+     * consumer.
+     *
+     * @return the oldest chunk, or null if the ring was empty
+     */
+    ByteBuffer poll() {
+        long h = head;
+        if (h == tail) {
+            return null;
+        }
+        int index = (int) h & mask;
+        ByteBuffer chunk = slots[index];
+        slots[index] = null;
+        head = h + 1;
+        return chunk;
+    }
+
+    int size() {
+        return (int) (tail - head);
+    }
+
+    boolean isEmpty() {
+        return tail == head;
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+}
@@ -0,0 +1,38 @@
+package io.burt.athena.result.s3;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * An input stream that can hand out the buffers it reads from, so that
+ * consumers that work on bytes can avoid copying them into arrays of
+ * their own.
+ */
+public abstract class ChunkedInputStream extends InputStream {
+    /**
+     * Returns the rest of the current chunk, or the next chunk if the current
+     * one has been fully read.
+     *
+     * The bytes of the returned buffer are consumed from the stream, and the
+     * caller owns the buffer. Regular reads and chunk reads can be mixed.
+     *
+     * @return the next chunk of bytes, or null when the end of the stream
+     *         has been reached
+     * @throws IOException when reading fails
+     */
+    public abstract ByteBuffer nextChunk() throws IOException;
+
+    /**
+     * Gives a chunk returned by {@link #nextChunk()} back to the stream, so
+     * that its memory can be reused for chunks that arrive later.
+     *
+     * Giving chunks back is optional, chunks that are not given back are left
+     * to the garbage collector. The chunk, and its backing array, must not be
+     * used after this.
+     *
+     * @param chunk a chunk returned by this stream
+     */
+    public void recycle(ByteBuffer chunk) {
+    }
+}
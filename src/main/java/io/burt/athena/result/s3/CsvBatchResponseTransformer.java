@@ -0,0 +1,249 @@
+package io.burt.athena.result.s3;
+
+import io.burt.athena.result.csv.CsvRowBatch;
+import io.burt.athena.result.csv.CsvRowBatchIterator;
+import io.burt.athena.result.csv.PushCsvParser;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.core.async.SdkPublisher;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.text.ParseException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Parses the body of an S3 response as CSV while it is being delivered, and
+ * hands the parsed rows to the reader in batches.
+ *
+ * The buffers delivered by the SDK are fed straight to a
+ * {@link PushCsvParser} on the thread that delivers them, so there is no
+ * stream between the download and the parser. The reader takes finished
+ * {@link CsvRowBatch}es from a queue. When the queue is empty the parser
+ * hands over the rows it has so far, so that a reader that keeps up is
+ * never kept waiting for a batch to fill up.
+ *
+ * Nothing is requested from the publisher until {@link #start(int)} has
+ * been called with the number of columns. After that chunks are requested
+ * as long as fewer than {@link #MAX_QUEUED_BATCHES} batches are waiting to
+ * be read and the {@link MemoryBudget} has room for another batch, which
+ * ties the speed of the download to the speed of the reader. A stream that
+ * has no batches waiting always requests more, so that every download makes
+ * progress.
+ */
+public class CsvBatchResponseTransformer implements AsyncResponseTransformer<GetObjectResponse, CsvBatchResponseTransformer>, Subscriber<ByteBuffer>, CsvRowBatchIterator.Source {
+    private static final int BATCH_SIZE = 1 << 18;
+    private static final int MAX_QUEUED_BATCHES = 4;
+    private static final int CHUNKS_PER_REQUEST = 16;
+
+    private final MemoryBudget memoryBudget;
+    private final CompletableFuture<CsvBatchResponseTransformer> future;
+    private final BlockingQueue<CsvRowBatch> batches;
+    private final CsvRowBatch endMarker;
+
+    private GetObjectResponse response;
+    private volatile PushCsvParser parser;
+    private volatile Subscription subscription;
+    private volatile Throwable error;
+    private volatile boolean complete;
+    private volatile boolean closed;
+    private boolean ended;
+    private int outstandingRequests;
+
+    public CsvBatchResponseTransformer() {
+        this(MemoryBudget.unlimited());
+    }
+
+    public CsvBatchResponseTransformer(MemoryBudget memoryBudget) {
+        this.memoryBudget = memoryBudget;
+        this.future = new CompletableFuture<>();
+        this.batches = new LinkedBlockingQueue<>();
+        this.endMarker = CsvRowBatch.empty();
+        this.complete = false;
+        this.closed = false;
+        this.ended = false;
+        this.outstandingRequests = 0;
+    }
+
+    @Override
+    public CompletableFuture<CsvBatchResponseTransformer> prepare() {
+        return future;
+    }
+
+    @Override
+    public void onResponse(GetObjectResponse r) {
+        response = r;
+        future.complete(this);
+    }
+
+    public GetObjectResponse getResponse() {
+        return response;
+    }
+
+    @Override
+    public void onStream(SdkPublisher<ByteBuffer> publisher) {
+        publisher.subscribe(this);
+    }
+
+    @Override
+    public void exceptionOccurred(Throwable t) {
+        error = t;
+        future.completeExceptionally(t);
+        batches.add(endMarker);
+    }
+
+    /**
+     * Starts parsing, which cannot be done before the number of columns is
+     * known.
+     *
+     * @param columnCount the number of columns of the CSV
+     */
+    public void start(int columnCount) {
+        parser = new PushCsvParser(columnCount, BATCH_SIZE, this::enqueue);
+        requestMore();
+    }
+
+    @Override
+    public void onSubscribe(Subscription s) {
+        subscription = s;
+        requestMore();
+    }
+
+    @Override
+    public void onNext(ByteBuffer byteBuffer) {
+        synchronized (this) {
+            outstandingRequests--;
+        }
+        if (closed) {
+            return;
+        }
+        try {
+            parser.feed(byteBuffer);
+            if (batches.isEmpty()) {
+                parser.flush();
+            }
+        } catch (ParseException e) {
+            error = e;
+            subscription.cancel();
+            batches.add(endMarker);
+            return;
+        }
+        requestMore();
+    }
+
+    /**
+     * Requests more chunks if there is room for the batches they would
+     * become, and if not enough are already in flight.
+     */
+    private void requestMore() {
+        Subscription s = subscription;
+        synchronized (this) {
+            if (s == null || parser == null || closed || complete || error != null || outstandingRequests > CHUNKS_PER_REQUEST / 2) {
+                return;
+            }
+            int queued = batches.size();
+            if (queued > 0 && (queued >= MAX_QUEUED_BATCHES || !memoryBudget.hasRoomFor(BATCH_SIZE))) {
+                return;
+            }
+            outstandingRequests += CHUNKS_PER_REQUEST;
+        }
+        s.request(CHUNKS_PER_REQUEST);
+    }
+
+    private synchronized void enqueue(CsvRowBatch batch) {
+        if (!closed) {
+            memoryBudget.acquire(batch.getByteCount());
+            batches.add(batch);
+        }
+    }
+
+    /**
+     * Rows that were parsed before the error are still handed out, and the
+     * error is thrown when the end of them is reached. Errors reported
+     * through {@link #exceptionOccurred(Throwable)} end the batches in the
+     * same way, except that rows the parser has not handed over yet are not
+     * flushed.
+     */
+    @Override
+    public void onError(Throwable t) {
+        error = t;
+        if (parser != null) {
+            parser.flush();
+        }
+        batches.add(endMarker);
+        future.completeExceptionally(t);
+    }
+
+    @Override
+    public void onComplete() {
+        complete = true;
+        try {
+            if (parser != null) {
+                parser.finish();
+            }
+        } catch (ParseException e) {
+            error = e;
+        }
+        batches.add(endMarker);
+    }
+
+    /**
+     * Takes the next batch of rows, waiting until there is one.
+     *
+     * @return the next batch, or null when all rows have been read
+     * @throws IOException when the download or parsing failed, or when the
+     *                     thread is interrupted while waiting
+     */
+    @Override
+    public CsvRowBatch nextBatch() throws IOException {
+        if (ended || closed) {
+            if (error != null) {
+                throw new IOException(error);
+            }
+            return null;
+        }
+        CsvRowBatch batch = batches.poll();
+        if (batch == null) {
+            requestMore();
+            try {
+                batch = batches.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+        }
+        if (batch == endMarker) {
+            ended = true;
+            if (error != null) {
+                throw new IOException(error);
+            }
+            return null;
+        }
+        memoryBudget.release(batch.getByteCount());
+        requestMore();
+        return batch;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (!complete) {
+            Subscription s = subscription;
+            if (s != null) {
+                s.cancel();
+            }
+            future.cancel(true);
+        }
+        synchronized (this) {
+            CsvRowBatch batch;
+            while ((batch = batches.poll()) != null) {
+                memoryBudget.release(batch.getByteCount());
+            }
+            batches.add(endMarker);
+        }
+    }
+}
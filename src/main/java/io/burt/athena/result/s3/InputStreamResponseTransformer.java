@@ -7,44 +7,90 @@ import software.amazon.awssdk.core.async.SdkPublisher;
 import software.amazon.awssdk.services.s3.model.GetObjectResponse;
 
 import java.io.IOException;
-import java.io.InputStream;
+import java.nio.Buffer;
 import java.nio.ByteBuffer;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
-public class InputStreamResponseTransformer extends InputStream implements AsyncResponseTransformer<GetObjectResponse, InputStream>, Subscriber<ByteBuffer> {
+/**
+ * Turns the body of an S3 response into a stream of chunks.
+ *
+ * The buffers delivered by the SDK are copied into buffers from a
+ * {@link BufferPool} as they arrive. A pooled buffer is handed out when it
+ * is full, or earlier when the reader has run out of chunks to read. Buffers
+ * that are larger than the pooled buffers are handed out as they are.
+ * Buffers that have been read are given back to the pool, either by this
+ * stream when the bytes are copied out with the regular read methods, or by
+ * the reader through {@link #recycle(ByteBuffer)} when they were handed out
+ * by {@link #nextChunk()}.
+ *
+ * Chunks are handed from the thread that delivers them to the reader through
+ * a {@link ChunkRing}, and the reader only parks when the ring is empty.
+ *
+ * Chunks are requested from the publisher in batches so that at most
+ * {@link #TARGET_BUFFER_SIZE} bytes are buffered, and only as long as the
+ * {@link MemoryBudget} the transformer shares with the other downloads of
+ * the same connection has room for them. A stream that has nothing buffered
+ * and nothing in flight always requests a single chunk, so that every
+ * download makes progress.
+ *
+ * The number of requests in flight is only ever changed by one thread. As
+ * long as there are requests in flight that is the thread that delivers the
+ * chunks, which requests more as they arrive. When it decides not to
+ * request more and there is nothing in flight it marks the stream as
+ * stalled, which hands the demand over to the reader. The reader takes it
+ * when it has consumed a chunk or runs out of chunks, and hands it back by
+ * requesting more.
+ */
+public class InputStreamResponseTransformer extends ChunkedInputStream implements AsyncResponseTransformer<GetObjectResponse, ChunkedInputStream>, Subscriber<ByteBuffer> {
     private static final ByteBuffer END_MARKER = ByteBuffer.allocate(0);
     private static final int TARGET_BUFFER_SIZE = 1 << 25;
     private static final int CHUNKS_REQUEST_LIMIT = 1000;
+    private static final int CHUNKS_PER_REQUEST = 10;
+    private static final int RING_CAPACITY = 1 << 11;
     private static final float CHUNK_SIZE_EXPONENTIAL_WEIGHT = 0.2f;
     private static final float CHUNK_SIZE_INITIAL_ESTIMATE = 8192f;
 
-    private final CompletableFuture<InputStream> future;
-    private final BlockingQueue<ByteBuffer> chunks;
+    private final MemoryBudget memoryBudget;
+    private final BufferPool bufferPool;
+    private final CompletableFuture<ChunkedInputStream> future;
+    private final ChunkRing chunks;
+    private final AtomicLong bufferedBytes;
+    private final AtomicBoolean stalled;
 
     private GetObjectResponse response;
-    private Subscription subscription;
+    private volatile Subscription subscription;
     private ByteBuffer readChunk;
-    private Throwable error;
-    private AtomicBoolean complete;
-    private AtomicInteger approximateBufferSize;
-    private AtomicInteger requests;
+    private ByteBuffer fillBuffer;
+    private volatile Throwable error;
+    private volatile boolean complete;
+    private volatile boolean closed;
+    private volatile int outstandingRequests;
     private volatile float approximateChunkSize;
+    private volatile Thread waitingReader;
 
     public InputStreamResponseTransformer() {
+        this(MemoryBudget.unlimited(), new BufferPool());
+    }
+
+    public InputStreamResponseTransformer(MemoryBudget memoryBudget, BufferPool bufferPool) {
+        this.memoryBudget = memoryBudget;
+        this.bufferPool = bufferPool;
         this.future = new CompletableFuture<>();
-        this.chunks = new LinkedBlockingQueue<>();
-        this.complete = new AtomicBoolean(false);
-        this.approximateBufferSize = new AtomicInteger(0);
-        this.requests = new AtomicInteger(0);
+        this.chunks = new ChunkRing(RING_CAPACITY);
+        this.bufferedBytes = new AtomicLong(0);
+        this.stalled = new AtomicBoolean(false);
+        this.complete = false;
+        this.closed = false;
+        this.outstandingRequests = 0;
         this.approximateChunkSize = CHUNK_SIZE_INITIAL_ESTIMATE;
+        this.waitingReader = null;
     }
 
     @Override
-    public CompletableFuture<InputStream> prepare() {
+    public CompletableFuture<ChunkedInputStream> prepare() {
         return future;
     }
 
@@ -54,6 +100,10 @@ public class InputStreamResponseTransformer extends InputStream implements Async
         future.complete(this);
     }
 
+    public GetObjectResponse getResponse() {
+        return response;
+    }
+
     @Override
     public void onStream(SdkPublisher<ByteBuffer> publisher) {
         publisher.subscribe(this);
@@ -63,56 +113,172 @@ public class InputStreamResponseTransformer extends InputStream implements Async
     public void exceptionOccurred(Throwable t) {
         error = t;
         future.completeExceptionally(t);
-        try {
-            close();
-        } catch (Exception e) { }
+        Thread reader = waitingReader;
+        if (reader != null) {
+            LockSupport.unpark(reader);
+        }
     }
 
     @Override
     public void onSubscribe(Subscription s) {
         subscription = s;
-        if (response.contentLength() < TARGET_BUFFER_SIZE) {
-            requests.set(Integer.MAX_VALUE);
-            subscription.request(Long.MAX_VALUE);
-        } else {
-            requests.set(10);
-            subscription.request(10L);
+        if (!requestMore()) {
+            stall();
         }
     }
 
     @Override
     public void onNext(ByteBuffer byteBuffer) {
         int chunkSize = byteBuffer.remaining();
+        memoryBudget.acquire(chunkSize);
+        bufferedBytes.addAndGet(chunkSize);
+        outstandingRequests--;
         if (chunkSize > 0) {
-            chunks.offer(byteBuffer);
             approximateChunkSize += CHUNK_SIZE_EXPONENTIAL_WEIGHT * (chunkSize - approximateChunkSize);
+            append(byteBuffer);
+        }
+        if (closed) {
+            releaseBuffer();
+        } else {
+            boolean inFlight = requestMore();
+            if (!inFlight || chunks.isEmpty()) {
+                flush();
+            }
+            if (!inFlight) {
+                stall();
+            }
         }
-        requests.decrementAndGet();
-        int size = approximateBufferSize.addAndGet(chunkSize);
-        maybeRequestMore(size);
     }
 
-    private void maybeRequestMore(int currentSize) {
-        if (currentSize < TARGET_BUFFER_SIZE) {
-            int newRequests = requests.get() + 10;
-            if (newRequests < CHUNKS_REQUEST_LIMIT) {
-                if (newRequests * approximateChunkSize + currentSize < TARGET_BUFFER_SIZE) {
-                    requests.addAndGet(10);
-                    subscription.request(10);
-                }
+    /**
+     * Copies the bytes of a buffer delivered by the SDK into pooled buffers,
+     * handing out the pooled buffer if it becomes full.
+     *
+     * At most two chunks are handed out per buffer, which is what bounds the
+     * number of chunks that the requests in flight can add to the ring.
+     */
+    private void append(ByteBuffer source) {
+        if (source.remaining() > bufferPool.getBufferSize()) {
+            flush();
+            publish(source);
+            return;
+        }
+        int sourceLimit = source.limit();
+        while (source.hasRemaining()) {
+            if (fillBuffer == null) {
+                fillBuffer = bufferPool.acquire();
+            }
+            ((Buffer) source).limit(source.position() + Math.min(source.remaining(), fillBuffer.remaining()));
+            fillBuffer.put(source);
+            ((Buffer) source).limit(sourceLimit);
+            if (!fillBuffer.hasRemaining()) {
+                flush();
+            }
+        }
+    }
+
+    /**
+     * Hands out the pooled buffer that is being filled, if it contains any
+     * bytes.
+     *
+     * This is done when it is full, but also when the reader has consumed
+     * everything handed out before it and may be waiting for more, and when
+     * there are no requests in flight, since no more bytes would arrive to
+     * fill it.
+     */
+    private void flush() {
+        if (fillBuffer != null && fillBuffer.position() > 0) {
+            ((Buffer) fillBuffer).flip();
+            publish(fillBuffer);
+            fillBuffer = null;
+        }
+    }
+
+    private void publish(ByteBuffer chunk) {
+        if (!chunks.offer(chunk)) {
+            throw new IllegalStateException("More chunks were delivered than were requested");
+        }
+        Thread reader = waitingReader;
+        if (reader != null) {
+            LockSupport.unpark(reader);
+        }
+    }
+
+    /**
+     * Requests more chunks if there is room for them. Must only be called by
+     * the thread that currently owns the demand.
+     *
+     * @return true if there are requests in flight
+     */
+    private boolean requestMore() {
+        long buffered = bufferedBytes.get();
+        int newRequests = outstandingRequests + CHUNKS_PER_REQUEST;
+        float requestedSize = newRequests * approximateChunkSize;
+        if (newRequests < CHUNKS_REQUEST_LIMIT
+                && buffered + requestedSize < TARGET_BUFFER_SIZE
+                && chunks.size() + 2 * newRequests + 2 <= chunks.capacity()
+                && memoryBudget.hasRoomFor((long) requestedSize)) {
+            outstandingRequests = newRequests;
+            subscription.request(CHUNKS_PER_REQUEST);
+        } else if (outstandingRequests == 0 && buffered == 0) {
+            outstandingRequests = 1;
+            subscription.request(1);
+        }
+        return outstandingRequests > 0;
+    }
+
+    /**
+     * Hands the demand over to the reader, which will request more when it
+     * has consumed some of what is buffered.
+     */
+    private void stall() {
+        stalled.set(true);
+        Thread reader = waitingReader;
+        if (reader != null) {
+            LockSupport.unpark(reader);
+        }
+    }
+
+    /**
+     * Takes over the demand if the stream has stalled, and requests more if
+     * there is room for it now. Must only be called by the reader.
+     */
+    private void resumeIfStalled() {
+        if (stalled.get() && stalled.compareAndSet(true, false) && !closed) {
+            if (!requestMore()) {
+                stalled.set(true);
             }
         }
     }
 
+    private void releaseBuffer() {
+        memoryBudget.release(bufferedBytes.getAndSet(0));
+    }
+
+    /**
+     * Chunks that were received before the error are still handed out, and the
+     * error is thrown when the end of them is reached. This means that a
+     * reader that resumes a broken download only has to request the bytes that
+     * never arrived.
+     *
+     * The same goes for errors reported through
+     * {@link #exceptionOccurred(Throwable)}, except that the bytes in the
+     * buffer that is being filled may not be handed out, in which case they
+     * are requested again by a reader that resumes.
+     */
     @Override
     public void onError(Throwable t) {
-        exceptionOccurred(t);
+        error = t;
+        flush();
+        publish(END_MARKER);
+        future.completeExceptionally(t);
     }
 
     @Override
     public void onComplete() {
-        chunks.offer(END_MARKER);
-        complete.set(true);
+        complete = true;
+        flush();
+        publish(END_MARKER);
     }
 
     @Override
@@ -127,24 +293,61 @@ public class InputStreamResponseTransformer extends InputStream implements Async
         }
     }
 
-    private boolean ensureChunk() throws IOException {
-        if (error != null) {
-            throw new IOException(error);
+    /**
+     * Removes the next chunk from the ring, parking until there is one.
+     */
+    private ByteBuffer take() throws IOException {
+        ByteBuffer chunk = chunks.poll();
+        if (chunk != null) {
+            return chunk;
         }
+        waitingReader = Thread.currentThread();
+        try {
+            while (true) {
+                if (closed) {
+                    return END_MARKER;
+                }
+                resumeIfStalled();
+                chunk = chunks.poll();
+                if (chunk != null) {
+                    return chunk;
+                }
+                if (error != null) {
+                    return END_MARKER;
+                }
+                LockSupport.park(this);
+                if (Thread.interrupted()) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(new InterruptedException());
+                }
+            }
+        } finally {
+            waitingReader = null;
+        }
+    }
+
+    private boolean ensureChunk() throws IOException {
         if (readChunk == END_MARKER) {
+            if (error != null) {
+                throw new IOException(error);
+            }
             return false;
         } else if (readChunk == null || !readChunk.hasRemaining()) {
-            try {
-                readChunk = chunks.take();
-                if (readChunk == END_MARKER) {
-                    return false;
-                } else {
-                    int size = approximateBufferSize.addAndGet(-readChunk.remaining());
-                    maybeRequestMore(size);
+            if (readChunk != null) {
+                bufferPool.release(readChunk);
+                readChunk = null;
+            }
+            readChunk = closed ? END_MARKER : take();
+            if (readChunk == END_MARKER) {
+                if (error != null) {
+                    throw new IOException(error);
                 }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                throw new IOException(e);
+                return false;
+            } else {
+                int chunkSize = readChunk.remaining();
+                memoryBudget.release(chunkSize);
+                bufferedBytes.addAndGet(-chunkSize);
+                resumeIfStalled();
             }
         }
         return true;
@@ -161,6 +364,22 @@ public class InputStreamResponseTransformer extends InputStream implements Async
         }
     }
 
+    @Override
+    public ByteBuffer nextChunk() throws IOException {
+        if (ensureChunk()) {
+            ByteBuffer chunk = readChunk;
+            readChunk = null;
+            return chunk;
+        } else {
+            return null;
+        }
+    }
+
+    @Override
+    public void recycle(ByteBuffer chunk) {
+        bufferPool.release(chunk);
+    }
+
     @Override
     public int read() throws IOException {
         if (ensureChunk()) {
@@ -172,12 +391,19 @@ public class InputStreamResponseTransformer extends InputStream implements Async
 
     @Override
     public void close() throws IOException {
-        if (!complete.get()) {
-            chunks.clear();
-            chunks.offer(END_MARKER);
-            subscription.cancel();
+        closed = true;
+        if (!complete) {
+            Subscription s = subscription;
+            if (s != null) {
+                s.cancel();
+            }
             future.cancel(true);
         }
+        releaseBuffer();
+        Thread reader = waitingReader;
+        if (reader != null) {
+            LockSupport.unpark(reader);
+        }
         super.close();
     }
 }
@@ -0,0 +1,77 @@
+package io.burt.athena.result.s3;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps track of how much memory the result downloads of a connection use
+ * for buffering, so that many concurrent results do not together use more
+ * than a fixed amount.
+ *
+ * Downloads report the bytes they buffer and release them when they have
+ * been read, and only ask for more data when there is room for it in the
+ * budget. Bytes that have already been received are always accounted for,
+ * so the budget is a target that can be exceeded by the data that is in
+ * flight when it runs out, not a hard limit.
+ */
+public class MemoryBudget {
+    public static final long DEFAULT_CAPACITY = 1L << 28;
+
+    private final long capacity;
+    private final AtomicLong used;
+
+    /**
+     * @param capacity the number of bytes that can be buffered at the same
+     *                 time
+     */
+    public MemoryBudget(long capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException(String.format("Capacity must be at least one byte (got %d)", capacity));
+        }
+        this.capacity = capacity;
+        this.used = new AtomicLong(0);
+    }
+
+    /**
+     * Creates a budget that is so large that it never limits anything.
+     *
+     * @return an unlimited budget
+     */
+    public static MemoryBudget unlimited() {
+        return new MemoryBudget(Long.MAX_VALUE);
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public long getUsed() {
+        return used.get();
+    }
+
+    /**
+     * @param bytes the number of bytes that would be buffered
+     * @return true if that many more bytes fit in the budget
+     */
+    public boolean hasRoomFor(long bytes) {
+        return used.get() <= capacity - bytes;
+    }
+
+    /**
+     * Records that bytes have been buffered, whether they fit in the budget
+     * or not.
+     *
+     * @param bytes the number of bytes buffered
+     */
+    public void acquire(long bytes) {
+        used.addAndGet(bytes);
+    }
+
+    /**
+     * Records that buffered bytes have been consumed or discarded.
+     *
+     * @param bytes the number of bytes released
+     */
+    public void release(long bytes) {
+        used.addAndGet(-bytes);
+    }
+}
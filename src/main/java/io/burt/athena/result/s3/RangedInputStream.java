@@ -0,0 +1,206 @@
+package io.burt.athena.result.s3;
+
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+class RangedInputStream extends ChunkedInputStream {
+    private static final Pattern CONTENT_RANGE_PATTERN = Pattern.compile("^bytes \\d+-\\d+/(\\d+)$");
+    private static final int RANGE_NOT_SATISFIABLE = 416;
+
+    private final S3AsyncClient s3Client;
+    private final String bucketName;
+    private final String key;
+    private final int parallelism;
+    private final long partSize;
+    private final int maxResumeAttempts;
+    private final Duration resumeTimeout;
+    private final MemoryBudget memoryBudget;
+    private final BufferPool bufferPool;
+    private final Queue<CompletableFuture<ChunkedInputStream>> parts;
+
+    private long objectSize;
+    private long nextPartOffset;
+    private ChunkedInputStream currentPart;
+
+    RangedInputStream(S3AsyncClient s3Client, String bucketName, String key, int parallelism, long partSize, int maxResumeAttempts, Duration resumeTimeout, MemoryBudget memoryBudget, BufferPool bufferPool) {
+        this.s3Client = s3Client;
+        this.bucketName = bucketName;
+        this.key = key;
+        this.parallelism = parallelism;
+        this.partSize = partSize;
+        this.maxResumeAttempts = maxResumeAttempts;
+        this.resumeTimeout = resumeTimeout;
+        this.memoryBudget = memoryBudget;
+        this.bufferPool = bufferPool;
+        this.parts = new ArrayDeque<>(parallelism);
+        this.objectSize = 0;
+        this.nextPartOffset = 0;
+        this.currentPart = null;
+    }
+
+    CompletableFuture<ChunkedInputStream> start() {
+        ResumingInputStream firstPart = part(0, partSize);
+        return firstPart.start().handle((firstPartStream, error) -> {
+            if (error == null) {
+                GetObjectResponse response = firstPart.getResponse();
+                objectSize = objectSize(response);
+                nextPartOffset = response.contentLength();
+                parts.add(CompletableFuture.completedFuture(firstPartStream));
+                requestParts();
+                return CompletableFuture.<ChunkedInputStream>completedFuture(this);
+            } else if (isRangeNotSatisfiable(error)) {
+                return new ResumingInputStream(s3Client, bucketName, key, 0, -1, maxResumeAttempts, resumeTimeout, memoryBudget, bufferPool).start();
+            } else {
+                CompletableFuture<ChunkedInputStream> failed = new CompletableFuture<>();
+                failed.completeExceptionally(unwrap(error));
+                return failed;
+            }
+        }).thenCompose(f -> f);
+    }
+
+    private static Throwable unwrap(Throwable t) {
+        if (t instanceof CompletionException && t.getCause() != null) {
+            return t.getCause();
+        } else {
+            return t;
+        }
+    }
+
+    private static boolean isRangeNotSatisfiable(Throwable t) {
+        Throwable cause = unwrap(t);
+        return cause instanceof S3Exception && ((S3Exception) cause).statusCode() == RANGE_NOT_SATISFIABLE;
+    }
+
+    private ResumingInputStream part(long offset, long length) {
+        return new ResumingInputStream(s3Client, bucketName, key, offset, offset + length - 1, maxResumeAttempts, resumeTimeout, memoryBudget, bufferPool);
+    }
+
+    private static long objectSize(GetObjectResponse response) {
+        if (response.contentRange() != null) {
+            Matcher matcher = CONTENT_RANGE_PATTERN.matcher(response.contentRange());
+            if (matcher.matches()) {
+                return Long.parseLong(matcher.group(1));
+            }
+        }
+        return response.contentLength();
+    }
+
+    private void requestParts() {
+        while (parts.size() < parallelism && nextPartOffset < objectSize) {
+            long offset = nextPartOffset;
+            long length = Math.min(partSize, objectSize - offset);
+            nextPartOffset += length;
+            parts.add(part(offset, length).start());
+        }
+    }
+
+    private boolean ensurePart() throws IOException {
+        if (currentPart == null) {
+            CompletableFuture<ChunkedInputStream> nextPart = parts.peek();
+            if (nextPart == null) {
+                return false;
+            }
+            try {
+                currentPart = nextPart.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            } catch (ExecutionException e) {
+                throw new IOException(e.getCause());
+            }
+        }
+        return true;
+    }
+
+    private void finishPart() throws IOException {
+        currentPart.close();
+        currentPart = null;
+        parts.remove();
+        requestParts();
+    }
+
+    @Override
+    public int read(byte[] destination, int offset, int length) throws IOException {
+        while (ensurePart()) {
+            int actualLength = currentPart.read(destination, offset, length);
+            if (actualLength == -1) {
+                finishPart();
+            } else {
+                return actualLength;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public ByteBuffer nextChunk() throws IOException {
+        while (ensurePart()) {
+            ByteBuffer chunk = currentPart.nextChunk();
+            if (chunk == null) {
+                finishPart();
+            } else {
+                return chunk;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void recycle(ByteBuffer chunk) {
+        bufferPool.release(chunk);
+    }
+
+    @Override
+    public int read() throws IOException {
+        while (ensurePart()) {
+            int b = currentPart.read();
+            if (b == -1) {
+                finishPart();
+            } else {
+                return b;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int available() throws IOException {
+        if (currentPart == null) {
+            return 0;
+        } else {
+            return currentPart.available();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (currentPart != null) {
+            currentPart.close();
+            currentPart = null;
+            parts.remove();
+        }
+        for (CompletableFuture<ChunkedInputStream> part : parts) {
+            part.whenComplete((stream, error) -> {
+                if (stream != null) {
+                    try {
+                        stream.close();
+                    } catch (IOException e) { }
+                }
+            });
+        }
+        parts.clear();
+        super.close();
+    }
+}
@@ -0,0 +1,229 @@
+package io.burt.athena.result.s3;
+
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Downloads an object, or a range of an object, and picks up where it left
+ * off when the connection breaks in the middle of the download.
+ *
+ * The stream keeps track of how many bytes it has handed out, and when a
+ * download fails with a client side error, like a connection reset, it
+ * requests the rest of the object with a range request starting at the
+ * first byte that has not been handed out. Bytes that were received but not
+ * yet read are discarded and downloaded again, so readers never see any
+ * bytes twice or miss any.
+ *
+ * Resumed requests are conditional on the ETag of the first response, so
+ * that the rest of a different version of the object is never appended.
+ * A resumed request that does not respond within the resume timeout fails
+ * the stream, instead of leaving the reader blocked.
+ */
+class ResumingInputStream extends ChunkedInputStream {
+    private final S3AsyncClient s3Client;
+    private final String bucketName;
+    private final String key;
+    private final long rangeStart;
+    private final long rangeEnd;
+    private final int maxResumeAttempts;
+    private final Duration resumeTimeout;
+    private final MemoryBudget memoryBudget;
+    private final BufferPool bufferPool;
+
+    private GetObjectResponse response;
+    private ChunkedInputStream currentStream;
+    private long position;
+    private int resumeAttempts;
+
+    /**
+     * @param rangeStart the offset of the first byte to download
+     * @param rangeEnd the offset of the last byte to download, or -1 to
+     *                 download the rest of the object
+     * @param maxResumeAttempts the max number of times to resume the download
+     * @param resumeTimeout how long to wait for the response to a resumed
+     *                      request
+     * @param memoryBudget the budget that buffered bytes are charged to
+     * @param bufferPool the pool that received bytes are copied into
+     */
+    ResumingInputStream(S3AsyncClient s3Client, String bucketName, String key, long rangeStart, long rangeEnd, int maxResumeAttempts, Duration resumeTimeout, MemoryBudget memoryBudget, BufferPool bufferPool) {
+        this.s3Client = s3Client;
+        this.bucketName = bucketName;
+        this.key = key;
+        this.rangeStart = rangeStart;
+        this.rangeEnd = rangeEnd;
+        this.maxResumeAttempts = maxResumeAttempts;
+        this.resumeTimeout = resumeTimeout;
+        this.memoryBudget = memoryBudget;
+        this.bufferPool = bufferPool;
+        this.response = null;
+        this.currentStream = null;
+        this.position = 0;
+        this.resumeAttempts = 0;
+    }
+
+    CompletableFuture<ChunkedInputStream> start() {
+        return request(rangeStart).thenApply(stream -> {
+            currentStream = stream;
+            return this;
+        });
+    }
+
+    /**
+     * @return the response to the first request of the download
+     */
+    GetObjectResponse getResponse() {
+        return response;
+    }
+
+    private CompletableFuture<ChunkedInputStream> request(long offset) {
+        InputStreamResponseTransformer transformer = new InputStreamResponseTransformer(memoryBudget, bufferPool);
+        String eTag = response == null ? null : response.eTag();
+        return s3Client.getObject(b -> {
+            b.bucket(bucketName).key(key);
+            if (offset > 0 || rangeEnd >= 0) {
+                b.range(String.format("bytes=%d-%s", offset, rangeEnd >= 0 ? String.valueOf(rangeEnd) : ""));
+            }
+            if (eTag != null) {
+                b.ifMatch(eTag);
+            }
+        }, transformer).thenApply(stream -> {
+            if (response == null) {
+                response = transformer.getResponse();
+            }
+            return stream;
+        });
+    }
+
+    private static boolean isResumable(IOException e) {
+        Throwable cause = e.getCause();
+        return cause instanceof SdkClientException || cause instanceof IOException;
+    }
+
+    /**
+     * Replaces the failed download with a new request for the bytes that have
+     * not been handed out yet.
+     *
+     * @return false when all bytes had already been handed out, and there is
+     *         nothing left to download
+     * @throws IOException the original error, when it was not caused by the
+     *                     connection or when there are no attempts left, or
+     *                     the error of the resumed request, including when it
+     *                     did not respond within the resume timeout
+     */
+    private boolean resume(IOException error) throws IOException {
+        if (!isResumable(error) || resumeAttempts >= maxResumeAttempts) {
+            throw error;
+        }
+        resumeAttempts++;
+        try {
+            currentStream.close();
+        } catch (IOException e) {
+            error.addSuppressed(e);
+        }
+        Long contentLength = response.contentLength();
+        if (contentLength != null && contentLength > 0 && position >= contentLength) {
+            return false;
+        }
+        CompletableFuture<ChunkedInputStream> resumed = request(rangeStart + position);
+        try {
+            currentStream = resumed.get(resumeTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            IOException ee = new IOException(e.getCause());
+            ee.addSuppressed(error);
+            throw ee;
+        } catch (TimeoutException e) {
+            resumed.thenAccept(this::closeQuietly);
+            IOException ee = new IOException(String.format("Resumed download did not respond within %dms", resumeTimeout.toMillis()), e);
+            ee.addSuppressed(error);
+            throw ee;
+        }
+    }
+
+    private void closeQuietly(ChunkedInputStream stream) {
+        try {
+            stream.close();
+        } catch (IOException e) { }
+    }
+
+    @Override
+    public ByteBuffer nextChunk() throws IOException {
+        while (true) {
+            try {
+                ByteBuffer chunk = currentStream.nextChunk();
+                if (chunk != null) {
+                    position += chunk.remaining();
+                }
+                return chunk;
+            } catch (IOException e) {
+                if (!resume(e)) {
+                    return null;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void recycle(ByteBuffer chunk) {
+        bufferPool.release(chunk);
+    }
+
+    @Override
+    public int read(byte[] destination, int offset, int length) throws IOException {
+        while (true) {
+            try {
+                int actualLength = currentStream.read(destination, offset, length);
+                if (actualLength > 0) {
+                    position += actualLength;
+                }
+                return actualLength;
+            } catch (IOException e) {
+                if (!resume(e)) {
+                    return -1;
+                }
+            }
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        while (true) {
+            try {
+                int b = currentStream.read();
+                if (b != -1) {
+                    position++;
+                }
+                return b;
+            } catch (IOException e) {
+                if (!resume(e)) {
+                    return -1;
+                }
+            }
+        }
+    }
+
+    @Override
+    public int available() throws IOException {
+        return currentStream.available();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (currentStream != null) {
+            currentStream.close();
+        }
+        super.close();
+    }
+}
@@ -0,0 +1,162 @@
+package io.burt.athena.result.s3;
+
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+public class S3Downloader {
+    public static final int DEFAULT_PARALLELISM = 1;
+    public static final long DEFAULT_PART_SIZE = 1L << 23;
+    public static final int MAX_RESUME_ATTEMPTS = 3;
+    public static final Duration DEFAULT_RESUME_TIMEOUT = Duration.ofSeconds(30);
+
+    private final S3AsyncClient s3Client;
+    private final int parallelism;
+    private final long partSize;
+    private final MemoryBudget memoryBudget;
+    private final BufferPool bufferPool;
+    private final Duration resumeTimeout;
+
+    public S3Downloader(S3AsyncClient s3Client) {
+        this(s3Client, DEFAULT_PARALLELISM, DEFAULT_PART_SIZE);
+    }
+
+    public S3Downloader(S3AsyncClient s3Client, int parallelism, long partSize) {
+        this(s3Client, parallelism, partSize, MemoryBudget.unlimited());
+    }
+
+    public S3Downloader(S3AsyncClient s3Client, int parallelism, long partSize, MemoryBudget memoryBudget) {
+        this(s3Client, parallelism, partSize, memoryBudget, new BufferPool());
+    }
+
+    /**
+     * Creates a downloader that fetches objects in byte ranges.
+     *
+     * When the parallelism is larger than one objects are split into parts of
+     * the specified size, and up to that many parts are downloaded at the same
+     * time. The parts are reassembled in order, so readers of the stream will
+     * not see any difference from a regular download.
+     *
+     * Each part in flight can be buffered in full, so the memory used by a
+     * download is bounded by the parallelism multiplied by the part size.
+     * Received bytes are also charged to the memory budget until they have
+     * been read, and downloads that share a budget slow down when it runs
+     * out. Received bytes are copied into buffers from the buffer pool,
+     * which are reused when they have been read.
+     *
+     * Downloads that break because of connection errors are resumed from the
+     * first byte that has not yet been read, at most
+     * {@link #MAX_RESUME_ATTEMPTS} times per object or part, and fail when
+     * a resumed request does not respond within
+     * {@link #DEFAULT_RESUME_TIMEOUT}, see {@link #withResumeTimeout(Duration)}.
+     *
+     * @param s3Client the client to download with
+     * @param parallelism the max number of parts to download at the same time,
+     *                    one means the object is downloaded with a single request
+     * @param partSize the size in bytes of each part
+     * @param memoryBudget the budget that buffered bytes are charged to
+     * @param bufferPool the pool that received bytes are copied into
+     */
+    public S3Downloader(S3AsyncClient s3Client, int parallelism, long partSize, MemoryBudget memoryBudget, BufferPool bufferPool) {
+        this(s3Client, parallelism, partSize, memoryBudget, bufferPool, DEFAULT_RESUME_TIMEOUT);
+    }
+
+    private S3Downloader(S3AsyncClient s3Client, int parallelism, long partSize, MemoryBudget memoryBudget, BufferPool bufferPool, Duration resumeTimeout) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException(String.format("Parallelism must be at least one (got %d)", parallelism));
+        }
+        if (partSize < 1) {
+            throw new IllegalArgumentException(String.format("Part size must be at least one byte (got %d)", partSize));
+        }
+        this.s3Client = s3Client;
+        this.parallelism = parallelism;
+        this.partSize = partSize;
+        this.memoryBudget = memoryBudget;
+        this.bufferPool = bufferPool;
+        this.resumeTimeout = resumeTimeout;
+    }
+
+    /**
+     * @return the max number of parts that are downloaded at the same time
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Creates a downloader that downloads with a different parallelism and
+     * part size, but shares the memory budget and buffer pool of this one.
+     *
+     * @param parallelism the max number of parts to download at the same time
+     * @param partSize the size in bytes of each part
+     * @return a new downloader
+     */
+    public S3Downloader withParallelism(int parallelism, long partSize) {
+        return new S3Downloader(s3Client, parallelism, partSize, memoryBudget, bufferPool, resumeTimeout);
+    }
+
+    /**
+     * Creates a downloader that waits the specified time for the response to
+     * a request that resumes a broken download, but is otherwise like this
+     * one.
+     *
+     * @param resumeTimeout how long to wait for a resumed request
+     * @return a new downloader
+     */
+    public S3Downloader withResumeTimeout(Duration resumeTimeout) {
+        return new S3Downloader(s3Client, parallelism, partSize, memoryBudget, bufferPool, resumeTimeout);
+    }
+
+    /**
+     * Looks up the size of an object without downloading it.
+     *
+     * @return the size of the object in bytes
+     */
+    public CompletableFuture<Long> getObjectSize(String bucketName, String key) {
+        return s3Client.headObject(b -> b.bucket(bucketName).key(key)).thenApply(HeadObjectResponse::contentLength);
+    }
+
+    /**
+     * Downloads a whole object into a single buffer.
+     *
+     * Small objects are downloaded into a buffer from the buffer pool, which
+     * the caller can give back with {@link #recycle(ByteBuffer)} when it no
+     * longer needs it.
+     */
+    public CompletableFuture<ByteBuffer> getObjectBytes(String bucketName, String key) {
+        return s3Client.getObject(b -> b.bucket(bucketName).key(key), new ByteBufferResponseTransformer(bufferPool));
+    }
+
+    /**
+     * Gives a buffer returned by {@link #getObjectBytes(String, String)} back
+     * to the buffer pool. The buffer must not be used after this.
+     *
+     * @param buffer the buffer to give back
+     */
+    public void recycle(ByteBuffer buffer) {
+        bufferPool.release(buffer);
+    }
+
+    /**
+     * Downloads an object and parses it as CSV as the bytes arrive.
+     *
+     * The object is downloaded with a single request, regardless of the
+     * parallelism, and is not resumed if the connection breaks. Nothing is
+     * downloaded until {@link CsvBatchResponseTransformer#start(int)} is
+     * called.
+     */
+    public CompletableFuture<CsvBatchResponseTransformer> getObjectBatches(String bucketName, String key) {
+        return s3Client.getObject(b -> b.bucket(bucketName).key(key), new CsvBatchResponseTransformer(memoryBudget));
+    }
+
+    public CompletableFuture<ChunkedInputStream> getObjectStream(String bucketName, String key) {
+        if (parallelism == 1) {
+            return new ResumingInputStream(s3Client, bucketName, key, 0, -1, MAX_RESUME_ATTEMPTS, resumeTimeout, memoryBudget, bufferPool).start();
+        } else {
+            return new RangedInputStream(s3Client, bucketName, key, parallelism, partSize, MAX_RESUME_ATTEMPTS, resumeTimeout, memoryBudget, bufferPool).start();
+        }
+    }
+}
@@ -27,7 +27,9 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -165,6 +167,26 @@ class AthenaConnectionTest {
         }
     }
 
+    @Nested
+    class ExecuteAsync extends SharedQuerySetup {
+        @Test
+        void startsTheQueryAndCompletesWithTheResultSet() throws Exception {
+            ResultSet resultSet = connection.executeAsync("SELECT 1").get(1, TimeUnit.SECONDS);
+            assertNotNull(resultSet);
+            assertEquals("SELECT 1", queryExecutionHelper.startQueryRequests().get(0).queryString());
+        }
+
+        @Nested
+        class WhenClosed {
+            @Test
+            void completesExceptionally() throws Exception {
+                connection.close();
+                ExecutionException e = assertThrows(ExecutionException.class, () -> connection.executeAsync("SELECT 1").get());
+                assertTrue(e.getCause() instanceof SQLException);
+            }
+        }
+    }
+
     @Nested
     class PrepareStatement {
         @Test
@@ -2,6 +2,7 @@ package io.burt.athena;
 
 import io.burt.athena.configuration.ConnectionConfiguration;
 import io.burt.athena.configuration.ConnectionConfigurationFactory;
+import io.burt.athena.configuration.ResultLoadingStrategy;
 import io.burt.athena.support.QueryExecutionHelper;
 import io.burt.athena.support.TestNameGenerator;
 import org.junit.jupiter.api.BeforeEach;
@@ -28,7 +29,11 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
@@ -43,12 +48,12 @@ class AthenaDataSourceTest {
     @BeforeEach
     void setUp() {
         connectionConfigurationFactory = spy(new ConnectionConfigurationFactory());
-        lenient().when(connectionConfigurationFactory.createConnectionConfiguration(any(), any(), any(), any(), any(), any(), any())).then(invocation -> {
+        lenient().doAnswer(invocation -> {
             ConnectionConfiguration cc = (ConnectionConfiguration) invocation.callRealMethod();
             cc = spy(cc);
             lenient().when(cc.athenaClient()).thenReturn(queryExecutionHelper);
             return cc;
-        });
+        }).when(connectionConfigurationFactory).createConnectionConfiguration(any(), any(), any(), any(), any(), any(), any(), anyInt(), anyLong(), anyLong(), anyInt(), anyBoolean(), anyBoolean(), anyInt());
         dataSource = new AthenaDataSource(connectionConfigurationFactory);
         queryExecutionHelper = new QueryExecutionHelper();
     }
@@ -72,7 +77,7 @@ class AthenaDataSourceTest {
         void createsAnAthenaClientForTheConfiguredRegion() throws Exception {
             dataSource.setRegion("sa-east-1");
             dataSource.getConnection();
-            verify(connectionConfigurationFactory).createConnectionConfiguration(eq(Region.SA_EAST_1), any(), any(), any(), any(), any(), any());
+            verify(connectionConfigurationFactory).createConnectionConfiguration(eq(Region.SA_EAST_1), any(), any(), any(), any(), any(), any(), anyInt(), anyLong(), anyLong(), anyInt(), anyBoolean(), anyBoolean(), anyInt());
         }
 
         @Test
@@ -105,7 +110,7 @@ class AthenaDataSourceTest {
             void setsTheRegionOfTheAthenaClient() throws Exception {
                 dataSource.setRegion("ca-central-1");
                 dataSource.getConnection();
-                verify(connectionConfigurationFactory).createConnectionConfiguration(eq(Region.CA_CENTRAL_1), any(), any(), any(), any(), any(), any());
+                verify(connectionConfigurationFactory).createConnectionConfiguration(eq(Region.CA_CENTRAL_1), any(), any(), any(), any(), any(), any(), anyInt(), anyLong(), anyLong(), anyInt(), anyBoolean(), anyBoolean(), anyInt());
             }
         }
     }
@@ -158,6 +163,94 @@ class AthenaDataSourceTest {
         }
     }
 
+    @Nested
+    class SetS3DownloadParallelism {
+        @Test
+        void passesTheParallelismToTheConfiguration() throws Exception {
+            dataSource.setRegion("sa-east-1");
+            dataSource.setS3DownloadParallelism(4);
+            dataSource.getConnection();
+            verify(connectionConfigurationFactory).createConnectionConfiguration(any(), any(), any(), any(), any(), any(), any(), eq(4), anyLong(), anyLong(), anyInt(), anyBoolean(), anyBoolean(), anyInt());
+        }
+    }
+
+    @Nested
+    class SetS3DownloadPartSize {
+        @Test
+        void passesThePartSizeToTheConfiguration() throws Exception {
+            dataSource.setRegion("sa-east-1");
+            dataSource.setS3DownloadPartSize(1024);
+            dataSource.getConnection();
+            verify(connectionConfigurationFactory).createConnectionConfiguration(any(), any(), any(), any(), any(), any(), any(), anyInt(), eq(1024L), anyLong(), anyInt(), anyBoolean(), anyBoolean(), anyInt());
+        }
+    }
+
+    @Nested
+    class SetS3BufferMemory {
+        @Test
+        void passesTheMemoryLimitToTheConfiguration() throws Exception {
+            dataSource.setRegion("sa-east-1");
+            dataSource.setS3BufferMemory(4096);
+            dataSource.getConnection();
+            verify(connectionConfigurationFactory).createConnectionConfiguration(any(), any(), any(), any(), any(), any(), any(), anyInt(), anyLong(), eq(4096L), anyInt(), anyBoolean(), anyBoolean(), anyInt());
+        }
+    }
+
+    @Nested
+    class SetS3ParserThreads {
+        @Test
+        void passesTheNumberOfThreadsToTheConfiguration() throws Exception {
+            dataSource.setRegion("sa-east-1");
+            dataSource.setS3ParserThreads(3);
+            dataSource.getConnection();
+            verify(connectionConfigurationFactory).createConnectionConfiguration(any(), any(), any(), any(), any(), any(), any(), anyInt(), anyLong(), anyLong(), eq(3), anyBoolean(), anyBoolean(), anyInt());
+        }
+    }
+
+    @Nested
+    class SetBatchPolling {
+        @Test
+        void passesTheSettingToTheConfiguration() throws Exception {
+            dataSource.setRegion("sa-east-1");
+            dataSource.setBatchPolling(true);
+            dataSource.getConnection();
+            verify(connectionConfigurationFactory).createConnectionConfiguration(any(), any(), any(), any(), any(), any(), any(), anyInt(), anyLong(), anyLong(), anyInt(), eq(true), anyBoolean(), anyInt());
+        }
+    }
+
+    @Nested
+    class SetPredictivePolling {
+        @Test
+        void passesTheSettingToTheConfiguration() throws Exception {
+            dataSource.setRegion("sa-east-1");
+            dataSource.setPredictivePolling(true);
+            dataSource.getConnection();
+            verify(connectionConfigurationFactory).createConnectionConfiguration(any(), any(), any(), any(), any(), any(), any(), anyInt(), anyLong(), anyLong(), anyInt(), anyBoolean(), eq(true), anyInt());
+        }
+    }
+
+    @Nested
+    class SetMaxConcurrentQueries {
+        @Test
+        void passesTheLimitToTheConfiguration() throws Exception {
+            dataSource.setRegion("sa-east-1");
+            dataSource.setMaxConcurrentQueries(5);
+            dataSource.getConnection();
+            verify(connectionConfigurationFactory).createConnectionConfiguration(any(), any(), any(), any(), any(), any(), any(), anyInt(), anyLong(), anyLong(), anyInt(), anyBoolean(), anyBoolean(), eq(5));
+        }
+    }
+
+    @Nested
+    class SetResultLoadingStrategy {
+        @Test
+        void passesTheStrategyToTheConfiguration() throws Exception {
+            dataSource.setRegion("sa-east-1");
+            dataSource.setResultLoadingStrategy(ResultLoadingStrategy.UNLOAD);
+            dataSource.getConnection();
+            verify(connectionConfigurationFactory).createConnectionConfiguration(any(), any(), any(), any(), any(), any(), eq(ResultLoadingStrategy.UNLOAD), anyInt(), anyLong(), anyLong(), anyInt(), anyBoolean(), anyBoolean(), anyInt());
+        }
+    }
+
     @Nested
     class IsWrapperFor {
         @Test
@@ -2,6 +2,7 @@ package io.burt.athena;
 
 import io.burt.athena.configuration.ConnectionConfiguration;
 import io.burt.athena.configuration.ConnectionConfigurationFactory;
+import io.burt.athena.configuration.ResultLoadingStrategy;
 import io.burt.athena.support.PomVersionLoader;
 import io.burt.athena.support.QueryExecutionHelper;
 import io.burt.athena.support.TestNameGenerator;
@@ -19,6 +20,7 @@ import software.amazon.awssdk.services.athena.model.StartQueryExecutionRequest;
 
 import java.sql.Driver;
 import java.sql.DriverManager;
+import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
 import java.util.Enumeration;
 import java.util.Optional;
@@ -31,7 +33,11 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
@@ -47,12 +53,12 @@ class AthenaDriverTest implements PomVersionLoader {
     @BeforeEach
     void setUpDriver() {
         connectionConfigurationFactory = spy(new ConnectionConfigurationFactory());
-        lenient().when(connectionConfigurationFactory.createConnectionConfiguration(any(), any(), any(), any(), any(), any(), any())).then(invocation -> {
+        lenient().doAnswer(invocation -> {
             ConnectionConfiguration cc = (ConnectionConfiguration) invocation.callRealMethod();
             cc = spy(cc);
             lenient().when(cc.athenaClient()).thenReturn(queryExecutionHelper);
             return cc;
-        });
+        }).when(connectionConfigurationFactory).createConnectionConfiguration(any(), any(), any(), any(), any(), any(), any(), anyInt(), anyLong(), anyLong(), anyInt(), anyBoolean(), anyBoolean(), anyInt());
         driver = new AthenaDriver(connectionConfigurationFactory);
         queryExecutionHelper = new QueryExecutionHelper();
     }
@@ -74,7 +80,7 @@ class AthenaDriverTest implements PomVersionLoader {
         }
 
         @Test
-        void returnsConnection() {
+        void returnsConnection() throws Exception {
             assertNotNull(driver.connect("jdbc:athena:test_db", defaultProperties));
         }
 
@@ -93,9 +99,9 @@ class AthenaDriverTest implements PomVersionLoader {
         }
 
         @Test
-        void usesTheAwsRegionFromTheProperties() {
+        void usesTheAwsRegionFromTheProperties() throws Exception {
             driver.connect("jdbc:athena", defaultProperties);
-            verify(connectionConfigurationFactory).createConnectionConfiguration(eq(Region.AP_SOUTHEAST_1), any(), any(), any(), any(), any(), any());
+            verify(connectionConfigurationFactory).createConnectionConfiguration(eq(Region.AP_SOUTHEAST_1), any(), any(), any(), any(), any(), any(), anyInt(), anyLong(), anyLong(), anyInt(), anyBoolean(), anyBoolean(), anyInt());
         }
 
         @Test
@@ -112,10 +118,168 @@ class AthenaDriverTest implements PomVersionLoader {
             assertEquals("s3://test/location", request.resultConfiguration().outputLocation());
         }
 
+        @Test
+        void usesTheS3DownloadSettingsFromTheProperties() throws Exception {
+            defaultProperties.setProperty(AthenaDriver.S3_DOWNLOAD_PARALLELISM_PROPERTY_NAME, "4");
+            defaultProperties.setProperty(AthenaDriver.S3_DOWNLOAD_PART_SIZE_PROPERTY_NAME, "1024");
+            driver.connect("jdbc:athena", defaultProperties);
+            verify(connectionConfigurationFactory).createConnectionConfiguration(any(), any(), any(), any(), any(), any(), any(), eq(4), eq(1024L), anyLong(), anyInt(), anyBoolean(), anyBoolean(), anyInt());
+        }
+
+        @Test
+        void usesTheDefaultS3DownloadSettingsWhenNoneAreGiven() throws Exception {
+            driver.connect("jdbc:athena", defaultProperties);
+            verify(connectionConfigurationFactory).createConnectionConfiguration(any(), any(), any(), any(), any(), any(), any(), eq(1), eq(8L * 1024 * 1024), anyLong(), anyInt(), anyBoolean(), anyBoolean(), anyInt());
+        }
+
+        @Test
+        void usesTheS3BufferMemoryFromTheProperties() throws Exception {
+            defaultProperties.setProperty(AthenaDriver.S3_BUFFER_MEMORY_PROPERTY_NAME, "4096");
+            driver.connect("jdbc:athena", defaultProperties);
+            verify(connectionConfigurationFactory).createConnectionConfiguration(any(), any(), any(), any(), any(), any(), any(), anyInt(), anyLong(), eq(4096L), anyInt(), anyBoolean(), anyBoolean(), anyInt());
+        }
+
+        @Test
+        void usesTheDefaultS3BufferMemoryWhenNoneIsGiven() throws Exception {
+            driver.connect("jdbc:athena", defaultProperties);
+            verify(connectionConfigurationFactory).createConnectionConfiguration(any(), any(), any(), any(), any(), any(), any(), anyInt(), anyLong(), eq(256L * 1024 * 1024), anyInt(), anyBoolean(), anyBoolean(), anyInt());
+        }
+
+        @Test
+        void usesTheS3ParserThreadsFromTheProperties() throws Exception {
+            defaultProperties.setProperty(AthenaDriver.S3_PARSER_THREADS_PROPERTY_NAME, "2");
+            driver.connect("jdbc:athena", defaultProperties);
+            verify(connectionConfigurationFactory).createConnectionConfiguration(any(), any(), any(), any(), any(), any(), any(), anyInt(), anyLong(), anyLong(), eq(2), anyBoolean(), anyBoolean(), anyInt());
+        }
+
+        @Test
+        void parsesResultsOnTheReadingThreadByDefault() throws Exception {
+            driver.connect("jdbc:athena", defaultProperties);
+            verify(connectionConfigurationFactory).createConnectionConfiguration(any(), any(), any(), any(), any(), any(), any(), anyInt(), anyLong(), anyLong(), eq(0), anyBoolean(), anyBoolean(), anyInt());
+        }
+
+        @Test
+        void usesBatchPollingFromTheProperties() throws Exception {
+            defaultProperties.setProperty(AthenaDriver.BATCH_POLLING_PROPERTY_NAME, "true");
+            driver.connect("jdbc:athena", defaultProperties);
+            verify(connectionConfigurationFactory).createConnectionConfiguration(any(), any(), any(), any(), any(), any(), any(), anyInt(), anyLong(), anyLong(), anyInt(), eq(true), anyBoolean(), anyInt());
+        }
+
+        @Test
+        void pollsEachStatementSeparatelyByDefault() throws Exception {
+            driver.connect("jdbc:athena", defaultProperties);
+            verify(connectionConfigurationFactory).createConnectionConfiguration(any(), any(), any(), any(), any(), any(), any(), anyInt(), anyLong(), anyLong(), anyInt(), eq(false), anyBoolean(), anyInt());
+        }
+
+        @Test
+        void usesPredictivePollingFromTheProperties() throws Exception {
+            defaultProperties.setProperty(AthenaDriver.PREDICTIVE_POLLING_PROPERTY_NAME, "true");
+            driver.connect("jdbc:athena", defaultProperties);
+            verify(connectionConfigurationFactory).createConnectionConfiguration(any(), any(), any(), any(), any(), any(), any(), anyInt(), anyLong(), anyLong(), anyInt(), anyBoolean(), eq(true), anyInt());
+        }
+
+        @Test
+        void pollsWithBackoffByDefault() throws Exception {
+            driver.connect("jdbc:athena", defaultProperties);
+            verify(connectionConfigurationFactory).createConnectionConfiguration(any(), any(), any(), any(), any(), any(), any(), anyInt(), anyLong(), anyLong(), anyInt(), anyBoolean(), eq(false), anyInt());
+        }
+
+        @Test
+        void usesTheMaxConcurrentQueriesFromTheProperties() throws Exception {
+            defaultProperties.setProperty(AthenaDriver.MAX_CONCURRENT_QUERIES_PROPERTY_NAME, "20");
+            driver.connect("jdbc:athena", defaultProperties);
+            verify(connectionConfigurationFactory).createConnectionConfiguration(any(), any(), any(), any(), any(), any(), any(), anyInt(), anyLong(), anyLong(), anyInt(), anyBoolean(), anyBoolean(), eq(20));
+        }
+
+        @Test
+        void doesNotLimitTheNumberOfConcurrentQueriesByDefault() throws Exception {
+            driver.connect("jdbc:athena", defaultProperties);
+            verify(connectionConfigurationFactory).createConnectionConfiguration(any(), any(), any(), any(), any(), any(), any(), anyInt(), anyLong(), anyLong(), anyInt(), anyBoolean(), anyBoolean(), eq(0));
+        }
+
+        @Test
+        void usesTheResultLoadingStrategyFromTheProperties() throws Exception {
+            defaultProperties.setProperty(AthenaDriver.RESULT_LOADING_STRATEGY_PROPERTY_NAME, "unload");
+            driver.connect("jdbc:athena", defaultProperties);
+            verify(connectionConfigurationFactory).createConnectionConfiguration(any(), any(), any(), any(), any(), any(), eq(ResultLoadingStrategy.UNLOAD), anyInt(), anyLong(), anyLong(), anyInt(), anyBoolean(), anyBoolean(), anyInt());
+        }
+
+        @Test
+        void loadsResultsFromS3ByDefault() throws Exception {
+            driver.connect("jdbc:athena", defaultProperties);
+            verify(connectionConfigurationFactory).createConnectionConfiguration(any(), any(), any(), any(), any(), any(), eq(ResultLoadingStrategy.S3), anyInt(), anyLong(), anyLong(), anyInt(), anyBoolean(), anyBoolean(), anyInt());
+        }
+
+        @Nested
+        class WhenGivenAnInvalidResultLoadingStrategy {
+            @Test
+            void throwsAnException() {
+                defaultProperties.setProperty(AthenaDriver.RESULT_LOADING_STRATEGY_PROPERTY_NAME, "carrier_pigeon");
+                Exception e = assertThrows(SQLException.class, () -> driver.connect("jdbc:athena", defaultProperties));
+                assertTrue(e.getMessage().contains(AthenaDriver.RESULT_LOADING_STRATEGY_PROPERTY_NAME));
+            }
+        }
+
+        @Nested
+        class WhenGivenAnInvalidBatchPolling {
+            @Test
+            void throwsAnException() {
+                defaultProperties.setProperty(AthenaDriver.BATCH_POLLING_PROPERTY_NAME, "sometimes");
+                Exception e = assertThrows(SQLException.class, () -> driver.connect("jdbc:athena", defaultProperties));
+                assertTrue(e.getMessage().contains(AthenaDriver.BATCH_POLLING_PROPERTY_NAME));
+            }
+        }
+
+        @Nested
+        class WhenGivenAnInvalidMaxConcurrentQueries {
+            @Test
+            void throwsAnException() {
+                defaultProperties.setProperty(AthenaDriver.MAX_CONCURRENT_QUERIES_PROPERTY_NAME, "lots");
+                Exception e = assertThrows(SQLException.class, () -> driver.connect("jdbc:athena", defaultProperties));
+                assertTrue(e.getMessage().contains(AthenaDriver.MAX_CONCURRENT_QUERIES_PROPERTY_NAME));
+            }
+        }
+
+        @Nested
+        class WhenGivenAnInvalidPredictivePolling {
+            @Test
+            void throwsAnException() {
+                defaultProperties.setProperty(AthenaDriver.PREDICTIVE_POLLING_PROPERTY_NAME, "maybe");
+                Exception e = assertThrows(SQLException.class, () -> driver.connect("jdbc:athena", defaultProperties));
+                assertTrue(e.getMessage().contains(AthenaDriver.PREDICTIVE_POLLING_PROPERTY_NAME));
+            }
+        }
+
+        @Nested
+        class WhenGivenAnInvalidS3DownloadParallelism {
+            @Test
+            void throwsAnException() {
+                defaultProperties.setProperty(AthenaDriver.S3_DOWNLOAD_PARALLELISM_PROPERTY_NAME, "many");
+                Exception e = assertThrows(SQLException.class, () -> driver.connect("jdbc:athena", defaultProperties));
+                assertTrue(e.getMessage().contains(AthenaDriver.S3_DOWNLOAD_PARALLELISM_PROPERTY_NAME));
+            }
+
+            @Test
+            void throwsAnExceptionWhenNotPositive() {
+                defaultProperties.setProperty(AthenaDriver.S3_DOWNLOAD_PARALLELISM_PROPERTY_NAME, "0");
+                assertThrows(SQLException.class, () -> driver.connect("jdbc:athena", defaultProperties));
+            }
+        }
+
+        @Nested
+        class WhenGivenAnInvalidS3DownloadPartSize {
+            @Test
+            void throwsAnException() {
+                defaultProperties.setProperty(AthenaDriver.S3_DOWNLOAD_PART_SIZE_PROPERTY_NAME, "-1");
+                Exception e = assertThrows(SQLException.class, () -> driver.connect("jdbc:athena", defaultProperties));
+                assertTrue(e.getMessage().contains(AthenaDriver.S3_DOWNLOAD_PART_SIZE_PROPERTY_NAME));
+            }
+        }
+
         @Nested
         class WhenGivenABadUrl {
             @Test
-            void returnsNull() {
+            void returnsNull() throws Exception {
                 assertNull(driver.connect("athena:jdbc://hello", new Properties()));
             }
         }
@@ -680,4 +680,26 @@ class AthenaResultSetMetaDataTest {
             assertEquals("s3://some/location.csv", metaData.unwrap(AthenaResultSetMetaData.class).getOutputLocation());
         }
     }
+
+    @Nested
+    class WithQueryExecution {
+        private AthenaResultSetMetaData otherMetaData;
+
+        @BeforeEach
+        void setUp() throws Exception {
+            QueryExecution otherQueryExecution = QueryExecution.builder().queryExecutionId("Q2345").build();
+            otherMetaData = metaData.unwrap(AthenaResultSetMetaData.class).withQueryExecution(otherQueryExecution);
+        }
+
+        @Test
+        void returnsMetaDataForTheOtherQueryExecution() {
+            assertEquals("Q2345", otherMetaData.getQueryExecutionId());
+        }
+
+        @Test
+        void returnsMetaDataWithTheSameColumns() {
+            assertEquals(3, otherMetaData.getColumnCount());
+            assertEquals("col2_name", otherMetaData.getColumnName(2));
+        }
+    }
 }
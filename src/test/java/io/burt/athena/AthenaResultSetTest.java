@@ -4,6 +4,10 @@ import io.burt.athena.configuration.ConnectionConfiguration;
 import io.burt.athena.result.PreloadingStandardResult;
 import io.burt.athena.result.Result;
 import io.burt.athena.result.StandardResult;
+import io.burt.athena.result.batch.ColumnBatch;
+import io.burt.athena.result.batch.DoubleColumn;
+import io.burt.athena.result.batch.LongColumn;
+import io.burt.athena.result.batch.StringColumn;
 import io.burt.athena.support.ConfigurableConnectionConfiguration;
 import io.burt.athena.support.GetQueryResultsHelper;
 import io.burt.athena.support.TestNameGenerator;
@@ -19,9 +23,14 @@ import software.amazon.awssdk.services.athena.model.QueryExecution;
 import software.amazon.awssdk.services.athena.model.Row;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.Reader;
 import java.math.BigDecimal;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.sql.Array;
 import java.sql.Blob;
 import java.sql.Clob;
@@ -61,7 +70,9 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 @DisplayNameGeneration(TestNameGenerator.class)
@@ -144,6 +155,149 @@ class AthenaResultSetTest {
         }
     }
 
+    @Nested
+    class NextBatch {
+        @BeforeEach
+        void setUp() {
+            queryResultsHelper.update(Arrays.asList(
+                    createColumn("col1", "varchar"),
+                    createColumn("col2", "bigint"),
+                    createColumn("col3", "double")
+            ), Arrays.asList(
+                    createRow("a", "1", "0.5"),
+                    createRow("b", null, "1.5"),
+                    createRow("a", "3", null),
+                    createRow(null, "4", "-2")
+            ));
+        }
+
+        @Test
+        void readsTheRowsIntoTypedColumns() throws Exception {
+            ColumnBatch batch = resultSet.nextBatch(10);
+            assertEquals(4, batch.getRowCount());
+            assertEquals(3, batch.getColumnCount());
+            assertEquals(StringColumn.class, batch.getColumn(1).getClass());
+            assertEquals(LongColumn.class, batch.getColumn(2).getClass());
+            assertEquals(DoubleColumn.class, batch.getColumn(3).getClass());
+            assertEquals(Types.BIGINT, batch.getColumn(2).getType());
+            LongColumn longs = (LongColumn) batch.getColumn(2);
+            assertEquals(1L, longs.getLong(0));
+            assertEquals(4L, longs.getValues()[3]);
+            DoubleColumn doubles = (DoubleColumn) batch.getColumn(3);
+            assertEquals(1.5, doubles.getDouble(1));
+            assertEquals(-2.0, doubles.getValues()[3]);
+        }
+
+        @Test
+        void encodesStringsWithADictionary() throws Exception {
+            StringColumn strings = (StringColumn) resultSet.nextBatch(10).getColumn(1);
+            assertArrayEquals(new String[]{"a", "b"}, strings.getDictionary());
+            assertArrayEquals(new int[]{0, 1, 0, -1}, Arrays.copyOf(strings.getIndices(), 4));
+            assertEquals("a", strings.getString(2));
+            assertNull(strings.getString(3));
+        }
+
+        @Test
+        void marksNullsInTheNullBitmap() throws Exception {
+            ColumnBatch batch = resultSet.nextBatch(10);
+            assertEquals(0b1000L, batch.getColumn(1).getNullBitmap()[0]);
+            assertEquals(0b0010L, batch.getColumn(2).getNullBitmap()[0]);
+            assertTrue(batch.getColumn(3).isNull(2));
+            assertFalse(batch.getColumn(3).isNull(3));
+        }
+
+        @Test
+        void readsAtMostTheSpecifiedNumberOfRows() throws Exception {
+            assertEquals(3, resultSet.nextBatch(3).getRowCount());
+            assertEquals(1, resultSet.nextBatch(3).getRowCount());
+            assertEquals(0, resultSet.nextBatch(3).getRowCount());
+        }
+
+        @Test
+        void onlyAllocatesArraysForTheRowsThatAreRead() throws Exception {
+            ColumnBatch batch = resultSet.nextBatch(Integer.MAX_VALUE);
+            assertEquals(4, batch.getRowCount());
+            assertTrue(((LongColumn) batch.getColumn(2)).getValues().length < 10000);
+        }
+
+        @Test
+        void growsTheArraysWhenThereAreMoreRowsThanTheFetchSize() throws Exception {
+            resultSet.setFetchSize(2);
+            ColumnBatch batch = resultSet.nextBatch(10);
+            assertEquals(4, batch.getRowCount());
+            assertArrayEquals(new long[]{1, 0, 3, 4}, Arrays.copyOf(((LongColumn) batch.getColumn(2)).getValues(), 4));
+            assertArrayEquals(new int[]{0, 1, 0, -1}, Arrays.copyOf(((StringColumn) batch.getColumn(1)).getIndices(), 4));
+            assertEquals(-2.0, ((DoubleColumn) batch.getColumn(3)).getDouble(3));
+            assertTrue(batch.getColumn(2).isNull(1));
+            assertTrue(batch.getColumn(1).isNull(3));
+        }
+
+        @Test
+        void leavesTheResultSetOnTheLastRowOfTheBatch() throws Exception {
+            resultSet.nextBatch(2);
+            assertEquals("b", resultSet.getString(1));
+            assertTrue(resultSet.next());
+            assertEquals(3, resultSet.getLong(2));
+        }
+
+        @Test
+        void throwsWhenTheBatchSizeIsNotPositive() {
+            assertThrows(SQLException.class, () -> resultSet.nextBatch(0));
+        }
+
+        @Nested
+        class WhenAValueCannotBeConverted {
+            @Test
+            void throwsAnError() {
+                queryResultsHelper.update(Collections.singletonList(createColumn("col1", "bigint")), Collections.singletonList(createRow("fnord")));
+                Exception e = assertThrows(SQLDataException.class, () -> resultSet.nextBatch(10));
+                assertEquals("Cannot convert \"fnord\" to long", e.getMessage());
+            }
+        }
+
+        @Nested
+        class WhenClosed {
+            @Test
+            void throwsAnError() throws Exception {
+                resultSet.close();
+                assertThrows(SQLException.class, () -> resultSet.nextBatch(10));
+            }
+        }
+    }
+
+    @Nested
+    class TransferTo {
+        @Test
+        void writesTheRawResultToAStream() throws Exception {
+            Result rawResult = mock(Result.class);
+            when(rawResult.transferTo(any())).thenAnswer(invocation -> {
+                WritableByteChannel channel = invocation.getArgument(0);
+                ByteBuffer direct = ByteBuffer.allocateDirect(2);
+                direct.put((byte) 'c').put((byte) '\n');
+                ((Buffer) direct).flip();
+                return (long) channel.write(ByteBuffer.wrap("ab\n".getBytes(StandardCharsets.UTF_8))) + channel.write(direct);
+            });
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            assertEquals(5L, new AthenaResultSet(rawResult, parentStatement).transferTo(output));
+            assertEquals("ab\nc\n", new String(output.toByteArray(), StandardCharsets.UTF_8));
+        }
+
+        @Test
+        void throwsWhenTheResultDoesNotSupportRawTransfers() {
+            defaultRows();
+            assertThrows(SQLFeatureNotSupportedException.class, () -> resultSet.transferTo(new ByteArrayOutputStream()));
+        }
+
+        @Nested
+        class WhenClosed {
+            @Test
+            void throwsAnError() throws Exception {
+                resultSet.close();
+                assertThrows(SQLException.class, () -> resultSet.transferTo(new ByteArrayOutputStream()));
+            }
+        }
+    }
+
     @Nested
     class Next {
         @BeforeEach
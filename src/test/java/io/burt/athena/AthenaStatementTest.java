@@ -1,12 +1,17 @@
 package io.burt.athena;
 
+import io.burt.athena.admission.AdmissionController;
 import io.burt.athena.configuration.ConnectionConfiguration;
+import io.burt.athena.polling.AsyncPollingStrategy;
+import io.burt.athena.polling.BatchQueryExecutionPoller;
+import io.burt.athena.polling.PollingStrategies;
 import io.burt.athena.polling.PollingStrategy;
 import io.burt.athena.result.Result;
 import io.burt.athena.support.ConfigurableConnectionConfiguration;
 import io.burt.athena.support.QueryExecutionHelper;
 import io.burt.athena.support.TestClock;
 import io.burt.athena.support.TestNameGenerator;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayNameGeneration;
 import org.junit.jupiter.api.Nested;
@@ -27,9 +32,18 @@ import java.sql.SQLFeatureNotSupportedException;
 import java.sql.SQLTimeoutException;
 import java.sql.Statement;
 import java.time.Duration;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -38,8 +52,17 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 @DisplayNameGeneration(TestNameGenerator.class)
@@ -88,6 +111,22 @@ class AthenaStatementTest {
         );
     }
 
+    ConnectionConfiguration createConfiguration(AdmissionController admissionController) {
+        return new ConfigurableConnectionConfiguration(
+                "test_db",
+                "test_wg",
+                "s3://test/location",
+                Duration.ofSeconds(60),
+                Duration.ofSeconds(60),
+                () -> queryExecutionHelper,
+                () -> null,
+                () -> pollingStrategy,
+                () -> null,
+                () -> admissionController,
+                (q) -> result
+        );
+    }
+
     class SharedExecuteSetup {
         @BeforeEach
         void setUpStartQueryExecution() {
@@ -116,6 +155,25 @@ class AthenaStatementTest {
             assertEquals("SELECT 1", executionRequest().queryString());
         }
 
+        @Test
+        void sendsTheQueryAsPreparedByTheConfiguration() throws Exception {
+            ConnectionConfiguration configuration = spy(createConfiguration());
+            doReturn("UNLOAD (SELECT 1)").when(configuration).prepareQuery("SELECT 1", Optional.empty());
+            statement = new AthenaStatement(configuration, clock);
+            execute();
+            assertEquals("UNLOAD (SELECT 1)", executionRequest().queryString());
+        }
+
+        @Test
+        void pollsWithTheStrategyForTheQueryAndTellsItWhenTheQueryHasSucceeded() throws Exception {
+            PollingStrategy queryPollingStrategy = mock(PollingStrategy.class);
+            lenient().when(queryPollingStrategy.pollUntilCompleted(any(), any())).thenAnswer(invocation -> createPollingStrategy().pollUntilCompleted(invocation.getArgument(0), invocation.getArgument(1)));
+            pollingStrategy = mock(PollingStrategy.class);
+            when(pollingStrategy.forQuery("SELECT 1")).thenReturn(queryPollingStrategy);
+            execute();
+            verify(queryPollingStrategy).recordCompletion(argThat(queryExecution -> queryExecution.status().state() == QueryExecutionState.SUCCEEDED));
+        }
+
         @Test
         void executesInTheConfiguredDatabase() throws Exception {
             execute();
@@ -230,6 +288,134 @@ class AthenaStatementTest {
             assertTrue(execute());
         }
 
+        @Nested
+        class WithBatchPolling {
+            private ScheduledExecutorService scheduler;
+            private BatchQueryExecutionPoller poller;
+
+            @BeforeEach
+            void setUp() {
+                scheduler = Executors.newSingleThreadScheduledExecutor();
+                poller = new BatchQueryExecutionPoller(() -> queryExecutionHelper, scheduler);
+                statement = new AthenaStatement(new ConfigurableConnectionConfiguration(
+                        "test_db",
+                        "test_wg",
+                        "s3://test/location",
+                        Duration.ofSeconds(60),
+                        Duration.ofSeconds(60),
+                        () -> queryExecutionHelper,
+                        () -> null,
+                        () -> pollingStrategy,
+                        () -> poller,
+                        (q) -> result
+                ), clock);
+            }
+
+            @AfterEach
+            void tearDown() {
+                poller.close();
+                scheduler.shutdownNow();
+            }
+
+            @Test
+            void pollsWithTheSharedPoller() throws Exception {
+                assertTrue(execute());
+                assertTrue(queryExecutionHelper.getQueryExecutionRequests().isEmpty());
+                assertEquals(3, queryExecutionHelper.batchGetQueryExecutionRequests().size());
+                assertEquals(Arrays.asList("Q1234"), queryExecutionHelper.batchGetQueryExecutionRequests().get(0).queryExecutionIds());
+            }
+
+            @Test
+            void throwsOnFailure() {
+                queryExecutionHelper.clearGetQueryExecutionResponseQueue();
+                queryExecutionHelper.queueGetQueryExecutionResponse(QueryExecutionState.FAILED, "Teh bork");
+                SQLException e = assertThrows(SQLException.class, () -> execute());
+                assertEquals("Teh bork", e.getMessage());
+            }
+        }
+
+        @Nested
+        class WithAdmissionControl {
+            private ScheduledExecutorService scheduler;
+            private AdmissionController admissionController;
+
+            @BeforeEach
+            void setUp() {
+                scheduler = Executors.newSingleThreadScheduledExecutor();
+                admissionController = spy(new AdmissionController(1, scheduler));
+                statement = new AthenaStatement(createConfiguration(admissionController), clock);
+            }
+
+            @AfterEach
+            void tearDown() {
+                scheduler.shutdownNow();
+            }
+
+            @Test
+            void releasesTheAdmissionWhenTheQueryExecutionHasFinished() throws Exception {
+                assertTrue(execute());
+                verify(admissionController).admit(any(), any(), any());
+                verify(admissionController).release();
+            }
+
+            @Test
+            void releasesTheAdmissionWhenTheQueryExecutionFails() {
+                queryExecutionHelper.clearGetQueryExecutionResponseQueue();
+                queryExecutionHelper.queueGetQueryExecutionResponse(QueryExecutionState.FAILED, "Teh bork");
+                assertThrows(SQLException.class, () -> execute());
+                verify(admissionController).release();
+            }
+
+            @Test
+            void retriesWhenStartingTheQueryExecutionIsThrottled() throws Exception {
+                queryExecutionHelper.queueStartQueryExecutionException(TooManyRequestsException.builder().message("b0rk").build());
+                queryExecutionHelper.queueStartQueryResponse("Q2345");
+                assertTrue(execute());
+                assertEquals(2, queryExecutionHelper.startQueryRequests().size());
+            }
+
+            @Test
+            void sendsTheSameStatementAndClientRequestTokenWhenRetryingTheStart() throws Exception {
+                AtomicInteger preparations = new AtomicInteger(0);
+                ConnectionConfiguration configuration = spy(createConfiguration(admissionController));
+                doAnswer(invocation -> String.format("UNLOAD (SELECT %d)", preparations.incrementAndGet())).when(configuration).prepareQuery(any(), any());
+                statement = new AthenaStatement(configuration, clock);
+                statement.setClientRequestTokenProvider(sql -> Optional.of("foo"));
+                queryExecutionHelper.queueStartQueryExecutionException(TooManyRequestsException.builder().message("b0rk").build());
+                queryExecutionHelper.queueStartQueryResponse("Q2345");
+                assertTrue(execute());
+                List<StartQueryExecutionRequest> requests = queryExecutionHelper.startQueryRequests();
+                assertEquals(2, requests.size());
+                assertEquals("UNLOAD (SELECT 1)", requests.get(0).queryString());
+                assertEquals("UNLOAD (SELECT 1)", requests.get(1).queryString());
+                assertEquals("foo", requests.get(0).clientRequestToken());
+                assertEquals("foo", requests.get(1).clientRequestToken());
+            }
+
+            @Test
+            void executesTheQueriesThatTheResultNeedsAsTheyAreAndWithAdmissionControl() throws Exception {
+                AtomicReference<Function<String, CompletableFuture<ResultSet>>> queryRunner = new AtomicReference<>(null);
+                ConnectionConfiguration configuration = spy(createConfiguration(admissionController));
+                doReturn("UNLOAD (SELECT 1)").when(configuration).prepareQuery(any(), any());
+                doAnswer(invocation -> {
+                    queryRunner.set(invocation.getArgument(1));
+                    return result;
+                }).when(configuration).createResult(any(), any());
+                statement = new AthenaStatement(configuration, clock);
+                statement.setClientRequestTokenProvider(sql -> Optional.of("foo"));
+                assertTrue(execute());
+                queryExecutionHelper.queueStartQueryResponse("Q2345");
+                queryExecutionHelper.queueGetQueryExecutionResponse(QueryExecutionState.SUCCEEDED);
+                assertNotNull(queryRunner.get().apply("SELECT 2").get(1, TimeUnit.SECONDS));
+                List<StartQueryExecutionRequest> requests = queryExecutionHelper.startQueryRequests();
+                assertEquals(2, requests.size());
+                assertEquals("SELECT 2", requests.get(1).queryString());
+                assertNull(requests.get(1).clientRequestToken());
+                verify(admissionController, times(2)).admit(any(), any(), any());
+                verify(admissionController, times(2)).release();
+            }
+        }
+
         @Nested
         class WhenInterruptedWhileSleeping {
             private Thread runner;
@@ -321,6 +507,93 @@ class AthenaStatementTest {
         }
     }
 
+    @Nested
+    class ExecuteAsync extends SharedExecuteTests<ResultSet> {
+        @Override
+        protected ResultSet execute() throws SQLException {
+            try {
+                return statement.executeAsync("SELECT 1").get(10, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                throw (SQLException) e.getCause();
+            } catch (InterruptedException | TimeoutException e) {
+                throw new SQLException(e);
+            }
+        }
+
+        @Test
+        void completesWithTheResultSet() throws Exception {
+            ResultSet rs = execute();
+            assertNotNull(rs);
+            assertSame(rs, statement.getResultSet());
+        }
+
+        @Test
+        void releasesTheAdmissionWhenTheQueryExecutionHasFinished() throws Exception {
+            ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+            try {
+                AdmissionController admissionController = spy(new AdmissionController(1, scheduler));
+                statement = new AthenaStatement(createConfiguration(admissionController), clock);
+                assertNotNull(execute());
+                verify(admissionController).admit(any(), any(), any());
+                verify(admissionController).release();
+            } finally {
+                scheduler.shutdownNow();
+            }
+        }
+
+        @Test
+        void pollsWithThePollingStrategyWhenItCanPollWithoutBlocking() throws Exception {
+            pollingStrategy = spy(PollingStrategies.fixedDelay(Duration.ofMillis(1)));
+            queryExecutionHelper.clearGetQueryExecutionResponseQueue();
+            queryExecutionHelper.queueGetQueryExecutionResponse(QueryExecutionState.SUCCEEDED);
+            execute();
+            verify((AsyncPollingStrategy) pollingStrategy).pollUntilCompletedAsync(any(), any(), any());
+            verify(pollingStrategy, never()).pollUntilCompleted(any(), any());
+        }
+
+        @Test
+        void returnsBeforeTheQueryExecutionHasFinished() throws Exception {
+            queryExecutionHelper.delayGetQueryExecutionResponses(Duration.ofMillis(50));
+            CompletableFuture<ResultSet> future = statement.executeAsync("SELECT 1");
+            assertFalse(future.isDone());
+            assertNotNull(future.get(10, TimeUnit.SECONDS));
+        }
+
+        @Test
+        void stopsTheQueryExecutionWhenCancelled() throws Exception {
+            queryExecutionHelper.delayGetQueryExecutionResponses(Duration.ofMillis(50));
+            CompletableFuture<ResultSet> future = statement.executeAsync("SELECT 1");
+            future.cancel(true);
+            List<StopQueryExecutionRequest> requests = queryExecutionHelper.stopQueryExecutionRequests();
+            assertEquals(1, requests.size());
+            assertEquals("Q1234", requests.get(0).queryExecutionId());
+        }
+
+        @Test
+        void stopsTheQueryExecutionWhenCancelledBeforeItHasStarted() {
+            queryExecutionHelper.delayStartQueryExecutionResponses(Duration.ofMillis(50));
+            CompletableFuture<ResultSet> future = statement.executeAsync("SELECT 1");
+            future.cancel(true);
+            assertTrue(queryExecutionHelper.stopQueryExecutionRequests().isEmpty());
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+            while (queryExecutionHelper.stopQueryExecutionRequests().isEmpty() && System.nanoTime() < deadline) {
+                Thread.yield();
+            }
+            List<StopQueryExecutionRequest> requests = queryExecutionHelper.stopQueryExecutionRequests();
+            assertEquals(1, requests.size());
+            assertEquals("Q1234", requests.get(0).queryExecutionId());
+        }
+
+        @Nested
+        class WhenTheStatementIsClosed {
+            @Test
+            void completesExceptionally() throws Exception {
+                statement.close();
+                assertThrows(SQLException.class, ExecuteAsync.this::execute);
+            }
+        }
+    }
+
     @Nested
     class ExecuteWithAutoGeneratedKeys {
         @Nested
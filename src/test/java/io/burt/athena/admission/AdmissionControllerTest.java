@@ -0,0 +1,245 @@
+package io.burt.athena.admission;
+
+import io.burt.athena.support.TestNameGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.athena.model.InvalidRequestException;
+import software.amazon.awssdk.services.athena.model.TooManyRequestsException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayNameGeneration(TestNameGenerator.class)
+class AdmissionControllerTest {
+    private ScheduledExecutorService scheduler;
+    private List<CompletableFuture<String>> starts;
+    private List<String> stopped;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        starts = new ArrayList<>();
+        stopped = new ArrayList<>();
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    private AdmissionController createController(int maxConcurrency) {
+        return new AdmissionController(maxConcurrency, 3, Duration.ofMillis(1), Duration.ofMillis(4), scheduler, new Random());
+    }
+
+    private Supplier<CompletableFuture<String>> pendingStart() {
+        return () -> {
+            CompletableFuture<String> start = new CompletableFuture<>();
+            starts.add(start);
+            return start;
+        };
+    }
+
+    private static Supplier<CompletableFuture<String>> throttledStart(int throttledAttempts, AtomicInteger attempts) {
+        return () -> {
+            CompletableFuture<String> start = new CompletableFuture<>();
+            if (attempts.incrementAndGet() <= throttledAttempts) {
+                start.completeExceptionally(TooManyRequestsException.builder().message("b0rk").build());
+            } else {
+                start.complete("Q" + attempts.get());
+            }
+            return start;
+        };
+    }
+
+    @Nested
+    class Constructor {
+        @Test
+        void requiresAPositiveMaxConcurrency() {
+            assertThrows(IllegalArgumentException.class, () -> createController(0));
+        }
+    }
+
+    @Nested
+    class Admit {
+        @Test
+        void startsRightAwayWhenThereIsRoom() throws Exception {
+            AdmissionController controller = createController(2);
+            CompletableFuture<String> future = controller.admit(() -> CompletableFuture.completedFuture("Q1234"), stopped::add, Duration.ofSeconds(1));
+            assertEquals("Q1234", future.get(1, TimeUnit.SECONDS));
+            assertEquals(1, controller.activeCount());
+        }
+
+        @Test
+        void makesStartsBeyondTheLimitWaitUntilAQueryExecutionIsReleased() {
+            AdmissionController controller = createController(2);
+            controller.admit(pendingStart(), stopped::add, Duration.ofSeconds(1));
+            controller.admit(pendingStart(), stopped::add, Duration.ofSeconds(1));
+            controller.admit(pendingStart(), stopped::add, Duration.ofSeconds(1));
+            assertEquals(2, starts.size());
+            assertEquals(1, controller.waitingCount());
+            starts.get(0).complete("Q1");
+            controller.release();
+            assertEquals(3, starts.size());
+        }
+
+        @Test
+        void startsWaitingQueryExecutionsInTheOrderTheyArrived() throws Exception {
+            AdmissionController controller = createController(1);
+            List<String> order = new ArrayList<>();
+            controller.admit(pendingStart(), stopped::add, Duration.ofSeconds(1));
+            for (String id : Arrays.asList("Q1", "Q2", "Q3")) {
+                controller.admit(() -> {
+                    order.add(id);
+                    return CompletableFuture.completedFuture(id);
+                }, stopped::add, Duration.ofSeconds(1));
+            }
+            for (int i = 0; i < 3; i++) {
+                controller.release();
+            }
+            assertEquals(Arrays.asList("Q1", "Q2", "Q3"), order);
+        }
+
+        @Test
+        void releasesThePlaceOfStartsThatFail() {
+            AdmissionController controller = createController(1);
+            CompletableFuture<String> future = controller.admit(pendingStart(), stopped::add, Duration.ofSeconds(1));
+            starts.get(0).completeExceptionally(InvalidRequestException.builder().message("b0rk").build());
+            Exception e = assertThrows(ExecutionException.class, () -> future.get(1, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof InvalidRequestException);
+            assertEquals(0, controller.activeCount());
+        }
+
+        @Test
+        void retriesThrottledStarts() throws Exception {
+            AdmissionController controller = createController(4);
+            AtomicInteger attempts = new AtomicInteger(0);
+            assertEquals("Q3", controller.admit(throttledStart(2, attempts), stopped::add, Duration.ofSeconds(1)).get(1, TimeUnit.SECONDS));
+            assertEquals(1, controller.activeCount());
+        }
+
+        @Test
+        void failsWithTheThrottlingErrorAfterTheMaxNumberOfAttempts() {
+            AdmissionController controller = createController(4);
+            AtomicInteger attempts = new AtomicInteger(0);
+            CompletableFuture<String> future = controller.admit(throttledStart(10, attempts), stopped::add, Duration.ofSeconds(1));
+            Exception e = assertThrows(ExecutionException.class, () -> future.get(1, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof TooManyRequestsException);
+            assertEquals(3, attempts.get());
+            assertEquals(0, controller.activeCount());
+        }
+
+        @Test
+        void halvesTheLimitWhenAStartIsThrottled() throws Exception {
+            AdmissionController controller = createController(4);
+            controller.admit(throttledStart(1, new AtomicInteger(0)), stopped::add, Duration.ofSeconds(1)).get(1, TimeUnit.SECONDS);
+            assertEquals(2, controller.limit());
+        }
+
+        @Test
+        void halvesTheLimitOnceForStartsThatWereThrottledTogether() throws Exception {
+            AdmissionController controller = createController(8);
+            CompletableFuture<String> future1 = controller.admit(pendingStart(), stopped::add, Duration.ofSeconds(1));
+            CompletableFuture<String> future2 = controller.admit(pendingStart(), stopped::add, Duration.ofSeconds(1));
+            starts.get(0).completeExceptionally(TooManyRequestsException.builder().message("b0rk").build());
+            starts.get(1).completeExceptionally(TooManyRequestsException.builder().message("b0rk").build());
+            assertEquals(4, controller.limit());
+            future1.cancel(false);
+            future2.cancel(false);
+        }
+
+        @Test
+        void raisesTheLimitAgainAfterSuccessfulStarts() throws Exception {
+            AdmissionController controller = createController(4);
+            controller.admit(throttledStart(1, new AtomicInteger(0)), stopped::add, Duration.ofSeconds(1)).get(1, TimeUnit.SECONDS);
+            controller.release();
+            controller.admit(() -> CompletableFuture.completedFuture("Q2"), stopped::add, Duration.ofSeconds(1)).get(1, TimeUnit.SECONDS);
+            controller.release();
+            assertEquals(2, controller.limit());
+            controller.admit(() -> CompletableFuture.completedFuture("Q3"), stopped::add, Duration.ofSeconds(1)).get(1, TimeUnit.SECONDS);
+            assertEquals(3, controller.limit());
+        }
+
+        @Test
+        void timesOutWhenTheQueryExecutionIsNotStartedInTime() {
+            AdmissionController controller = createController(1);
+            controller.admit(pendingStart(), stopped::add, Duration.ofSeconds(1));
+            CompletableFuture<String> future = controller.admit(pendingStart(), stopped::add, Duration.ofMillis(10));
+            Exception e = assertThrows(ExecutionException.class, () -> future.get(1, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof TimeoutException);
+            assertEquals(0, controller.waitingCount());
+        }
+
+        @Test
+        void givesUpThePlaceInTheQueueWhenCancelled() {
+            AdmissionController controller = createController(1);
+            controller.admit(pendingStart(), stopped::add, Duration.ofSeconds(1));
+            controller.admit(pendingStart(), stopped::add, Duration.ofSeconds(1)).cancel(false);
+            controller.release();
+            assertEquals(1, starts.size());
+            assertEquals(0, controller.activeCount());
+        }
+
+        @Test
+        void releasesThePlaceWhenTheStartSucceedsAfterTheCallerHasGivenUp() {
+            AdmissionController controller = createController(1);
+            controller.admit(pendingStart(), stopped::add, Duration.ofSeconds(1)).cancel(false);
+            starts.get(0).complete("Q1234");
+            assertEquals(0, controller.activeCount());
+            assertEquals(Arrays.asList("Q1234"), stopped);
+        }
+
+        @Test
+        void stopsQueryExecutionsThatAreStartedAfterTheTimeout() {
+            AdmissionController controller = createController(1);
+            CompletableFuture<String> future = controller.admit(pendingStart(), stopped::add, Duration.ofMillis(10));
+            Exception e = assertThrows(ExecutionException.class, () -> future.get(1, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof TimeoutException);
+            starts.get(0).complete("Q1234");
+            assertEquals(0, controller.activeCount());
+            assertEquals(Arrays.asList("Q1234"), stopped);
+        }
+
+        @Test
+        void doesNotStopQueryExecutionsThatAreStartedInTime() throws Exception {
+            AdmissionController controller = createController(1);
+            assertEquals("Q1234", controller.admit(() -> CompletableFuture.completedFuture("Q1234"), stopped::add, Duration.ofSeconds(1)).get(1, TimeUnit.SECONDS));
+            assertTrue(stopped.isEmpty());
+        }
+    }
+
+    @Nested
+    class RetryDelay {
+        @Test
+        void isARandomPartOfABackoffThatIsCappedAtTheMaxDelay() {
+            Random random = new Random() {
+                @Override
+                public double nextDouble() {
+                    return 0.5;
+                }
+            };
+            AdmissionController controller = new AdmissionController(1, 10, Duration.ofMillis(100), Duration.ofSeconds(1), scheduler, random);
+            assertEquals(Duration.ofMillis(50), controller.retryDelay(1));
+            assertEquals(Duration.ofMillis(100), controller.retryDelay(2));
+            assertEquals(Duration.ofMillis(200), controller.retryDelay(3));
+            assertEquals(Duration.ofMillis(500), controller.retryDelay(5));
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package io.burt.athena.arrow;
+
+import io.burt.athena.AthenaResultSet;
+import io.burt.athena.AthenaStatement;
+import io.burt.athena.result.PreloadingStandardResult;
+import io.burt.athena.result.Result;
+import io.burt.athena.result.StandardResult;
+import io.burt.athena.support.GetQueryResultsHelper;
+import io.burt.athena.support.TestNameGenerator;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.DateDayVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.athena.model.QueryExecution;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLDataException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import static io.burt.athena.support.GetQueryResultsHelper.createColumn;
+import static io.burt.athena.support.GetQueryResultsHelper.createRow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+@DisplayNameGeneration(TestNameGenerator.class)
+class ArrowResultReaderTest {
+    private GetQueryResultsHelper queryResultsHelper;
+    private AthenaResultSet resultSet;
+    private BufferAllocator allocator;
+
+    @BeforeEach
+    void setUp() {
+        QueryExecution queryExecution = QueryExecution.builder().queryExecutionId("Q1234").build();
+        queryResultsHelper = new GetQueryResultsHelper();
+        Result result = new PreloadingStandardResult(queryResultsHelper, queryExecution, StandardResult.MAX_FETCH_SIZE, Duration.ofSeconds(1));
+        resultSet = new AthenaResultSet(result, mock(AthenaStatement.class));
+        allocator = new RootAllocator();
+        queryResultsHelper.update(Arrays.asList(
+                createColumn("name", "varchar"),
+                createColumn("id", "bigint"),
+                createColumn("count", "integer"),
+                createColumn("score", "double"),
+                createColumn("active", "boolean"),
+                createColumn("day", "date")
+        ), Arrays.asList(
+                createRow("a", "1", "10", "0.5", "true", "2019-01-01"),
+                createRow("b", null, "20", "1.5", "false", "2019-01-02"),
+                createRow(null, "3", null, null, null, null)
+        ));
+    }
+
+    @AfterEach
+    void tearDown() {
+        allocator.close();
+    }
+
+    @Nested
+    class GetSchema {
+        @Test
+        void mapsTheColumnTypesToArrowTypes() throws Exception {
+            try (ArrowResultReader reader = new ArrowResultReader(resultSet, allocator, 10)) {
+                assertEquals(ArrowType.Utf8.INSTANCE, reader.getSchema().findField("name").getType());
+                assertEquals(new ArrowType.Int(64, true), reader.getSchema().findField("id").getType());
+                assertEquals(new ArrowType.Int(32, true), reader.getSchema().findField("count").getType());
+                assertEquals(ArrowType.Bool.INSTANCE, reader.getSchema().findField("active").getType());
+                assertTrue(reader.getSchema().findField("score").isNullable());
+            }
+        }
+    }
+
+    @Nested
+    class LoadNextBatch {
+        @Test
+        void loadsTheRowsIntoTypedVectors() throws Exception {
+            try (ArrowResultReader reader = new ArrowResultReader(resultSet, allocator, 10)) {
+                assertTrue(reader.loadNextBatch());
+                VectorSchemaRoot root = reader.getVectorSchemaRoot();
+                assertEquals(3, root.getRowCount());
+                assertEquals("b", new String(((VarCharVector) root.getVector("name")).get(1), StandardCharsets.UTF_8));
+                assertEquals(3L, ((BigIntVector) root.getVector("id")).get(2));
+                assertEquals(20, ((IntVector) root.getVector("count")).get(1));
+                assertEquals(1.5, ((Float8Vector) root.getVector("score")).get(1));
+                assertEquals(0, ((BitVector) root.getVector("active")).get(1));
+                assertEquals(LocalDate.of(2019, 1, 2).toEpochDay(), ((DateDayVector) root.getVector("day")).get(1));
+            }
+        }
+
+        @Test
+        void marksNullValues() throws Exception {
+            try (ArrowResultReader reader = new ArrowResultReader(resultSet, allocator, 10)) {
+                reader.loadNextBatch();
+                VectorSchemaRoot root = reader.getVectorSchemaRoot();
+                assertTrue(root.getVector("name").isNull(2));
+                assertTrue(root.getVector("id").isNull(1));
+                assertFalse(root.getVector("id").isNull(2));
+                assertEquals(1, root.getVector("day").getNullCount());
+            }
+        }
+
+        @Test
+        void loadsAtMostTheBatchSizeRowsAtATime() throws Exception {
+            try (ArrowResultReader reader = new ArrowResultReader(resultSet, allocator, 2)) {
+                assertTrue(reader.loadNextBatch());
+                assertEquals(2, reader.getVectorSchemaRoot().getRowCount());
+                assertTrue(reader.loadNextBatch());
+                assertEquals(1, reader.getVectorSchemaRoot().getRowCount());
+                assertEquals(3L, ((BigIntVector) reader.getVectorSchemaRoot().getVector("id")).get(0));
+                assertFalse(reader.loadNextBatch());
+                assertEquals(0, reader.getVectorSchemaRoot().getRowCount());
+            }
+        }
+
+        @Test
+        void throwsWhenADateCannotBeParsed() throws Exception {
+            queryResultsHelper.update(Arrays.asList(createColumn("day", "date")), Arrays.asList(createRow("fnord")));
+            try (ArrowResultReader reader = new ArrowResultReader(resultSet, allocator, 10)) {
+                assertThrows(SQLDataException.class, reader::loadNextBatch);
+            }
+        }
+    }
+
+    @Nested
+    class Close {
+        @Test
+        void releasesTheVectors() throws Exception {
+            ArrowResultReader reader = new ArrowResultReader(resultSet, allocator, 10);
+            reader.loadNextBatch();
+            reader.close();
+            assertEquals(0, allocator.getAllocatedMemory());
+        }
+    }
+}
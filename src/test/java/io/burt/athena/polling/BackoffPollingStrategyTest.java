@@ -15,17 +15,28 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
@@ -33,13 +44,28 @@ import static org.mockito.Mockito.verify;
 class BackoffPollingStrategyTest {
     private Sleeper sleeper;
     private TestClock clock;
-    private PollingStrategy pollingStrategy;
+    private BackoffPollingStrategy pollingStrategy;
+    private ScheduledExecutorService scheduler;
 
     @BeforeEach
     void setUp() {
         sleeper = mock(Sleeper.class);
         clock = new TestClock();
         pollingStrategy = new BackoffPollingStrategy(Duration.ofMillis(3), Duration.ofSeconds(1), sleeper, clock);
+        scheduler = createScheduler();
+    }
+
+    private ScheduledExecutorService createScheduler() {
+        ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+        lenient().when(scheduler.schedule(any(Runnable.class), anyLong(), any())).thenAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        });
+        return scheduler;
+    }
+
+    private static CompletableFuture<Optional<ResultSet>> completed(Optional<ResultSet> resultSet) {
+        return CompletableFuture.completedFuture(resultSet);
     }
 
     @Nested
@@ -178,4 +204,83 @@ class BackoffPollingStrategyTest {
             }
         }
     }
+
+    @Nested
+    class PollUntilCompletedAsync {
+        @Captor ArgumentCaptor<Long> delayCaptor;
+
+        @Test
+        void completesWithTheResultSet() throws Exception {
+            ResultSet rs1 = mock(ResultSet.class);
+            ResultSet rs2 = pollingStrategy.pollUntilCompletedAsync((Instant deadline) -> completed(Optional.of(rs1)), clock.instant().plus(Duration.ofSeconds(30)), scheduler).toCompletableFuture().get();
+            assertSame(rs1, rs2);
+        }
+
+        @Test
+        void doublesTheDelayAfterEachPollUpToTheConfiguredMaxInsteadOfSleeping() throws Exception {
+            AtomicInteger counter = new AtomicInteger(0);
+            pollingStrategy.pollUntilCompletedAsync((Instant deadline) -> {
+                if (counter.getAndIncrement() == 11) {
+                    return completed(Optional.of(mock(ResultSet.class)));
+                } else {
+                    return completed(Optional.empty());
+                }
+            }, clock.instant().plus(Duration.ofSeconds(30)), scheduler).toCompletableFuture().get();
+            verify(scheduler, times(11)).schedule(any(Runnable.class), delayCaptor.capture(), eq(TimeUnit.MILLISECONDS));
+            verify(sleeper, never()).sleep(any());
+            assertEquals(Arrays.asList(3L, 6L, 12L, 24L, 48L, 96L, 192L, 384L, 768L, 1000L, 1000L), delayCaptor.getAllValues());
+        }
+
+        @Test
+        void reducesFinalDelayToMatchDeadline() throws Exception {
+            AtomicInteger counter = new AtomicInteger(0);
+            pollingStrategy.pollUntilCompletedAsync((Instant deadline) -> {
+                clock.tick(Duration.ofMillis(20));
+                if (counter.getAndIncrement() >= 4) {
+                    return completed(Optional.of(mock(ResultSet.class)));
+                } else {
+                    return completed(Optional.empty());
+                }
+            }, clock.instant().plus(Duration.ofMillis(100)), scheduler).toCompletableFuture().get();
+            verify(scheduler, times(4)).schedule(any(Runnable.class), delayCaptor.capture(), eq(TimeUnit.MILLISECONDS));
+            assertEquals(Arrays.asList(3L, 6L, 12L, 20L), delayCaptor.getAllValues());
+        }
+
+        @Test
+        void completesWithTimeoutExceptionIfNotCompletedWithinDeadline() {
+            CompletableFuture<ResultSet> future = pollingStrategy.pollUntilCompletedAsync((Instant deadline) -> {
+                clock.tick(Duration.ofSeconds(10));
+                return completed(Optional.empty());
+            }, clock.instant(), scheduler).toCompletableFuture();
+            ExecutionException e = assertThrows(ExecutionException.class, future::get);
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+
+        @Test
+        void completesExceptionallyWhenThePollFails() {
+            CompletableFuture<ResultSet> future = pollingStrategy.pollUntilCompletedAsync((Instant deadline) -> {
+                throw new IllegalStateException("b0rk");
+            }, clock.instant().plus(Duration.ofSeconds(30)), scheduler).toCompletableFuture();
+            ExecutionException e = assertThrows(ExecutionException.class, future::get);
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+
+        @Nested
+        class WhenCreatedForAsynchronousPollingWithAClock {
+            @Test
+            void schedulesThePolls() throws Exception {
+                pollingStrategy = (BackoffPollingStrategy) PollingStrategies.asyncBackoff(Duration.ofMillis(3), Duration.ofSeconds(1), 2L, clock);
+                AtomicInteger counter = new AtomicInteger(0);
+                pollingStrategy.pollUntilCompletedAsync((Instant deadline) -> {
+                    if (counter.getAndIncrement() == 2) {
+                        return completed(Optional.of(mock(ResultSet.class)));
+                    } else {
+                        return completed(Optional.empty());
+                    }
+                }, clock.instant().plus(Duration.ofSeconds(30)), scheduler).toCompletableFuture().get();
+                verify(scheduler, times(2)).schedule(any(Runnable.class), delayCaptor.capture(), eq(TimeUnit.MILLISECONDS));
+                assertEquals(Arrays.asList(3L, 6L), delayCaptor.getAllValues());
+            }
+        }
+    }
 }
@@ -0,0 +1,153 @@
+package io.burt.athena.polling;
+
+import io.burt.athena.support.QueryExecutionHelper;
+import io.burt.athena.support.TestNameGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.athena.model.BatchGetQueryExecutionRequest;
+import software.amazon.awssdk.services.athena.model.InternalServerException;
+import software.amazon.awssdk.services.athena.model.InvalidRequestException;
+import software.amazon.awssdk.services.athena.model.QueryExecution;
+import software.amazon.awssdk.services.athena.model.QueryExecutionState;
+import software.amazon.awssdk.services.athena.model.TooManyRequestsException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayNameGeneration(TestNameGenerator.class)
+class BatchQueryExecutionPollerTest {
+    private QueryExecutionHelper queryExecutionHelper;
+    private ScheduledExecutorService scheduler;
+    private BatchQueryExecutionPoller poller;
+
+    @BeforeEach
+    void setUp() {
+        queryExecutionHelper = new QueryExecutionHelper();
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        poller = createPoller(Duration.ofMillis(20));
+    }
+
+    @AfterEach
+    void tearDown() {
+        poller.close();
+        scheduler.shutdownNow();
+    }
+
+    private BatchQueryExecutionPoller createPoller(Duration interval) {
+        return new BatchQueryExecutionPoller(() -> queryExecutionHelper, interval, scheduler);
+    }
+
+    @Nested
+    class AwaitCompletion {
+        @Test
+        void completesWhenTheQueryExecutionHasSucceeded() throws Exception {
+            queryExecutionHelper.queueGetQueryExecutionResponse(QueryExecutionState.RUNNING);
+            queryExecutionHelper.queueGetQueryExecutionResponse(QueryExecutionState.SUCCEEDED);
+            QueryExecution queryExecution = poller.awaitCompletion("Q1234").get(1, TimeUnit.SECONDS);
+            assertEquals("Q1234", queryExecution.queryExecutionId());
+            assertEquals(QueryExecutionState.SUCCEEDED, queryExecution.status().state());
+            assertEquals(2, queryExecutionHelper.batchGetQueryExecutionRequests().size());
+        }
+
+        @Test
+        void completesWhenTheQueryExecutionHasFailed() throws Exception {
+            queryExecutionHelper.queueGetQueryExecutionResponse(QueryExecutionState.FAILED, "b0rk");
+            QueryExecution queryExecution = poller.awaitCompletion("Q1234").get(1, TimeUnit.SECONDS);
+            assertEquals(QueryExecutionState.FAILED, queryExecution.status().state());
+            assertEquals("b0rk", queryExecution.status().stateChangeReason());
+        }
+
+        @Test
+        void looksUpAllQueryExecutionsInBatchesOfAtMostFifty() throws Exception {
+            poller.close();
+            poller = createPoller(Duration.ofMillis(200));
+            List<CompletableFuture<QueryExecution>> futures = new ArrayList<>();
+            for (int i = 0; i < 120; i++) {
+                queryExecutionHelper.queueGetQueryExecutionResponse(QueryExecutionState.SUCCEEDED);
+            }
+            for (int i = 0; i < 120; i++) {
+                futures.add(poller.awaitCompletion("Q" + i));
+            }
+            for (int i = 0; i < 120; i++) {
+                assertEquals("Q" + i, futures.get(i).get(1, TimeUnit.SECONDS).queryExecutionId());
+            }
+            List<Integer> batchSizes = new ArrayList<>();
+            for (BatchGetQueryExecutionRequest request : queryExecutionHelper.batchGetQueryExecutionRequests()) {
+                batchSizes.add(request.queryExecutionIds().size());
+            }
+            assertEquals(Arrays.asList(50, 50, 20), batchSizes);
+            assertTrue(queryExecutionHelper.getQueryExecutionRequests().isEmpty());
+        }
+
+        @Test
+        void stopsPollingQueryExecutionsWhoseFutureHasBeenCancelled() throws Exception {
+            poller.awaitCompletion("Q1234").cancel(false);
+            Thread.sleep(100);
+            assertTrue(queryExecutionHelper.batchGetQueryExecutionRequests().isEmpty());
+        }
+
+        @Test
+        void completesExceptionallyWhenTheLookupFails() {
+            queryExecutionHelper.queueGetQueryExecutionResponse(QueryExecutionState.RUNNING);
+            queryExecutionHelper.queueGetQueryExecutionException(InvalidRequestException.builder().message("b0rk").build());
+            CompletableFuture<QueryExecution> future = poller.awaitCompletion("Q1234");
+            Exception e = assertThrows(ExecutionException.class, () -> future.get(1, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof InvalidRequestException);
+        }
+
+        @Test
+        void retriesLookupsThatAreThrottled() throws Exception {
+            queryExecutionHelper.queueGetQueryExecutionResponse(QueryExecutionState.RUNNING);
+            queryExecutionHelper.queueGetQueryExecutionResponse(QueryExecutionState.RUNNING);
+            queryExecutionHelper.queueGetQueryExecutionException(TooManyRequestsException.builder().message("b0rk").build());
+            queryExecutionHelper.queueGetQueryExecutionException(InternalServerException.builder().message("b0rk").build());
+            queryExecutionHelper.queueGetQueryExecutionResponse(QueryExecutionState.SUCCEEDED);
+            QueryExecution queryExecution = poller.awaitCompletion("Q1234").get(1, TimeUnit.SECONDS);
+            assertEquals(QueryExecutionState.SUCCEEDED, queryExecution.status().state());
+            assertEquals(3, queryExecutionHelper.batchGetQueryExecutionRequests().size());
+        }
+
+        @Test
+        void completesExceptionallyWhenTheLookupsAreThrottledTooManyTimesInARow() {
+            poller.close();
+            poller = createPoller(Duration.ofMillis(1));
+            for (int i = 0; i < BatchQueryExecutionPoller.MAX_FAILED_ATTEMPTS; i++) {
+                queryExecutionHelper.queueGetQueryExecutionResponse(QueryExecutionState.RUNNING);
+                queryExecutionHelper.queueGetQueryExecutionException(TooManyRequestsException.builder().message("b0rk").build());
+            }
+            CompletableFuture<QueryExecution> future = poller.awaitCompletion("Q1234");
+            Exception e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof TooManyRequestsException);
+            assertEquals(BatchQueryExecutionPoller.MAX_FAILED_ATTEMPTS, queryExecutionHelper.batchGetQueryExecutionRequests().size());
+        }
+
+        @Test
+        void completesExceptionallyWhenThePollerIsClosed() {
+            CompletableFuture<QueryExecution> future = poller.awaitCompletion("Q1234");
+            poller.close();
+            assertTrue(future.isCompletedExceptionally());
+            assertTrue(poller.awaitCompletion("Q2345").isCompletedExceptionally());
+        }
+
+        @Test
+        void doesNotShutDownTheScheduler() {
+            poller.close();
+            assertFalse(scheduler.isShutdown());
+        }
+    }
+}
@@ -14,14 +14,23 @@ import java.sql.SQLException;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.internal.verification.VerificationModeFactory.times;
 
@@ -30,13 +39,28 @@ import static org.mockito.internal.verification.VerificationModeFactory.times;
 class FixedDelayPollingStrategyTest {
     private Sleeper sleeper;
     private TestClock clock;
-    private PollingStrategy pollingStrategy;
+    private FixedDelayPollingStrategy pollingStrategy;
+    private ScheduledExecutorService scheduler;
 
     @BeforeEach
     void setUp() {
         sleeper = mock(Sleeper.class);
         clock = new TestClock();
         pollingStrategy = new FixedDelayPollingStrategy(Duration.ofSeconds(3), sleeper, clock);
+        scheduler = createScheduler();
+    }
+
+    private ScheduledExecutorService createScheduler() {
+        ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+        lenient().when(scheduler.schedule(any(Runnable.class), anyLong(), any())).thenAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        });
+        return scheduler;
+    }
+
+    private static CompletableFuture<Optional<ResultSet>> completed(Optional<ResultSet> resultSet) {
+        return CompletableFuture.completedFuture(resultSet);
     }
 
     @Nested
@@ -125,4 +149,60 @@ class FixedDelayPollingStrategyTest {
             }
         }
     }
+
+    @Nested
+    class PollUntilCompletedAsync {
+        @Test
+        void completesWithTheResultSet() throws Exception {
+            ResultSet rs1 = mock(ResultSet.class);
+            ResultSet rs2 = pollingStrategy.pollUntilCompletedAsync((Instant deadline) -> completed(Optional.of(rs1)), clock.instant().plus(Duration.ofSeconds(30)), scheduler).toCompletableFuture().get();
+            assertSame(rs1, rs2);
+        }
+
+        @Test
+        void schedulesThePollsWithTheConfiguredDelayInsteadOfSleeping() throws Exception {
+            AtomicInteger counter = new AtomicInteger(0);
+            pollingStrategy.pollUntilCompletedAsync((Instant deadline) -> {
+                if (counter.getAndIncrement() == 3) {
+                    return completed(Optional.of(mock(ResultSet.class)));
+                } else {
+                    return completed(Optional.empty());
+                }
+            }, clock.instant().plus(Duration.ofSeconds(30)), scheduler).toCompletableFuture().get();
+            verify(scheduler, times(3)).schedule(any(Runnable.class), eq(3000L), eq(TimeUnit.MILLISECONDS));
+            verify(sleeper, never()).sleep(any());
+        }
+
+        @Test
+        void reducesFinalDelayToMatchDeadline() throws Exception {
+            AtomicInteger counter = new AtomicInteger(0);
+            pollingStrategy.pollUntilCompletedAsync((Instant deadline) -> {
+                if (counter.getAndIncrement() >= 1) {
+                    return completed(Optional.of(mock(ResultSet.class)));
+                } else {
+                    return completed(Optional.empty());
+                }
+            }, clock.instant().plus(Duration.ofMillis(100)), scheduler).toCompletableFuture().get();
+            verify(scheduler, times(1)).schedule(any(Runnable.class), eq(100L), eq(TimeUnit.MILLISECONDS));
+        }
+
+        @Test
+        void completesWithTimeoutExceptionIfNotCompletedWithinDeadline() {
+            CompletableFuture<ResultSet> future = pollingStrategy.pollUntilCompletedAsync((Instant deadline) -> {
+                clock.tick(Duration.ofSeconds(10));
+                return completed(Optional.empty());
+            }, clock.instant(), scheduler).toCompletableFuture();
+            ExecutionException e = assertThrows(ExecutionException.class, future::get);
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+
+        @Test
+        void completesExceptionallyWhenThePollFails() {
+            CompletableFuture<Optional<ResultSet>> failedPoll = new CompletableFuture<>();
+            failedPoll.completeExceptionally(new SQLException("b0rk"));
+            CompletableFuture<ResultSet> future = pollingStrategy.pollUntilCompletedAsync((Instant deadline) -> failedPoll, clock.instant().plus(Duration.ofSeconds(30)), scheduler).toCompletableFuture();
+            ExecutionException e = assertThrows(ExecutionException.class, future::get);
+            assertTrue(e.getCause() instanceof SQLException);
+        }
+    }
 }
@@ -0,0 +1,175 @@
+package io.burt.athena.polling;
+
+import io.burt.athena.support.TestClock;
+import io.burt.athena.support.TestNameGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.athena.model.QueryExecution;
+import software.amazon.awssdk.services.athena.model.QueryExecutionState;
+
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayNameGeneration(TestNameGenerator.class)
+class PredictivePollingStrategyTest {
+    private TestClock clock;
+    private List<Long> sleeps;
+    private PredictivePollingStrategy pollingStrategy;
+    private ScheduledExecutorService scheduler;
+
+    @BeforeEach
+    void setUp() {
+        clock = new TestClock();
+        sleeps = new ArrayList<>();
+        Sleeper sleeper = duration -> {
+            sleeps.add(duration.toMillis());
+            clock.tick(duration);
+        };
+        pollingStrategy = new PredictivePollingStrategy(Duration.ofMillis(10), Duration.ofSeconds(5), sleeper, clock);
+        scheduler = mock(ScheduledExecutorService.class);
+        lenient().when(scheduler.schedule(any(Runnable.class), anyLong(), any())).thenAnswer(invocation -> {
+            clock.tick(Duration.ofMillis((Long) invocation.getArgument(1)));
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        });
+    }
+
+    private static QueryExecution succeeded(long queueMillis, long executionMillis) {
+        return QueryExecution
+                .builder()
+                .status(b -> b.state(QueryExecutionState.SUCCEEDED))
+                .statistics(b -> b.queryQueueTimeInMillis(queueMillis).engineExecutionTimeInMillis(executionMillis))
+                .build();
+    }
+
+    private static PollingCallback completesAfter(int polls) {
+        AtomicInteger counter = new AtomicInteger(0);
+        return (Instant deadline) -> {
+            if (counter.getAndIncrement() == polls) {
+                return Optional.of(mock(ResultSet.class));
+            } else {
+                return Optional.empty();
+            }
+        };
+    }
+
+    private void poll(String sql, int polls) throws Exception {
+        pollingStrategy.forQuery(sql).pollUntilCompleted(completesAfter(polls), clock.instant().plus(Duration.ofMinutes(1)));
+    }
+
+    @Nested
+    class Fingerprint {
+        @Test
+        void replacesLiteralsAndNormalizesWhitespaceAndCase() {
+            String sql = "SELECT *\n  FROM t1\tWHERE a = 'it''s' AND b > 42.5";
+            assertEquals("select * from t1 where a = ? and b > ?", PredictivePollingStrategy.fingerprint(sql));
+        }
+    }
+
+    @Nested
+    class PollUntilCompleted {
+        @Test
+        void backsOffFromTheMinDelayWhenTheQueryHasNoHistory() throws Exception {
+            poll("SELECT 1", 5);
+            assertEquals(Arrays.asList(10L, 20L, 40L, 80L, 160L), sleeps);
+        }
+
+        @Test
+        void pollsRarelyBeforeAndOftenAroundThePredictedFinishTime() throws Exception {
+            pollingStrategy.forQuery("SELECT 1").recordCompletion(succeeded(1000, 9000));
+            poll("SELECT 1", 5);
+            assertEquals(Arrays.asList(5000L, 4000L, 250L, 250L, 250L), sleeps);
+        }
+
+        @Test
+        void backsOffAgainWhenTheQueryRunsPastThePredictedFinishTime() throws Exception {
+            pollingStrategy.forQuery("SELECT 1").recordCompletion(succeeded(0, 1000));
+            poll("SELECT 1", 12);
+            assertEquals(Arrays.asList(900L, 25L, 25L, 25L, 25L, 25L, 25L, 25L, 25L, 25L, 50L, 100L), sleeps);
+        }
+
+        @Test
+        void movesThePredictionTowardsNewerExecutions() throws Exception {
+            pollingStrategy.forQuery("SELECT 1").recordCompletion(succeeded(0, 1000));
+            pollingStrategy.forQuery("SELECT 1").recordCompletion(succeeded(0, 2000));
+            poll("SELECT 1", 2);
+            assertEquals(Arrays.asList(1000L, 75L), sleeps);
+        }
+
+        @Test
+        void sharesTheHistoryOfQueriesThatOnlyDifferInTheirLiterals() throws Exception {
+            pollingStrategy.forQuery("SELECT * FROM t WHERE id = 1").recordCompletion(succeeded(1000, 9000));
+            poll("SELECT * FROM t WHERE id = 2", 1);
+            assertEquals(Arrays.asList(5000L), sleeps);
+        }
+
+        @Test
+        void doesNotShareTheHistoryOfDifferentQueries() throws Exception {
+            pollingStrategy.forQuery("SELECT a FROM t").recordCompletion(succeeded(1000, 9000));
+            poll("SELECT b FROM t", 2);
+            assertEquals(Arrays.asList(10L, 20L), sleeps);
+        }
+
+        @Test
+        void ignoresQueryExecutionsWithoutStatistics() throws Exception {
+            pollingStrategy.forQuery("SELECT 1").recordCompletion(QueryExecution.builder().build());
+            poll("SELECT 1", 2);
+            assertEquals(Arrays.asList(10L, 20L), sleeps);
+        }
+    }
+
+    @Nested
+    class PollUntilCompletedAsync {
+        @Captor ArgumentCaptor<Long> delayCaptor;
+
+        @Test
+        void completesWithTheResultSet() throws Exception {
+            ResultSet rs1 = mock(ResultSet.class);
+            ResultSet rs2 = ((AsyncPollingStrategy) pollingStrategy.forQuery("SELECT 1")).pollUntilCompletedAsync((Instant deadline) -> CompletableFuture.completedFuture(Optional.of(rs1)), clock.instant().plus(Duration.ofMinutes(1)), scheduler).toCompletableFuture().get();
+            assertSame(rs1, rs2);
+        }
+
+        @Test
+        void schedulesThePollsAroundThePredictedFinishTime() throws Exception {
+            PollingStrategy queryPollingStrategy = pollingStrategy.forQuery("SELECT 1");
+            queryPollingStrategy.recordCompletion(succeeded(1000, 9000));
+            AtomicInteger counter = new AtomicInteger(0);
+            ((AsyncPollingStrategy) queryPollingStrategy).pollUntilCompletedAsync((Instant deadline) -> {
+                if (counter.getAndIncrement() == 4) {
+                    return CompletableFuture.completedFuture(Optional.of(mock(ResultSet.class)));
+                } else {
+                    return CompletableFuture.completedFuture(Optional.empty());
+                }
+            }, clock.instant().plus(Duration.ofMinutes(1)), scheduler).toCompletableFuture().get();
+            verify(scheduler, times(4)).schedule(any(Runnable.class), delayCaptor.capture(), eq(TimeUnit.MILLISECONDS));
+            assertEquals(Arrays.asList(5000L, 4000L, 250L, 250L), delayCaptor.getAllValues());
+            assertEquals(0, sleeps.size());
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package io.burt.athena.result;
+
+import io.burt.athena.result.s3.S3Downloader;
+import io.burt.athena.support.GetObjectHelper;
+import io.burt.athena.support.GetQueryResultsHelper;
+import io.burt.athena.support.TestNameGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.athena.model.ColumnInfo;
+import software.amazon.awssdk.services.athena.model.QueryExecution;
+import software.amazon.awssdk.services.athena.model.Row;
+import software.amazon.awssdk.services.athena.model.StatementType;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static io.burt.athena.support.GetQueryResultsHelper.createColumn;
+import static io.burt.athena.support.GetQueryResultsHelper.createRow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayNameGeneration(TestNameGenerator.class)
+class AutoResultTest {
+    private GetQueryResultsHelper queryResultsHelper;
+    private GetObjectHelper getObjectHelper;
+    private AutoResult result;
+
+    @BeforeEach
+    void setUp() {
+        queryResultsHelper = new GetQueryResultsHelper();
+        getObjectHelper = new GetObjectHelper();
+        result = createResult(StatementType.DML);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        result.close();
+        getObjectHelper.close();
+    }
+
+    private AutoResult createResult(StatementType statementType) {
+        QueryExecution queryExecution = QueryExecution
+                .builder()
+                .queryExecutionId("Q1234")
+                .statementType(statementType)
+                .resultConfiguration(b -> b.outputLocation("s3://some-bucket/the/prefix/Q1234.csv"))
+                .build();
+        return new AutoResult(queryResultsHelper, new S3Downloader(getObjectHelper), queryExecution, Duration.ofSeconds(1), null, false);
+    }
+
+    private static byte[] createMetadata(List<ColumnInfo> columns) {
+        ByteBuffer outerBuffer = ByteBuffer.allocate(1 << 12);
+        outerBuffer.put((byte) (1 << 3 | 2));
+        outerBuffer.put((byte) 5);
+        outerBuffer.put("fnord".getBytes(StandardCharsets.UTF_8));
+        for (ColumnInfo column : columns) {
+            ByteBuffer innerBuffer = ByteBuffer.allocate(1 << 8);
+            innerBuffer.put((byte) (5 << 3 | 2));
+            innerBuffer.put((byte) column.label().length());
+            innerBuffer.put(column.label().getBytes(StandardCharsets.UTF_8));
+            innerBuffer.put((byte) (6 << 3 | 2));
+            innerBuffer.put((byte) column.type().length());
+            innerBuffer.put(column.type().getBytes(StandardCharsets.UTF_8));
+            ((Buffer) innerBuffer).flip();
+            outerBuffer.put((byte) (4 << 3 | 2));
+            outerBuffer.put((byte) innerBuffer.remaining());
+            outerBuffer.put(innerBuffer);
+        }
+        ((Buffer) outerBuffer).flip();
+        byte[] bytes = new byte[outerBuffer.remaining()];
+        outerBuffer.get(bytes);
+        return bytes;
+    }
+
+    private void createData(int rowCount, int padding) {
+        List<ColumnInfo> columns = Arrays.asList(
+                createColumn("col1", "string"),
+                createColumn("col2", "integer")
+        );
+        List<Row> rows = new ArrayList<>(rowCount);
+        StringBuilder csv = new StringBuilder("\"col1\",\"col2\"\n");
+        for (int i = 1; i <= rowCount; i++) {
+            rows.add(createRow("row" + i, String.valueOf(i)));
+            csv.append("\"row").append(i).append("\",\"").append(i).append("\"\n");
+        }
+        for (int i = 0; i < padding; i++) {
+            csv.append("\"pad\",\"0\"\n");
+        }
+        queryResultsHelper.update(columns, rows);
+        getObjectHelper.setObject("some-bucket", "the/prefix/Q1234.csv.metadata", createMetadata(columns));
+        getObjectHelper.setObject("some-bucket", "the/prefix/Q1234.csv", csv.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Nested
+    class Next {
+        @Test
+        void loadsSmallResultsWithGetQueryResults() throws Exception {
+            createData(3, 0);
+            result.next();
+            assertEquals("row1", result.getString(1));
+            assertEquals(1, getObjectHelper.headObjectRequests().size());
+            assertTrue(getObjectHelper.getObjectRequests().isEmpty());
+            assertEquals(1, queryResultsHelper.requestCount());
+        }
+
+        @Test
+        void downloadsLargerResultsFromS3() throws Exception {
+            createData(3, 30000);
+            result.next();
+            assertEquals("row1", result.getString(1));
+            assertEquals(0, queryResultsHelper.requestCount());
+            assertNull(getObjectHelper.getObjectRequests().get(0).range());
+        }
+
+        @Test
+        void downloadsTheLargestResultsInParallelParts() throws Exception {
+            getObjectHelper.setObject("some-bucket", "the/prefix/Q1234.csv.metadata", createMetadata(Arrays.asList(createColumn("col1", "string"))));
+            getObjectHelper.setObject("some-bucket", "the/prefix/Q1234.csv", new byte[(int) AutoResult.MIN_RANGED_DOWNLOAD_SIZE]);
+            result.getMetaData();
+            assertTrue(getObjectHelper.getObjectRequests().stream().anyMatch(r -> "bytes=0-8388607".equals(r.range())));
+        }
+
+        @Test
+        void loadsResultsOfStatementsThatAreNotQueriesWithoutLookingUpTheirSize() throws Exception {
+            result = createResult(StatementType.DDL);
+            createData(3, 30000);
+            result.next();
+            assertEquals("row1", result.getString(1));
+            assertTrue(getObjectHelper.headObjectRequests().isEmpty());
+            assertTrue(getObjectHelper.getObjectRequests().isEmpty());
+        }
+
+        @Test
+        void loadsResultsWithGetQueryResultsWhenTheSizeCannotBeLookedUp() throws Exception {
+            createData(3, 0);
+            getObjectHelper.removeObject("some-bucket", "the/prefix/Q1234.csv");
+            result.next();
+            assertEquals("row1", result.getString(1));
+            assertEquals(1, queryResultsHelper.requestCount());
+        }
+    }
+
+    @Nested
+    class GetString {
+        @Test
+        void throwsWhenNextHasNotBeenCalled() {
+            assertThrows(SQLException.class, () -> result.getString(1));
+            assertThrows(SQLException.class, () -> result.isNull(1));
+            assertThrows(SQLException.class, () -> result.getInt(1));
+            assertThrows(SQLException.class, () -> result.getLong(1));
+            assertThrows(SQLException.class, () -> result.getDouble(1));
+        }
+
+        @Test
+        void returnsTheValueOfTheCurrentRow() throws Exception {
+            createData(3, 0);
+            result.next();
+            result.next();
+            assertEquals("row2", result.getString(1));
+            assertEquals(2, result.getInt(2));
+        }
+    }
+
+    @Nested
+    class SetFetchSize {
+        @Test
+        void setsTheFetchSizeOfGetQueryResults() throws Exception {
+            createData(3, 0);
+            result.setFetchSize(77);
+            result.next();
+            assertEquals(77, queryResultsHelper.pageSizes().get(0));
+        }
+
+        @Test
+        void throwsWhenTheFetchSizeIsTooLarge() {
+            assertThrows(SQLException.class, () -> result.setFetchSize(1001));
+        }
+    }
+
+    @Nested
+    class GetPosition {
+        @Test
+        void isBeforeFirstWithoutLoadingAnything() throws Exception {
+            assertEquals(ResultPosition.BEFORE_FIRST, result.getPosition());
+            assertEquals(0, result.getRowNumber());
+            assertTrue(getObjectHelper.headObjectRequests().isEmpty());
+        }
+    }
+}
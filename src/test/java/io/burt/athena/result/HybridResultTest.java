@@ -0,0 +1,175 @@
+package io.burt.athena.result;
+
+import io.burt.athena.support.GetObjectHelper;
+import io.burt.athena.support.GetQueryResultsHelper;
+import io.burt.athena.support.TestNameGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.athena.model.ColumnInfo;
+import software.amazon.awssdk.services.athena.model.QueryExecution;
+import software.amazon.awssdk.services.athena.model.Row;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static io.burt.athena.support.GetQueryResultsHelper.createColumn;
+import static io.burt.athena.support.GetQueryResultsHelper.createRow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayNameGeneration(TestNameGenerator.class)
+class HybridResultTest {
+    private GetQueryResultsHelper queryResultsHelper;
+    private GetObjectHelper getObjectHelper;
+    private HybridResult result;
+
+    @BeforeEach
+    void setUp() {
+        QueryExecution queryExecution = QueryExecution
+                .builder()
+                .queryExecutionId("Q1234")
+                .resultConfiguration(b -> b.outputLocation("s3://some-bucket/the/prefix/Q1234.csv"))
+                .build();
+        queryResultsHelper = new GetQueryResultsHelper();
+        getObjectHelper = new GetObjectHelper();
+        S3Result s3Result = new S3Result(getObjectHelper, queryExecution, Duration.ofSeconds(1));
+        result = new HybridResult(queryResultsHelper, s3Result, queryExecution, Duration.ofSeconds(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        getObjectHelper.close();
+    }
+
+    private static byte[] createMetadata(List<ColumnInfo> columns) {
+        ByteBuffer outerBuffer = ByteBuffer.allocate(1 << 12);
+        outerBuffer.put((byte) (1 << 3 | 2));
+        outerBuffer.put((byte) 5);
+        outerBuffer.put("fnord".getBytes(StandardCharsets.UTF_8));
+        for (ColumnInfo column : columns) {
+            ByteBuffer innerBuffer = ByteBuffer.allocate(1 << 8);
+            innerBuffer.put((byte) (5 << 3 | 2));
+            innerBuffer.put((byte) column.label().length());
+            innerBuffer.put(column.label().getBytes(StandardCharsets.UTF_8));
+            innerBuffer.put((byte) (6 << 3 | 2));
+            innerBuffer.put((byte) column.type().length());
+            innerBuffer.put(column.type().getBytes(StandardCharsets.UTF_8));
+            ((Buffer) innerBuffer).flip();
+            outerBuffer.put((byte) (4 << 3 | 2));
+            outerBuffer.put((byte) innerBuffer.remaining());
+            outerBuffer.put(innerBuffer);
+        }
+        ((Buffer) outerBuffer).flip();
+        byte[] bytes = new byte[outerBuffer.remaining()];
+        outerBuffer.get(bytes);
+        return bytes;
+    }
+
+    private void createData(int rowCount) {
+        List<ColumnInfo> columns = Arrays.asList(
+                createColumn("col1", "string"),
+                createColumn("col2", "integer")
+        );
+        List<Row> rows = new ArrayList<>(rowCount);
+        StringBuilder csv = new StringBuilder("\"col1\",\"col2\"\n");
+        for (int i = 1; i <= rowCount; i++) {
+            rows.add(createRow("row" + i, String.valueOf(i)));
+            csv.append("\"row").append(i).append("\",\"").append(i).append("\"\n");
+        }
+        queryResultsHelper.update(columns, rows);
+        getObjectHelper.setObject("some-bucket", "the/prefix/Q1234.csv.metadata", createMetadata(columns));
+        getObjectHelper.setObject("some-bucket", "the/prefix/Q1234.csv", csv.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Nested
+    class Next {
+        @Test
+        void readsResultsThatFitInOnePageFromThePage() throws Exception {
+            createData(3);
+            List<String> values = new ArrayList<>();
+            while (result.next()) {
+                values.add(result.getString(1));
+            }
+            assertEquals(Arrays.asList("row1", "row2", "row3"), values);
+            assertTrue(getObjectHelper.getObjectRequests().isEmpty());
+        }
+
+        @Test
+        void readsTheRowsAfterTheFirstPageFromS3() throws Exception {
+            createData(2500);
+            List<Integer> values = new ArrayList<>();
+            while (result.next()) {
+                values.add(result.getInt(2));
+                assertEquals(values.size(), result.getRowNumber());
+            }
+            assertEquals(2500, values.size());
+            for (int i = 0; i < values.size(); i++) {
+                assertEquals(i + 1, values.get(i));
+            }
+            assertEquals(1, queryResultsHelper.requestCount());
+        }
+
+        @Test
+        void startsTheDownloadWhileTheFirstPageIsRead() throws Exception {
+            createData(2500);
+            result.next();
+            assertEquals("row1", result.getString(1));
+            assertFalse(getObjectHelper.getObjectRequests().isEmpty());
+        }
+    }
+
+    @Nested
+    class GetMetaData {
+        @Test
+        void returnsTheMetaDataOfTheFirstPage() throws Exception {
+            createData(3);
+            assertEquals("col2", result.getMetaData().getColumnLabel(2));
+            assertTrue(getObjectHelper.getObjectRequests().isEmpty());
+        }
+    }
+
+    @Nested
+    class GetPosition {
+        @Test
+        void returnsTheLastPositionAfterSwitchingToS3() throws Exception {
+            createData(1500);
+            while (result.getPosition() != ResultPosition.LAST) {
+                assertTrue(result.next());
+            }
+            assertEquals(1500, result.getRowNumber());
+            assertFalse(result.next());
+            assertEquals(ResultPosition.AFTER_LAST, result.getPosition());
+        }
+    }
+
+    @Nested
+    class TransferTo {
+        @Test
+        void writesTheRowsFromS3() throws Exception {
+            createData(3);
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            result.transferTo(Channels.newChannel(output));
+            assertEquals("\"row1\",\"1\"\n\"row2\",\"2\"\n\"row3\",\"3\"\n", new String(output.toByteArray(), StandardCharsets.UTF_8));
+        }
+
+        @Test
+        void throwsWhenRowsHaveBeenRead() throws Exception {
+            createData(3);
+            result.next();
+            assertThrows(SQLException.class, () -> result.transferTo(Channels.newChannel(new ByteArrayOutputStream())));
+        }
+    }
+}
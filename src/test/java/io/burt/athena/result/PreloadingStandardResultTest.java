@@ -1,13 +1,33 @@
 package io.burt.athena.result;
 
+import io.burt.athena.support.GetQueryResultsHelper;
 import io.burt.athena.support.TestNameGenerator;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 import software.amazon.awssdk.services.athena.AthenaAsyncClient;
+import software.amazon.awssdk.services.athena.model.GetQueryResultsRequest;
+import software.amazon.awssdk.services.athena.model.GetQueryResultsResponse;
 import software.amazon.awssdk.services.athena.model.QueryExecution;
+import software.amazon.awssdk.services.athena.model.Row;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static io.burt.athena.support.GetQueryResultsHelper.createColumn;
+import static io.burt.athena.support.GetQueryResultsHelper.createRow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @ExtendWith(MockitoExtension.class)
 @DisplayNameGeneration(TestNameGenerator.class)
@@ -16,4 +36,101 @@ class PreloadingStandardResultTest extends StandardResultTest {
         QueryExecution queryExecution = QueryExecution.builder().queryExecutionId("Q1234").build();
         return new PreloadingStandardResult(athenaClient, queryExecution, 123, Duration.ofMillis(10));
     }
+
+    @Nested
+    class Prefetching {
+        private static final int PAGE_COUNT = 20;
+
+        private AtomicLong nanoTime;
+        private GetQueryResultsHelper pagesHelper;
+
+        @BeforeEach
+        void setUp() {
+            nanoTime = new AtomicLong(0);
+            pagesHelper = new GetQueryResultsHelper() {
+                @Override
+                public CompletableFuture<GetQueryResultsResponse> getQueryResults(Consumer<GetQueryResultsRequest.Builder> requestBuilderConsumer) {
+                    nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(10));
+                    return super.getQueryResults(requestBuilderConsumer);
+                }
+            };
+            List<Row> rows = new ArrayList<>(PAGE_COUNT * 10 - 1);
+            for (int i = 0; i < PAGE_COUNT * 10 - 1; i++) {
+                rows.add(createRow("row" + i));
+            }
+            pagesHelper.update(Arrays.asList(createColumn("col1", "string")), rows);
+        }
+
+        private PreloadingStandardResult createPrefetchingResult(int maxPrefetchDepth) {
+            QueryExecution queryExecution = QueryExecution.builder().queryExecutionId("Q1234").build();
+            return new PreloadingStandardResult(pagesHelper, queryExecution, 10, Duration.ofSeconds(1), maxPrefetchDepth, nanoTime::get);
+        }
+
+        /**
+         * Reads the rest of the current page and the first row of the next,
+         * which makes the result take the next page. The first page also
+         * contains the header row.
+         */
+        private void readPage(PreloadingStandardResult result, int page) throws Exception {
+            for (int row = page == 1 ? 1 : 0; row < 10; row++) {
+                result.next();
+            }
+        }
+
+        @Test
+        void requiresAPositiveMaxPrefetchDepth() {
+            assertThrows(IllegalArgumentException.class, () -> createPrefetchingResult(0));
+        }
+
+        @Test
+        void requestsTheNextPageBeforeTheReaderGetsToIt() throws Exception {
+            PreloadingStandardResult result = createPrefetchingResult(1);
+            result.next();
+            assertEquals(2, pagesHelper.requestCount());
+        }
+
+        @Test
+        void neverLoadsMoreThanTheMaxPrefetchDepthAhead() throws Exception {
+            PreloadingStandardResult result = createPrefetchingResult(2);
+            for (int page = 1; page <= PAGE_COUNT; page++) {
+                readPage(result, page);
+                assertTrue(pagesHelper.requestCount() - page <= 2);
+            }
+        }
+
+        @Test
+        void deepensThePrefetchingWhenPagesTakeLongerToLoadThanToRead() throws Exception {
+            PreloadingStandardResult result = createPrefetchingResult(4);
+            for (int page = 1; page <= 3; page++) {
+                readPage(result, page);
+            }
+            assertEquals(2, result.getPrefetchDepth());
+        }
+
+        @Test
+        void keepsThePipelineFullWhileThePagesAreRead() throws Exception {
+            PreloadingStandardResult result = createPrefetchingResult(4);
+            List<Integer> depths = new ArrayList<>();
+            List<Integer> pagesAhead = new ArrayList<>();
+            for (int page = 1; page <= PAGE_COUNT; page++) {
+                depths.add(Math.min(result.getPrefetchDepth(), PAGE_COUNT - page));
+                readPage(result, page);
+                pagesAhead.add(pagesHelper.requestCount() - page);
+            }
+            assertEquals(depths, pagesAhead);
+            assertTrue(depths.stream().anyMatch(depth -> depth > 1));
+        }
+
+        @Test
+        void readsAllPagesInOrder() throws Exception {
+            PreloadingStandardResult result = createPrefetchingResult(4);
+            List<String> values = new ArrayList<>();
+            while (result.next()) {
+                values.add(result.getString(1));
+            }
+            assertEquals(PAGE_COUNT * 10 - 1, values.size());
+            assertEquals("row0", values.get(0));
+            assertEquals("row198", values.get(PAGE_COUNT * 10 - 2));
+        }
+    }
 }
@@ -1,5 +1,8 @@
 package io.burt.athena.result;
 
+import io.burt.athena.result.s3.BufferPool;
+import io.burt.athena.result.s3.MemoryBudget;
+import io.burt.athena.result.s3.S3Downloader;
 import io.burt.athena.support.GetObjectHelper;
 import io.burt.athena.support.TestNameGenerator;
 import org.junit.jupiter.api.AfterEach;
@@ -15,32 +18,39 @@ import software.amazon.awssdk.services.athena.model.QueryExecution;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.nio.charset.StandardCharsets;
 import java.sql.SQLException;
 import java.sql.SQLTimeoutException;
 import java.text.ParseException;
 import java.time.Duration;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
 
 import static io.burt.athena.support.GetQueryResultsHelper.createColumn;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @DisplayNameGeneration(TestNameGenerator.class)
 class S3ResultTest {
     private GetObjectHelper getObjectHelper;
+    private QueryExecution queryExecution;
     private S3Result result;
     private String previousFileEncoding;
 
@@ -48,13 +58,13 @@ class S3ResultTest {
     void setUp() {
         previousFileEncoding = System.getProperty("file.encoding");
         System.setProperty("file.encoding", "ascii");
-        QueryExecution queryExecution = QueryExecution
+        queryExecution = QueryExecution
                 .builder()
                 .queryExecutionId("Q1234")
                 .resultConfiguration(b -> b.outputLocation("s3://some-bucket/the/prefix/Q1234.csv"))
                 .build();
         getObjectHelper = new GetObjectHelper();
-        result = new S3Result(getObjectHelper, queryExecution, Duration.ofMillis(10));
+        result = new S3Result(getObjectHelper, queryExecution, Duration.ofMillis(200));
     }
 
     @AfterEach
@@ -283,6 +293,414 @@ class S3ResultTest {
             assertEquals("3", result.getString(2));
         }
 
+        @Test
+        void parsesNumbersFromTheResultObject() throws Exception {
+            result.next();
+            result.next();
+            assertFalse(result.isNull(2));
+            assertEquals(2, result.getInt(2));
+            assertEquals(2L, result.getLong(2));
+            assertEquals(2.0, result.getDouble(2));
+            assertThrows(NumberFormatException.class, () -> result.getInt(1));
+        }
+
+        @Nested
+        class WhenDownloadingInParallelParts {
+            @BeforeEach
+            void setUp() {
+                result = new S3Result(new S3Downloader(getObjectHelper, 3, 8), queryExecution, Duration.ofMillis(200));
+            }
+
+            @Test
+            void parsesTheResultObject() throws Exception {
+                result.next();
+                assertEquals("row1", result.getString(1));
+                assertEquals("1", result.getString(2));
+                result.next();
+                assertEquals("row2", result.getString(1));
+                assertEquals("2", result.getString(2));
+                result.next();
+                assertEquals("row\u2603", result.getString(1));
+                assertEquals("3", result.getString(2));
+                assertFalse(result.next());
+            }
+
+            @Test
+            void keepsTheCurrentRowWhenLookingAhead() throws Exception {
+                result.next();
+                result.next();
+                assertEquals(ResultPosition.MIDDLE, result.getPosition());
+                assertEquals("row2", result.getString(1));
+                assertEquals("2", result.getString(2));
+            }
+
+            @Test
+            void requestsTheResultObjectInByteRanges() throws Exception {
+                while (result.next()) { }
+                List<String> ranges = getObjectHelper.getObjectRequests().stream().filter(r -> r.key().endsWith(".csv")).map(GetObjectRequest::range).sorted(Comparator.comparingInt(r -> Integer.parseInt(r.substring(6, r.indexOf('-'))))).collect(Collectors.toList());
+                assertEquals(Arrays.asList("bytes=0-7", "bytes=8-15", "bytes=16-23", "bytes=24-31", "bytes=32-39", "bytes=40-47", "bytes=48-48"), ranges);
+            }
+
+            @Test
+            void doesNotUseRangesForTheMetaData() throws Exception {
+                result.next();
+                GetObjectRequest request = getObjectHelper.getObjectRequests().stream().filter(r -> r.key().endsWith(".metadata")).findFirst().get();
+                assertNull(request.range());
+            }
+
+            @Nested
+            class AndTheResultObjectIsEmpty {
+                @Test
+                void fallsBackToARegularRequest() throws Exception {
+                    getObjectHelper.setObject("some-bucket", "the/prefix/Q1234.csv", new byte[0]);
+                    assertFalse(result.next());
+                    List<GetObjectRequest> requests = getObjectHelper.getObjectRequests().stream().filter(r -> r.key().endsWith(".csv")).collect(Collectors.toList());
+                    assertEquals(2, requests.size());
+                    assertNull(requests.get(1).range());
+                }
+            }
+        }
+
+        @Nested
+        class WhenParsingAsTheBytesArrive {
+            @BeforeEach
+            void setUp() {
+                result = new S3Result(new S3Downloader(getObjectHelper), queryExecution, Duration.ofSeconds(1), true);
+            }
+
+            @Test
+            void parsesTheResultObject() throws Exception {
+                result.next();
+                assertEquals("row1", result.getString(1));
+                assertEquals(1, result.getInt(2));
+                result.next();
+                assertEquals("row2", result.getString(1));
+                assertEquals(2, result.getInt(2));
+                result.next();
+                assertEquals("row\u2603", result.getString(1));
+                assertEquals(3, result.getInt(2));
+                assertFalse(result.next());
+            }
+
+            @Test
+            void keepsTheCurrentRowWhenLookingAhead() throws Exception {
+                result.next();
+                result.next();
+                assertEquals(ResultPosition.MIDDLE, result.getPosition());
+                assertEquals("row2", result.getString(1));
+                assertEquals("2", result.getString(2));
+            }
+
+            @Test
+            void requestsTheResultObjectOnce() throws Exception {
+                while (result.next()) { }
+                List<GetObjectRequest> requests = getObjectHelper.getObjectRequests().stream().filter(r -> r.key().endsWith(".csv")).collect(Collectors.toList());
+                assertEquals(1, requests.size());
+                assertNull(requests.get(0).range());
+            }
+
+            @Test
+            void parsesLargeResultsWithoutExceedingTheMemoryBudget() throws Exception {
+                StringBuilder contents = new StringBuilder("\"col1\",\"col2\"\n");
+                for (int i = 0; i < 100000; i++) {
+                    contents.append("\"row").append(i).append("\",\"").append(i).append("\"\n");
+                }
+                getObjectHelper.setObject("some-bucket", "the/prefix/Q1234.csv", contents.toString().getBytes(StandardCharsets.UTF_8));
+                MemoryBudget budget = new MemoryBudget(1 << 20);
+                result = new S3Result(new S3Downloader(getObjectHelper, 1, S3Downloader.DEFAULT_PART_SIZE, budget), queryExecution, Duration.ofSeconds(1), true);
+                int count = 0;
+                while (result.next()) {
+                    assertEquals(count, result.getInt(2));
+                    count++;
+                }
+                assertEquals(100000, count);
+                assertEquals(0, budget.getUsed());
+            }
+
+            @Test
+            void throwsWhenTheResultIsNotValidCsv() {
+                getObjectHelper.setObject("some-bucket", "the/prefix/Q1234.csv", "\"col1\",\"col2\"\n\"a\",b\n".getBytes(StandardCharsets.UTF_8));
+                SQLException e = assertThrows(SQLException.class, () -> result.next());
+                assertTrue(e.getCause().getCause() instanceof ParseException);
+            }
+
+            @Test
+            void writesTheRowsWithoutTheHeaderWhenTransferring() throws Exception {
+                ByteArrayOutputStream output = new ByteArrayOutputStream();
+                long transferred = result.transferTo(Channels.newChannel(output));
+                String expected = "\"row1\",\"1\"\n\"row2\",\"2\"\n\"row\u2603\",\"3\"\n";
+                assertEquals(expected, new String(output.toByteArray(), StandardCharsets.UTF_8));
+                assertEquals(expected.getBytes(StandardCharsets.UTF_8).length, transferred);
+            }
+        }
+
+        @Nested
+        class WhenParsingInTheBackground {
+            private ExecutorService parserExecutor;
+
+            @BeforeEach
+            void setUp() {
+                parserExecutor = Executors.newSingleThreadExecutor();
+                result = new S3Result(new S3Downloader(getObjectHelper), queryExecution, Duration.ofSeconds(1), false, parserExecutor);
+            }
+
+            @AfterEach
+            void tearDown() {
+                parserExecutor.shutdownNow();
+            }
+
+            @Test
+            void parsesTheResultObject() throws Exception {
+                result.next();
+                assertEquals("row1", result.getString(1));
+                assertEquals(1, result.getInt(2));
+                result.next();
+                assertEquals("row2", result.getString(1));
+                result.next();
+                assertEquals("row\u2603", result.getString(1));
+                assertFalse(result.next());
+            }
+
+            @Test
+            void keepsTheCurrentRowWhenLookingAhead() throws Exception {
+                result.next();
+                result.next();
+                assertEquals(ResultPosition.MIDDLE, result.getPosition());
+                assertEquals("row2", result.getString(1));
+            }
+
+            @Test
+            void parsesResultsDownloadedInParallelParts() throws Exception {
+                result = new S3Result(new S3Downloader(getObjectHelper, 3, 8), queryExecution, Duration.ofSeconds(1), false, parserExecutor);
+                List<String> values = new ArrayList<>();
+                while (result.next()) {
+                    values.add(result.getString(1));
+                }
+                assertEquals(Arrays.asList("row1", "row2", "row\u2603"), values);
+            }
+
+            @Test
+            void throwsWhenTheResultIsNotValidCsv() {
+                getObjectHelper.setObject("some-bucket", "the/prefix/Q1234.csv", "\"col1\",\"col2\"\n\"a\",b\n".getBytes(StandardCharsets.UTF_8));
+                assertThrows(SQLException.class, () -> result.next());
+            }
+        }
+
+        @Nested
+        class WhenParsingInParallel {
+            private ExecutorService parserExecutor;
+
+            @BeforeEach
+            void setUp() {
+                parserExecutor = Executors.newFixedThreadPool(2);
+                result = new S3Result(new S3Downloader(getObjectHelper), queryExecution, Duration.ofSeconds(1), false, parserExecutor, true);
+            }
+
+            @AfterEach
+            void tearDown() {
+                parserExecutor.shutdownNow();
+            }
+
+            @Test
+            void parsesTheResultObject() throws Exception {
+                result.next();
+                assertEquals("row1", result.getString(1));
+                assertEquals(1, result.getInt(2));
+                result.next();
+                assertEquals("row2", result.getString(1));
+                result.next();
+                assertEquals("row\u2603", result.getString(1));
+                assertFalse(result.next());
+            }
+
+            @Test
+            void parsesResultsDownloadedInParallelParts() throws Exception {
+                result = new S3Result(new S3Downloader(getObjectHelper, 3, 8), queryExecution, Duration.ofSeconds(1), false, parserExecutor, true);
+                List<String> values = new ArrayList<>();
+                while (result.next()) {
+                    values.add(result.getString(1));
+                }
+                assertEquals(Arrays.asList("row1", "row2", "row\u2603"), values);
+            }
+
+            @Test
+            void throwsWhenTheResultIsNotValidCsv() {
+                getObjectHelper.setObject("some-bucket", "the/prefix/Q1234.csv", "\"col1\",\"col2\"\n\"a\",b\n".getBytes(StandardCharsets.UTF_8));
+                assertThrows(SQLException.class, () -> result.next());
+            }
+        }
+
+        @Nested
+        class WhenTheConnectionBreaksDuringTheDownload {
+            private List<GetObjectRequest> resultRequests() {
+                return getObjectHelper.getObjectRequests().stream().filter(r -> r.key().endsWith(".csv")).collect(Collectors.toList());
+            }
+
+            @Test
+            void resumesFromTheFirstByteThatWasNotRead() throws Exception {
+                getObjectHelper.interruptObject("some-bucket", "the/prefix/Q1234.csv", 20, 1);
+                result = new S3Result(getObjectHelper, queryExecution, Duration.ofSeconds(1));
+                List<String> values = new ArrayList<>();
+                while (result.next()) {
+                    values.add(result.getString(1));
+                }
+                assertEquals(Arrays.asList("row1", "row2", "row\u2603"), values);
+                assertEquals(2, resultRequests().size());
+                assertEquals("bytes=20-", resultRequests().get(1).range());
+            }
+
+            @Test
+            void requiresTheObjectToBeUnchanged() throws Exception {
+                getObjectHelper.interruptObject("some-bucket", "the/prefix/Q1234.csv", 20, 1);
+                result = new S3Result(getObjectHelper, queryExecution, Duration.ofSeconds(1));
+                while (result.next()) { }
+                assertNull(resultRequests().get(0).ifMatch());
+                assertNotNull(resultRequests().get(1).ifMatch());
+                assertEquals(resultRequests().get(1).ifMatch(), GetObjectHelper.eTag("\"col1\",\"col2\"\n\"row1\",\"1\"\n\"row2\",\"2\"\n\"row\u2603\",\"3\"\n".getBytes(StandardCharsets.UTF_8)));
+            }
+
+            @Test
+            void resumesAtMostALimitedNumberOfTimes() {
+                getObjectHelper.interruptObject("some-bucket", "the/prefix/Q1234.csv", 5, S3Downloader.MAX_RESUME_ATTEMPTS + 1);
+                result = new S3Result(getObjectHelper, queryExecution, Duration.ofSeconds(1));
+                assertThrows(SQLException.class, () -> result.next());
+                assertEquals(S3Downloader.MAX_RESUME_ATTEMPTS + 1, resultRequests().size());
+            }
+
+            @Test
+            void failsWhenTheResumedRequestDoesNotRespondInTime() {
+                getObjectHelper.interruptObject("some-bucket", "the/prefix/Q1234.csv", 20, 1);
+                getObjectHelper.delayObject("some-bucket", "the/prefix/Q1234.csv", Duration.ofMillis(100));
+                result = new S3Result(new S3Downloader(getObjectHelper).withResumeTimeout(Duration.ofMillis(10)), queryExecution, Duration.ofSeconds(1));
+                Exception e = assertThrows(SQLException.class, () -> {
+                    while (result.next()) { }
+                });
+                assertTrue(e.getCause() instanceof IOException);
+                assertEquals(2, resultRequests().size());
+            }
+
+            @Test
+            void resumesPartsOfParallelDownloads() throws Exception {
+                getObjectHelper.interruptObject("some-bucket", "the/prefix/Q1234.csv", 4, 2);
+                result = new S3Result(new S3Downloader(getObjectHelper, 3, 8), queryExecution, Duration.ofSeconds(1));
+                List<String> values = new ArrayList<>();
+                while (result.next()) {
+                    values.add(result.getString(1));
+                }
+                assertEquals(Arrays.asList("row1", "row2", "row\u2603"), values);
+            }
+
+            @Test
+            void failsInsteadOfEndingTheResultWhenParsingAsTheBytesArrive() throws Exception {
+                getObjectHelper.interruptObject("some-bucket", "the/prefix/Q1234.csv", 30, 1);
+                result = new S3Result(new S3Downloader(getObjectHelper), queryExecution, Duration.ofSeconds(1), true);
+                result.startDownload();
+                Thread.sleep(100);
+                List<String> values = new ArrayList<>();
+                Exception e = assertThrows(SQLException.class, () -> {
+                    while (result.next()) {
+                        values.add(result.getString(1));
+                    }
+                });
+                assertTrue(e.getCause() instanceof IOException);
+                assertTrue(values.size() < 3);
+            }
+        }
+
+        @Nested
+        class WhenTheMemoryBudgetIsSmallerThanTheResult {
+            private class PeakTrackingMemoryBudget extends MemoryBudget {
+                long peak = 0;
+
+                PeakTrackingMemoryBudget(long capacity) {
+                    super(capacity);
+                }
+
+                @Override
+                public synchronized void acquire(long bytes) {
+                    super.acquire(bytes);
+                    peak = Math.max(peak, getUsed());
+                }
+            }
+
+            private PeakTrackingMemoryBudget budget;
+
+            @BeforeEach
+            void setUp() {
+                budget = new PeakTrackingMemoryBudget(16);
+                result = new S3Result(new S3Downloader(getObjectHelper, 1, S3Downloader.DEFAULT_PART_SIZE, budget), queryExecution, Duration.ofSeconds(1));
+            }
+
+            @Test
+            void parsesTheResultObject() throws Exception {
+                List<String> values = new ArrayList<>();
+                while (result.next()) {
+                    values.add(result.getString(1));
+                }
+                assertEquals(Arrays.asList("row1", "row2", "row\u2603"), values);
+            }
+
+            @Test
+            void buffersNoMoreThanTheBudgetAllows() throws Exception {
+                while (result.next()) { }
+                assertTrue(budget.peak > 0);
+                assertTrue(budget.peak <= budget.getCapacity());
+            }
+
+            @Test
+            void releasesTheMemoryWhenTheResultHasBeenRead() throws Exception {
+                while (result.next()) { }
+                result.close();
+                assertEquals(0, budget.getUsed());
+            }
+
+            @Test
+            void sharesTheBudgetWithParallelParts() throws Exception {
+                result = new S3Result(new S3Downloader(getObjectHelper, 3, 8, budget), queryExecution, Duration.ofSeconds(1));
+                List<String> values = new ArrayList<>();
+                while (result.next()) {
+                    values.add(result.getString(1));
+                }
+                assertEquals(Arrays.asList("row1", "row2", "row\u2603"), values);
+                result.close();
+                assertEquals(0, budget.getUsed());
+            }
+        }
+
+        @Nested
+        class WhenTheResultIsCopiedIntoPooledBuffers {
+            private BufferPool bufferPool;
+
+            @BeforeEach
+            void setUp() {
+                bufferPool = new BufferPool(32, 16);
+                result = new S3Result(new S3Downloader(getObjectHelper, 1, S3Downloader.DEFAULT_PART_SIZE, MemoryBudget.unlimited(), bufferPool), queryExecution, Duration.ofSeconds(1));
+            }
+
+            @Test
+            void parsesTheResultObject() throws Exception {
+                List<String> values = new ArrayList<>();
+                while (result.next()) {
+                    values.add(result.getString(1) + result.getString(2));
+                }
+                assertEquals(Arrays.asList("row11", "row22", "row\u26033"), values);
+            }
+
+            @Test
+            void givesTheBuffersBackToThePool() throws Exception {
+                while (result.next()) { }
+                assertTrue(bufferPool.getPooledBufferCount() > 0);
+            }
+
+            @Test
+            void transfersTheResultObject() throws Exception {
+                ByteArrayOutputStream output = new ByteArrayOutputStream();
+                result.transferTo(Channels.newChannel(output));
+                assertEquals("\"row1\",\"1\"\n\"row2\",\"2\"\n\"row\u2603\",\"3\"\n", new String(output.toByteArray(), StandardCharsets.UTF_8));
+                assertTrue(bufferPool.getPooledBufferCount() > 0);
+            }
+        }
+
         @Nested
         class WhenTheResultObjectIsNotFound {
             @Test
@@ -397,6 +815,72 @@ class S3ResultTest {
         }
     }
 
+    @Nested
+    class TransferTo {
+        @BeforeEach
+        void setUp() {
+            createData();
+            result = new S3Result(getObjectHelper, queryExecution, Duration.ofSeconds(1));
+        }
+
+        private String transfer() throws Exception {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            result.transferTo(Channels.newChannel(output));
+            return new String(output.toByteArray(), StandardCharsets.UTF_8);
+        }
+
+        @Test
+        void writesTheRowsWithoutTheHeader() throws Exception {
+            assertEquals("\"row1\",\"1\"\n\"row2\",\"2\"\n\"row\u2603\",\"3\"\n", transfer());
+        }
+
+        @Test
+        void returnsTheNumberOfBytesWritten() throws Exception {
+            long expected = "\"row1\",\"1\"\n\"row2\",\"2\"\n\"row\u2603\",\"3\"\n".getBytes(StandardCharsets.UTF_8).length;
+            assertEquals(expected, result.transferTo(Channels.newChannel(new ByteArrayOutputStream())));
+        }
+
+        @Test
+        void canBeCalledAfterTheMetaDataHasBeenLoaded() throws Exception {
+            result.getMetaData();
+            assertTrue(transfer().startsWith("\"row1\""));
+        }
+
+        @Test
+        void leavesNoRowsToRead() throws Exception {
+            transfer();
+            assertFalse(result.next());
+        }
+
+        @Test
+        void throwsWhenRowsHaveBeenRead() throws Exception {
+            result.next();
+            assertThrows(SQLException.class, this::transfer);
+        }
+
+        @Nested
+        class WhenTheHeaderContainsQuotedNewlines {
+            @Test
+            void skipsTheWholeHeader() throws Exception {
+                getObjectHelper.setObject("some-bucket", "the/prefix/Q1234.csv", "\"col\n1\",\"col2\"\n\"a\",\"1\"\n".getBytes(StandardCharsets.UTF_8));
+                assertEquals("\"a\",\"1\"\n", transfer());
+            }
+        }
+
+        @Nested
+        class WhenDownloadingInParallelParts {
+            @BeforeEach
+            void setUp() {
+                result = new S3Result(new S3Downloader(getObjectHelper, 3, 5), queryExecution, Duration.ofSeconds(1));
+            }
+
+            @Test
+            void writesTheRowsInOrder() throws Exception {
+                assertEquals("\"row1\",\"1\"\n\"row2\",\"2\"\n\"row\u2603\",\"3\"\n", transfer());
+            }
+        }
+    }
+
     @Nested
     class GetRowNumber {
         @BeforeEach
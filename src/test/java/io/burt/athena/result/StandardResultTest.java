@@ -34,6 +34,7 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -140,6 +141,15 @@ class StandardResultTest {
             assertEquals(new HashSet<>(nextTokens).size(), nextTokens.size());
         }
 
+        @Test
+        void returnsTheSameMetaDataForAllPages() throws Exception {
+            result.setFetchSize(1);
+            ResultSetMetaData metaData = result.getMetaData();
+            while (result.next()) {
+                assertSame(metaData, result.getMetaData());
+            }
+        }
+
         @Nested
         class WhenLoadingIsInterrupted {
             private Thread runner;
@@ -0,0 +1,138 @@
+package io.burt.athena.result;
+
+import io.burt.athena.support.TestNameGenerator;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayNameGeneration(TestNameGenerator.class)
+class UnloadQueryTest {
+    @Nested
+    class IsUnloadable {
+        @Test
+        void acceptsQueries() {
+            assertTrue(UnloadQuery.isUnloadable("SELECT 1"));
+            assertTrue(UnloadQuery.isUnloadable("  select\n*\nFROM t"));
+            assertTrue(UnloadQuery.isUnloadable("WITH x AS (SELECT 1) SELECT * FROM x"));
+            assertTrue(UnloadQuery.isUnloadable("(SELECT 1) UNION (SELECT 2)"));
+        }
+
+        @Test
+        void skipsLeadingComments() {
+            assertTrue(UnloadQuery.isUnloadable("-- hello\nSELECT 1"));
+            assertTrue(UnloadQuery.isUnloadable("/* hello\n */ SELECT 1"));
+        }
+
+        @Test
+        void rejectsOtherStatements() {
+            assertFalse(UnloadQuery.isUnloadable("SHOW TABLES"));
+            assertFalse(UnloadQuery.isUnloadable("CREATE TABLE t AS SELECT 1"));
+            assertFalse(UnloadQuery.isUnloadable("INSERT INTO t SELECT 1"));
+            assertFalse(UnloadQuery.isUnloadable("SELECTED"));
+            assertFalse(UnloadQuery.isUnloadable("-- SELECT 1"));
+        }
+    }
+
+    @Nested
+    class CreateUnloadStatement {
+        @Test
+        void wrapsTheQueryInAnUnloadStatement() {
+            String sql = UnloadQuery.createUnloadStatement("SELECT 1", "s3://bucket/results/");
+            assertTrue(sql.startsWith("UNLOAD (\nSELECT 1\n) TO 's3://bucket/results/unload/"));
+            assertTrue(sql.endsWith("/' WITH (format = 'JSON', compression = 'GZIP')"));
+        }
+
+        @Test
+        void createsAUniqueLocationEveryTime() {
+            String location1 = UnloadQuery.unloadLocation(UnloadQuery.createUnloadStatement("SELECT 1", "s3://bucket/results"));
+            String location2 = UnloadQuery.unloadLocation(UnloadQuery.createUnloadStatement("SELECT 1", "s3://bucket/results"));
+            assertTrue(location1.startsWith("s3://bucket/results/unload/"));
+            assertTrue(location1.endsWith("/"));
+            assertNotEquals(location1, location2);
+        }
+
+        @Test
+        void removesTrailingSemicolons() {
+            assertTrue(UnloadQuery.createUnloadStatement("SELECT 1 ; \n", "s3://bucket/").startsWith("UNLOAD (\nSELECT 1\n)"));
+        }
+
+        @Nested
+        class WhenGivenAClientRequestToken {
+            @Test
+            void createsTheSameStatementEveryTime() {
+                String sql1 = UnloadQuery.createUnloadStatement("SELECT 1", "s3://bucket/results", Optional.of("token"));
+                String sql2 = UnloadQuery.createUnloadStatement("SELECT 1", "s3://bucket/results", Optional.of("token"));
+                assertEquals(sql1, sql2);
+                assertTrue(UnloadQuery.unloadLocation(sql1).startsWith("s3://bucket/results/unload/"));
+            }
+
+            @Test
+            void createsDifferentLocationsForDifferentTokens() {
+                String location1 = UnloadQuery.unloadLocation(UnloadQuery.createUnloadStatement("SELECT 1", "s3://bucket/results", Optional.of("token1")));
+                String location2 = UnloadQuery.unloadLocation(UnloadQuery.createUnloadStatement("SELECT 1", "s3://bucket/results", Optional.of("token2")));
+                assertNotEquals(location1, location2);
+            }
+
+            @Test
+            void createsDifferentLocationsForDifferentQueries() {
+                String location1 = UnloadQuery.unloadLocation(UnloadQuery.createUnloadStatement("SELECT 1", "s3://bucket/results", Optional.of("token")));
+                String location2 = UnloadQuery.unloadLocation(UnloadQuery.createUnloadStatement("SELECT 2", "s3://bucket/results", Optional.of("token")));
+                assertNotEquals(location1, location2);
+            }
+        }
+    }
+
+    @Nested
+    class CreateDescribeStatement {
+        @Test
+        void wrapsTheQueryInAStatementThatReturnsNoRows() {
+            assertEquals("SELECT * FROM (\nSELECT a, b FROM t -- comment\n) LIMIT 0", UnloadQuery.createDescribeStatement("SELECT a, b FROM t -- comment"));
+        }
+
+        @Test
+        void removesTrailingSemicolons() {
+            assertEquals("SELECT * FROM (\nSELECT 1\n) LIMIT 0", UnloadQuery.createDescribeStatement("SELECT 1 ; \n"));
+        }
+    }
+
+    @Nested
+    class UnloadLocation {
+        @Test
+        void returnsTheLocationOfUnloadStatements() {
+            String sql = UnloadQuery.createUnloadStatement("SELECT 'TO' -- comment", "s3://bucket/results/");
+            String location = UnloadQuery.unloadLocation(sql);
+            assertTrue(location.matches("s3://bucket/results/unload/[0-9a-f-]+/"));
+            assertEquals(location, UnloadQuery.unloadLocation(sql));
+        }
+
+        @Test
+        void returnsNullForOtherStatements() {
+            assertNull(UnloadQuery.unloadLocation("SELECT 1"));
+            assertNull(UnloadQuery.unloadLocation("UNLOAD (SELECT 1) TO 's3://bucket/x/' WITH (format = 'PARQUET')"));
+            assertNull(UnloadQuery.unloadLocation(null));
+        }
+    }
+
+    @Nested
+    class UnloadedQuery {
+        @Test
+        void returnsTheQueryOfUnloadStatements() {
+            String sql = UnloadQuery.createUnloadStatement("SELECT 'TO' -- comment\n;", "s3://bucket/results/");
+            assertEquals("SELECT 'TO' -- comment", UnloadQuery.unloadedQuery(sql));
+        }
+
+        @Test
+        void returnsNullForOtherStatements() {
+            assertNull(UnloadQuery.unloadedQuery("SELECT 1"));
+            assertNull(UnloadQuery.unloadedQuery(null));
+        }
+    }
+}
@@ -0,0 +1,403 @@
+package io.burt.athena.result;
+
+import io.burt.athena.AthenaResultSetMetaData;
+import io.burt.athena.result.s3.S3Downloader;
+import io.burt.athena.support.GetObjectHelper;
+import io.burt.athena.support.TestNameGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.athena.model.ColumnInfo;
+import software.amazon.awssdk.services.athena.model.QueryExecution;
+import software.amazon.awssdk.services.athena.model.ResultSetMetadata;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Types;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayNameGeneration(TestNameGenerator.class)
+class UnloadResultTest {
+    private static final String LOCATION = "s3://some-bucket/results/unload/abc/";
+
+    private QueryExecution queryExecution;
+    private GetObjectHelper getObjectHelper;
+    private ResultSet describeResultSet;
+    private CompletableFuture<ResultSet> describeFuture;
+    private UnloadResult result;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        queryExecution = QueryExecution.builder().queryExecutionId("Q1234").build();
+        getObjectHelper = new GetObjectHelper();
+        describeResultSet = mock(ResultSet.class);
+        when(describeResultSet.getMetaData()).thenReturn(new AthenaResultSetMetaData(
+                QueryExecution.builder().queryExecutionId("Q2345").build(),
+                ResultSetMetadata.builder().columnInfo(
+                        ColumnInfo.builder().name("name").label("name").type("varchar").build(),
+                        ColumnInfo.builder().name("n").label("n").type("integer").build()
+                ).build()
+        ));
+        describeFuture = CompletableFuture.completedFuture(describeResultSet);
+        result = new UnloadResult(getObjectHelper, new S3Downloader(getObjectHelper), queryExecution, LOCATION, describeFuture, Duration.ofSeconds(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        getObjectHelper.close();
+    }
+
+    private byte[] gzip(String contents) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(contents.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+
+    private void createData() throws IOException {
+        getObjectHelper.setObject("some-bucket", "results/unload/abc/file1.gz", gzip("{\"name\":\"a\",\"n\":1}\n{\"name\":\"b\",\"n\":null}\n"));
+        getObjectHelper.setObject("some-bucket", "results/unload/abc/file2.gz", gzip("{\"name\":\"c, \\\"d\\\"\\n\",\"n\":3}\n"));
+        getObjectHelper.setObject("some-bucket", "results/unload/abc/file3.gz", new byte[0]);
+        getObjectHelper.setObject("some-bucket", "results/other/file.gz", gzip("{\"name\":\"x\",\"n\":0}\n"));
+    }
+
+    private List<String> readAll(int column) throws SQLException {
+        List<String> values = new ArrayList<>();
+        while (result.next()) {
+            values.add(result.getString(column));
+        }
+        return values;
+    }
+
+    @Nested
+    class GetMetaData {
+        @BeforeEach
+        void setUp() throws Exception {
+            createData();
+        }
+
+        @Test
+        void takesTheColumnNamesFromTheMetaDataOfTheQuery() throws Exception {
+            ResultSetMetaData metaData = result.getMetaData();
+            assertEquals(2, metaData.getColumnCount());
+            assertEquals("name", metaData.getColumnLabel(1));
+            assertEquals("n", metaData.getColumnName(2));
+        }
+
+        @Test
+        void takesTheColumnTypesFromTheMetaDataOfTheQuery() throws Exception {
+            assertEquals(Types.VARCHAR, result.getMetaData().getColumnType(1));
+            assertEquals(Types.INTEGER, result.getMetaData().getColumnType(2));
+        }
+
+        @Test
+        void belongsToTheQueryExecutionOfTheUnloadStatement() throws Exception {
+            assertEquals("Q1234", result.getMetaData().getQueryExecutionId());
+        }
+
+        @Test
+        void closesTheResultSetOfTheDescribeStatement() throws Exception {
+            result.getMetaData();
+            verify(describeResultSet).close();
+        }
+
+        @Test
+        void doesNotConsumeTheFirstRow() throws Exception {
+            result.getMetaData();
+            assertTrue(result.next());
+            assertEquals("a", result.getString(1));
+        }
+
+        @Nested
+        class WhenThereAreNoRows {
+            @Test
+            void stillHasTheColumnsOfTheQuery() throws Exception {
+                getObjectHelper.removeObject("some-bucket", "results/unload/abc/file1.gz");
+                getObjectHelper.removeObject("some-bucket", "results/unload/abc/file2.gz");
+                assertEquals(2, result.getMetaData().getColumnCount());
+            }
+        }
+
+        @Nested
+        class WhenTheMetaDataCannotBeLoaded {
+            @Test
+            void throwsAnException() {
+                CompletableFuture<ResultSet> failedFuture = new CompletableFuture<>();
+                failedFuture.completeExceptionally(new SQLException("b0rk"));
+                result = new UnloadResult(getObjectHelper, new S3Downloader(getObjectHelper), queryExecution, LOCATION, failedFuture, Duration.ofSeconds(1));
+                Exception e = assertThrows(SQLException.class, () -> result.getMetaData());
+                assertEquals("b0rk", e.getMessage());
+            }
+
+            @Test
+            void throwsSqlTimeoutExceptionWhenItTimedOut() {
+                CompletableFuture<ResultSet> failedFuture = new CompletableFuture<>();
+                failedFuture.completeExceptionally(new TimeoutException());
+                result = new UnloadResult(getObjectHelper, new S3Downloader(getObjectHelper), queryExecution, LOCATION, failedFuture, Duration.ofSeconds(1));
+                assertThrows(SQLTimeoutException.class, () -> result.getMetaData());
+            }
+        }
+    }
+
+    @Nested
+    class Next {
+        @BeforeEach
+        void setUp() throws Exception {
+            createData();
+        }
+
+        @Test
+        void readsTheRowsOfAllFiles() throws Exception {
+            assertEquals(Arrays.asList("a", "b", "c, \"d\"\n"), readAll(1));
+        }
+
+        @Test
+        void readsNullValues() throws Exception {
+            assertEquals(Arrays.asList("1", null, "3"), readAll(2));
+        }
+
+        @Test
+        void onlyDownloadsFilesUnderTheUnloadLocation() throws Exception {
+            readAll(1);
+            List<String> keys = getObjectHelper.getObjectRequests().stream().map(GetObjectRequest::key).sorted().collect(Collectors.toList());
+            assertEquals(Arrays.asList("results/unload/abc/file1.gz", "results/unload/abc/file2.gz"), keys);
+        }
+
+        @Test
+        void downloadsSeveralFilesAtTheSameTime() throws Exception {
+            result.next();
+            assertEquals(2, getObjectHelper.getObjectRequests().size());
+        }
+
+        @Test
+        void countsTheRows() throws Exception {
+            readAll(1);
+            assertEquals(3, result.getRowNumber());
+        }
+
+        @Test
+        void readsUncompressedFiles() throws Exception {
+            getObjectHelper.removeObject("some-bucket", "results/unload/abc/file1.gz");
+            getObjectHelper.removeObject("some-bucket", "results/unload/abc/file2.gz");
+            getObjectHelper.setObject("some-bucket", "results/unload/abc/file1", "{\"name\":\"z\"}\n".getBytes(StandardCharsets.UTF_8));
+            assertEquals(Collections.singletonList("z"), readAll(1));
+        }
+
+        @Nested
+        class WithAParserExecutor {
+            private ExecutorService executor;
+            private AtomicInteger parseTasks;
+
+            @BeforeEach
+            void setUp() {
+                executor = Executors.newFixedThreadPool(2);
+                parseTasks = new AtomicInteger(0);
+                Executor countingExecutor = task -> {
+                    parseTasks.incrementAndGet();
+                    executor.execute(task);
+                };
+                result = new UnloadResult(getObjectHelper, new S3Downloader(getObjectHelper), queryExecution, LOCATION, describeFuture, Duration.ofSeconds(1), countingExecutor);
+            }
+
+            @AfterEach
+            void tearDown() {
+                executor.shutdownNow();
+            }
+
+            @Test
+            void readsTheRowsOfAllFiles() throws Exception {
+                assertEquals(Arrays.asList("a", "b", "c, \"d\"\n"), readAll(1));
+            }
+
+            @Test
+            void parsesTheFilesOnTheExecutor() throws Exception {
+                readAll(1);
+                assertEquals(2, parseTasks.get());
+            }
+
+            @Test
+            void throwsWhenARowHasAFieldThatIsNotAColumn() throws Exception {
+                getObjectHelper.setObject("some-bucket", "results/unload/abc/file2.gz", gzip("{\"name\":\"a\",\"fnord\":1}\n"));
+                result.next();
+                result.next();
+                Exception e = assertThrows(SQLDataException.class, () -> result.next());
+                assertEquals("The unloaded field \"fnord\" is not a column of the query", e.getMessage());
+            }
+
+            @Test
+            void throwsWhenAFileIsMalformed() throws Exception {
+                getObjectHelper.setObject("some-bucket", "results/unload/abc/file2.gz", gzip("{\"name\":\n"));
+                result.next();
+                result.next();
+                Exception e = assertThrows(SQLException.class, () -> result.next());
+                assertEquals(ParseException.class, e.getCause().getClass());
+            }
+        }
+
+        @Nested
+        class WhenTheQueryHasArraysMapsAndRows {
+            @BeforeEach
+            void setUp() throws Exception {
+                when(describeResultSet.getMetaData()).thenReturn(new AthenaResultSetMetaData(
+                        QueryExecution.builder().queryExecutionId("Q2345").build(),
+                        ResultSetMetadata.builder().columnInfo(
+                                ColumnInfo.builder().name("a").label("a").type("array").build(),
+                                ColumnInfo.builder().name("m").label("m").type("map").build(),
+                                ColumnInfo.builder().name("r").label("r").type("row").build(),
+                                ColumnInfo.builder().name("j").label("j").type("json").build()
+                        ).build()
+                ));
+                getObjectHelper.removeObject("some-bucket", "results/unload/abc/file1.gz");
+                getObjectHelper.removeObject("some-bucket", "results/unload/abc/file2.gz");
+                getObjectHelper.setObject("some-bucket", "results/unload/abc/file1.gz", gzip("{\"a\":[\"x\",null],\"m\":{\"k\":1},\"r\":{\"f\":\"y\",\"g\":[2]},\"j\":{\"k\":1}}\n"));
+            }
+
+            @Test
+            void rendersThemLikeAthenaDoesInOtherResults() throws Exception {
+                assertTrue(result.next());
+                assertEquals("[x, null]", result.getString(1));
+                assertEquals("{k=1}", result.getString(2));
+                assertEquals("{f=y, g=[2]}", result.getString(3));
+            }
+
+            @Test
+            void leavesOtherNestedValuesAsJson() throws Exception {
+                assertTrue(result.next());
+                assertEquals("{\"k\":1}", result.getString(4));
+            }
+        }
+
+        @Test
+        void matchesFieldsByName() throws Exception {
+            getObjectHelper.setObject("some-bucket", "results/unload/abc/file2.gz", gzip("{\"n\":3,\"name\":\"c\"}\n{\"name\":\"d\"}\n"));
+            assertEquals(Arrays.asList("1", null, "3", null), readAll(2));
+        }
+
+        @Test
+        void readsColumnsThatAreMissingFromTheFirstRow() throws Exception {
+            getObjectHelper.setObject("some-bucket", "results/unload/abc/file1.gz", gzip("{\"name\":\"a\"}\n{\"n\":2,\"name\":\"b\"}\n"));
+            getObjectHelper.removeObject("some-bucket", "results/unload/abc/file2.gz");
+            assertTrue(result.next());
+            assertNull(result.getString(2));
+            assertTrue(result.next());
+            assertEquals("2", result.getString(2));
+        }
+
+        @Nested
+        class WhenARowHasAFieldThatIsNotAColumn {
+            @Test
+            void throwsAnException() throws Exception {
+                getObjectHelper.setObject("some-bucket", "results/unload/abc/file1.gz", gzip("{\"name\":\"a\",\"fnord\":1}\n"));
+                getObjectHelper.removeObject("some-bucket", "results/unload/abc/file2.gz");
+                Exception e = assertThrows(SQLDataException.class, () -> result.next());
+                assertEquals("The unloaded field \"fnord\" is not a column of the query", e.getMessage());
+            }
+        }
+
+        @Nested
+        class WhenTheListingIsPaginated {
+            @Test
+            void readsAllPages() throws Exception {
+                getObjectHelper.setListPageSize(1);
+                assertEquals(Arrays.asList("a", "b", "c, \"d\"\n"), readAll(1));
+                assertTrue(getObjectHelper.listObjectsRequests().size() > 1);
+            }
+        }
+
+        @Nested
+        class WhenAFileIsMalformed {
+            @Test
+            void throwsAnException() throws Exception {
+                getObjectHelper.setObject("some-bucket", "results/unload/abc/file2.gz", gzip("{\"name\":\n"));
+                result.next();
+                result.next();
+                Exception e = assertThrows(SQLException.class, () -> result.next());
+                assertEquals(ParseException.class, e.getCause().getClass());
+            }
+        }
+    }
+
+    @Nested
+    class GetPosition {
+        @BeforeEach
+        void setUp() throws Exception {
+            createData();
+        }
+
+        @Test
+        void returnsThePositionInTheResult() throws Exception {
+            assertEquals(ResultPosition.BEFORE_FIRST, result.getPosition());
+            result.next();
+            assertEquals(ResultPosition.FIRST, result.getPosition());
+            result.next();
+            assertEquals(ResultPosition.MIDDLE, result.getPosition());
+            assertEquals("b", result.getString(1));
+            result.next();
+            assertEquals(ResultPosition.LAST, result.getPosition());
+            assertFalse(result.next());
+            assertEquals(ResultPosition.AFTER_LAST, result.getPosition());
+        }
+    }
+
+    @Nested
+    class Close {
+        @Test
+        void canBeClosedBeforeReading() {
+            assertDoesNotThrow(() -> result.close());
+        }
+
+        @Test
+        void cancelsTheDescribeStatement() throws Exception {
+            describeFuture = new CompletableFuture<>();
+            result = new UnloadResult(getObjectHelper, new S3Downloader(getObjectHelper), queryExecution, LOCATION, describeFuture, Duration.ofSeconds(1));
+            result.close();
+            assertTrue(describeFuture.isCancelled());
+        }
+
+        @Test
+        void closesTheResultSetOfTheDescribeStatementWhenItHasNotBeenRead() throws Exception {
+            result.close();
+            verify(describeResultSet).close();
+        }
+
+        @Test
+        void canBeClosedWhileReading() throws Exception {
+            createData();
+            result.next();
+            assertDoesNotThrow(() -> result.close());
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package io.burt.athena.result.csv;
+
+import io.burt.athena.support.TestNameGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayNameGeneration(TestNameGenerator.class)
+class BackgroundCsvParserTest {
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static class CountingInputStream extends ByteArrayInputStream {
+        volatile int bytesRead = 0;
+
+        CountingInputStream(String contents) {
+            super(contents.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                bytesRead += n;
+            }
+            return n;
+        }
+    }
+
+    private static String createCsv(int rowCount) {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < rowCount; i++) {
+            csv.append("\"row").append(i).append("\",\"").append(i).append("\"\n");
+        }
+        return csv.toString();
+    }
+
+    private List<String> readAll(BackgroundCsvParser parser) {
+        List<String> values = new ArrayList<>();
+        CsvRowBatchIterator rows = new CsvRowBatchIterator(parser, 2);
+        while (rows.hasNext()) {
+            values.add(rows.next().getString(0));
+        }
+        return values;
+    }
+
+    @Nested
+    class NextBatch {
+        @Test
+        void returnsTheRowsParsedInTheBackground() {
+            InputStream csv = new ByteArrayInputStream(createCsv(3).getBytes(StandardCharsets.UTF_8));
+            BackgroundCsvParser parser = new BackgroundCsvParser(csv, 2).start(executor);
+            assertEquals(Arrays.asList("row0", "row1", "row2"), readAll(parser));
+        }
+
+        @Test
+        void returnsAllRowsOfLargeStreams() {
+            InputStream csv = new ByteArrayInputStream(createCsv(200000).getBytes(StandardCharsets.UTF_8));
+            BackgroundCsvParser parser = new BackgroundCsvParser(csv, 2, 1).start(executor);
+            List<String> values = readAll(parser);
+            assertEquals(200000, values.size());
+            assertEquals("row199999", values.get(199999));
+        }
+
+        @Test
+        void parsesOnTheReadersThreadWhenTheExecutorDoesNotRunTheTask() {
+            InputStream csv = new ByteArrayInputStream(createCsv(3).getBytes(StandardCharsets.UTF_8));
+            BackgroundCsvParser parser = new BackgroundCsvParser(csv, 2).start(task -> { });
+            assertEquals(Arrays.asList("row0", "row1", "row2"), readAll(parser));
+        }
+
+        @Test
+        void parsesOnTheReadersThreadWhenTheExecutorRejectsTheTask() {
+            executor.shutdown();
+            InputStream csv = new ByteArrayInputStream(createCsv(3).getBytes(StandardCharsets.UTF_8));
+            BackgroundCsvParser parser = new BackgroundCsvParser(csv, 2).start(executor);
+            assertEquals(Arrays.asList("row0", "row1", "row2"), readAll(parser));
+        }
+
+        @Test
+        void throwsParseErrorsAfterTheRowsBeforeThem() throws Exception {
+            InputStream csv = new ByteArrayInputStream("\"a\",\"1\"\n\"b\",2\n".getBytes(StandardCharsets.UTF_8));
+            BackgroundCsvParser parser = new BackgroundCsvParser(csv, 2).start(executor);
+            CsvRowBatchIterator rows = new CsvRowBatchIterator(parser, 2);
+            RuntimeException e = assertThrows(RuntimeException.class, () -> {
+                while (rows.hasNext()) {
+                    rows.next();
+                }
+            });
+            assertTrue(e.getCause().getCause() instanceof ParseException);
+        }
+
+        @Test
+        void stopsReadingWhenTheQueueIsFull() throws Exception {
+            String contents = createCsv(500000);
+            CountingInputStream csv = new CountingInputStream(contents);
+            new BackgroundCsvParser(csv, 2, 1).start(executor);
+            int previous = -1;
+            while (previous != csv.bytesRead) {
+                previous = csv.bytesRead;
+                Thread.sleep(50);
+            }
+            assertTrue(csv.bytesRead < contents.length() / 2);
+        }
+    }
+
+    @Nested
+    class Close {
+        @Test
+        void stopsTheBackgroundTask() throws Exception {
+            CountingInputStream csv = new CountingInputStream(createCsv(500000));
+            BackgroundCsvParser parser = new BackgroundCsvParser(csv, 2, 1).start(executor);
+            parser.nextBatch();
+            parser.close();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+            assertNull(parser.nextBatch());
+        }
+
+        @Test
+        void closesTheStream() throws Exception {
+            InputStream csv = new ByteArrayInputStream(createCsv(3).getBytes(StandardCharsets.UTF_8)) {
+                @Override
+                public void close() throws IOException {
+                    throw new IOException("closed");
+                }
+            };
+            BackgroundCsvParser parser = new BackgroundCsvParser(csv, 2).start(task -> { });
+            assertThrows(IOException.class, parser::close);
+        }
+    }
+}
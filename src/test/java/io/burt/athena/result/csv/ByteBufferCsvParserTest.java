@@ -0,0 +1,385 @@
+package io.burt.athena.result.csv;
+
+import io.burt.athena.result.s3.ChunkedInputStream;
+import io.burt.athena.support.TestNameGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayNameGeneration(TestNameGenerator.class)
+class ByteBufferCsvParserTest {
+    private ByteBufferCsvParser parser;
+
+    private String createCsv(String[][] rows) {
+        StringBuilder builder = new StringBuilder();
+        for (String[] row : rows) {
+            for (String value : row) {
+                if (value != null) {
+                    builder.append("\"").append(value).append("\"");
+                }
+                builder.append(",");
+            }
+            builder.deleteCharAt(builder.length() - 1);
+            builder.append("\n");
+        }
+        return builder.toString();
+    }
+
+    private String[] values(CsvRow row) {
+        String[] values = new String[row.getColumnCount()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = row.getString(i);
+        }
+        return values;
+    }
+
+    private InputStream createInput(String[][] rows) {
+        return new ByteArrayInputStream(createCsv(rows).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static class FixedChunkInputStream extends ChunkedInputStream {
+        private final byte[] contents;
+        private final int chunkSize;
+        private final boolean direct;
+        private int offset;
+        private int handedOut;
+        private int recycled;
+
+        FixedChunkInputStream(String contents, int chunkSize, boolean direct) {
+            this.contents = contents.getBytes(StandardCharsets.UTF_8);
+            this.chunkSize = chunkSize;
+            this.direct = direct;
+            this.offset = 0;
+        }
+
+        @Override
+        public ByteBuffer nextChunk() {
+            if (offset >= contents.length) {
+                return null;
+            }
+            int length = Math.min(chunkSize, contents.length - offset);
+            ByteBuffer chunk;
+            if (direct) {
+                chunk = ByteBuffer.allocateDirect(length);
+                chunk.put(contents, offset, length);
+                chunk.flip();
+            } else {
+                chunk = ByteBuffer.wrap(new byte[length + 4], 2, length).slice();
+                chunk.put(contents, offset, length);
+                chunk.flip();
+            }
+            offset += length;
+            handedOut++;
+            return chunk;
+        }
+
+        @Override
+        public void recycle(ByteBuffer chunk) {
+            recycled++;
+            ((Buffer) chunk).clear();
+            while (chunk.hasRemaining()) {
+                chunk.put((byte) 'X');
+            }
+        }
+
+        @Override
+        public int read() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    @Nested
+    class HasNext {
+        @Nested
+        class WhenTheInputIsEmpty {
+            @BeforeEach
+            void setUp() {
+                parser = new ByteBufferCsvParser(createInput(new String[0][0]), 3);
+            }
+
+            @Test
+            void returnsFalse() {
+                assertFalse(parser.hasNext());
+            }
+        }
+
+        @Nested
+        class WhenTheInputIsNotEmpty {
+            @BeforeEach
+            void setUp() {
+                parser = new ByteBufferCsvParser(createInput(new String[][]{
+                        new String[]{"r0c0", "r0c1", "r0c2"},
+                        new String[]{"r1c0", "r1c1", "r1c2"},
+                        new String[]{"r2c0", "r2c1", "r2c2"}
+                }), 3);
+            }
+
+            @Test
+            void returnsTrueWhileThereAreStillRows() {
+                assertTrue(parser.hasNext());
+                parser.next();
+                assertTrue(parser.hasNext());
+                parser.next();
+                assertTrue(parser.hasNext());
+                parser.next();
+                assertFalse(parser.hasNext());
+            }
+
+            @Test
+            void doesNotConsumeMoreThanOneRow() {
+                parser.hasNext();
+                parser.hasNext();
+                assertArrayEquals(new String[]{"r0c0", "r0c1", "r0c2"}, values(parser.next()));
+                parser.hasNext();
+                parser.hasNext();
+                assertArrayEquals(new String[]{"r1c0", "r1c1", "r1c2"}, values(parser.next()));
+            }
+        }
+    }
+
+    @Nested
+    class Next {
+        @Nested
+        class WhenTheInputIsEmpty {
+            @Test
+            void returnsNull() {
+                parser = new ByteBufferCsvParser(createInput(new String[0][0]), 3);
+                assertNull(parser.next());
+            }
+        }
+
+        @Nested
+        class WhenTheInputIsNotEmpty {
+            @BeforeEach
+            void setUp() {
+                parser = new ByteBufferCsvParser(createInput(new String[][]{
+                        new String[]{"r0c0", "r0c1", "r0c2"},
+                        new String[]{"r1c0", "r1c1", "r1c2"},
+                        new String[]{"r2c0", "r2c1", "r2c2"}
+                }), 3);
+            }
+
+            @Test
+            void returnsTheRowsSplitIntoColumns() {
+                assertArrayEquals(new String[]{"r0c0", "r0c1", "r0c2"}, values(parser.next()));
+                assertArrayEquals(new String[]{"r1c0", "r1c1", "r1c2"}, values(parser.next()));
+                assertArrayEquals(new String[]{"r2c0", "r2c1", "r2c2"}, values(parser.next()));
+            }
+
+            @Test
+            void returnsNullWhenThereAreNoMoreRows() {
+                parser.next();
+                parser.next();
+                parser.next();
+                assertNull(parser.next());
+            }
+        }
+
+        @Nested
+        class WithEscapedQuotes {
+            @Test
+            void unescapesTheQuotes() {
+                parser = new ByteBufferCsvParser(createInput(new String[][]{
+                        new String[]{"r\"\"0\"\"c0", "r0c\"\"1\"\"", "\"\""},
+                }), 3);
+                assertArrayEquals(new String[]{"r\"0\"c0", "r0c\"1\"", "\""}, values(parser.next()));
+            }
+        }
+
+        @Nested
+        class WithNullValues {
+            @Test
+            void returnsNulls() {
+                parser = new ByteBufferCsvParser(createInput(new String[][]{
+                        new String[]{"r0c0", null, "r0c2"},
+                        new String[]{"r1c0", "r1c1", null},
+                        new String[]{null, "", "r2c2"}
+                }), 3);
+                assertArrayEquals(new String[]{"r0c0", null, "r0c2"}, values(parser.next()));
+                assertArrayEquals(new String[]{"r1c0", "r1c1", null}, values(parser.next()));
+                assertArrayEquals(new String[]{null, "", "r2c2"}, values(parser.next()));
+            }
+        }
+
+        @Nested
+        class WithMultiByteCharacters {
+            @Test
+            void decodesTheFieldsAsUtf8() {
+                parser = new ByteBufferCsvParser(createInput(new String[][]{
+                        new String[]{"sn\u00f6", "\u2603", "\uD83D\uDE00\"\""},
+                }), 3);
+                assertArrayEquals(new String[]{"sn\u00f6", "\u2603", "\uD83D\uDE00\""}, values(parser.next()));
+            }
+        }
+
+        @Nested
+        class WhenTheInputIsSplitIntoChunks {
+            private final String[][] rows = new String[][]{
+                    new String[]{"r0c0", "r0\u2603c1", null},
+                    new String[]{"r1\"\"c0", null, "r1c2"},
+                    new String[]{"", "r2c1", "a much longer value than the others"}
+            };
+
+            private void assertParsesAllRows() {
+                assertArrayEquals(new String[]{"r0c0", "r0\u2603c1", null}, values(parser.next()));
+                assertArrayEquals(new String[]{"r1\"c0", null, "r1c2"}, values(parser.next()));
+                assertArrayEquals(new String[]{"", "r2c1", "a much longer value than the others"}, values(parser.next()));
+                assertFalse(parser.hasNext());
+            }
+
+            @Test
+            void parsesRowsThatStraddleChunks() {
+                for (int chunkSize = 1; chunkSize < 40; chunkSize++) {
+                    parser = new ByteBufferCsvParser(new FixedChunkInputStream(createCsv(rows), chunkSize, false), 3);
+                    assertParsesAllRows();
+                }
+            }
+
+            @Test
+            void keepsTheCurrentRowIntactWhileTheNextIsLoaded() {
+                for (int chunkSize = 1; chunkSize < 40; chunkSize++) {
+                    parser = new ByteBufferCsvParser(new FixedChunkInputStream(createCsv(rows), chunkSize, true), 3);
+                    CsvRow row = parser.next();
+                    assertTrue(parser.hasNext());
+                    assertArrayEquals(new String[]{"r0c0", "r0\u2603c1", null}, values(row));
+                    row = parser.next();
+                    assertTrue(parser.hasNext());
+                    assertArrayEquals(new String[]{"r1\"c0", null, "r1c2"}, values(row));
+                    row = parser.next();
+                    assertFalse(parser.hasNext());
+                    assertArrayEquals(new String[]{"", "r2c1", "a much longer value than the others"}, values(row));
+                }
+            }
+
+            @Test
+            void neverRecyclesAChunkThatARowPointsInto() {
+                for (int chunkSize = 1; chunkSize < 40; chunkSize++) {
+                    parser = new ByteBufferCsvParser(new FixedChunkInputStream(createCsv(rows), chunkSize, false), 3);
+                    CsvRow row = parser.next();
+                    assertTrue(parser.hasNext());
+                    assertArrayEquals(new String[]{"r0c0", "r0\u2603c1", null}, values(row));
+                    row = parser.next();
+                    assertTrue(parser.hasNext());
+                    assertArrayEquals(new String[]{"r1\"c0", null, "r1c2"}, values(row));
+                    row = parser.next();
+                    assertFalse(parser.hasNext());
+                    assertArrayEquals(new String[]{"", "r2c1", "a much longer value than the others"}, values(row));
+                }
+            }
+
+            @Test
+            void recyclesChunksThatNoRowPointsInto() {
+                for (int chunkSize = 1; chunkSize < 40; chunkSize++) {
+                    FixedChunkInputStream input = new FixedChunkInputStream(createCsv(rows), chunkSize, false);
+                    parser = new ByteBufferCsvParser(input, 3);
+                    assertParsesAllRows();
+                    assertTrue(input.recycled >= input.handedOut - 3);
+                }
+            }
+
+            @Test
+            void parsesChunksThatAreNotBackedByArrays() {
+                for (int chunkSize = 1; chunkSize < 40; chunkSize++) {
+                    parser = new ByteBufferCsvParser(new FixedChunkInputStream(createCsv(rows), chunkSize, true), 3);
+                    assertParsesAllRows();
+                }
+            }
+        }
+
+        @Nested
+        class WhenTheInputIsMalformed {
+            @Nested
+            class AndARowHasTooFewColumns {
+                @Test
+                void throwsParseException() {
+                    parser = new ByteBufferCsvParser(createInput(new String[][]{
+                            new String[]{"r0c0", "r0c1", "r0c2"},
+                            new String[]{"r1c0", "r1c1"},
+                            new String[]{"r2c0", "r2c1", "r2c2"}
+                    }), 3);
+                    parser.next();
+                    Exception e = assertThrows(RuntimeException.class, parser::next);
+                    assertEquals(ParseException.class, e.getCause().getClass());
+                    ParseException pe = (ParseException) e.getCause();
+                    assertEquals("Expected comma but found \"\\n\"", pe.getMessage());
+                    assertEquals(34, pe.getErrorOffset());
+                }
+            }
+
+            @Nested
+            class AndARowHasTooManyColumns {
+                @Test
+                void throwsParseException() {
+                    parser = new ByteBufferCsvParser(createInput(new String[][]{
+                            new String[]{"r0c0", "r0c1", "r0c2"},
+                            new String[]{"r1c0", "r1c1", "r1c2", "r1c3"},
+                            new String[]{"r2c0", "r2c1", "r2c2"}
+                    }), 3);
+                    parser.next();
+                    Exception e = assertThrows(RuntimeException.class, parser::next);
+                    assertEquals(ParseException.class, e.getCause().getClass());
+                    ParseException pe = (ParseException) e.getCause();
+                    assertEquals("Expected newline but found \",\"", pe.getMessage());
+                    assertEquals(41, pe.getErrorOffset());
+                }
+            }
+
+            @Nested
+            class AndAQuoteIsNotEscaped {
+                @Test
+                void throwsParseException() {
+                    parser = new ByteBufferCsvParser(createInput(new String[][]{
+                            new String[]{"r\"\"0\"\"c0", "r0c\"1\"\"", "r0c2"},
+                    }), 3);
+                    Exception e = assertThrows(RuntimeException.class, parser::next);
+                    assertEquals(ParseException.class, e.getCause().getClass());
+                    ParseException pe = (ParseException) e.getCause();
+                    assertEquals("Expected comma but found \"1\"", pe.getMessage());
+                    assertEquals(16, pe.getErrorOffset());
+                }
+            }
+
+            @Nested
+            class AndAColumnIsNotQuoted {
+                @Test
+                void throwsParseException() {
+                    parser = new ByteBufferCsvParser(new ByteArrayInputStream("\"1\",2,\"3\"\n".getBytes(StandardCharsets.UTF_8)), 3);
+                    Exception e = assertThrows(RuntimeException.class, parser::next);
+                    assertEquals(ParseException.class, e.getCause().getClass());
+                    ParseException pe = (ParseException) e.getCause();
+                    assertEquals("Expected quote but found \"2\"", pe.getMessage());
+                    assertEquals(4, pe.getErrorOffset());
+                }
+            }
+
+            @Nested
+            class AndTheStreamEndsAbruptly {
+                @Test
+                void throwsParseException() {
+                    parser = new ByteBufferCsvParser(new FixedChunkInputStream("\"r0c0\",\"r0c1\",\"r0c2\"\n\"hello\",\"world\",\"", 4, false), 3);
+                    parser.next();
+                    Exception e = assertThrows(RuntimeException.class, parser::next);
+                    assertEquals(ParseException.class, e.getCause().getClass());
+                    ParseException pe = (ParseException) e.getCause();
+                    assertEquals("Unexpected end of stream", pe.getMessage());
+                    assertEquals(38, pe.getErrorOffset());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package io.burt.athena.result.csv;
+
+import io.burt.athena.support.TestNameGenerator;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayNameGeneration(TestNameGenerator.class)
+class CsvRowTest {
+    private CsvRow parse(String... values) {
+        StringBuilder builder = new StringBuilder();
+        for (String value : values) {
+            if (value != null) {
+                builder.append('"').append(value.replace("\"", "\"\"")).append('"');
+            }
+            builder.append(',');
+        }
+        builder.setCharAt(builder.length() - 1, '\n');
+        ByteBufferCsvParser parser = new ByteBufferCsvParser(new ByteArrayInputStream(builder.toString().getBytes(StandardCharsets.UTF_8)), values.length);
+        return parser.next();
+    }
+
+    @Nested
+    class GetString {
+        @Test
+        void decodesTheValue() {
+            CsvRow row = parse("hello", "w\u00f6rld");
+            assertEquals("hello", row.getString(0));
+            assertEquals("w\u00f6rld", row.getString(1));
+        }
+
+        @Test
+        void returnsNullForNullValues() {
+            assertNull(parse("1", null).getString(1));
+        }
+    }
+
+    @Nested
+    class IsNull {
+        @Test
+        void returnsTrueForNullValues() {
+            assertTrue(parse("1", null).isNull(1));
+        }
+
+        @Test
+        void returnsFalseForEmptyValues() {
+            assertFalse(parse("1", "").isNull(1));
+        }
+    }
+
+    @Nested
+    class GetInt {
+        @Test
+        void parsesIntegers() {
+            CsvRow row = parse("0", "123456789", "-42", "+7");
+            assertEquals(0, row.getInt(0));
+            assertEquals(123456789, row.getInt(1));
+            assertEquals(-42, row.getInt(2));
+            assertEquals(7, row.getInt(3));
+        }
+
+        @Test
+        void parsesValuesThatNeedMoreDigits() {
+            CsvRow row = parse(String.valueOf(Integer.MAX_VALUE), String.valueOf(Integer.MIN_VALUE), "0000000000001");
+            assertEquals(Integer.MAX_VALUE, row.getInt(0));
+            assertEquals(Integer.MIN_VALUE, row.getInt(1));
+            assertEquals(1, row.getInt(2));
+        }
+
+        @Test
+        void returnsZeroForNullValues() {
+            assertEquals(0, parse("1", null).getInt(1));
+        }
+
+        @Test
+        void throwsWhenTheValueIsNotAnInt() {
+            assertThrows(NumberFormatException.class, () -> parse("fnord").getInt(0));
+            assertThrows(NumberFormatException.class, () -> parse("").getInt(0));
+            assertThrows(NumberFormatException.class, () -> parse("-").getInt(0));
+            assertThrows(NumberFormatException.class, () -> parse("2147483648").getInt(0));
+            assertThrows(NumberFormatException.class, () -> parse("1.0").getInt(0));
+        }
+    }
+
+    @Nested
+    class GetLong {
+        @Test
+        void parsesLongs() {
+            CsvRow row = parse("123456789012345678", "-1", String.valueOf(Long.MAX_VALUE), String.valueOf(Long.MIN_VALUE));
+            assertEquals(123456789012345678L, row.getLong(0));
+            assertEquals(-1L, row.getLong(1));
+            assertEquals(Long.MAX_VALUE, row.getLong(2));
+            assertEquals(Long.MIN_VALUE, row.getLong(3));
+        }
+
+        @Test
+        void throwsWhenTheValueIsNotALong() {
+            assertThrows(NumberFormatException.class, () -> parse("9223372036854775808").getLong(0));
+            assertThrows(NumberFormatException.class, () -> parse("1 ").getLong(0));
+            assertThrows(NumberFormatException.class, () -> parse("\"1\"").getLong(0));
+        }
+    }
+
+    @Nested
+    class GetDouble {
+        @Test
+        void parsesDoublesExactlyLikeTheJdk() {
+            String[] values = new String[]{
+                    "0", "-0.0", "1", "3.14", "-2.5", "0.1", "0.3", ".5", "1.", "1e10", "1.5E-7", "-4.9E3",
+                    "123456789012345", "0.000000000000001", "1.7976931348623157E308", "4.9E-324",
+                    "1234567890123456789", "2.2250738585072014E-308", "1e-30", "NaN", "0.1234567890123456"
+            };
+            CsvRow row = parse(values);
+            for (int i = 0; i < values.length; i++) {
+                assertEquals(Double.doubleToLongBits(Double.parseDouble(values[i])), Double.doubleToLongBits(row.getDouble(i)), values[i]);
+            }
+        }
+
+        @Test
+        void returnsZeroForNullValues() {
+            assertEquals(0, parse("1", null).getDouble(1));
+        }
+
+        @Test
+        void throwsWhenTheValueIsNotADouble() {
+            assertThrows(NumberFormatException.class, () -> parse("fnord").getDouble(0));
+            assertThrows(NumberFormatException.class, () -> parse("").getDouble(0));
+            assertThrows(NumberFormatException.class, () -> parse(".").getDouble(0));
+            assertThrows(NumberFormatException.class, () -> parse("1e").getDouble(0));
+            assertThrows(NumberFormatException.class, () -> parse("1.2.3").getDouble(0));
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package io.burt.athena.result.csv;
+
+import io.burt.athena.support.TestNameGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayNameGeneration(TestNameGenerator.class)
+class ParallelCsvParserTest {
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static InputStream stream(String contents) {
+        return new ByteArrayInputStream(contents.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String createCsv(int rowCount) {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < rowCount; i++) {
+            csv.append("\"row").append(i).append("\",\"").append(i).append("\"\n");
+        }
+        return csv.toString();
+    }
+
+    private static List<String> readAll(CsvRowBatchIterator.Source parser) {
+        List<String> values = new ArrayList<>();
+        CsvRowBatchIterator rows = new CsvRowBatchIterator(parser, 2);
+        while (rows.hasNext()) {
+            CsvRow row = rows.next();
+            values.add(row.getString(0) + "|" + row.getString(1));
+        }
+        return values;
+    }
+
+    @Nested
+    class Constructor {
+        @Test
+        void requiresAPositiveSegmentSize() {
+            assertThrows(IllegalArgumentException.class, () -> new ParallelCsvParser(stream(""), 2, executor, 0, 1));
+        }
+
+        @Test
+        void requiresAtLeastOneSegmentInFlight() {
+            assertThrows(IllegalArgumentException.class, () -> new ParallelCsvParser(stream(""), 2, executor, 1, 0));
+        }
+    }
+
+    @Nested
+    class NextBatch {
+        @Test
+        void returnsTheRowsInOrder() {
+            ParallelCsvParser parser = new ParallelCsvParser(stream(createCsv(3)), 2, executor);
+            assertEquals(Arrays.asList("row0|0", "row1|1", "row2|2"), readAll(parser));
+        }
+
+        @Test
+        void returnsTheRowsInOrderWhenTheyAreSplitIntoManySegments() {
+            ParallelCsvParser parser = new ParallelCsvParser(stream(createCsv(100000)), 2, executor, 1000, 4);
+            List<String> values = readAll(parser);
+            assertEquals(100000, values.size());
+            for (int i = 0; i < values.size(); i++) {
+                assertEquals("row" + i + "|" + i, values.get(i));
+            }
+        }
+
+        @Test
+        void handlesSegmentsThatStartAnywhereInARow() {
+            String csv = "\"a\n\"\"b\",\"\"\n\"\"\"\n\",\n\"c,\n\"\"\",\"d\"\n,\"\"\"\"\n";
+            List<String> expected = Arrays.asList("a\n\"b|", "\"\n|null", "c,\n\"|d", "null|\"");
+            for (int segmentSize = 1; segmentSize <= csv.length() + 1; segmentSize++) {
+                ParallelCsvParser parser = new ParallelCsvParser(stream(csv), 2, executor, segmentSize, 3);
+                assertEquals(expected, readAll(parser), String.format("segment size %d", segmentSize));
+            }
+        }
+
+        @Test
+        void handlesSegmentsThatStartInsideALongQuotedField() {
+            StringBuilder csv = new StringBuilder();
+            for (int i = 0; i < 20; i++) {
+                csv.append("\"").append(String.join("", Collections.nCopies(50, "x\n\"\","))).append("\",\"").append(i).append("\"\n");
+            }
+            List<String> values = readAll(new ParallelCsvParser(stream(csv.toString()), 2, executor, 37, 4));
+            assertEquals(20, values.size());
+            assertEquals(String.join("", Collections.nCopies(50, "x\n\",")) + "|19", values.get(19));
+        }
+
+        @Test
+        void returnsNoRowsForAnEmptyStream() throws Exception {
+            ParallelCsvParser parser = new ParallelCsvParser(stream(""), 2, executor, 10, 2);
+            assertNull(parser.nextBatch());
+        }
+
+        @Test
+        void parsesOnTheReadersThreadWhenTheExecutorDoesNotRunTheTasks() {
+            ParallelCsvParser parser = new ParallelCsvParser(stream(createCsv(1000)), 2, task -> { }, 100, 4);
+            assertEquals(1000, readAll(parser).size());
+        }
+
+        @Test
+        void parsesOnTheReadersThreadWhenTheExecutorRejectsTheTasks() {
+            executor.shutdown();
+            ParallelCsvParser parser = new ParallelCsvParser(stream(createCsv(1000)), 2, executor, 100, 4);
+            assertEquals(1000, readAll(parser).size());
+        }
+
+        @Test
+        void throwsParseErrorsAfterTheRowsBeforeThem() {
+            String csv = createCsv(100) + "\"a\",b\n" + createCsv(100);
+            ParallelCsvParser parser = new ParallelCsvParser(stream(csv), 2, executor, 64, 4);
+            CsvRowBatchIterator rows = new CsvRowBatchIterator(parser, 2);
+            List<String> values = new ArrayList<>();
+            RuntimeException e = assertThrows(RuntimeException.class, () -> {
+                while (rows.hasNext()) {
+                    values.add(rows.next().getString(0));
+                }
+            });
+            assertEquals(100, values.size());
+            ParseException pe = (ParseException) e.getCause().getCause();
+            assertEquals(createCsv(100).length() + 4, pe.getErrorOffset());
+        }
+
+        @Test
+        void throwsWhenTheStreamEndsInTheMiddleOfARow() {
+            ParallelCsvParser parser = new ParallelCsvParser(stream(createCsv(10) + "\"a\",\"b"), 2, executor, 16, 2);
+            RuntimeException e = assertThrows(RuntimeException.class, () -> readAll(parser));
+            assertTrue(e.getCause().getCause() instanceof ParseException);
+        }
+    }
+
+    @Nested
+    class Close {
+        @Test
+        void stopsHandingOutBatches() throws Exception {
+            ParallelCsvParser parser = new ParallelCsvParser(stream(createCsv(100000)), 2, executor, 1000, 4);
+            parser.nextBatch();
+            parser.close();
+            assertNull(parser.nextBatch());
+        }
+
+        @Test
+        void closesTheStream() {
+            InputStream csv = new ByteArrayInputStream(createCsv(3).getBytes(StandardCharsets.UTF_8)) {
+                @Override
+                public void close() throws IOException {
+                    throw new IOException("closed");
+                }
+            };
+            ParallelCsvParser parser = new ParallelCsvParser(csv, 2, executor);
+            assertThrows(IOException.class, parser::close);
+        }
+    }
+}
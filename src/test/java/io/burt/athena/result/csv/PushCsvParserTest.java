@@ -0,0 +1,155 @@
+package io.burt.athena.result.csv;
+
+import io.burt.athena.support.TestNameGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayNameGeneration(TestNameGenerator.class)
+class PushCsvParserTest {
+    private List<CsvRowBatch> batches;
+
+    @BeforeEach
+    void setUp() {
+        batches = new ArrayList<>();
+    }
+
+    private PushCsvParser createParser(int columnCount, int batchSize) {
+        return new PushCsvParser(columnCount, batchSize, batches::add);
+    }
+
+    private void feed(PushCsvParser parser, String csv, int chunkSize) throws ParseException {
+        byte[] bytes = csv.getBytes(StandardCharsets.UTF_8);
+        for (int offset = 0; offset < bytes.length; offset += chunkSize) {
+            parser.feed(ByteBuffer.wrap(bytes, offset, Math.min(chunkSize, bytes.length - offset)));
+        }
+    }
+
+    private List<String[]> rows() {
+        List<String[]> rows = new ArrayList<>();
+        for (CsvRowBatch batch : batches) {
+            for (int i = 0; i < batch.getRowCount(); i++) {
+                CsvRow row = new CsvRow(3);
+                batch.loadRow(i, row);
+                rows.add(new String[]{row.getString(0), row.getString(1), row.getString(2)});
+            }
+        }
+        return rows;
+    }
+
+    private static final String CSV = "\"one\",\"t\"\"w\"\"o\",\n,\"\",\"thr\u00e9e\"\n\"a,b\",\"c\nd\",\"e\"\n";
+
+    private void assertRows() {
+        List<String[]> rows = rows();
+        assertEquals(3, rows.size());
+        assertArrayEquals(new String[]{"one", "t\"w\"o", null}, rows.get(0));
+        assertArrayEquals(new String[]{null, "", "thr\u00e9e"}, rows.get(1));
+        assertArrayEquals(new String[]{"a,b", "c\nd", "e"}, rows.get(2));
+    }
+
+    @Nested
+    class Feed {
+        @Test
+        void parsesRowsDeliveredInOneBuffer() throws Exception {
+            PushCsvParser parser = createParser(3, 1 << 16);
+            feed(parser, CSV, Integer.MAX_VALUE);
+            parser.finish();
+            assertRows();
+        }
+
+        @Test
+        void resumesParsingAtAnyByte() throws Exception {
+            for (int chunkSize = 1; chunkSize < 8; chunkSize++) {
+                batches.clear();
+                PushCsvParser parser = createParser(3, 1 << 16);
+                feed(parser, CSV, chunkSize);
+                parser.finish();
+                assertRows();
+            }
+        }
+
+        @Test
+        void handsOverABatchWhenTheBatchSizeIsReached() throws Exception {
+            PushCsvParser parser = createParser(3, 10);
+            feed(parser, CSV, 3);
+            assertTrue(batches.size() >= 2);
+            parser.finish();
+            assertRows();
+        }
+
+        @Test
+        void keepsTheBytesOfEachRowInItsBatch() throws Exception {
+            PushCsvParser parser = createParser(3, 10);
+            feed(parser, CSV, 3);
+            parser.finish();
+            StringBuilder bytes = new StringBuilder();
+            for (CsvRowBatch batch : batches) {
+                ByteBuffer buffer = batch.getBytes(0);
+                byte[] array = new byte[buffer.remaining()];
+                buffer.get(array);
+                bytes.append(new String(array, StandardCharsets.UTF_8));
+            }
+            assertEquals(CSV, bytes.toString());
+        }
+
+        @Test
+        void throwsWhenAFieldIsNotQuoted() {
+            PushCsvParser parser = createParser(3, 1 << 16);
+            ParseException e = assertThrows(ParseException.class, () -> feed(parser, "\"a\",b,\"c\"\n", 2));
+            assertEquals("Expected quote but found \"b\"", e.getMessage());
+            assertEquals(4, e.getErrorOffset());
+        }
+
+        @Test
+        void throwsWhenARowHasTheWrongNumberOfFields() {
+            PushCsvParser parser = createParser(3, 4);
+            ParseException e = assertThrows(ParseException.class, () -> feed(parser, "\"a\",\"b\",\"c\"\n\"d\",\"e\"\n", 2));
+            assertEquals("Expected comma but found \"\\n\"", e.getMessage());
+            assertEquals(19, e.getErrorOffset());
+        }
+    }
+
+    @Nested
+    class Flush {
+        @Test
+        void handsOverTheCompleteRows() throws Exception {
+            PushCsvParser parser = createParser(3, 1 << 16);
+            feed(parser, CSV.substring(0, 20), 7);
+            parser.flush();
+            assertEquals(1, batches.size());
+            assertEquals(1, batches.get(0).getRowCount());
+        }
+
+        @Test
+        void doesNothingWhenThereAreNoCompleteRows() throws Exception {
+            PushCsvParser parser = createParser(3, 1 << 16);
+            feed(parser, "\"a\",", 7);
+            parser.flush();
+            assertEquals(0, batches.size());
+        }
+    }
+
+    @Nested
+    class Finish {
+        @Test
+        void throwsWhenTheInputEndsInTheMiddleOfARow() throws Exception {
+            PushCsvParser parser = createParser(3, 1 << 16);
+            feed(parser, "\"a\",\"b\",\"c\"\n\"d\",\"e", 5);
+            ParseException e = assertThrows(ParseException.class, parser::finish);
+            assertEquals("Unexpected end of stream", e.getMessage());
+            assertEquals(18, e.getErrorOffset());
+        }
+    }
+}
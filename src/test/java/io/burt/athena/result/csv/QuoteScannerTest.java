@@ -0,0 +1,90 @@
+package io.burt.athena.result.csv;
+
+import io.burt.athena.support.TestNameGenerator;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DisplayNameGeneration(TestNameGenerator.class)
+class QuoteScannerTest {
+    private static byte[] randomBytes(long seed) {
+        Random random = new Random(seed);
+        byte[] bytes = new byte[100];
+        random.nextBytes(bytes);
+        for (int i = 0; i < bytes.length; i++) {
+            if (random.nextInt(10) == 0) {
+                bytes[i] = '"';
+            } else if (bytes[i] == '"') {
+                bytes[i] = 'x';
+            }
+        }
+        return bytes;
+    }
+
+    @Nested
+    class IndexOfQuote {
+        @Test
+        void findsTheFirstQuote() {
+            byte[] bytes = "hello world, this is a \"quote\"".getBytes(StandardCharsets.UTF_8);
+            assertEquals(23, QuoteScanner.indexOfQuote(bytes, 0, bytes.length));
+            assertEquals(29, QuoteScanner.indexOfQuote(bytes, 24, bytes.length));
+        }
+
+        @Test
+        void returnsTheEndOfTheRangeWhenThereIsNoQuote() {
+            byte[] bytes = "\"no quotes in here\"".getBytes(StandardCharsets.UTF_8);
+            assertEquals(18, QuoteScanner.indexOfQuote(bytes, 1, 18));
+        }
+
+        @Test
+        void findsQuotesAfterBytesWithTheHighBitSet() {
+            byte[] bytes = "☃☃☃\"".getBytes(StandardCharsets.UTF_8);
+            assertEquals(9, QuoteScanner.indexOfQuote(bytes, 0, bytes.length));
+        }
+
+        @Test
+        void findsTheSameQuotesAsAByteAtATime() {
+            for (long seed = 0; seed < 50; seed++) {
+                byte[] bytes = randomBytes(seed);
+                for (int from = 0; from < 16; from++) {
+                    int expected = from;
+                    while (expected < bytes.length && bytes[expected] != '"') {
+                        expected++;
+                    }
+                    assertEquals(expected, QuoteScanner.indexOfQuote(bytes, from, bytes.length));
+                }
+            }
+        }
+    }
+
+    @Nested
+    class CountQuotes {
+        @Test
+        void countsTheQuotesInTheRange() {
+            byte[] bytes = "\"a\",\"b\"\"c\",,\"☃\"\n".getBytes(StandardCharsets.UTF_8);
+            assertEquals(8, QuoteScanner.countQuotes(bytes, 0, bytes.length));
+            assertEquals(5, QuoteScanner.countQuotes(bytes, 4, 14));
+        }
+
+        @Test
+        void countsTheSameQuotesAsAByteAtATime() {
+            for (long seed = 0; seed < 50; seed++) {
+                byte[] bytes = randomBytes(seed);
+                for (int from = 0; from < 16; from++) {
+                    int expected = 0;
+                    for (int i = from; i < bytes.length - from; i++) {
+                        if (bytes[i] == '"') {
+                            expected++;
+                        }
+                    }
+                    assertEquals(expected, QuoteScanner.countQuotes(bytes, from, bytes.length - from));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package io.burt.athena.result.json;
+
+import io.burt.athena.support.TestNameGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayNameGeneration(TestNameGenerator.class)
+class BackgroundJsonLinesParserTest {
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static class CountingInputStream extends ByteArrayInputStream {
+        volatile int bytesRead = 0;
+
+        CountingInputStream(String contents) {
+            super(contents.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                bytesRead += n;
+            }
+            return n;
+        }
+    }
+
+    private static String createJson(int rowCount) {
+        StringBuilder json = new StringBuilder();
+        for (int i = 0; i < rowCount; i++) {
+            json.append("{\"name\":\"row").append(i).append("\",\"n\":").append(i).append("}\n");
+        }
+        return json.toString();
+    }
+
+    private static InputStream stream(String contents) {
+        return new ByteArrayInputStream(contents.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static BackgroundJsonLinesParser<String> parser(InputStream json) {
+        return new BackgroundJsonLinesParser<>(json, false, parser -> parser.getValue(0));
+    }
+
+    private static List<String> readAll(BackgroundJsonLinesParser<String> parser) throws IOException {
+        List<String> values = new ArrayList<>();
+        String value;
+        while ((value = parser.next()) != null) {
+            values.add(value);
+        }
+        return values;
+    }
+
+    @Nested
+    class Next {
+        @Test
+        void returnsTheRowsParsedInTheBackground() throws Exception {
+            BackgroundJsonLinesParser<String> parser = parser(stream(createJson(3))).start(executor);
+            assertEquals(Arrays.asList("row0", "row1", "row2"), readAll(parser));
+        }
+
+        @Test
+        void returnsAllRowsOfLargeStreams() throws Exception {
+            BackgroundJsonLinesParser<String> parser = parser(stream(createJson(200000))).start(executor);
+            List<String> values = readAll(parser);
+            assertEquals(200000, values.size());
+            assertEquals("row199999", values.get(199999));
+        }
+
+        @Test
+        void decompressesGzippedStreams() throws Exception {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+                gzip.write(createJson(3).getBytes(StandardCharsets.UTF_8));
+            }
+            BackgroundJsonLinesParser<String> parser = new BackgroundJsonLinesParser<String>(new ByteArrayInputStream(bytes.toByteArray()), true, p -> p.getValue(0)).start(executor);
+            assertEquals(Arrays.asList("row0", "row1", "row2"), readAll(parser));
+        }
+
+        @Test
+        void parsesOnTheReadersThreadWhenTheExecutorDoesNotRunTheTask() throws Exception {
+            BackgroundJsonLinesParser<String> parser = parser(stream(createJson(3))).start(task -> { });
+            assertEquals(Arrays.asList("row0", "row1", "row2"), readAll(parser));
+        }
+
+        @Test
+        void parsesOnTheReadersThreadWhenTheExecutorRejectsTheTask() throws Exception {
+            executor.shutdown();
+            BackgroundJsonLinesParser<String> parser = parser(stream(createJson(3))).start(executor);
+            assertEquals(Arrays.asList("row0", "row1", "row2"), readAll(parser));
+        }
+
+        @Test
+        void throwsParseErrorsAfterTheRowsBeforeThem() throws Exception {
+            BackgroundJsonLinesParser<String> parser = parser(stream("{\"a\":\"1\"}\n{\"a\":?}\n")).start(executor);
+            assertEquals("1", parser.next());
+            IOException e = assertThrows(IOException.class, parser::next);
+            assertTrue(e.getCause() instanceof ParseException);
+        }
+
+        @Test
+        void throwsTheErrorsOfTheRowMapper() throws Exception {
+            BackgroundJsonLinesParser<String> parser = new BackgroundJsonLinesParser<String>(stream(createJson(3)), false, p -> {
+                throw new SQLException("b0rk");
+            }).start(executor);
+            IOException e = assertThrows(IOException.class, parser::next);
+            assertEquals("b0rk", e.getCause().getMessage());
+        }
+
+        @Test
+        void stopsReadingWhenTheQueueIsFull() throws Exception {
+            String contents = createJson(500000);
+            CountingInputStream json = new CountingInputStream(contents);
+            parser(json).start(executor);
+            int previous = -1;
+            while (previous != json.bytesRead) {
+                previous = json.bytesRead;
+                Thread.sleep(50);
+            }
+            assertTrue(json.bytesRead < contents.length() / 2);
+        }
+    }
+
+    @Nested
+    class Close {
+        @Test
+        void stopsTheBackgroundTask() throws Exception {
+            BackgroundJsonLinesParser<String> parser = parser(new CountingInputStream(createJson(500000))).start(executor);
+            parser.next();
+            parser.close();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+            assertNull(parser.next());
+        }
+
+        @Test
+        void closesTheStream() {
+            InputStream json = new ByteArrayInputStream(createJson(3).getBytes(StandardCharsets.UTF_8)) {
+                @Override
+                public void close() throws IOException {
+                    throw new IOException("closed");
+                }
+            };
+            BackgroundJsonLinesParser<String> parser = parser(json).start(task -> { });
+            assertThrows(IOException.class, parser::close);
+        }
+    }
+}
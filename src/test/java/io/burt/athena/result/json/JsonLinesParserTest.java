@@ -0,0 +1,106 @@
+package io.burt.athena.result.json;
+
+import io.burt.athena.support.TestNameGenerator;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayNameGeneration(TestNameGenerator.class)
+class JsonLinesParserTest {
+    private JsonLinesParser parser(String json) {
+        return new JsonLinesParser(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Nested
+    class Next {
+        @Test
+        void parsesOneObjectPerLine() throws Exception {
+            JsonLinesParser parser = parser("{\"a\":\"1\",\"b\":2}\n{\"a\":\"3\",\"b\":4}\n");
+            assertTrue(parser.next());
+            assertEquals(2, parser.getFieldCount());
+            assertEquals("a", parser.getName(0));
+            assertEquals("1", parser.getValue(0));
+            assertEquals("b", parser.getName(1));
+            assertEquals("2", parser.getValue(1));
+            assertTrue(parser.next());
+            assertEquals("3", parser.getValue(0));
+            assertFalse(parser.next());
+        }
+
+        @Test
+        void skipsBlankLines() throws Exception {
+            JsonLinesParser parser = parser("\n{\"a\":1}\n\n  \n{\"a\":2}");
+            assertTrue(parser.next());
+            assertTrue(parser.next());
+            assertEquals("2", parser.getValue(0));
+            assertFalse(parser.next());
+        }
+
+        @Test
+        void unescapesStrings() throws Exception {
+            JsonLinesParser parser = parser("{\"a\":\"x\\\"y\\\\z\\n,\\u2603\\/\"}");
+            parser.next();
+            assertEquals("x\"y\\z\n,☃/", parser.getValue(0));
+        }
+
+        @Test
+        void returnsNullForNullValues() throws Exception {
+            JsonLinesParser parser = parser("{\"a\":null, \"b\" : true, \"c\":false}");
+            parser.next();
+            assertNull(parser.getValue(0));
+            assertEquals("true", parser.getValue(1));
+            assertEquals("false", parser.getValue(2));
+        }
+
+        @Test
+        void returnsNumbersAsWritten() throws Exception {
+            JsonLinesParser parser = parser("{\"a\":-1.5e10,\"b\":0.10}");
+            parser.next();
+            assertEquals("-1.5e10", parser.getValue(0));
+            assertEquals("0.10", parser.getValue(1));
+        }
+
+        @Test
+        void returnsNestedValuesAsJson() throws Exception {
+            JsonLinesParser parser = parser("{\"a\":[1,\"]\",{\"b\":[]}],\"c\":{\"d\":\"}\"}}");
+            parser.next();
+            assertEquals("[1,\"]\",{\"b\":[]}]", parser.getValue(0));
+            assertEquals("{\"d\":\"}\"}", parser.getValue(1));
+        }
+
+        @Test
+        void parsesEmptyObjects() throws Exception {
+            JsonLinesParser parser = parser("{ }");
+            assertTrue(parser.next());
+            assertEquals(0, parser.getFieldCount());
+        }
+
+        @Test
+        void throwsWhenALineIsNotAnObject() {
+            assertThrows(ParseException.class, () -> parser("[1]").next());
+            assertThrows(ParseException.class, () -> parser("{\"a\":1").next());
+            assertThrows(ParseException.class, () -> parser("{\"a\":1}x").next());
+            assertThrows(ParseException.class, () -> parser("{\"a\":\"1}").next());
+            assertThrows(ParseException.class, () -> parser("{\"a\":nul}").next());
+            assertThrows(ParseException.class, () -> parser("{a:1}").next());
+        }
+
+        @Test
+        void reportsTheLineNumberOfErrors() throws Exception {
+            JsonLinesParser parser = parser("{\"a\":1}\n{\"a\":?}");
+            parser.next();
+            Exception e = assertThrows(ParseException.class, parser::next);
+            assertTrue(e.getMessage().contains("line 2"));
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package io.burt.athena.result.json;
+
+import io.burt.athena.support.TestNameGenerator;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.text.ParseException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayNameGeneration(TestNameGenerator.class)
+class JsonTextRendererTest {
+    @Nested
+    class Render {
+        @Test
+        void rendersArraysWithCommasAndSpaces() throws Exception {
+            assertEquals("[1, 2, 3]", JsonTextRenderer.render("[1,2,3]"));
+        }
+
+        @Test
+        void rendersObjectsAsKeyValuePairs() throws Exception {
+            assertEquals("{a=1, b=2}", JsonTextRenderer.render("{\"a\":1, \"b\" : 2}"));
+        }
+
+        @Test
+        void rendersStringsWithoutQuotesOrEscapes() throws Exception {
+            assertEquals("[x, y\"z, ☃]", JsonTextRenderer.render("[\"x\",\"y\\\"z\",\"\\u2603\"]"));
+        }
+
+        @Test
+        void rendersNullsBooleansAndNumbersAsWritten() throws Exception {
+            assertEquals("[null, true, false, -1.5E3]", JsonTextRenderer.render("[null,true,false,-1.5E3]"));
+        }
+
+        @Test
+        void rendersNestedValues() throws Exception {
+            assertEquals("{a=[1, 2], b={c=x}}", JsonTextRenderer.render("{\"a\":[1,2],\"b\":{\"c\":\"x\"}}"));
+        }
+
+        @Test
+        void rendersEmptyArraysAndObjects() throws Exception {
+            assertEquals("[]", JsonTextRenderer.render("[]"));
+            assertEquals("{}", JsonTextRenderer.render("{ }"));
+        }
+
+        @Test
+        void returnsNullForNull() throws Exception {
+            assertNull(JsonTextRenderer.render(null));
+        }
+
+        @Test
+        void throwsWhenTheValueIsNotValidJson() {
+            assertThrows(ParseException.class, () -> JsonTextRenderer.render("[1,2"));
+            assertThrows(ParseException.class, () -> JsonTextRenderer.render("[1 2]"));
+            assertThrows(ParseException.class, () -> JsonTextRenderer.render("{a:1}"));
+            assertThrows(ParseException.class, () -> JsonTextRenderer.render("[\"x]"));
+            assertThrows(ParseException.class, () -> JsonTextRenderer.render("[1]x"));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package io.burt.athena.result.s3;
+
+import io.burt.athena.support.TestNameGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayNameGeneration(TestNameGenerator.class)
+class BufferPoolTest {
+    private BufferPool pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = new BufferPool(16, 2);
+    }
+
+    @Nested
+    class Constructor {
+        @Test
+        void throwsWhenTheBufferSizeIsNotPositive() {
+            assertThrows(IllegalArgumentException.class, () -> new BufferPool(0, 2));
+        }
+
+        @Test
+        void throwsWhenTheMaxPooledBuffersIsNotPositive() {
+            assertThrows(IllegalArgumentException.class, () -> new BufferPool(16, 0));
+        }
+    }
+
+    @Nested
+    class Acquire {
+        @Test
+        void returnsAnEmptyBufferOfTheBufferSize() {
+            ByteBuffer buffer = pool.acquire();
+            assertEquals(16, buffer.capacity());
+            assertEquals(0, buffer.position());
+            assertEquals(16, buffer.limit());
+        }
+
+        @Test
+        void reusesReleasedBuffers() {
+            ByteBuffer buffer = pool.acquire();
+            buffer.put((byte) 1);
+            ((Buffer) buffer).flip();
+            pool.release(buffer);
+            ByteBuffer reused = pool.acquire();
+            assertSame(buffer, reused);
+            assertEquals(0, reused.position());
+            assertEquals(16, reused.limit());
+        }
+
+        @Test
+        void allocatesNewBuffersWhenThePoolIsEmpty() {
+            assertNotSame(pool.acquire(), pool.acquire());
+        }
+    }
+
+    @Nested
+    class Release {
+        @Test
+        void keepsAtMostTheMaxNumberOfBuffers() {
+            pool.release(pool.acquire());
+            pool.release(ByteBuffer.allocate(16));
+            pool.release(ByteBuffer.allocate(16));
+            assertEquals(2, pool.getPooledBufferCount());
+        }
+
+        @Test
+        void ignoresBuffersOfOtherSizes() {
+            pool.release(ByteBuffer.allocate(8));
+            pool.release(ByteBuffer.allocateDirect(16));
+            pool.release(ByteBuffer.wrap(new byte[32], 8, 16).slice());
+            pool.release(null);
+            assertEquals(0, pool.getPooledBufferCount());
+        }
+    }
+}
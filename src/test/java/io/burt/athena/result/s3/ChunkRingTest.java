@@ -0,0 +1,99 @@
+package io.burt.athena.result.s3;
+
+import io.burt.athena.support.TestNameGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayNameGeneration(TestNameGenerator.class)
+class ChunkRingTest {
+    private ChunkRing ring;
+
+    @BeforeEach
+    void setUp() {
+        ring = new ChunkRing(4);
+    }
+
+    @Nested
+    class Constructor {
+        @Test
+        void throwsWhenTheCapacityIsNotAPowerOfTwo() {
+            assertThrows(IllegalArgumentException.class, () -> new ChunkRing(3));
+            assertThrows(IllegalArgumentException.class, () -> new ChunkRing(0));
+        }
+    }
+
+    @Nested
+    class Offer {
+        @Test
+        void addsChunksUntilTheRingIsFull() {
+            for (int i = 0; i < 4; i++) {
+                assertTrue(ring.offer(ByteBuffer.allocate(1)));
+            }
+            assertFalse(ring.offer(ByteBuffer.allocate(1)));
+            assertEquals(4, ring.size());
+        }
+    }
+
+    @Nested
+    class Poll {
+        @Test
+        void returnsNullWhenTheRingIsEmpty() {
+            assertNull(ring.poll());
+            assertTrue(ring.isEmpty());
+        }
+
+        @Test
+        void returnsTheChunksInOrderWhenWrappingAround() {
+            for (int i = 0; i < 10; i++) {
+                ByteBuffer first = ByteBuffer.allocate(1);
+                ByteBuffer second = ByteBuffer.allocate(1);
+                ring.offer(first);
+                ring.offer(second);
+                assertSame(first, ring.poll());
+                assertSame(second, ring.poll());
+            }
+            assertTrue(ring.isEmpty());
+        }
+
+        @Test
+        void handsOverChunksBetweenThreads() throws Exception {
+            int count = 100000;
+            List<Integer> received = new ArrayList<>(count);
+            Thread consumer = new Thread(() -> {
+                while (received.size() < count) {
+                    ByteBuffer chunk = ring.poll();
+                    if (chunk == null) {
+                        Thread.yield();
+                    } else {
+                        received.add(chunk.getInt(0));
+                    }
+                }
+            });
+            consumer.start();
+            for (int i = 0; i < count; i++) {
+                ByteBuffer chunk = ByteBuffer.allocate(4).putInt(0, i);
+                while (!ring.offer(chunk)) {
+                    Thread.yield();
+                }
+            }
+            consumer.join(10000);
+            assertEquals(count, received.size());
+            for (int i = 0; i < count; i++) {
+                assertEquals(i, (int) received.get(i));
+            }
+        }
+    }
+}
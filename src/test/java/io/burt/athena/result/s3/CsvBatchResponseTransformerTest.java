@@ -0,0 +1,101 @@
+package io.burt.athena.result.s3;
+
+import io.burt.athena.result.csv.CsvRowBatch;
+import io.burt.athena.support.TestNameGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import software.amazon.awssdk.core.exception.SdkClientException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+@DisplayNameGeneration(TestNameGenerator.class)
+class CsvBatchResponseTransformerTest {
+    private CsvBatchResponseTransformer transformer;
+
+    @BeforeEach
+    void setUp() {
+        transformer = new CsvBatchResponseTransformer();
+        transformer.onSubscribe(mock(Subscription.class));
+        transformer.start(1);
+    }
+
+    private static ByteBuffer bytes(String s) {
+        return ByteBuffer.wrap(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Nested
+    class NextBatch {
+        @Test
+        void returnsTheParsedRows() throws Exception {
+            transformer.onNext(bytes("\"a\"\n\"b\"\n"));
+            transformer.onComplete();
+            CsvRowBatch batch = transformer.nextBatch();
+            assertEquals(2, batch.getRowCount());
+            assertNull(transformer.nextBatch());
+        }
+
+        @Test
+        void returnsNullAfterTheReaderHasClosedTheTransformer() throws Exception {
+            transformer.onNext(bytes("\"a\"\n"));
+            transformer.close();
+            assertNull(transformer.nextBatch());
+        }
+
+        @Nested
+        class WhenTheDownloadFails {
+            @Test
+            void throwsAfterTheRowsParsedBeforeTheError() throws Exception {
+                SdkClientException error = SdkClientException.create("Connection reset");
+                transformer.onNext(bytes("\"a\"\n\"b\"\n"));
+                transformer.exceptionOccurred(error);
+                transformer.onError(error);
+                assertEquals(2, transformer.nextBatch().getRowCount());
+                IOException e = assertThrows(IOException.class, () -> transformer.nextBatch());
+                assertSame(error, e.getCause());
+            }
+
+            @Test
+            void throwsWhenTheErrorIsOnlyReportedToTheTransformer() throws Exception {
+                SdkClientException error = SdkClientException.create("Connection reset");
+                transformer.onNext(bytes("\"a\"\n"));
+                transformer.exceptionOccurred(error);
+                assertEquals(1, transformer.nextBatch().getRowCount());
+                assertThrows(IOException.class, () -> transformer.nextBatch());
+            }
+
+            @Test
+            void keepsThrowingOnEveryCall() throws Exception {
+                SdkClientException error = SdkClientException.create("Connection reset");
+                transformer.exceptionOccurred(error);
+                transformer.onError(error);
+                assertThrows(IOException.class, () -> transformer.nextBatch());
+                assertThrows(IOException.class, () -> transformer.nextBatch());
+            }
+        }
+
+        @Nested
+        class WhenTheCsvIsMalformed {
+            @Test
+            void throwsTheParseError() {
+                transformer.onNext(bytes("\"a\"b\n"));
+                IOException e = assertThrows(IOException.class, () -> {
+                    while (transformer.nextBatch() != null) { }
+                });
+                assertTrue(e.getCause() instanceof ParseException);
+            }
+        }
+    }
+}
@@ -1,13 +1,20 @@
 package io.burt.athena.support;
 
+import io.burt.athena.admission.AdmissionController;
 import io.burt.athena.configuration.ConnectionConfiguration;
+import io.burt.athena.polling.BatchQueryExecutionPoller;
 import io.burt.athena.polling.PollingStrategy;
 import io.burt.athena.result.Result;
 import software.amazon.awssdk.services.athena.AthenaAsyncClient;
 import software.amazon.awssdk.services.athena.model.QueryExecution;
 import software.amazon.awssdk.services.s3.S3AsyncClient;
 
+import java.sql.ResultSet;
 import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -20,9 +27,20 @@ public class ConfigurableConnectionConfiguration implements ConnectionConfigurat
     private final Supplier<AthenaAsyncClient> athenaClientFactory;
     private final Supplier<S3AsyncClient> s3ClientFactory;
     private final Supplier<PollingStrategy> pollingStrategyFactory;
+    private final Supplier<BatchQueryExecutionPoller> queryExecutionPollerFactory;
+    private final Supplier<AdmissionController> admissionControllerFactory;
     private final Function<QueryExecution, Result> resultFactory;
+    private final ScheduledExecutorService scheduler;
 
     public ConfigurableConnectionConfiguration(String databaseName, String workGroupName, String outputLocation, Duration networkTimeout, Duration queryTimeout, Supplier<AthenaAsyncClient> athenaClientFactory, Supplier<S3AsyncClient> s3ClientFactory, Supplier<PollingStrategy> pollingStrategyFactory, Function<QueryExecution, Result> resultFactory) {
+        this(databaseName, workGroupName, outputLocation, networkTimeout, queryTimeout, athenaClientFactory, s3ClientFactory, pollingStrategyFactory, () -> null, resultFactory);
+    }
+
+    public ConfigurableConnectionConfiguration(String databaseName, String workGroupName, String outputLocation, Duration networkTimeout, Duration queryTimeout, Supplier<AthenaAsyncClient> athenaClientFactory, Supplier<S3AsyncClient> s3ClientFactory, Supplier<PollingStrategy> pollingStrategyFactory, Supplier<BatchQueryExecutionPoller> queryExecutionPollerFactory, Function<QueryExecution, Result> resultFactory) {
+        this(databaseName, workGroupName, outputLocation, networkTimeout, queryTimeout, athenaClientFactory, s3ClientFactory, pollingStrategyFactory, queryExecutionPollerFactory, () -> null, resultFactory);
+    }
+
+    public ConfigurableConnectionConfiguration(String databaseName, String workGroupName, String outputLocation, Duration networkTimeout, Duration queryTimeout, Supplier<AthenaAsyncClient> athenaClientFactory, Supplier<S3AsyncClient> s3ClientFactory, Supplier<PollingStrategy> pollingStrategyFactory, Supplier<BatchQueryExecutionPoller> queryExecutionPollerFactory, Supplier<AdmissionController> admissionControllerFactory, Function<QueryExecution, Result> resultFactory) {
         this.databaseName = databaseName;
         this.workGroupName = workGroupName;
         this.outputLocation = outputLocation;
@@ -31,7 +49,14 @@ public class ConfigurableConnectionConfiguration implements ConnectionConfigurat
         this.athenaClientFactory = athenaClientFactory;
         this.s3ClientFactory = s3ClientFactory;
         this.pollingStrategyFactory = pollingStrategyFactory;
+        this.queryExecutionPollerFactory = queryExecutionPollerFactory;
+        this.admissionControllerFactory = admissionControllerFactory;
         this.resultFactory = resultFactory;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     @Override
@@ -72,23 +97,43 @@ public class ConfigurableConnectionConfiguration implements ConnectionConfigurat
         return pollingStrategyFactory.get();
     }
 
+    @Override
+    public BatchQueryExecutionPoller queryExecutionPoller() {
+        return queryExecutionPollerFactory.get();
+    }
+
+    @Override
+    public AdmissionController admissionController() {
+        return admissionControllerFactory.get();
+    }
+
+    @Override
+    public ScheduledExecutorService scheduler() {
+        return scheduler;
+    }
+
     @Override
     public ConnectionConfiguration withDatabaseName(String newDatabaseName) {
-        return new ConfigurableConnectionConfiguration(newDatabaseName, workGroupName, outputLocation, networkTimeout, queryTimeout, athenaClientFactory, s3ClientFactory, pollingStrategyFactory, resultFactory);
+        return new ConfigurableConnectionConfiguration(newDatabaseName, workGroupName, outputLocation, networkTimeout, queryTimeout, athenaClientFactory, s3ClientFactory, pollingStrategyFactory, queryExecutionPollerFactory, admissionControllerFactory, resultFactory);
     }
 
     @Override
     public ConnectionConfiguration withNetworkTimeout(Duration newNetworkTimeout) {
-        return new ConfigurableConnectionConfiguration(databaseName, workGroupName, outputLocation, newNetworkTimeout, queryTimeout, athenaClientFactory, s3ClientFactory, pollingStrategyFactory, resultFactory);
+        return new ConfigurableConnectionConfiguration(databaseName, workGroupName, outputLocation, newNetworkTimeout, queryTimeout, athenaClientFactory, s3ClientFactory, pollingStrategyFactory, queryExecutionPollerFactory, admissionControllerFactory, resultFactory);
     }
 
     @Override
     public ConnectionConfiguration withQueryTimeout(Duration newQueryTimeout) {
-        return new ConfigurableConnectionConfiguration(databaseName, workGroupName, outputLocation, networkTimeout, newQueryTimeout, athenaClientFactory, s3ClientFactory, pollingStrategyFactory, resultFactory);
+        return new ConfigurableConnectionConfiguration(databaseName, workGroupName, outputLocation, networkTimeout, newQueryTimeout, athenaClientFactory, s3ClientFactory, pollingStrategyFactory, queryExecutionPollerFactory, admissionControllerFactory, resultFactory);
+    }
+
+    @Override
+    public String prepareQuery(String sql, Optional<String> clientRequestToken) {
+        return sql;
     }
 
     @Override
-    public Result createResult(QueryExecution queryExecution) {
+    public Result createResult(QueryExecution queryExecution, Function<String, CompletableFuture<ResultSet>> queryRunner) {
         return resultFactory.apply(queryExecution);
     }
 
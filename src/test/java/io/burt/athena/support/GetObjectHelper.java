@@ -9,10 +9,19 @@ import software.amazon.awssdk.core.exception.SdkClientException;
 import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
 import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.S3Object;
 
 import java.nio.ByteBuffer;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -23,15 +32,26 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 public class GetObjectHelper implements S3AsyncClient, AutoCloseable {
+    private static final Pattern RANGE_PATTERN = Pattern.compile("^bytes=(\\d+)-(\\d*)$");
+
     private final Map<String, byte[]> objects;
     private final Map<String, SdkPublisher<ByteBuffer>> publishers;
     private final Map<String, Exception> exceptions;
     private final Map<String, Exception> lateExceptions;
     private final Map<String, Duration> delays;
+    private final Map<String, Integer> interruptionOffsets;
+    private final Map<String, Integer> remainingInterruptions;
     private final List<GetObjectRequest> getObjectRequests;
+    private final List<HeadObjectRequest> headObjectRequests;
     private final List<AutoCloseable> closeables;
+    private final List<ListObjectsV2Request> listObjectsRequests;
+
+    private int listPageSize;
 
     public GetObjectHelper() {
         this.objects = new HashMap<>();
@@ -39,8 +59,13 @@ public class GetObjectHelper implements S3AsyncClient, AutoCloseable {
         this.exceptions = new HashMap<>();
         this.lateExceptions = new HashMap<>();
         this.delays = new HashMap<>();
-        this.getObjectRequests = new LinkedList<>();
-        this.closeables = new LinkedList<>();
+        this.interruptionOffsets = new HashMap<>();
+        this.remainingInterruptions = new HashMap<>();
+        this.getObjectRequests = Collections.synchronizedList(new LinkedList<>());
+        this.headObjectRequests = Collections.synchronizedList(new LinkedList<>());
+        this.closeables = Collections.synchronizedList(new LinkedList<>());
+        this.listObjectsRequests = Collections.synchronizedList(new LinkedList<>());
+        this.listPageSize = 1000;
     }
 
     private String uri(String bucket, String key) {
@@ -71,20 +96,49 @@ public class GetObjectHelper implements S3AsyncClient, AutoCloseable {
         delays.put(uri(bucket, key), duration);
     }
 
+    /**
+     * Makes the next downloads of an object fail with a connection error
+     * after the specified number of bytes of each response.
+     */
+    public void interruptObject(String bucket, String key, int afterBytes, int times) {
+        interruptionOffsets.put(uri(bucket, key), afterBytes);
+        remainingInterruptions.put(uri(bucket, key), times);
+    }
+
+    public static String eTag(byte[] contents) {
+        return String.format("\"%08x\"", Arrays.hashCode(contents));
+    }
+
     public List<GetObjectRequest> getObjectRequests() {
         return getObjectRequests;
     }
 
+    public List<HeadObjectRequest> headObjectRequests() {
+        return headObjectRequests;
+    }
+
+    public List<ListObjectsV2Request> listObjectsRequests() {
+        return listObjectsRequests;
+    }
+
+    public void setListPageSize(int pageSize) {
+        listPageSize = pageSize;
+    }
+
     private static class GetObjectPublisher implements SdkPublisher<ByteBuffer>, Subscription, AutoCloseable {
         private final byte[] objectContents;
+        private final int interruptionOffset;
+        private final Consumer<Throwable> exceptionHandler;
         private final ExecutorService executor;
 
         private int offset;
         private Subscriber<? super ByteBuffer> subscriber;
         private AtomicBoolean complete;
 
-        GetObjectPublisher(byte[] contents) {
+        GetObjectPublisher(byte[] contents, int interruptionOffset, Consumer<Throwable> exceptionHandler) {
             this.objectContents = contents;
+            this.interruptionOffset = interruptionOffset;
+            this.exceptionHandler = exceptionHandler;
             this.offset = 0;
             this.complete = new AtomicBoolean(false);
             this.executor = Executors.newSingleThreadExecutor();
@@ -97,21 +151,22 @@ public class GetObjectHelper implements S3AsyncClient, AutoCloseable {
         }
 
         @Override
-        public void request(long n) {
-            int actualLength;
-            if (n == Long.MAX_VALUE) {
-                actualLength = objectContents.length - offset;
-            } else {
-                actualLength = ((offset + n * 10) > objectContents.length) ? objectContents.length - offset : (int) (n * 10);
-            }
-            if (actualLength > 0) {
-                final int o = offset;
-                final int l = actualLength;
-                offset += actualLength;
-                ByteBuffer slice = ByteBuffer.wrap(objectContents, o, l);
+        public synchronized void request(long n) {
+            int end = interruptionOffset >= 0 ? Math.min(interruptionOffset, objectContents.length) : objectContents.length;
+            for (long i = 0; i < n && offset < end; i++) {
+                int length = n == Long.MAX_VALUE ? end - offset : Math.min(10, end - offset);
+                ByteBuffer slice = ByteBuffer.wrap(objectContents, offset, length);
+                offset += length;
                 executor.submit(() -> subscriber.onNext(slice));
             }
-            if (!complete.get() && offset >= objectContents.length) {
+            if (!complete.get() && interruptionOffset >= 0 && offset >= end) {
+                complete.set(true);
+                SdkClientException e = SdkClientException.create("Connection reset");
+                executor.submit(() -> {
+                    exceptionHandler.accept(e);
+                    subscriber.onError(e);
+                });
+            } else if (!complete.get() && offset >= objectContents.length) {
                 complete.set(true);
                 executor.submit(() -> subscriber.onComplete());
             }
@@ -184,10 +239,38 @@ public class GetObjectHelper implements S3AsyncClient, AutoCloseable {
             requestTransformer.onStream(publishers.get(uri));
         } else if (objects.containsKey(uri)) {
             byte[] object = objects.get(uri);
-            GetObjectResponse response = GetObjectResponse.builder().contentLength((long) object.length).build();
+            String eTag = eTag(object);
+            if (request.ifMatch() != null && !request.ifMatch().equals(eTag)) {
+                future = new CompletableFuture<>();
+                future.completeExceptionally(S3Exception.builder().statusCode(412).message("At least one of the pre-conditions you specified did not hold").build());
+                return future;
+            }
+            GetObjectResponse response = GetObjectResponse.builder().contentLength((long) object.length).eTag(eTag).build();
+            if (request.range() != null) {
+                Matcher matcher = RANGE_PATTERN.matcher(request.range());
+                if (!matcher.matches()) {
+                    throw new IllegalArgumentException(String.format("Unsupported range: \"%s\"", request.range()));
+                }
+                int start = Integer.parseInt(matcher.group(1));
+                if (start >= object.length) {
+                    future = new CompletableFuture<>();
+                    future.completeExceptionally(S3Exception.builder().statusCode(416).message("The requested range is not satisfiable").build());
+                    return future;
+                }
+                int end = matcher.group(2).isEmpty() ? object.length - 1 : Math.min(Integer.parseInt(matcher.group(2)), object.length - 1);
+                response = response.toBuilder().contentLength((long) end - start + 1).contentRange(String.format("bytes %d-%d/%d", start, end, object.length)).build();
+                object = Arrays.copyOfRange(object, start, end + 1);
+            }
             future = requestTransformer.prepare();
             requestTransformer.onResponse(response);
-            GetObjectPublisher publisher = new GetObjectPublisher(object);
+            int interruptionOffset = -1;
+            synchronized (remainingInterruptions) {
+                if (remainingInterruptions.getOrDefault(uri, 0) > 0) {
+                    remainingInterruptions.put(uri, remainingInterruptions.get(uri) - 1);
+                    interruptionOffset = interruptionOffsets.get(uri);
+                }
+            }
+            GetObjectPublisher publisher = new GetObjectPublisher(object, interruptionOffset, requestTransformer::exceptionOccurred);
             requestTransformer.onStream(publisher);
             closeables.add(publisher);
         } else {
@@ -212,6 +295,41 @@ public class GetObjectHelper implements S3AsyncClient, AutoCloseable {
         return future;
     }
 
+    @Override
+    public CompletableFuture<HeadObjectResponse> headObject(HeadObjectRequest request) {
+        headObjectRequests.add(request);
+        String uri = uri(request.bucket(), request.key());
+        CompletableFuture<HeadObjectResponse> future = new CompletableFuture<>();
+        if (exceptions.containsKey(uri)) {
+            future.completeExceptionally(exceptions.get(uri));
+        } else if (objects.containsKey(uri)) {
+            byte[] object = objects.get(uri);
+            future.complete(HeadObjectResponse.builder().contentLength((long) object.length).eTag(eTag(object)).build());
+        } else {
+            future.completeExceptionally(NoSuchKeyException.builder().build());
+        }
+        return future;
+    }
+
+    @Override
+    public CompletableFuture<ListObjectsV2Response> listObjectsV2(ListObjectsV2Request request) {
+        listObjectsRequests.add(request);
+        String prefix = uri(request.bucket(), request.prefix() == null ? "" : request.prefix());
+        List<String> uris = objects.keySet().stream().filter(u -> u.startsWith(prefix)).sorted().collect(Collectors.toList());
+        int start = request.continuationToken() == null ? 0 : Integer.parseInt(request.continuationToken());
+        int end = Math.min(start + listPageSize, uris.size());
+        List<S3Object> contents = new ArrayList<>(end - start);
+        for (String u : uris.subList(start, end)) {
+            String key = u.substring(String.format("s3://%s/", request.bucket()).length());
+            contents.add(S3Object.builder().key(key).size((long) objects.get(u).length).build());
+        }
+        ListObjectsV2Response.Builder response = ListObjectsV2Response.builder().contents(contents).isTruncated(end < uris.size());
+        if (end < uris.size()) {
+            response.nextContinuationToken(String.valueOf(end));
+        }
+        return CompletableFuture.completedFuture(response.build());
+    }
+
     @Override
     public String serviceName() {
         return null;
@@ -219,6 +337,10 @@ public class GetObjectHelper implements S3AsyncClient, AutoCloseable {
 
     @Override
     public void close() {
+        List<AutoCloseable> closeables;
+        synchronized (this.closeables) {
+            closeables = new LinkedList<>(this.closeables);
+        }
         for (AutoCloseable closeable : closeables) {
             try {
                 closeable.close();
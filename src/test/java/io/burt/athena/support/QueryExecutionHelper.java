@@ -1,11 +1,14 @@
 package io.burt.athena.support;
 
 import software.amazon.awssdk.services.athena.AthenaAsyncClient;
+import software.amazon.awssdk.services.athena.model.BatchGetQueryExecutionRequest;
+import software.amazon.awssdk.services.athena.model.BatchGetQueryExecutionResponse;
 import software.amazon.awssdk.services.athena.model.ColumnInfo;
 import software.amazon.awssdk.services.athena.model.GetQueryExecutionRequest;
 import software.amazon.awssdk.services.athena.model.GetQueryExecutionResponse;
 import software.amazon.awssdk.services.athena.model.GetQueryResultsRequest;
 import software.amazon.awssdk.services.athena.model.GetQueryResultsResponse;
+import software.amazon.awssdk.services.athena.model.QueryExecution;
 import software.amazon.awssdk.services.athena.model.QueryExecutionState;
 import software.amazon.awssdk.services.athena.model.Row;
 import software.amazon.awssdk.services.athena.model.StartQueryExecutionRequest;
@@ -14,6 +17,7 @@ import software.amazon.awssdk.services.athena.model.StopQueryExecutionRequest;
 import software.amazon.awssdk.services.athena.model.StopQueryExecutionResponse;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
@@ -29,6 +33,7 @@ import java.util.function.Consumer;
 public class QueryExecutionHelper implements AthenaAsyncClient {
     private final List<StartQueryExecutionRequest> startQueryRequests;
     private final List<GetQueryExecutionRequest> getQueryExecutionRequests;
+    private final List<BatchGetQueryExecutionRequest> batchGetQueryExecutionRequests;
     private final List<GetQueryResultsRequest> getQueryResultsRequests;
     private final List<StopQueryExecutionRequest> stopQueryExecutionRequests;
     private final Queue<StartQueryExecutionResponse> startQueryExecutionResponseQueue;
@@ -38,6 +43,7 @@ public class QueryExecutionHelper implements AthenaAsyncClient {
     private Duration startQueryExecutionDelay;
     private Duration getQueryExecutionDelay;
     private Duration getQueryResultsDelay;
+    private List<ColumnInfo> resultColumns;
     private Lock getQueryExecutionBlocker;
     private boolean open;
     private TestClock clock;
@@ -50,6 +56,7 @@ public class QueryExecutionHelper implements AthenaAsyncClient {
         this.clock = clock;
         this.startQueryRequests = new LinkedList<>();
         this.getQueryExecutionRequests = new LinkedList<>();
+        this.batchGetQueryExecutionRequests = new LinkedList<>();
         this.getQueryResultsRequests = new LinkedList<>();
         this.stopQueryExecutionRequests = new LinkedList<>();
         this.startQueryExecutionResponseQueue = new LinkedList<>();
@@ -59,6 +66,7 @@ public class QueryExecutionHelper implements AthenaAsyncClient {
         this.startQueryExecutionDelay = Duration.ZERO;
         this.getQueryExecutionDelay = Duration.ZERO;
         this.getQueryResultsDelay = Duration.ZERO;
+        this.resultColumns = new ArrayList<>();
         this.getQueryExecutionBlocker = new ReentrantLock();
         this.open = true;
     }
@@ -79,6 +87,10 @@ public class QueryExecutionHelper implements AthenaAsyncClient {
         getQueryResultsDelay = delay;
     }
 
+    public void setResultColumns(List<ColumnInfo> columns) {
+        resultColumns = columns;
+    }
+
     public List<StartQueryExecutionRequest> startQueryRequests() {
         return startQueryRequests;
     }
@@ -87,6 +99,10 @@ public class QueryExecutionHelper implements AthenaAsyncClient {
         return getQueryExecutionRequests;
     }
 
+    public List<BatchGetQueryExecutionRequest> batchGetQueryExecutionRequests() {
+        return batchGetQueryExecutionRequests;
+    }
+
     public List<GetQueryResultsRequest> getQueryResultsRequests() {
         return getQueryResultsRequests;
     }
@@ -147,14 +163,13 @@ public class QueryExecutionHelper implements AthenaAsyncClient {
             ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
             scheduler.schedule(
                     () -> {
+                        clock.tick(delay);
                         try {
                             newFuture.complete(future.get());
                         } catch (ExecutionException e) {
                             newFuture.completeExceptionally(e.getCause());
                         } catch (Exception e) {
                             newFuture.completeExceptionally(e);
-                        } finally {
-                            clock.tick(delay);
                         }
                     },
                     delay.toMillis(),
@@ -203,6 +218,22 @@ public class QueryExecutionHelper implements AthenaAsyncClient {
         }
     }
 
+    @Override
+    public CompletableFuture<BatchGetQueryExecutionResponse> batchGetQueryExecution(Consumer<BatchGetQueryExecutionRequest.Builder> requestBuilderConsumer) {
+        BatchGetQueryExecutionRequest.Builder builder = BatchGetQueryExecutionRequest.builder();
+        requestBuilderConsumer.accept(builder);
+        BatchGetQueryExecutionRequest request = builder.build();
+        batchGetQueryExecutionRequests.add(request);
+        List<QueryExecution> queryExecutions = new ArrayList<>(request.queryExecutionIds().size());
+        for (String queryExecutionId : request.queryExecutionIds()) {
+            GetQueryExecutionResponse responsePrototype = getQueryExecutionResponseQueue.remove();
+            queryExecutions.add(responsePrototype.queryExecution().toBuilder().queryExecutionId(queryExecutionId).build());
+        }
+        BatchGetQueryExecutionResponse response = BatchGetQueryExecutionResponse.builder().queryExecutions(queryExecutions).build();
+        CompletableFuture<BatchGetQueryExecutionResponse> future = CompletableFuture.completedFuture(response);
+        return maybeDelayResponse(maybeFailResponse(future, getQueryExecutionExceptionQueue), getQueryExecutionDelay);
+    }
+
     @Override
     public CompletableFuture<GetQueryResultsResponse> getQueryResults(Consumer<GetQueryResultsRequest.Builder> requestBuilderConsumer) {
         GetQueryResultsRequest.Builder builder = GetQueryResultsRequest.builder();
@@ -212,7 +243,7 @@ public class QueryExecutionHelper implements AthenaAsyncClient {
         GetQueryResultsResponse response = GetQueryResultsResponse.builder().resultSet(b -> {
             b.rows(new Row[0]);
             b.resultSetMetadata(bb -> {
-                bb.columnInfo(new ColumnInfo[0]);
+                bb.columnInfo(resultColumns);
             });
         }).build();
         CompletableFuture<GetQueryResultsResponse> future = CompletableFuture.completedFuture(response);